@@ -0,0 +1,121 @@
+package htsjdk.samtools;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+/**
+ * A more compact variant of {@link SAMRecordSparkCodec} for serializing headerless SAMRecords in Spark shuffles.
+ *
+ * <p>
+ *     The fixed-length part of the BAM representation (36 bytes including the block size) is replaced by variable-length
+ *     integers, which usually take 12 to 16 bytes, and the reference names are written along with the record: the
+ *     mate reference name is only written if it differs from the reference name, and the unmapped reference name "*"
+ *     isn't written at all. The variable-length part (read name, cigar, bases packed 2 per byte, qualities and
+ *     attributes) keeps its BAM layout, and is copied as is for records read from a BAM file.
+ * </p>
+ *
+ * <p>
+ *     Records are decoded as {@link BAMRecord}s, which only decode the variable-length part when it's accessed: the
+ *     position, flags, mapping quality and reference names are available immediately, so that filters on them don't pay
+ *     for decoding the rest of the record.
+ * </p>
+ *
+ * <p>
+ *     Encoding and decoding are not thread-safe, and the output and input must be Kryo streams since they are used to
+ *     write the variable-length integers.
+ * </p>
+ */
+public final class SAMRecordCompactSparkCodec {
+    // bits of the byte describing the reference names of a record
+    private static final int NO_REFERENCE = 1;
+    private static final int NO_MATE_REFERENCE = 1 << 1;
+    private static final int MATE_ON_SAME_REFERENCE = 1 << 2;
+
+    private final SAMRecordSparkCodec variableBlockCodec = new SAMRecordSparkCodec();
+    private final SAMRecordFactory samRecordFactory;
+
+    public SAMRecordCompactSparkCodec() {
+        this(new DefaultSAMRecordFactory());
+    }
+
+    public SAMRecordCompactSparkCodec(final SAMRecordFactory factory) {
+        this.samRecordFactory = factory;
+    }
+
+    /**
+     * Writes a record, including its reference names, to a Kryo output.
+     *
+     * @param alignment Record to be written.
+     * @param output Output to write the record to.
+     */
+    public void encode(final SAMRecord alignment, final Output output) {
+        final String referenceName = alignment.getReferenceName();
+        final String mateReferenceName = alignment.getMateReferenceName();
+        final boolean noReference = SAMRecord.NO_ALIGNMENT_REFERENCE_NAME.equals(referenceName);
+        final boolean noMateReference = SAMRecord.NO_ALIGNMENT_REFERENCE_NAME.equals(mateReferenceName);
+        final boolean mateOnSameReference = !noReference && !noMateReference && referenceName.equals(mateReferenceName);
+        output.writeByte((noReference ? NO_REFERENCE : 0) |
+                         (noMateReference ? NO_MATE_REFERENCE : 0) |
+                         (mateOnSameReference ? MATE_ON_SAME_REFERENCE : 0));
+        if (!noReference) {
+            output.writeString(referenceName);
+        }
+        if (!noMateReference && !mateOnSameReference) {
+            output.writeString(mateReferenceName);
+        }
+
+        output.writeVarInt(alignment.getAlignmentStart(), true);
+        output.writeVarInt(alignment.getFlags(), true);
+        output.writeVarInt(alignment.getMappingQuality(), true);
+        output.writeVarInt(alignment.getMateAlignmentStart(), true);
+        output.writeVarInt(alignment.getInferredInsertSize(), false);
+        output.writeVarInt(alignment.getReadNameLength() + 1, true); // null terminated
+        output.writeVarInt(alignment.getCigarLength(), true);
+        output.writeVarInt(alignment.getReadLength(), true);
+        output.writeVarInt(SAMRecordSparkCodec.getVariableBinaryBlockSize(alignment), true);
+        variableBlockCodec.setOutputStream(output);
+        variableBlockCodec.writeVariableBinaryBlock(alignment);
+    }
+
+    /**
+     * Reads a record written by {@link #encode} from a Kryo input.
+     *
+     * @param input Input to read the record from.
+     * @return a headerless record, with its reference names set and its reference indices cleared
+     */
+    public SAMRecord decode(final Input input) {
+        final int referenceNames = input.readByte();
+        final String referenceName = (referenceNames & NO_REFERENCE) != 0 ? SAMRecord.NO_ALIGNMENT_REFERENCE_NAME : input.readString();
+        final String mateReferenceName;
+        if ((referenceNames & NO_MATE_REFERENCE) != 0) {
+            mateReferenceName = SAMRecord.NO_ALIGNMENT_REFERENCE_NAME;
+        } else if ((referenceNames & MATE_ON_SAME_REFERENCE) != 0) {
+            mateReferenceName = referenceName;
+        } else {
+            mateReferenceName = input.readString();
+        }
+
+        final int coordinate = input.readVarInt(true);
+        final int flags = input.readVarInt(true);
+        final short mappingQuality = (short) input.readVarInt(true);
+        final int mateCoordinate = input.readVarInt(true);
+        final int insertSize = input.readVarInt(false);
+        final short readNameLength = (short) input.readVarInt(true);
+        final int cigarLen = input.readVarInt(true);
+        final int readLen = input.readVarInt(true);
+        final byte[] restOfRecord = input.readBytes(input.readVarInt(true));
+        final BAMRecord record = this.samRecordFactory.createBAMRecord(
+                null, SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX, coordinate, readNameLength, mappingQuality,
+                0, cigarLen, flags, readLen, SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX, mateCoordinate, insertSize, restOfRecord);
+
+        // clear indexing bin to ensure all SAMRecords compare properly
+        record.setFlags(flags);
+
+        // set reference names, and explicitly clear the reference indices by calling setHeaderStrict(null), since
+        // setReferenceName() and setMateReferenceName() won't do so if either name is "*"
+        record.setReferenceName(referenceName);
+        record.setMateReferenceName(mateReferenceName);
+        record.setHeaderStrict(null);
+        return record;
+    }
+}
@@ -66,12 +66,38 @@ public class SAMRecordSparkCodec implements SortingCollection.Codec<SAMRecord> {
     @Override
     public void encode(final SAMRecord alignment) {
         // Compute block size, as it is the first element of the file representation of SAMRecord
-        final int readLength = alignment.getReadLength();
+        final int blockSize = BAMFileConstants.FIXED_BLOCK_SIZE + getVariableBinaryBlockSize(alignment);
 
-        final int cigarLength = alignment.getCigarLength();
+        // Blurt out the elements
+        this.binaryCodec.writeInt(blockSize);
+        this.binaryCodec.writeInt(SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX); // reference index is not used
+        // 0-based!!
+        this.binaryCodec.writeInt(alignment.getAlignmentStart() - 1);
+        this.binaryCodec.writeUByte((short)(alignment.getReadNameLength() + 1));
+        this.binaryCodec.writeUByte((short) alignment.getMappingQuality());
+        this.binaryCodec.writeUShort(0); // index bin is not used
+        this.binaryCodec.writeUShort(alignment.getCigarLength());
+        this.binaryCodec.writeUShort(alignment.getFlags());
+        this.binaryCodec.writeInt(alignment.getReadLength());
+        this.binaryCodec.writeInt(SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX);  // mate reference index is not used
+        this.binaryCodec.writeInt(alignment.getMateAlignmentStart() - 1);
+        this.binaryCodec.writeInt(alignment.getInferredInsertSize());
+        writeVariableBinaryBlock(alignment);
+    }
+
+    /**
+     * @return the size of the variable-length part of the BAM representation of a record: read name, cigar, bases,
+     *         qualities and attributes
+     */
+    static int getVariableBinaryBlockSize(final SAMRecord alignment) {
+        final byte[] variableLengthBinaryBlock = alignment.getVariableBinaryRepresentation();
+        if (variableLengthBinaryBlock != null) {
+            return variableLengthBinaryBlock.length;
+        }
 
-        int blockSize = BAMFileConstants.FIXED_BLOCK_SIZE + alignment.getReadNameLength() + 1  + // null terminated
-                        cigarLength * 4 +
+        final int readLength = alignment.getReadLength();
+        int blockSize = alignment.getReadNameLength() + 1  + // null terminated
+                        alignment.getCigarLength() * 4 +
                         (readLength + 1) / 2 + // 2 bases per byte, round up
                         readLength;
 
@@ -86,21 +112,14 @@ public class SAMRecordSparkCodec implements SortingCollection.Codec<SAMRecord> {
                 attribute = attribute.getNext();
             }
         }
+        return blockSize;
+    }
 
-        // Blurt out the elements
-        this.binaryCodec.writeInt(blockSize);
-        this.binaryCodec.writeInt(SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX); // reference index is not used
-        // 0-based!!
-        this.binaryCodec.writeInt(alignment.getAlignmentStart() - 1);
-        this.binaryCodec.writeUByte((short)(alignment.getReadNameLength() + 1));
-        this.binaryCodec.writeUByte((short) alignment.getMappingQuality());
-        this.binaryCodec.writeUShort(0); // index bin is not used
-        this.binaryCodec.writeUShort(cigarLength);
-        this.binaryCodec.writeUShort(alignment.getFlags());
-        this.binaryCodec.writeInt(alignment.getReadLength());
-        this.binaryCodec.writeInt(SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX);  // mate reference index is not used
-        this.binaryCodec.writeInt(alignment.getMateAlignmentStart() - 1);
-        this.binaryCodec.writeInt(alignment.getInferredInsertSize());
+    /**
+     * Writes the variable-length part of the BAM representation of a record, which takes
+     * {@link #getVariableBinaryBlockSize} bytes, to the output stream.
+     */
+    void writeVariableBinaryBlock(final SAMRecord alignment) {
         final byte[] variableLengthBinaryBlock = alignment.getVariableBinaryRepresentation();
         if (variableLengthBinaryBlock != null) {
             // Don't need to encode variable-length block, because it is unchanged from
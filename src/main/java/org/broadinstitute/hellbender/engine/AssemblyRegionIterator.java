@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.engine;
 
+import com.google.common.collect.Iterators;
 import htsjdk.samtools.SAMFileHeader;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -69,6 +70,8 @@ public class AssemblyRegionIterator implements Iterator<AssemblyRegion> {
      * @param activeProbThreshold minimum probability for a locus to be considered active
      * @param maxProbPropagationDistance upper limit on how many bases away probability mass can be moved around
      *                                   when calculating the boundaries between active and inactive assembly regions
+     * @param includeReadsWithDeletionsInIsActivePileups whether reads with deletions are included in the pileups
+     *                                                   passed to the evaluator
      */
     public AssemblyRegionIterator(final MultiIntervalShard<GATKRead> readShard,
                                   final SAMFileHeader readHeader,
@@ -81,6 +84,33 @@ public class AssemblyRegionIterator implements Iterator<AssemblyRegion> {
                                   final double activeProbThreshold,
                                   final int maxProbPropagationDistance,
                                   final boolean includeReadsWithDeletionsInIsActivePileups) {
+        this(readShard, readHeader, reference, features, evaluator, minRegionSize, maxRegionSize, assemblyRegionPadding,
+                activeProbThreshold, maxProbPropagationDistance, includeReadsWithDeletionsInIsActivePileups, true);
+    }
+
+    /**
+     * Constructs an AssemblyRegionIterator over a provided read shard, optionally only evaluating the covered loci.
+     *
+     * With {@code includeUncoveredLoci} false, the assembly regions are the same as those of
+     * {@link AssemblyRegion#createFromReadShard}, which this iterator can replace without changing the output of
+     * the tools that use it, while loading the reads lazily.
+     *
+     * @param includeUncoveredLoci whether the loci of the shard's intervals that no read covers are evaluated, as in
+     *                             GATK 3.x and {@link AssemblyRegionWalker}, or only the covered loci within the intervals
+     * @see #AssemblyRegionIterator(MultiIntervalShard, SAMFileHeader, ReferenceDataSource, FeatureManager, AssemblyRegionEvaluator, int, int, int, double, int, boolean)
+     */
+    public AssemblyRegionIterator(final MultiIntervalShard<GATKRead> readShard,
+                                  final SAMFileHeader readHeader,
+                                  final ReferenceDataSource reference,
+                                  final FeatureManager features,
+                                  final AssemblyRegionEvaluator evaluator,
+                                  final int minRegionSize,
+                                  final int maxRegionSize,
+                                  final int assemblyRegionPadding,
+                                  final double activeProbThreshold,
+                                  final int maxProbPropagationDistance,
+                                  final boolean includeReadsWithDeletionsInIsActivePileups,
+                                  final boolean includeUncoveredLoci) {
 
         Utils.nonNull(readShard);
         Utils.nonNull(readHeader);
@@ -110,11 +140,16 @@ public class AssemblyRegionIterator implements Iterator<AssemblyRegion> {
         this.readCache = new ArrayDeque<>();
         this.activityProfile = new BandPassActivityProfile(null, maxProbPropagationDistance, activeProbThreshold, BandPassActivityProfile.MAX_FILTER_SIZE, BandPassActivityProfile.DEFAULT_SIGMA, readHeader);
 
-        // We wrap our LocusIteratorByState inside an IntervalAlignmentContextIterator so that we get empty loci
-        // for uncovered locations. This is critical for reproducing GATK 3.x behavior!
         this.libs = new LocusIteratorByState(readCachingIterator, DownsamplingMethod.NONE, false, ReadUtils.getSamplesFromHeader(readHeader), readHeader, includeReadsWithDeletionsInIsActivePileups);
-        final IntervalLocusIterator intervalLocusIterator = new IntervalLocusIterator(readShard.getIntervals().iterator());
-        this.locusIterator = new IntervalAlignmentContextIterator(libs, intervalLocusIterator, readHeader.getSequenceDictionary());
+        if ( includeUncoveredLoci ) {
+            // We wrap our LocusIteratorByState inside an IntervalAlignmentContextIterator so that we get empty loci
+            // for uncovered locations. This is critical for reproducing GATK 3.x behavior!
+            final IntervalLocusIterator intervalLocusIterator = new IntervalLocusIterator(readShard.getIntervals().iterator());
+            this.locusIterator = new IntervalAlignmentContextIterator(libs, intervalLocusIterator, readHeader.getSequenceDictionary());
+        } else {
+            final List<SimpleInterval> intervals = readShard.getIntervals();
+            this.locusIterator = Iterators.filter(libs, pileup -> intervals.stream().anyMatch(interval -> interval.contains(pileup.getLocation())));
+        }
 
         readyRegion = loadNextAssemblyRegion();
     }
@@ -1,10 +1,12 @@
 package org.broadinstitute.hellbender.engine;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.intel.genomicsdb.GenomicsDBFeatureReader;
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.tribble.*;
 import htsjdk.variant.bcf2.BCF2Codec;
 import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFCodec;
 import htsjdk.variant.vcf.VCFHeader;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -25,6 +27,8 @@ import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Path;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Function;
 
 /**
@@ -117,6 +121,36 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
      */
     private final boolean supportsRandomAccess;
 
+    /**
+     * Number of threads used to decode the records of a VCF during full traversals (1 to decode them on the
+     * traversal thread).
+     */
+    private final int decodingThreads;
+
+    /**
+     * Executor on which the records are read and decoded during full traversals, created on first use if
+     * decodingThreads > 1 and the input is a VCF.
+     */
+    private ExecutorService decodingExecutor;
+
+    /**
+     * Reader returning the undecoded records of a VCF for full traversals when decodingThreads > 1, created on first use
+     * (null otherwise).
+     */
+    private AbstractFeatureReader<RawVariantLine, ?> rawLineReader;
+    private RawVariantLineCodec rawLineCodec;
+
+    /**
+     * Wrappers for the data and index channels, used when creating readers over inputs on Google Cloud.
+     */
+    private final Function<SeekableByteChannel, SeekableByteChannel> cloudWrapper;
+    private final Function<SeekableByteChannel, SeekableByteChannel> cloudIndexWrapper;
+
+    /**
+     * Number of records read and decoded at a time when decoding in parallel.
+     */
+    public static final int DECODING_BATCH_SIZE = 100;
+
     /**
      * Default value for queryLookaheadBases, if none is specified. This is designed to be large enough
      * so that in typical usage (ie., query intervals with gradually increasing start locations) there will
@@ -233,11 +267,35 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
      */
     public FeatureDataSource(final FeatureInput<T> featureInput, final int queryLookaheadBases, final Class<? extends Feature> targetFeatureType,
                              final int cloudPrefetchBuffer, final int cloudIndexPrefetchBuffer, final Path reference) {
+        this(featureInput, queryLookaheadBases, targetFeatureType, cloudPrefetchBuffer, cloudIndexPrefetchBuffer, reference, 1);
+    }
+
+    /**
+     * Creates a FeatureDataSource backed by the provided FeatureInput. We will look ahead the specified number of bases
+     * during queries that produce cache misses.
+     *
+     * When decodingThreads is greater than 1 and the input is a VCF, full traversals via {@link #iterator} read the
+     * records ahead on one thread at a time, and decode them (genotypes included) in batches on a pool of that many
+     * threads, while still returning them in order. Queries are not affected.
+     *
+     * @param featureInput a FeatureInput specifying a source of Features
+     * @param queryLookaheadBases look ahead this many bases during queries that produce cache misses
+     * @param targetFeatureType When searching for a {@link FeatureCodec} for this data source, restrict the search to codecs
+     *                          that produce this type of Feature. May be null, which results in an unrestricted search.
+     * @param cloudPrefetchBuffer  MB size of caching/prefetching wrapper for the data, if on Google Cloud (0 to disable).
+     * @param cloudIndexPrefetchBuffer MB size of caching/prefetching wrapper for the index, if on Google Cloud (0 to disable).
+     * @param reference Path to a reference. May be null. Needed only for reading from GenomicsDB.
+     * @param decodingThreads number of threads used to decode VCF records during full traversals, must be >= 1
+     */
+    public FeatureDataSource(final FeatureInput<T> featureInput, final int queryLookaheadBases, final Class<? extends Feature> targetFeatureType,
+                             final int cloudPrefetchBuffer, final int cloudIndexPrefetchBuffer, final Path reference, final int decodingThreads) {
         Utils.validateArg( queryLookaheadBases >= 0, "Query lookahead bases must be >= 0");
+        Utils.validateArg( decodingThreads >= 1, "Decoding threads must be >= 1");
         this.featureInput = Utils.nonNull(featureInput, "featureInput must not be null");
+        this.decodingThreads = decodingThreads;
 
-        final Function<SeekableByteChannel, SeekableByteChannel> cloudWrapper = (cloudPrefetchBuffer > 0 ? is -> SeekableByteChannelPrefetcher.addPrefetcher(cloudPrefetchBuffer, is) : Function.identity());
-        final Function<SeekableByteChannel, SeekableByteChannel> cloudIndexWrapper = (cloudIndexPrefetchBuffer > 0 ? is -> SeekableByteChannelPrefetcher.addPrefetcher(cloudIndexPrefetchBuffer, is) : Function.identity());
+        this.cloudWrapper = (cloudPrefetchBuffer > 0 ? is -> SeekableByteChannelPrefetcher.addPrefetcher(cloudPrefetchBuffer, is) : Function.identity());
+        this.cloudIndexWrapper = (cloudIndexPrefetchBuffer > 0 ? is -> SeekableByteChannelPrefetcher.addPrefetcher(cloudIndexPrefetchBuffer, is) : Function.identity());
 
         // Create a feature reader without requiring an index.  We will require one ourselves as soon as
         // a query by interval is attempted.
@@ -321,7 +379,7 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
         return codec;
     }
 
-    private static <T extends Feature> AbstractFeatureReader<T, ?> getTribbleFeatureReader(final FeatureInput<T> featureInput, final FeatureCodec<T, ?> codec, Function<SeekableByteChannel, SeekableByteChannel> cloudWrapper, Function<SeekableByteChannel, SeekableByteChannel> cloudIndexWrapper) {
+    private static <F extends Feature> AbstractFeatureReader<F, ?> getTribbleFeatureReader(final FeatureInput<?> featureInput, final FeatureCodec<F, ?> codec, Function<SeekableByteChannel, SeekableByteChannel> cloudWrapper, Function<SeekableByteChannel, SeekableByteChannel> cloudIndexWrapper) {
         Utils.nonNull(codec);
         try {
             final String absolutePath = IOUtils.getPath(featureInput.getFeaturePath()).toAbsolutePath().toUri().toString();
@@ -443,8 +501,13 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
 
         try {
             // Save the iterator returned so that we can close it properly later
-            currentIterator = intervalsForTraversal != null ? new FeatureIntervalIterator<T>(intervalsForTraversal, featureReader, featureInput.getFeaturePath())
-                                                            : featureReader.iterator();
+            if ( decodesInParallel() ) {
+                currentIterator = getParallelDecodingIterator();
+            }
+            else {
+                currentIterator = intervalsForTraversal != null ? new FeatureIntervalIterator<T>(intervalsForTraversal, featureReader, featureInput.getFeaturePath())
+                                                                : featureReader.iterator();
+            }
             return currentIterator;
         }
         catch ( IOException e ) {
@@ -452,6 +515,39 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
         }
     }
 
+    /**
+     * @return true if full traversals decode the records on a pool of threads
+     */
+    private boolean decodesInParallel() {
+        // only plain VCFCodec inputs, which excludes BCF, GenomicsDB and older VCF versions
+        return decodingThreads > 1 && VCFCodec.class.equals(featureInput.getFeatureCodecClass());
+    }
+
+    /**
+     * Gets an iterator over the records of a VCF that decodes them on our decoding executor.
+     *
+     * The undecoded records come from a separate reader over the same file, so that they are restricted to our
+     * intervals for traversal exactly as the records of our main reader would be.
+     */
+    @SuppressWarnings("unchecked")
+    private CloseableTribbleIterator<T> getParallelDecodingIterator() throws IOException {
+        if ( rawLineReader == null ) {
+            rawLineCodec = new RawVariantLineCodec();
+            rawLineReader = getTribbleFeatureReader(featureInput, rawLineCodec, cloudWrapper, cloudIndexWrapper);
+        }
+        if ( decodingExecutor == null ) {
+            decodingExecutor = Executors.newFixedThreadPool(decodingThreads,
+                    new ThreadFactoryBuilder().setNameFormat("variant-decoding-%d").setDaemon(true).build());
+        }
+
+        final CloseableTribbleIterator<RawVariantLine> lines = intervalsForTraversal != null ?
+                new FeatureIntervalIterator<>(intervalsForTraversal, rawLineReader, featureInput.getFeaturePath()) :
+                rawLineReader.iterator();
+        // keep enough batches in flight for all the threads to stay busy while the oldest batch is consumed
+        return (CloseableTribbleIterator<T>)(CloseableTribbleIterator<?>)new ParallelVariantDecodingIterator(lines,
+                rawLineCodec.getHeader(), rawLineCodec.getVersion(), DECODING_BATCH_SIZE, 2 * decodingThreads, decodingExecutor);
+    }
+
     /**
      * Gets an iterator over all Features in this data source that overlap the provided interval.
      *
@@ -577,10 +673,18 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
             if ( featureReader != null ) {
                 featureReader.close();
             }
+            if ( rawLineReader != null ) {
+                rawLineReader.close();
+            }
         }
         catch ( IOException e ) {
             throw new GATKException("Error closing Feature reader for input " + featureInput);
         }
+
+        if ( decodingExecutor != null ) {
+            decodingExecutor.shutdownNow();
+            decodingExecutor = null;
+        }
     }
 
     /**
@@ -10,6 +10,7 @@ import htsjdk.variant.variantcontext.writer.Options;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import htsjdk.variant.vcf.VCFHeaderLine;
 import htsjdk.variant.vcf.VCFSimpleHeaderLine;
+import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
 import org.broadinstitute.barclay.argparser.CommandLinePluginDescriptor;
@@ -114,6 +115,19 @@ public abstract class GATKTool extends CommandLineProgram {
             optional = true)
     public boolean disableBamIndexCaching = false;
 
+    public static final String READ_DECODING_THREADS_LONG_NAME = "read-decoding-threads";
+
+    /**
+     * When greater than 1, traversals over all the reads of a BAM read and decode them on a pool of this many threads,
+     * starting at the read boundaries recorded in the BAM's splitting index, and return them in their original order.
+     * The splitting index is created next to the BAM, which requires reading the BAM once, if it doesn't have an
+     * up-to-date one. Traversals restricted to intervals are unaffected.
+     */
+    @Advanced
+    @Argument(fullName = READ_DECODING_THREADS_LONG_NAME,
+            doc = "Number of threads used to read and decode BAM inputs during traversal", optional = true, minValue = 1)
+    public int readDecodingThreads = 1;
+
     /**
      * Master sequence dictionary to be used instead of all other dictionaries (if provided).
      */
@@ -317,6 +331,7 @@ public abstract class GATKTool extends CommandLineProgram {
 
             reads = new ReadsDataSource(readArguments.getReadPaths(), readArguments.getReadIndexPaths(), factory, cloudPrefetchBuffer,
                 (cloudIndexPrefetchBuffer < 0 ? cloudPrefetchBuffer : cloudIndexPrefetchBuffer));
+            reads.setDecodingThreads(readDecodingThreads);
         }
         else {
             reads = null;
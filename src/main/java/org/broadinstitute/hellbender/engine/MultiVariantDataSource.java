@@ -82,13 +82,33 @@ public final class MultiVariantDataSource implements GATKDataSource<VariantConte
      * @param reference reference to use when creating FeatureDataSources, may be null, only needed by GenomicsDB
      */
     public MultiVariantDataSource(final List<FeatureInput<VariantContext>> featureInputs, final int queryLookaheadBases, final int cloudPrefetchBuffer, final int cloudIndexPrefetchBuffer, final Path reference) {
+        this(featureInputs, queryLookaheadBases, cloudPrefetchBuffer, cloudIndexPrefetchBuffer, reference, 1);
+    }
+
+    /**
+     * Creates a MultiVariantDataSource backed by the provided FeatureInputs. We will look ahead the specified number of bases
+     * during queries that produce cache misses.
+     *
+     * When decodingThreads is greater than 1, each VCF source decodes its records on a pool of that many threads during
+     * full traversals via {@link #iterator} (see {@link FeatureDataSource}), so that the sources are decoded concurrently
+     * while they are merged.
+     *
+     * @param featureInputs List of FeatureInput<VariantContext>> specifying sources of VariantContexts
+     * @param queryLookaheadBases look ahead this many bases during queries that produce cache misses
+     * @param cloudPrefetchBuffer  MB size of caching/prefetching wrapper for the data, if on Google Cloud (0 to disable).
+     * @param cloudIndexPrefetchBuffer MB size of caching/prefetching wrapper for the index, if on Google Cloud (0 to disable).
+     * @param reference reference to use when creating FeatureDataSources, may be null, only needed by GenomicsDB
+     * @param decodingThreads number of threads used to decode the sources during full traversals, must be >= 1
+     */
+    public MultiVariantDataSource(final List<FeatureInput<VariantContext>> featureInputs, final int queryLookaheadBases, final int cloudPrefetchBuffer, final int cloudIndexPrefetchBuffer, final Path reference, final int decodingThreads) {
         Utils.validateArg(queryLookaheadBases >= 0, "Query lookahead bases must be >= 0");
         Utils.validateArg(featureInputs != null && featureInputs.size() > 0, "FeatureInputs list must be non-null and non-empty");
+        Utils.validateArg(decodingThreads >= 1, "Decoding threads must be >= 1");
 
         featureInputs.forEach(
                 featureInput -> featureDataSources.add(
                         new FeatureDataSource<>(featureInput, queryLookaheadBases, VariantContext.class, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
-                                                reference)));
+                                                reference, decodingThreads)));
 
         // Ensure that the merged header and sequence dictionary that we use are in sync with each
         // other, and reflect the actual dictionaries used to do validation:
@@ -3,6 +3,7 @@ package org.broadinstitute.hellbender.engine;
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFHeader;
+import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.utils.samples.Sample;
@@ -28,6 +29,15 @@ public abstract class MultiVariantWalker extends VariantWalkerBase {
                 doc = "One or more VCF files containing variants", common = false, optional = false)
     public List<String> drivingVariantFiles = new ArrayList<>();
 
+    /**
+     * When greater than 1, each input is read ahead and decoded in batches on a pool of this many threads, so that
+     * the inputs are decoded concurrently while they are merged. This is most useful with many inputs.
+     */
+    @Advanced
+    @Argument(fullName = VARIANT_DECODING_THREADS_LONG_NAME,
+                doc = "Number of threads used to decode the variant inputs during traversal", optional = true, minValue = 1)
+    public int variantDecodingThreads = 1;
+
     // NOTE: keeping the driving source of variants separate from other, supplementary FeatureInputs in our FeatureManager
     // in GATKTool we do add the driving source to the Feature manager but we do need to treat it differently and thus this
     // field.
@@ -68,7 +78,7 @@ public abstract class MultiVariantWalker extends VariantWalkerBase {
                 }
         );
         drivingVariants = new MultiVariantDataSource(drivingVariantsFeatureInputs, VariantWalkerBase.FEATURE_CACHE_LOOKAHEAD, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
-                                                     referenceArguments.getReferencePath());
+                                                     referenceArguments.getReferencePath(), variantDecodingThreads);
 
         //Note: the intervals for the driving variants are set in onStartup
     }
@@ -0,0 +1,132 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.samtools.BAMFileSpan;
+import htsjdk.samtools.Chunk;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMRecordIterator;
+import htsjdk.samtools.SAMTag;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.util.CloseableIterator;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+/**
+ * Reads and decodes the records of a BAM on a pool of threads, while returning them in their original order.
+ *
+ * <p>
+ *     The BAM is divided into splits that start and end at exact record boundaries, typically the entries of its
+ *     splitting index, and each split is read by a separate task of {@link Utils#flatTransformParallel}. Up to a fixed number of splits are read
+ *     concurrently; the traversal thread only waits for the oldest one.
+ * </p>
+ *
+ * <p>
+ *     Each thread reads with its own {@link SamReader} over the same file. The variable-length fields of the records,
+ *     which would otherwise be decoded lazily on whichever thread first accesses them, are decoded as part of the
+ *     task, so that decompressing and decoding both happen concurrently.
+ * </p>
+ *
+ * <p>
+ *     Closing this iterator waits for the splits being read, discarding them, and closes the readers of the threads.
+ * </p>
+ */
+final class ParallelReadDecodingIterator implements CloseableIterator<SAMRecord> {
+
+    private final SAMFileHeader header;
+    private final List<SamReader> readers = new ArrayList<>();
+    private final ThreadLocal<SamReader> threadReaders;
+    private final CloseableIterator<SAMRecord> records;
+    private boolean closed = false;
+
+    /**
+     * Creates a new iterator and immediately starts reading the first splits.
+     *
+     * @param readerSupplier opens a new reader over the BAM (may not be null), which must be a BAM reader
+     * @param header header of the BAM, which is set on the returned records (may not be null)
+     * @param splits the splits of the BAM, in file order (may not be null)
+     * @param maxSplitsInFlight maximum number of splits being read at any time (must be positive)
+     * @param executor executor on which to read the splits (may not be null)
+     */
+    ParallelReadDecodingIterator(final Supplier<SamReader> readerSupplier, final SAMFileHeader header, final List<Chunk> splits,
+                                 final int maxSplitsInFlight, final ExecutorService executor) {
+        Utils.nonNull(readerSupplier);
+        this.header = Utils.nonNull(header);
+        Utils.nonNull(splits);
+        this.threadReaders = ThreadLocal.withInitial(() -> {
+            final SamReader reader = readerSupplier.get();
+            if ( ! (reader instanceof SamReader.PrimitiveSamReaderToSamReaderAdapter) ) {
+                throw new GATKException("Reads can only be read in parallel from a BAM, but got a reader of type " + reader.type());
+            }
+            synchronized (readers) {
+                // a task that was already running when this iterator was closed must not leak a new reader
+                if ( closed ) {
+                    closeReader(reader);
+                    throw new GATKException("The iterator was closed");
+                }
+                readers.add(reader);
+            }
+            return reader;
+        });
+        this.records = Utils.flatTransformParallel(splits.iterator(), this::readSplit, maxSplitsInFlight, executor);
+    }
+
+    private List<SAMRecord> readSplit(final Chunk split) {
+        final SamReader.PrimitiveSamReaderToSamReaderAdapter reader = (SamReader.PrimitiveSamReaderToSamReaderAdapter) threadReaders.get();
+        final List<SAMRecord> splitRecords = new ArrayList<>();
+        try ( final SAMRecordIterator iterator = reader.iterator(new BAMFileSpan(split)) ) {
+            while ( iterator.hasNext() ) {
+                final SAMRecord record = iterator.next();
+                record.setHeader(header);
+                decodeLazyFields(record);
+                splitRecords.add(record);
+            }
+        }
+        return splitRecords;
+    }
+
+    /**
+     * Decodes the variable-length fields that BAM records only decode when they are first accessed.
+     */
+    private static void decodeLazyFields(final SAMRecord record) {
+        record.getReadName();
+        record.getCigar();
+        record.getReadBases();
+        record.getBaseQualities();
+        // accessing any attribute decodes all of them
+        record.getAttribute(SAMTag.RG.name());
+    }
+
+    @Override
+    public boolean hasNext() {
+        return records.hasNext();
+    }
+
+    @Override
+    public SAMRecord next() {
+        return records.next();
+    }
+
+    @Override
+    public void close() {
+        records.close();
+        synchronized (readers) {
+            closed = true;
+            readers.forEach(ParallelReadDecodingIterator::closeReader);
+            readers.clear();
+        }
+    }
+
+    private static void closeReader(final SamReader reader) {
+        try {
+            reader.close();
+        } catch ( final IOException e ) {
+            throw new GATKException("Error closing SAMReader", e);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.broadinstitute.hellbender.engine;
+
+import com.google.common.collect.Iterators;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.tribble.CloseableTribbleIterator;
+import htsjdk.variant.variantcontext.LazyGenotypesContext;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFCodec;
+import htsjdk.variant.vcf.VCFHeader;
+import htsjdk.variant.vcf.VCFHeaderVersion;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Decodes the records of a VCF on a pool of threads, while returning them in their original order.
+ *
+ * <p>
+ *     The undecoded lines are read ahead in batches by {@link Utils#prefetchParallel}, so that reading (and
+ *     decompressing) the input happens on one thread at a time, and each batch of lines is then decoded by a separate
+ *     task of {@link Utils#flatTransformParallel}. Up to a fixed number of batches are decoded concurrently; the
+ *     traversal thread only waits for the oldest one. Since none of the tasks ever blocks, reading and decoding can
+ *     share the same executor.
+ * </p>
+ *
+ * <p>
+ *     Each thread decodes with its own {@link VCFCodec}. The genotypes, which the codec would otherwise leave to be
+ *     parsed lazily by that same codec on whichever thread first accesses them, are parsed as part of the decoding, so
+ *     that the returned records no longer depend on the codec and the most expensive part of the decoding is done
+ *     concurrently as well.
+ * </p>
+ *
+ * <p>
+ *     Closing this iterator waits for the batches being read and decoded, if any, and closes the iterator over the lines.
+ * </p>
+ */
+final class ParallelVariantDecodingIterator implements CloseableTribbleIterator<VariantContext> {
+
+    private final CloseableTribbleIterator<RawVariantLine> lines;
+    private final CloseableIterator<RawVariantLine> prefetchedLines;
+    private final ThreadLocal<VCFCodec> codecs;
+    private final CloseableIterator<VariantContext> variants;
+
+    /**
+     * Creates a new iterator and immediately starts reading ahead.
+     *
+     * @param lines the lines to decode (may not be null), which are closed along with this iterator
+     * @param header header of the VCF (may not be null)
+     * @param version version of the VCF (may not be null)
+     * @param batchSize number of lines read and decoded by each task (must be positive)
+     * @param maxBatchesInFlight maximum number of batches being decoded at any time (must be positive)
+     * @param executor executor on which to read and decode the lines (may not be null)
+     */
+    ParallelVariantDecodingIterator(final CloseableTribbleIterator<RawVariantLine> lines, final VCFHeader header, final VCFHeaderVersion version,
+                                    final int batchSize, final int maxBatchesInFlight, final ExecutorService executor) {
+        this.lines = Utils.nonNull(lines);
+        Utils.nonNull(header);
+        Utils.nonNull(version);
+
+        // private copy of the header, which the codecs copy in turn, since codecs may modify their header
+        final VCFHeader codecHeader = new VCFHeader(header);
+        this.codecs = ThreadLocal.withInitial(() -> {
+            final VCFCodec codec = new VCFCodec();
+            synchronized (codecHeader) {
+                codec.setVCFHeader(new VCFHeader(codecHeader), version);
+            }
+            return codec;
+        });
+        this.prefetchedLines = Utils.prefetchParallel(lines, batchSize, executor);
+        this.variants = Utils.flatTransformParallel(Iterators.partition(prefetchedLines, batchSize), this::decodeBatch,
+                maxBatchesInFlight, executor);
+    }
+
+    private List<VariantContext> decodeBatch(final List<RawVariantLine> batch) {
+        final VCFCodec codec = codecs.get();
+        final List<VariantContext> variants = new ArrayList<>(batch.size());
+        for (final RawVariantLine line : batch) {
+            final VariantContext vc = codec.decode(line.getLine());
+            if (vc.getGenotypes() instanceof LazyGenotypesContext) {
+                ((LazyGenotypesContext) vc.getGenotypes()).decode();
+            }
+            variants.add(vc);
+        }
+        return variants;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return variants.hasNext();
+    }
+
+    @Override
+    public VariantContext next() {
+        return variants.next();
+    }
+
+    @Override
+    public void close() {
+        variants.close();
+        prefetchedLines.close();
+        lines.close();
+    }
+
+    @Override
+    public Iterator<VariantContext> iterator() {
+        return this;
+    }
+}
@@ -0,0 +1,45 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.tribble.Feature;
+import org.broadinstitute.hellbender.utils.Utils;
+
+/**
+ * An undecoded VCF record: its text, along with just enough of it parsed (its location) for the record to be filtered
+ * by interval by a feature reader before being decoded.
+ */
+final class RawVariantLine implements Feature {
+
+    private final String contig;
+    private final int start;
+    private final int end;
+    private final String line;
+
+    RawVariantLine(final String contig, final int start, final int end, final String line) {
+        this.contig = Utils.nonNull(contig);
+        this.start = start;
+        this.end = end;
+        this.line = Utils.nonNull(line);
+    }
+
+    @Override
+    public String getContig() {
+        return contig;
+    }
+
+    @Override
+    public int getStart() {
+        return start;
+    }
+
+    @Override
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     * @return the full text of the record
+     */
+    String getLine() {
+        return line;
+    }
+}
@@ -0,0 +1,126 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.tribble.AsciiFeatureCodec;
+import htsjdk.tribble.readers.LineIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFCodec;
+import htsjdk.variant.vcf.VCFConstants;
+import htsjdk.variant.vcf.VCFHeader;
+import htsjdk.variant.vcf.VCFHeaderVersion;
+
+/**
+ * Reads the records of a VCF as {@link RawVariantLine}s, so that they can be decoded elsewhere (e.g. on other threads).
+ *
+ * <p>
+ *     The header is parsed by a regular {@link VCFCodec}, from which the header and version needed to configure the
+ *     codecs decoding the records can be retrieved. Of each record, only CHROM, POS, the length of REF and the END key of
+ *     INFO are parsed, which is enough to compute the same location as the full decoding would. Records too malformed
+ *     to be located this way are handed to the regular codec so that the same error as usual is reported.
+ * </p>
+ *
+ * <p>
+ *     This codec is never picked automatically for an input: it is meant to be handed explicitly to a feature reader
+ *     over a file already known to be a VCF.
+ * </p>
+ */
+final class RawVariantLineCodec extends AsciiFeatureCodec<RawVariantLine> {
+
+    private static final char FIELD_SEPARATOR = VCFConstants.FIELD_SEPARATOR_CHAR;
+    private static final int REF_COLUMN = 3;
+    private static final int INFO_COLUMN = 7;
+    private static final String END_PREFIX = VCFConstants.END_KEY + "=";
+
+    private final VersionedVCFCodec vcfCodec = new VersionedVCFCodec();
+
+    RawVariantLineCodec() {
+        super(RawVariantLine.class);
+    }
+
+    @Override
+    public Object readActualHeader(final LineIterator reader) {
+        return vcfCodec.readActualHeader(reader);
+    }
+
+    /**
+     * @return the header read by this codec, or null if it hasn't been read yet
+     */
+    VCFHeader getHeader() {
+        return vcfCodec.getHeader();
+    }
+
+    /**
+     * @return the version of the header read by this codec, or null if it hasn't been read yet
+     */
+    VCFHeaderVersion getVersion() {
+        return vcfCodec.getVersion();
+    }
+
+    @Override
+    public RawVariantLine decode(final String line) {
+        if (line.isEmpty() || line.startsWith(VCFHeader.HEADER_INDICATOR)) {
+            return null;
+        }
+
+        // find the start of the first eight columns, stopping at the end of the INFO column
+        final int[] columnStarts = new int[INFO_COLUMN + 2];
+        int column = 0;
+        for (int i = 0; column < INFO_COLUMN && i < line.length(); i++) {
+            if (line.charAt(i) == FIELD_SEPARATOR) {
+                columnStarts[++column] = i + 1;
+            }
+        }
+        if (column < INFO_COLUMN) {
+            return decodeWithVCFCodec(line);
+        }
+        final int infoEnd = line.indexOf(FIELD_SEPARATOR, columnStarts[INFO_COLUMN]);
+        columnStarts[INFO_COLUMN + 1] = (infoEnd < 0 ? line.length() : infoEnd) + 1;
+
+        try {
+            final int start = Integer.parseInt(line.substring(columnStarts[1], columnStarts[2] - 1));
+            final String endValue = findEnd(line.substring(columnStarts[INFO_COLUMN], columnStarts[INFO_COLUMN + 1] - 1));
+            final int end = endValue != null ? Integer.parseInt(endValue) : start + columnStarts[REF_COLUMN + 1] - columnStarts[REF_COLUMN] - 2;
+            return new RawVariantLine(line.substring(0, columnStarts[1] - 1), start, end, line);
+        } catch (final NumberFormatException e) {
+            return decodeWithVCFCodec(line);
+        }
+    }
+
+    private static String findEnd(final String info) {
+        int keyStart = 0;
+        while (keyStart < info.length()) {
+            int keyEnd = info.indexOf(VCFConstants.INFO_FIELD_SEPARATOR_CHAR, keyStart);
+            if (keyEnd < 0) {
+                keyEnd = info.length();
+            }
+            if (info.startsWith(END_PREFIX, keyStart)) {
+                return info.substring(keyStart + END_PREFIX.length(), keyEnd);
+            }
+            keyStart = keyEnd + 1;
+        }
+        return null;
+    }
+
+    // only reached for malformed lines, for which the VCFCodec is expected to throw
+    private RawVariantLine decodeWithVCFCodec(final String line) {
+        final VariantContext vc = vcfCodec.decode(line);
+        return new RawVariantLine(vc.getContig(), vc.getStart(), vc.getEnd(), line);
+    }
+
+    @Override
+    public boolean canDecode(final String path) {
+        return false;
+    }
+
+    /**
+     * A VCFCodec giving access to the version of the header it read.
+     */
+    private static final class VersionedVCFCodec extends VCFCodec {
+        VCFHeader getHeader() {
+            return header;
+        }
+
+        VCFHeaderVersion getVersion() {
+            return version;
+        }
+    }
+}
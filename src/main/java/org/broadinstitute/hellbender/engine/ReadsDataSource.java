@@ -1,6 +1,7 @@
 package org.broadinstitute.hellbender.engine;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import htsjdk.samtools.*;
 import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.samtools.util.IOUtil;
@@ -19,10 +20,14 @@ import org.broadinstitute.hellbender.utils.iterators.SamReaderQueryingIterator;
 import org.broadinstitute.hellbender.utils.nio.SeekableByteChannelPrefetcher;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadConstants;
+import org.broadinstitute.hellbender.utils.read.SplittingIndexUtils;
+import org.seqdoop.hadoop_bam.SplittingBAMIndexer;
 
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 /**
@@ -78,6 +83,24 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
      */
     private boolean indicesAvailable;
 
+    /**
+     * Factory and cloud wrapper used to open our readers, kept to open additional readers over BAM inputs when
+     * decodingThreads > 1.
+     */
+    private final SamReaderFactory samReaderFactory;
+    private final Function<SeekableByteChannel, SeekableByteChannel> cloudWrapper;
+
+    /**
+     * Number of threads used to read and decode BAM inputs during unbounded traversals.
+     */
+    private int decodingThreads = 1;
+
+    /**
+     * Executor on which BAM inputs are read and decoded during unbounded traversals, created on first use if
+     * decodingThreads > 1.
+     */
+    private ExecutorService decodingExecutor;
+
     /**
      * Initialize this data source with a single SAM/BAM file and validation stringency SILENT.
      *
@@ -194,7 +217,8 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
         backingPaths = new LinkedHashMap<>(samPaths.size() * 2);
         indicesAvailable = true;
 
-        final SamReaderFactory samReaderFactory =
+        this.cloudWrapper = cloudWrapper;
+        this.samReaderFactory =
                 customSamReaderFactory == null ?
                     SamReaderFactory.makeDefault().validationStringency(ReadConstants.DEFAULT_READ_VALIDATION_STRINGENCY) :
                     customSamReaderFactory;
@@ -298,6 +322,21 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
         }
     }
 
+    /**
+     * Sets the number of threads used to read and decode BAM inputs during unbounded traversals via {@link #iterator}.
+     *
+     * When greater than 1, each BAM is divided at the entries of its splitting index, which is created next to the
+     * BAM if it doesn't have an up-to-date one, and the splits are read and decoded on a pool of threads by separate
+     * readers. The reads are returned in their original order. Bounded traversals, queries and other formats are
+     * unaffected.
+     *
+     * @param decodingThreads number of threads used to read and decode each BAM, must be >= 1
+     */
+    public void setDecodingThreads( final int decodingThreads ) {
+        Utils.validateArg(decodingThreads >= 1, "Decoding threads must be >= 1");
+        this.decodingThreads = decodingThreads;
+    }
+
     /**
      * @return True if traversals initiated via {@link #iterator} will be restricted to reads that overlap intervals
      *         as configured via {@link #setTraversalBounds}, otherwise false
@@ -406,6 +445,8 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
                                 queryUnmapped
                         )
                 );
+            } else if ( decodesInParallel(readerEntry.getKey()) ) {
+                readerEntry.setValue(getParallelDecodingIterator(readerEntry.getKey()));
             } else {
                 readerEntry.setValue(readerEntry.getKey().iterator());
             }
@@ -424,6 +465,33 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
         return new SAMRecordToReadIterator(startingIterator);
     }
 
+    /**
+     * @return true if unbounded traversals read and decode the reads of this reader on a pool of threads
+     */
+    private boolean decodesInParallel( final SamReader reader ) {
+        return decodingThreads > 1 && reader.type() == SamReader.Type.BAM_TYPE;
+    }
+
+    /**
+     * Gets an iterator over all the reads of a BAM that reads and decodes them on our decoding executor, using
+     * separate readers over the same file, split at the entries of its splitting index.
+     */
+    private CloseableIterator<SAMRecord> getParallelDecodingIterator( final SamReader reader ) {
+        if ( decodingExecutor == null ) {
+            decodingExecutor = Executors.newFixedThreadPool(decodingThreads,
+                    new ThreadFactoryBuilder().setNameFormat("read-decoding-%d").setDaemon(true).build());
+        }
+
+        final Path samPath = backingPaths.get(reader);
+        final List<Chunk> splits = SplittingIndexUtils.getSplits(
+                SplittingIndexUtils.getOrCreateSplittingIndex(samPath, SplittingBAMIndexer.DEFAULT_GRANULARITY));
+        final Function<SeekableByteChannel, SeekableByteChannel> wrapper =
+                BucketUtils.isCloudStorageUrl(samPath) ? cloudWrapper : Function.identity();
+        // keep enough splits in flight for all the threads to stay busy while the oldest split is consumed
+        return new ParallelReadDecodingIterator(() -> samReaderFactory.open(SamInputResource.of(samPath, wrapper)),
+                reader.getFileHeader(), splits, 2 * decodingThreads, decodingExecutor);
+    }
+
     /**
      * Reduce the intervals down to only include ones that can actually intersect with this reader
      */
@@ -481,6 +549,11 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
         catch ( IOException e ) {
             throw new GATKException("Error closing SAMReader");
         }
+
+        if ( decodingExecutor != null ) {
+            decodingExecutor.shutdownNow();
+            decodingExecutor = null;
+        }
     }
 
     /**
@@ -3,6 +3,7 @@ package org.broadinstitute.hellbender.engine;
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFHeader;
+import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.exceptions.GATKException;
@@ -24,6 +25,16 @@ public abstract class VariantWalker extends VariantWalkerBase {
     @Argument(fullName = StandardArgumentDefinitions.VARIANT_LONG_NAME, shortName = StandardArgumentDefinitions.VARIANT_SHORT_NAME, doc = "A VCF file containing variants", common = false, optional = false)
     public String drivingVariantFile;
 
+    /**
+     * When greater than 1 and the input is a VCF, the records are read ahead and decoded, genotypes included, in batches
+     * on a pool of this many threads, and returned to the traversal in their original order. This is most useful for
+     * VCFs with many samples.
+     */
+    @Advanced
+    @Argument(fullName = VARIANT_DECODING_THREADS_LONG_NAME,
+                doc = "Number of threads used to decode the variants during traversal", optional = true, minValue = 1)
+    public int variantDecodingThreads = 1;
+
     // NOTE: keeping the driving source of variants separate from other, supplementary FeatureInputs in our FeatureManager in GATKTool
     //we do add the driving source to the Feature manager but we do need to treat it differently and thus this field.
     private FeatureDataSource<VariantContext> drivingVariants;
@@ -52,7 +63,7 @@ public abstract class VariantWalker extends VariantWalkerBase {
 
         //This is the data source for the driving source of variants, which uses a cache lookahead of FEATURE_CACHE_LOOKAHEAD
         drivingVariants = new FeatureDataSource<>(drivingVariantsFeatureInput, FEATURE_CACHE_LOOKAHEAD, VariantContext.class, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
-                                                  referenceArguments.getReferencePath());
+                                                  referenceArguments.getReferencePath(), variantDecodingThreads);
 
         //Add the driving datasource to the feature manager too so that it can be queried. Setting lookahead to 0 to avoid caching.
         //Note: we are disabling lookahead here because of windowed queries that need to "look behind" as well.
@@ -31,6 +31,8 @@ public abstract class VariantWalkerBase extends GATKTool {
      */
     public static final int FEATURE_CACHE_LOOKAHEAD = 100_000;
 
+    public static final String VARIANT_DECODING_THREADS_LONG_NAME = "variant-decoding-threads";
+
     @Override
     public boolean requiresFeatures() { return true; }
 
@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.engine.spark;
 
+import com.google.common.collect.Iterators;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMSequenceDictionary;
 import org.apache.spark.api.java.JavaRDD;
@@ -13,14 +14,15 @@ import org.broadinstitute.hellbender.engine.datasources.ReferenceMultiSource;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
 import org.broadinstitute.hellbender.engine.filters.WellformedReadFilter;
+import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.utils.IntervalUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 /**
  * A Spark version of {@link AssemblyRegionWalker}. Subclasses should implement {@link #processAssemblyRegions(JavaRDD, JavaSparkContext)}
@@ -98,6 +100,10 @@ public abstract class AssemblyRegionWalkerSpark extends GATKSparkTool {
     @Argument(doc = "whether to use the shuffle implementation or not", shortName = "shuffle", fullName = "shuffle", optional = true)
     public boolean shuffle = false;
 
+    @Advanced
+    @Argument(fullName = "max-buffered-reads", shortName = "max-buffered-reads", doc = "Maximum number of reads overlapping the padding between two consecutive read shards to hold in memory. The tool fails if more reads than this overlap two shards. Set to 0 to disable.", optional = true)
+    public int maxBufferedReads = 0;
+
     @Override
     public final boolean requiresReads() { return true; }
 
@@ -140,15 +146,31 @@ public abstract class AssemblyRegionWalkerSpark extends GATKSparkTool {
      *
      * If no intervals were specified, returns all the assembly regions.
      *
+     * The reads of each shard are streamed lazily through an {@link AssemblyRegionIterator} (unless {@link #shuffle} is
+     * set), so that only the reads of the assembly regions being built, and those overlapping the next shard, are held in memory.
+     *
      * @return all assembly regions as a {@link JavaRDD}, bounded by intervals if specified.
      */
     protected JavaRDD<AssemblyRegionWalkerContext> getAssemblyRegions(JavaSparkContext ctx) {
         SAMSequenceDictionary sequenceDictionary = getBestAvailableSequenceDictionary();
-        JavaRDD<Shard<GATKRead>> shardedReads = SparkSharder.shard(ctx, getReads(), GATKRead.class, sequenceDictionary, intervalShards, readShardSize, shuffle);
         Broadcast<ReferenceMultiSource> bReferenceSource = hasReference() ? ctx.broadcast(getReference()) : null;
         Broadcast<FeatureManager> bFeatureManager = features == null ? null : ctx.broadcast(features);
-        return shardedReads.flatMap(getAssemblyRegionsFunction(bReferenceSource, bFeatureManager, sequenceDictionary, getHeaderForReads(),
-                assemblyRegionEvaluator(), minAssemblyRegionSize, maxAssemblyRegionSize, assemblyRegionPadding, activeProbThreshold, maxProbPropagationDistance));
+        FlatMapFunction<Shard<GATKRead>, AssemblyRegionWalkerContext> assemblyRegionsFunction = getAssemblyRegionsFunction(bReferenceSource, bFeatureManager, sequenceDictionary, getHeaderForReads(),
+                assemblyRegionEvaluator(), minAssemblyRegionSize, maxAssemblyRegionSize, assemblyRegionPadding, activeProbThreshold, maxProbPropagationDistance);
+        if (shuffle) {
+            return SparkSharder.shard(ctx, getReads(), GATKRead.class, sequenceDictionary, intervalShards, readShardSize, true)
+                    .flatMap(assemblyRegionsFunction);
+        }
+        return SparkSharder.mapPartitionsOfShards(ctx, getReads(), GATKRead.class, sequenceDictionary, intervalShards, readShardSize, maxBufferedReads,
+                shards -> Iterators.concat(Iterators.transform(shards, shard -> {
+                    try {
+                        return assemblyRegionsFunction.call(shard);
+                    } catch (RuntimeException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        throw new GATKException("Failed to find the assembly regions of " + shard.getInterval(), e);
+                    }
+                })));
     }
 
     private static FlatMapFunction<Shard<GATKRead>, AssemblyRegionWalkerContext> getAssemblyRegionsFunction(
@@ -169,17 +191,16 @@ public abstract class AssemblyRegionWalkerSpark extends GATKSparkTool {
             ReferenceDataSource reference = bReferenceSource == null ? null :
                     new ReferenceMemorySource(bReferenceSource.getValue().getReferenceBases(assemblyRegionPaddedInterval), sequenceDictionary);
             FeatureManager features = bFeatureManager == null ? null : bFeatureManager.getValue();
-            ReferenceContext referenceContext = new ReferenceContext(reference, paddedInterval);
-            FeatureContext featureContext = new FeatureContext(features, paddedInterval);
 
-            final Iterable<AssemblyRegion> assemblyRegions = AssemblyRegion.createFromReadShard(shardedRead,
-                    header, referenceContext, featureContext, evaluator,
+            // only the covered loci are evaluated, without the reads with deletions, as AssemblyRegion.createFromReadShard did
+            final Iterator<AssemblyRegion> assemblyRegions = new AssemblyRegionIterator(new ShardToMultiIntervalShardAdapter<>(shardedRead),
+                    header, reference, features, evaluator,
                     minAssemblyRegionSize, maxAssemblyRegionSize, assemblyRegionPadding, activeProbThreshold,
-                    maxProbPropagationDistance);
-            return StreamSupport.stream(assemblyRegions.spliterator(), false).map(assemblyRegion ->
+                    maxProbPropagationDistance, false, false);
+            return Iterators.transform(assemblyRegions, assemblyRegion ->
                     new AssemblyRegionWalkerContext(assemblyRegion,
                         new ReferenceContext(reference, assemblyRegion.getExtendedSpan()),
-                        new FeatureContext(features, assemblyRegion.getExtendedSpan()))).iterator();
+                        new FeatureContext(features, assemblyRegion.getExtendedSpan())));
         };
     }
 
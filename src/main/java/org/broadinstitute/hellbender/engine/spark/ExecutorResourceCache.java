@@ -0,0 +1,61 @@
+package org.broadinstitute.hellbender.engine.spark;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * A cache of large immutable resources, such as a reference or a collection of known sites, with only one copy of each
+ * resource per JVM.
+ *
+ * <p>
+ *     Tasks look resources up by key, and the first task that needs a resource on an executor loads it, usually from a
+ *     node-local file (ideally by memory-mapping it). This is an alternative to Spark broadcasts, which are limited to
+ *     2GB and make each executor deserialize its own copy of the resource.
+ * </p>
+ *
+ * <p>
+ *     Looking up a resource that is already loaded doesn't take any lock, and loading a resource only blocks the tasks
+ *     that need that same resource. Resources stay in the cache for the lifetime of the JVM, so callers that look them up
+ *     often, e.g. once per read, should keep the value they get in a (transient) field rather than look it up again.
+ * </p>
+ */
+public final class ExecutorResourceCache {
+    private static final Logger logger = LogManager.getLogger(ExecutorResourceCache.class);
+
+    private static final Map<String, Object> resources = new ConcurrentHashMap<>();
+
+    private ExecutorResourceCache() {}
+
+    /**
+     * Gets a resource, loading it if it is not in the cache yet.
+     *
+     * @param key the key of the resource, which must identify it across the JVM, e.g. its type and path
+     * @param loader loads the resource if it is not in the cache, and must not use the cache itself
+     * @return the resource, never {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T get(final String key, final Supplier<T> loader) {
+        Utils.nonNull(key, "the key cannot be null");
+        Utils.nonNull(loader, "the loader cannot be null");
+        final Object resource = resources.get(key);
+        if (resource != null) {
+            return (T) resource;
+        }
+        return (T) resources.computeIfAbsent(key, k -> {
+            logger.info("Loading resource " + k);
+            return Utils.nonNull(loader.get(), () -> "the loader returned null for " + k);
+        });
+    }
+
+    /**
+     * @return whether a resource is in the cache
+     */
+    public static boolean contains(final String key) {
+        return resources.containsKey(key);
+    }
+}
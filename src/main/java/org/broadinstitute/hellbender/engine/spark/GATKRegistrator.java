@@ -12,8 +12,10 @@ import htsjdk.variant.variantcontext.Genotype;
 import htsjdk.variant.variantcontext.VariantContext;
 import org.apache.spark.serializer.KryoRegistrator;
 import org.bdgenomics.adam.serialization.ADAMKryoRegistrator;
+import org.broadinstitute.hellbender.utils.read.ReadCoordinateSortKey;
 import org.broadinstitute.hellbender.utils.read.SAMRecordToGATKReadAdapter;
 import org.broadinstitute.hellbender.utils.read.markduplicates.PairedEnds;
+import org.broadinstitute.hellbender.utils.read.markduplicates.PairedEndsFingerprint;
 
 import java.util.Collections;
 
@@ -55,6 +57,8 @@ public class GATKRegistrator implements KryoRegistrator {
 
         //register to avoid writing the full name of this class over and over
         kryo.register(PairedEnds.class, new FieldSerializer<>(kryo, PairedEnds.class));
+        kryo.register(PairedEndsFingerprint.class, new FieldSerializer<>(kryo, PairedEndsFingerprint.class));
+        kryo.register(ReadCoordinateSortKey.class, new FieldSerializer<>(kryo, ReadCoordinateSortKey.class));
 
         // register the ADAM data types using Avro serialization, including:
         //     AlignmentRecord
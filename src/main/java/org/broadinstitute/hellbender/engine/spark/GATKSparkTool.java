@@ -19,6 +19,7 @@ import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.WellformedReadFilter;
 import org.broadinstitute.hellbender.engine.spark.datasources.ReadsSparkSink;
 import org.broadinstitute.hellbender.engine.spark.datasources.ReadsSparkSource;
+import org.broadinstitute.hellbender.engine.spark.datasources.ReferenceTwoBitSource;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.SequenceDictionaryUtils;
 import org.broadinstitute.hellbender.utils.SerializableFunction;
@@ -27,11 +28,15 @@ import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadsWriteFormat;
+import org.seqdoop.hadoop_bam.SplittingBAMIndexer;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Base class for GATK spark tools that accept standard kinds of inputs (reads, reference, and/or intervals).
@@ -66,6 +71,13 @@ public abstract class GATKSparkTool extends SparkCommandLineProgram {
     public static final String BAM_PARTITION_SIZE_LONG_NAME = "bam-partition-size";
     public static final String NUM_REDUCERS_LONG_NAME = "num-reducers";
     public static final String SHARDED_OUTPUT_LONG_NAME = "sharded-output";
+    public static final String CREATE_SPLITTING_INDEX_LONG_NAME = "create-splitting-index";
+
+    /**
+     * The {@link org.bdgenomics.formats.avro.AlignmentRecord} fields used by {@link WellformedReadFilter}.
+     */
+    protected static final List<String> WELLFORMED_READ_FILTER_ADAM_FIELDS = Collections.unmodifiableList(Arrays.asList(
+            "contigName", "start", "end", "readMapped", "cigar", "recordGroupName", "sequence", "qual"));
 
     @ArgumentCollection
     public final ReferenceInputArgumentCollection referenceArguments = requiresReference() ? new RequiredReferenceInputArgumentCollection() :  new OptionalReferenceInputArgumentCollection();
@@ -83,6 +95,13 @@ public abstract class GATKSparkTool extends SparkCommandLineProgram {
             optional = true)
     protected long bamPartitionSplitSize = 0;
 
+    @Argument(doc = "If true, create a splitting index next to the input BAM if it doesn't have an up-to-date one, so that " +
+            "the BAM is split into partitions at exact read boundaries rather than at guessed ones. Creating the index requires " +
+            "reading the whole BAM once; later runs reuse it.",
+            fullName = CREATE_SPLITTING_INDEX_LONG_NAME,
+            optional = true)
+    protected boolean createSplittingIndex = false;
+
     @Argument(fullName = StandardArgumentDefinitions.DISABLE_SEQUENCE_DICT_VALIDATION_NAME, shortName = StandardArgumentDefinitions.DISABLE_SEQUENCE_DICT_VALIDATION_NAME, doc = "If specified, do not check the sequence dictionaries from our inputs for compatibility. Use at your own risk!", optional = true)
     private boolean disableSequenceDictionaryValidation = false;
 
@@ -241,7 +260,7 @@ public abstract class GATKSparkTool extends SparkCommandLineProgram {
         // TODO: This if statement is a temporary hack until #959 gets resolved.
         if (readInput.endsWith(".adam")) {
             try {
-                return readsSource.getADAMReads(readInput, traversalParameters, getHeaderForReads());
+                return readsSource.getADAMReads(readInput, traversalParameters, getHeaderForReads(), getADAMProjection());
             } catch (IOException e) {
                 throw new UserException("Failed to read ADAM file " + readInput, e);
             }
@@ -255,6 +274,37 @@ public abstract class GATKSparkTool extends SparkCommandLineProgram {
         }
     }
 
+    /**
+     * Returns the names of the {@link org.bdgenomics.formats.avro.AlignmentRecord} fields that the reads of this tool
+     * need when they are loaded from ADAM input. Parquet only reads and decompresses the columns of these fields, so
+     * tools that only look at a few properties of the reads can override this to read less. The fields must include
+     * those used by the tool's default read filters, e.g. {@link #WELLFORMED_READ_FILTER_ADAM_FIELDS}.
+     *
+     * @return the fields, or null (the default) to read all of them
+     */
+    protected Collection<String> getADAMFieldsToRead() {
+        return null;
+    }
+
+    /**
+     * @return the fields of {@link #getADAMFieldsToRead}, unless read filters other than the tool's defaults are
+     *         enabled, since those may need any field, in which case null to read all of them
+     */
+    private Collection<String> getADAMProjection() {
+        final Collection<String> fields = getADAMFieldsToRead();
+        if (fields == null) {
+            return null;
+        }
+        final Set<Class<?>> defaultReadFilterClasses = getDefaultReadFilters().stream().map(Object::getClass).collect(Collectors.toSet());
+        final GATKReadFilterPluginDescriptor readFilterPlugin =
+                getCommandLineParser().getPluginDescriptor(GATKReadFilterPluginDescriptor.class);
+        if (!readFilterPlugin.getResolvedInstances().stream().allMatch(filter -> defaultReadFilterClasses.contains(filter.getClass()))) {
+            logger.info("Reading all the fields of the ADAM reads, since read filters other than the defaults are enabled");
+            return null;
+        }
+        return fields;
+    }
+
     /**
      * Writes the reads from a {@link JavaRDD} to an output file.
      * @param ctx the JavaSparkContext to write.
@@ -391,7 +441,7 @@ public abstract class GATKSparkTool extends SparkCommandLineProgram {
      * Initialize standard tool inputs.
      */
     private void initializeToolInputs(final JavaSparkContext sparkContext) {
-        initializeReference();
+        initializeReference(sparkContext);
         initializeReads(sparkContext); // reference must be initialized before reads
         initializeFeatures();
         initializeIntervals();
@@ -412,6 +462,9 @@ public abstract class GATKSparkTool extends SparkCommandLineProgram {
 
         readInput = readArguments.getReadFilesNames().get(0);
         readsSource = new ReadsSparkSource(sparkContext, readArguments.getReadValidationStringency());
+        if ( createSplittingIndex && IOUtils.isBamFileName(readInput) ) {
+            readsSource.createSplittingIndexIfNecessary(readInput, SplittingBAMIndexer.DEFAULT_GRANULARITY);
+        }
         readsHeader = readsSource.getHeader(
                 readInput,
                 hasReference() ?  referenceArguments.getReferenceFileName() : null);
@@ -419,10 +472,16 @@ public abstract class GATKSparkTool extends SparkCommandLineProgram {
 
     /**
      * Initializes our reference source. Does nothing if no reference was specified.
+     *
+     * A local .2bit reference is distributed to the executors, which memory-map their own copy of it
+     * (see {@link ReferenceTwoBitSource}).
      */
-    private void initializeReference() {
+    private void initializeReference(final JavaSparkContext sparkContext) {
         final String referenceURL = referenceArguments.getReferenceFileName();
         if ( referenceURL != null ) {
+            if ( ReferenceTwoBitSource.isTwoBit(referenceURL) && !BucketUtils.isRemoteStorageUrl(referenceURL) && !sparkContext.isLocal() ) {
+                sparkContext.addFile(referenceURL);
+            }
             referenceSource = new ReferenceMultiSource(referenceURL, getReferenceWindowFunction());
             referenceDictionary = referenceSource.getReferenceSequenceDictionary(readsHeader != null ? readsHeader.getSequenceDictionary() : null);
             if (referenceDictionary == null) {
@@ -13,21 +13,15 @@ import java.util.stream.Collectors;
 
 /**
  * A cache of known sites by file path, with the property that there is only one copy of each collection of known sites per JVM.
- * This class is an alternative for cases that can't use a Spark broadcast due to its 2GB limitation.
+ * This class is an alternative for cases that can't use a Spark broadcast due to its 2GB limitation. The known sites
+ * are held by the {@link ExecutorResourceCache}.
  */
 class KnownSitesCache {
 
     private static final Logger log = LogManager.getLogger(KnownSitesCache.class);
 
-    private static final Map<List<String>, IntervalsSkipList<GATKVariant>> PATHS_TO_VARIANTS = new HashMap<>();
-
-    public static synchronized IntervalsSkipList<GATKVariant> getVariants(List<String> paths) {
-        if (PATHS_TO_VARIANTS.containsKey(paths)) {
-            return PATHS_TO_VARIANTS.get(paths);
-        }
-        IntervalsSkipList<GATKVariant> variants = retrieveVariants(paths);
-        PATHS_TO_VARIANTS.put(paths, variants);
-        return variants;
+    public static IntervalsSkipList<GATKVariant> getVariants(List<String> paths) {
+        return ExecutorResourceCache.get("known-sites:" + paths, () -> retrieveVariants(paths));
     }
 
     private static IntervalsSkipList<GATKVariant> retrieveVariants(List<String> paths) {
@@ -7,11 +7,11 @@ import com.esotericsoftware.kryo.io.Output;
 import htsjdk.samtools.*;
 
 /**
- * Efficient serializer for SAMRecords that uses SAMRecordSparkCodec for encoding/decoding.
+ * Efficient serializer for SAMRecords that uses SAMRecordCompactSparkCodec for encoding/decoding.
  * Assumes that the SAMRecords are headerless (and clears their header if they're not).
  */
 public final class SAMRecordSerializer extends Serializer<SAMRecord> {
-    private SAMRecordSparkCodec lazyCodec = new SAMRecordSparkCodec();
+    private final SAMRecordCompactSparkCodec lazyCodec = new SAMRecordCompactSparkCodec();
 
     @Override
     public void write(Kryo kryo, Output output, SAMRecord record) {
@@ -19,11 +19,8 @@ public final class SAMRecordSerializer extends Serializer<SAMRecord> {
         // measure in case it's not, set the header to null explicitly.
         record.setHeaderStrict(null);
 
-        // serialize reference names to avoid having to have a header at read time
-        output.writeString(record.getReferenceName());
-        output.writeString(record.getMateReferenceName());
-        lazyCodec.setOutputStream(output);
-        lazyCodec.encode(record);
+        // the reference names are serialized along with the record to avoid having to have a header at read time
+        lazyCodec.encode(record, output);
 
         // clear indexing bin after encoding to ensure all SAMRecords compare properly
         record.setFlags(record.getFlags());
@@ -31,22 +28,7 @@ public final class SAMRecordSerializer extends Serializer<SAMRecord> {
 
     @Override
     public SAMRecord read(Kryo kryo, Input input, Class<SAMRecord> type) {
-        final String referenceName = input.readString();
-        final String mateReferenceName = input.readString();
-        lazyCodec.setInputStream(input);
-        final SAMRecord record = lazyCodec.decode();
-
-        // clear indexing bin after decoding to ensure all SAMRecords compare properly
-        record.setFlags(record.getFlags());
-
-        // set reference names (and indices to null)
-        record.setReferenceName(referenceName);
-        record.setMateReferenceName(mateReferenceName);
-        // Explicitly clear the reference indices by calling setHeaderStrict(null). Although setReferenceName()
-        // and setMateReferenceName() above will usually null out the reference indices for us (since our
-        // read is headerless) they won't do so if either name is "*"
-        record.setHeaderStrict(null);
-
-        return record;
+        // the codec sets the reference names and clears the reference indices and indexing bin
+        return lazyCodec.decode(input);
     }
 }
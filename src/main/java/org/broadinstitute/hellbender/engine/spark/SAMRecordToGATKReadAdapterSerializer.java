@@ -8,12 +8,12 @@ import htsjdk.samtools.*;
 import org.broadinstitute.hellbender.utils.read.SAMRecordToGATKReadAdapter;
 
 /**
- * Efficient serializer for SAMRecordToGATKReadAdapters that uses SAMRecordSparkCodec for encoding/decoding.
+ * Efficient serializer for SAMRecordToGATKReadAdapters that uses SAMRecordCompactSparkCodec for encoding/decoding.
  * Assumes that the underlying SAMRecords are headerless (and clears their header if they're not).
  */
 public final class SAMRecordToGATKReadAdapterSerializer extends Serializer<SAMRecordToGATKReadAdapter> {
 
-    private SAMRecordSparkCodec lazyCodec = new SAMRecordSparkCodec();
+    private final SAMRecordCompactSparkCodec lazyCodec = new SAMRecordCompactSparkCodec();
 
     @Override
     public void write(Kryo kryo, Output output, SAMRecordToGATKReadAdapter adapter) {
@@ -22,11 +22,8 @@ public final class SAMRecordToGATKReadAdapterSerializer extends Serializer<SAMRe
         // measure in case it's not, set the header to null explicitly.
         record.setHeaderStrict(null);
 
-        // serialize reference names to avoid having to have a header at read time
-        output.writeString(record.getReferenceName());
-        output.writeString(record.getMateReferenceName());
-        lazyCodec.setOutputStream(output);
-        lazyCodec.encode(record);
+        // the reference names are serialized along with the record to avoid having to have a header at read time
+        lazyCodec.encode(record, output);
 
         // clear indexing bin after encoding to ensure all SAMRecords compare properly
         record.setFlags(record.getFlags());
@@ -34,21 +31,7 @@ public final class SAMRecordToGATKReadAdapterSerializer extends Serializer<SAMRe
 
     @Override
     public SAMRecordToGATKReadAdapter read(Kryo kryo, Input input, Class<SAMRecordToGATKReadAdapter> type) {
-        final String referenceName = input.readString();
-        final String mateReferenceName = input.readString();
-        lazyCodec.setInputStream(input);
-        final SAMRecord record = lazyCodec.decode();
-
-        // clear indexing bin after decoding to ensure all SAMRecords compare properly
-        record.setFlags(record.getFlags());
-
-        // set reference names (and indices to null)
-        record.setReferenceName(referenceName);
-        record.setMateReferenceName(mateReferenceName);
-
-        // headerlessReadAdapter() calls setHeaderStrict(null), which will set reference indices to null if the above
-        // setReferenceName()/setMateReferenceName() calls failed to do so (eg., in the case of "*" as the
-        // reference name).
-        return SAMRecordToGATKReadAdapter.headerlessReadAdapter(record);
+        // the codec sets the reference names and clears the reference indices and indexing bin
+        return SAMRecordToGATKReadAdapter.headerlessReadAdapter(lazyCodec.decode(input));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,272 @@
+package org.broadinstitute.hellbender.engine.spark;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.AbstractIterator;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMSequenceDictionary;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.spark.Partitioner;
+import org.apache.spark.api.java.JavaRDD;
+import org.broadinstitute.hellbender.engine.ShardBoundary;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadCoordinateSortKey;
+import org.broadinstitute.hellbender.utils.spark.SparkUtils;
+import scala.Tuple2;
+
+import java.util.*;
+
+/**
+ * Plans the partitions of coordinate-sorted reads so that each partition has about the same amount of work, for tools
+ * that process the reads shard by shard with {@link SparkSharder}.
+ *
+ * <p>
+ *     Sorting reads with {@link SparkUtils#coordinateSortReads(JavaRDD, SAMFileHeader, int)} gives partitions with
+ *     about the same number of reads, but the work per read of tools like HaplotypeCallerSpark grows with the depth of
+ *     coverage, so the partitions with the deepest regions take much longer than the others. Instead, the planner samples
+ *     the start positions of the reads to estimate the number of reads in each {@link ShardBoundary}, estimates the work
+ *     for each shard from that, and splits the shards into runs of about the same total work. The reads are then sorted
+ *     into one partition per run with {@link SparkUtils#coordinateSortReads(JavaRDD, SAMFileHeader, Partitioner)}.
+ * </p>
+ *
+ * <p>
+ *     The work for a shard with {@code n} reads is estimated as {@code n * (1 + n / m)}, where {@code m} is the mean
+ *     number of reads of the shards that have any, so that a shard with twice the mean depth costs three times as much
+ *     as one of mean depth, rather than twice. {@link #logPartitionTimes} reports the actual time taken by each
+ *     partition, to check the estimates.
+ * </p>
+ */
+public final class ShardPartitionPlanner {
+    private static final Logger logger = LogManager.getLogger(ShardPartitionPlanner.class);
+
+    /**
+     * Default number of read starts sampled from each partition of the input.
+     */
+    public static final int DEFAULT_SAMPLES_PER_PARTITION = 1000;
+
+    private ShardPartitionPlanner() {}
+
+    /**
+     * Plans the partitions of the reads, from {@link #DEFAULT_SAMPLES_PER_PARTITION} read starts sampled in each
+     * partition of the input.
+     *
+     * @param reads the reads, in any order
+     * @param header the header of the reads
+     * @param shards the shards the reads will be processed in, which must be coordinate sorted
+     * @param numPartitions the maximum number of partitions; there are fewer if some shards take much more than the
+     *                      average work per partition
+     * @return a partitioner for {@link SparkUtils#coordinateSortReads(JavaRDD, SAMFileHeader, Partitioner)}
+     */
+    public static Partitioner planReadPartitions(final JavaRDD<GATKRead> reads, final SAMFileHeader header,
+                                                 final List<ShardBoundary> shards, final int numPartitions) {
+        return planReadPartitions(reads, header, shards, numPartitions, DEFAULT_SAMPLES_PER_PARTITION);
+    }
+
+    /**
+     * Plans the partitions of the reads.
+     *
+     * @param samplesPerPartition the number of read starts sampled in each partition of the input
+     * @see #planReadPartitions(JavaRDD, SAMFileHeader, List, int)
+     */
+    public static Partitioner planReadPartitions(final JavaRDD<GATKRead> reads, final SAMFileHeader header,
+                                                 final List<ShardBoundary> shards, final int numPartitions,
+                                                 final int samplesPerPartition) {
+        Utils.nonNull(reads);
+        Utils.nonNull(header);
+        Utils.nonNull(shards);
+        Utils.validateArg(numPartitions > 0, "the number of partitions must be positive");
+        Utils.validateArg(samplesPerPartition > 0, "the number of samples per partition must be positive");
+
+        final List<Tuple2<Long, List<SimpleInterval>>> samples = reads
+                .mapPartitionsWithIndex((index, iter) -> Collections.singletonList(sampleReadStarts(iter, samplesPerPartition, index)).iterator(), false)
+                .collect();
+        final double[] costs = estimateShardCosts(shards, header.getSequenceDictionary(), samples);
+        final int[] firstShards = splitShardsByCost(costs, numPartitions);
+
+        final ReadCoordinateSortKey[] boundaries = new ReadCoordinateSortKey[firstShards.length];
+        for (int i = 0; i < firstShards.length; i++) {
+            final SimpleInterval interval = shards.get(firstShards[i]).getInterval();
+            boundaries[i] = ReadCoordinateSortKey.ofLocus(header.getSequenceIndex(interval.getContig()), interval.getStart());
+        }
+        logger.info(String.format("Planned %d partitions of reads for %d shards, from %d sampled reads",
+                boundaries.length + 1, shards.size(), samples.stream().mapToInt(sample -> sample._2().size()).sum()));
+        return new ReadRangePartitioner(boundaries);
+    }
+
+    /**
+     * Samples the start positions of the mapped reads of a partition uniformly.
+     *
+     * @return the number of mapped reads in the partition, and the sampled start positions
+     */
+    private static Tuple2<Long, List<SimpleInterval>> sampleReadStarts(final Iterator<GATKRead> reads, final int samplesPerPartition, final int seed) {
+        final Random random = new Random(seed);
+        final List<SimpleInterval> sample = new ArrayList<>(samplesPerPartition);
+        long count = 0;
+        while (reads.hasNext()) {
+            final GATKRead read = reads.next();
+            if (read.isUnmapped()) {
+                continue;
+            }
+            // reservoir sampling
+            count++;
+            if (sample.size() < samplesPerPartition) {
+                sample.add(new SimpleInterval(read.getContig(), read.getStart(), read.getStart()));
+            } else {
+                final long slot = (long) (random.nextDouble() * count);
+                if (slot < samplesPerPartition) {
+                    sample.set((int) slot, new SimpleInterval(read.getContig(), read.getStart(), read.getStart()));
+                }
+            }
+        }
+        return new Tuple2<>(count, sample);
+    }
+
+    /**
+     * Estimates the work for each shard, from samples of read starts.
+     *
+     * @param shards the shards, which must be coordinate sorted
+     * @param samples for each partition of the reads, the number of mapped reads and a uniform sample of their starts
+     * @return the estimated work for each shard, in the order of the shards
+     */
+    @VisibleForTesting
+    static double[] estimateShardCosts(final List<ShardBoundary> shards, final SAMSequenceDictionary dictionary,
+                                       final List<Tuple2<Long, List<SimpleInterval>>> samples) {
+        final long[] shardStarts = new long[shards.size()];
+        for (int i = 0; i < shards.size(); i++) {
+            final SimpleInterval interval = shards.get(i).getInterval();
+            shardStarts[i] = packLocus(dictionary.getSequenceIndex(interval.getContig()), interval.getStart());
+            Utils.validateArg(i == 0 || shardStarts[i] > shardStarts[i - 1], "shards must be coordinate sorted");
+        }
+
+        // estimate the number of reads starting in each shard
+        final double[] reads = new double[shards.size()];
+        for (final Tuple2<Long, List<SimpleInterval>> sample : samples) {
+            if (sample._2().isEmpty()) {
+                continue;
+            }
+            final double weight = (double) sample._1() / sample._2().size();
+            for (final SimpleInterval start : sample._2()) {
+                final int contigIndex = dictionary.getSequenceIndex(start.getContig());
+                if (contigIndex == -1) {
+                    continue;
+                }
+                final int searchResult = Arrays.binarySearch(shardStarts, packLocus(contigIndex, start.getStart()));
+                final int shardIndex = searchResult >= 0 ? searchResult : -searchResult - 2;
+                if (shardIndex >= 0 && shards.get(shardIndex).getInterval().overlaps(start)) {
+                    reads[shardIndex] += weight;
+                }
+            }
+        }
+
+        final double meanReads = Arrays.stream(reads).filter(n -> n > 0).average().orElse(1.0);
+        final double[] costs = new double[reads.length];
+        for (int i = 0; i < reads.length; i++) {
+            costs[i] = reads[i] * (1.0 + reads[i] / meanReads);
+        }
+        return costs;
+    }
+
+    private static long packLocus(final int contigIndex, final int position) {
+        return ((long) contigIndex << 32) | position;
+    }
+
+    /**
+     * Splits shards into consecutive runs of about the same total cost: each shard goes in the run that the middle of its
+     * cost falls in, if the total cost is cut into equal parts. A shard that costs at least twice the average cost per
+     * run makes up a run on its own.
+     *
+     * @param costs the cost of each shard, in order
+     * @param maxRuns the maximum number of runs
+     * @return the index of the first shard of each run, except for the first run, which starts at the first shard
+     */
+    @VisibleForTesting
+    static int[] splitShardsByCost(final double[] costs, final int maxRuns) {
+        Utils.validateArg(maxRuns > 0, "the number of runs must be positive");
+        final double targetCost = Arrays.stream(costs).sum() / maxRuns;
+        final List<Integer> firstShards = new ArrayList<>();
+        if (targetCost == 0) {
+            return new int[0];
+        }
+        double cumulativeCost = 0;
+        int currentRun = 0;
+        for (int i = 0; i < costs.length; i++) {
+            final int run = Math.min(maxRuns - 1, (int) ((cumulativeCost + costs[i] / 2) / targetCost));
+            if (run > currentRun) {
+                // the first shard always starts the first run
+                if (i > 0) {
+                    firstShards.add(i);
+                }
+                currentRun = run;
+            }
+            cumulativeCost += costs[i];
+        }
+        return firstShards.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Logs the number of elements and the time taken to compute each partition of an RDD, once it has been computed.
+     * The time includes the time taken by the stages that consume the elements in the same task.
+     *
+     * @param rdd the RDD
+     * @param description a description of the RDD for the log messages
+     * @return an RDD with the same elements and partitions
+     */
+    public static <T> JavaRDD<T> logPartitionTimes(final JavaRDD<T> rdd, final String description) {
+        return rdd.mapPartitionsWithIndex((index, iter) -> new AbstractIterator<T>() {
+            private final long startTime = System.nanoTime();
+            private long count = 0;
+
+            @Override
+            protected T computeNext() {
+                if (iter.hasNext()) {
+                    count++;
+                    return iter.next();
+                }
+                logger.info(String.format("%s: partition %d took %.3f seconds for %d elements",
+                        description, index, (System.nanoTime() - startTime) / 1e9, count));
+                return endOfData();
+            }
+        }, true);
+    }
+
+    /**
+     * Partitions {@link ReadCoordinateSortKey}s into ranges starting at the given keys.
+     */
+    @VisibleForTesting
+    static final class ReadRangePartitioner extends Partitioner {
+        private static final long serialVersionUID = 1L;
+
+        private final ReadCoordinateSortKey[] boundaries;
+
+        /**
+         * @param boundaries the smallest key of each partition except the first, in increasing order
+         */
+        ReadRangePartitioner(final ReadCoordinateSortKey[] boundaries) {
+            this.boundaries = boundaries;
+        }
+
+        @Override
+        public int numPartitions() {
+            return boundaries.length + 1;
+        }
+
+        @Override
+        public int getPartition(final Object key) {
+            final int searchResult = Arrays.binarySearch(boundaries, (ReadCoordinateSortKey) key);
+            // a key equal to a boundary goes in the partition that the boundary starts
+            return searchResult >= 0 ? searchResult + 1 : -searchResult - 1;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof ReadRangePartitioner && Arrays.equals(boundaries, ((ReadRangePartitioner) o).boundaries);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(boundaries);
+        }
+    }
+}
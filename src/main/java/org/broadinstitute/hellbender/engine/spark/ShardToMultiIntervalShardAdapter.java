@@ -0,0 +1,41 @@
+package org.broadinstitute.hellbender.engine.spark;
+
+import org.broadinstitute.hellbender.engine.AssemblyRegionIterator;
+import org.broadinstitute.hellbender.engine.MultiIntervalShard;
+import org.broadinstitute.hellbender.engine.Shard;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Adapter to allow a {@link Shard} to be traversed by an {@link AssemblyRegionIterator}, which takes a {@link MultiIntervalShard}.
+ *
+ * The adapted shard spans the padded interval of the shard, so that assembly regions are determined over the padding
+ * too, and the reads are iterated over lazily from the shard.
+ */
+public final class ShardToMultiIntervalShardAdapter<T> implements MultiIntervalShard<T> {
+
+    private final Shard<T> shard;
+
+    public ShardToMultiIntervalShardAdapter(final Shard<T> shard) {
+        this.shard = Utils.nonNull(shard);
+    }
+
+    @Override
+    public List<SimpleInterval> getIntervals() {
+        return Collections.singletonList(shard.getPaddedInterval());
+    }
+
+    @Override
+    public List<SimpleInterval> getPaddedIntervals() {
+        return Collections.singletonList(shard.getPaddedInterval());
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return shard.iterator();
+    }
+}
@@ -72,21 +72,7 @@ public class SparkSharder {
                                                                 SAMSequenceDictionary sequenceDictionary, List<ShardBoundary> intervals,
                                                                 int maxLocatableLength, boolean useShuffle) {
 
-        List<ShardBoundary> paddedIntervals = intervals.stream().map(sb -> new ShardBoundary(sb.getInterval(), sb.getPaddedInterval()) {
-            private static final long serialVersionUID = 1L;
-            @Override
-            public String getContig() {
-                return getPaddedInterval().getContig();
-            }
-            @Override
-            public int getStart() {
-                return getPaddedInterval().getStart();
-            }
-            @Override
-            public int getEnd() {
-                return getPaddedInterval().getEnd();
-            }
-        }).collect(Collectors.toList());
+        List<ShardBoundary> paddedIntervals = toPaddedLocatables(intervals);
         if (useShuffle) {
             OverlapDetector<ShardBoundary> overlapDetector = OverlapDetector.create(paddedIntervals);
             Broadcast<OverlapDetector<ShardBoundary>> overlapDetectorBroadcast = ctx.broadcast(overlapDetector);
@@ -107,6 +93,81 @@ public class SparkSharder {
         });
     }
 
+    /**
+     * Apply a function to the {@link Shard}s in each partition of an RDD of coordinate sorted {@link Locatable},
+     * <i>without using a shuffle</i>, and without loading the locatables of each shard into memory.
+     * <p>
+     * Unlike {@link #shard}, the shards passed to the function stream their locatables lazily from the partition,
+     * so each shard can only be iterated over once, and only until the function moves on to the next shard (any
+     * locatables of a shard that have not been read by then are skipped). This is the case for functions that lazily
+     * process one shard at a time, e.g. with {@link Iterators#concat}. The only locatables that are held in memory
+     * between shards are the ones that overlap both a shard and the next one, i.e. their padding.
+     * </p>
+     * @param ctx the Spark Context
+     * @param locatables the RDD of {@link Locatable}, must be coordinate sorted
+     * @param locatableClass the class of the {@link Locatable} objects in the RDD
+     * @param sequenceDictionary the sequence dictionary to use to find contig lengths
+     * @param intervals the {@link ShardBoundary} objects to create shards for, must be coordinate sorted
+     * @param maxLocatableLength the maximum length of a {@link Locatable}, if any is larger than this size then an exception will be thrown
+     * @param maxBufferedLocatables the maximum number of locatables to hold in memory between two shards, or 0 for no limit;
+     *                              if more locatables than this overlap two consecutive shards then an exception will be thrown
+     * @param f the function to apply to the shards of each partition that have overlapping {@link Locatable} objects
+     *          (including overlapping only padding)
+     * @param <L> the {@link Locatable} type
+     * @param <T> the return type of <code>f</code>
+     * @return an RDD of the results of <code>f</code>
+     */
+    public static <L extends Locatable, T> JavaRDD<T> mapPartitionsOfShards(JavaSparkContext ctx, JavaRDD<L> locatables, Class<L> locatableClass,
+                                                                             SAMSequenceDictionary sequenceDictionary, List<ShardBoundary> intervals,
+                                                                             int maxLocatableLength, int maxBufferedLocatables,
+                                                                             FlatMapFunction<Iterator<Shard<L>>, T> f) {
+        Utils.validateArg(maxBufferedLocatables >= 0, "the maximum number of buffered locatables must be non-negative");
+        return joinOverlapping(ctx, locatables, locatableClass, sequenceDictionary, toPaddedLocatables(intervals), maxLocatableLength,
+                (FlatMapFunction2<Iterator<L>, Iterator<ShardBoundary>, T>) (locatablesIterator, shardsIterator) -> f.call(Iterators.transform(
+                        streamLocatablesPerShard(locatablesIterator, shardsIterator, sequenceDictionary, maxLocatableLength, maxBufferedLocatables),
+                        new Function<Tuple2<ShardBoundary, Iterator<L>>, Shard<L>>() {
+                            @Nullable
+                            @Override
+                            public Shard<L> apply(@Nullable Tuple2<ShardBoundary, Iterator<L>> input) {
+                                return new ShardBoundaryShard<>(input._1(), iterateOnce(input._2()));
+                            }
+                        })));
+    }
+
+    /**
+     * @return {@link ShardBoundary} objects that are located at their padded intervals, for finding the locatables that
+     * overlap the padding
+     */
+    private static List<ShardBoundary> toPaddedLocatables(List<ShardBoundary> intervals) {
+        return intervals.stream().map(sb -> new ShardBoundary(sb.getInterval(), sb.getPaddedInterval()) {
+            private static final long serialVersionUID = 1L;
+            @Override
+            public String getContig() {
+                return getPaddedInterval().getContig();
+            }
+            @Override
+            public int getStart() {
+                return getPaddedInterval().getStart();
+            }
+            @Override
+            public int getEnd() {
+                return getPaddedInterval().getEnd();
+            }
+        }).collect(Collectors.toList());
+    }
+
+    private static <L> Iterable<L> iterateOnce(Iterator<L> iterator) {
+        return new Iterable<L>() {
+            private boolean iterated = false;
+            @Override
+            public Iterator<L> iterator() {
+                Utils.validate(!iterated, "the locatables of a streamed shard can only be iterated over once");
+                iterated = true;
+                return iterator;
+            }
+        };
+    }
+
     /**
      * Join an RDD of locatables with a set of intervals, and apply a function to process the locatables that overlap each interval.
      * @param ctx the Spark Context
@@ -252,6 +313,96 @@ public class SparkSharder {
         return Iterators.filter(iterator, input -> input._2().iterator().hasNext());
     }
 
+    /**
+     * Turn a pair of iterators over intervals and locatables, into a single iterator over pairs made up of an interval and
+     * an iterator over the locatables that overlap it, which reads them lazily from the locatables iterator.
+     * Intervals with no overlapping locatables are dropped. Unlike {@link #locatablesPerShard}, this only holds the
+     * locatables that overlap both an interval and the next one in memory (and it keeps the locatables that overlap more
+     * than two intervals in all of them).
+     * <p>
+     * The locatables iterator for an interval is only valid until the next interval is requested: any locatables it has
+     * not returned by then are skipped.
+     * </p>
+     */
+    static <L extends Locatable, I extends Locatable> Iterator<Tuple2<I, Iterator<L>>> streamLocatablesPerShard(Iterator<L> locatables, Iterator<I> shards, SAMSequenceDictionary sequenceDictionary, int maxLocatableLength, int maxBufferedLocatables) {
+        PeekingIterator<L> peekingLocatables = Iterators.peekingIterator(locatables);
+        PeekingIterator<I> peekingShards = Iterators.peekingIterator(shards);
+        return new AbstractIterator<Tuple2<I, Iterator<L>>>() {
+            // the locatables that overlap the current shard and were read while streaming the previous one
+            List<L> bufferedLocatables = new ArrayList<>();
+            // the locatables that overlap the next shard, in coordinate order
+            List<L> nextBufferedLocatables = new ArrayList<>();
+            I currentShard = null;
+            I nextShard = null;
+            Iterator<L> currentLocatables = Collections.emptyIterator();
+
+            @Override
+            protected Tuple2<I, Iterator<L>> computeNext() {
+                // skip whatever the previous shard's consumer did not read, keeping the locatables that overlap the next shard
+                Iterators.size(currentLocatables);
+                if (currentShard != null) {
+                    bufferedLocatables = nextBufferedLocatables;
+                    nextBufferedLocatables = new ArrayList<>();
+                }
+                while (peekingShards.hasNext()) {
+                    currentShard = peekingShards.next();
+                    nextShard = peekingShards.hasNext() ? peekingShards.peek() : null;
+                    for (L locatable : bufferedLocatables) {
+                        bufferForNextShard(locatable);
+                    }
+                    // skip the locatables to the left of the shard, so that we can tell if any overlap it
+                    while (peekingLocatables.hasNext() && !toRightOf(currentShard, peekingLocatables.peek(), sequenceDictionary)
+                            && !overlaps(currentShard, peekingLocatables.peek())) {
+                        bufferForNextShard(readLocatable());
+                    }
+                    boolean hasOverlappingLocatables = !bufferedLocatables.isEmpty() ||
+                            (peekingLocatables.hasNext() && !toRightOf(currentShard, peekingLocatables.peek(), sequenceDictionary));
+                    if (hasOverlappingLocatables) {
+                        currentLocatables = Iterators.concat(bufferedLocatables.iterator(), new AbstractIterator<L>() {
+                            @Override
+                            protected L computeNext() {
+                                while (peekingLocatables.hasNext() && !toRightOf(currentShard, peekingLocatables.peek(), sequenceDictionary)) {
+                                    L locatable = readLocatable();
+                                    bufferForNextShard(locatable);
+                                    if (overlaps(currentShard, locatable)) {
+                                        return locatable;
+                                    }
+                                }
+                                return endOfData();
+                            }
+                        });
+                        return new Tuple2<>(currentShard, currentLocatables);
+                    }
+                    // the shard is empty
+                    bufferedLocatables = nextBufferedLocatables;
+                    nextBufferedLocatables = new ArrayList<>();
+                }
+                return endOfData();
+            }
+
+            private L readLocatable() {
+                L locatable = peekingLocatables.next();
+                if (locatable.getContig() != null) {
+                    int size = locatable.getEnd() - locatable.getStart() + 1;
+                    if (size > maxLocatableLength) {
+                        throw new UserException(String.format("Max size of locatable exceeded. Max size is %s, but locatable size is %s. Try increasing shard size and/or padding. Locatable: %s", maxLocatableLength, size, locatable));
+                    }
+                }
+                return locatable;
+            }
+
+            private void bufferForNextShard(L locatable) {
+                if (nextShard != null && overlaps(nextShard, locatable)) {
+                    nextBufferedLocatables.add(locatable);
+                    if (maxBufferedLocatables > 0 && nextBufferedLocatables.size() > maxBufferedLocatables) {
+                        throw new UserException(String.format("More than %d locatables overlap both %s and %s, which is more than can be buffered. " +
+                                "Try decreasing the shard padding, or increasing the maximum number of buffered locatables.", maxBufferedLocatables, currentShard, nextShard));
+                    }
+                }
+            }
+        };
+    }
+
     /**
      * @return <code>true</code> if the locatable is to the right of the given interval
      */
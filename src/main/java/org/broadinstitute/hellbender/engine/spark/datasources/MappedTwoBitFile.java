@@ -0,0 +1,157 @@
+package org.broadinstitute.hellbender.engine.spark.datasources;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A reader of .2bit files over a {@link ByteBuffer}, which is usually a memory-mapped file, so that the reference is
+ * paged in from the file as it is used instead of being copied onto the heap. Since the reader only uses absolute
+ * gets, it can be shared by many threads.
+ *
+ * <p>
+ *     This reads the same (version 0) files as ADAM's TwoBitFile, and extracts the same bases: upper case, with the
+ *     unknown regions as {@code N}s and without soft-masking. Files must be smaller than 2GB.
+ * </p>
+ */
+final class MappedTwoBitFile {
+    private static final int MAGIC_NUMBER = 0x1A412743;
+    private static final int HEADER_SIZE = 16;
+    private static final byte[] BASES = {'T', 'C', 'A', 'G'};
+    private static final byte UNKNOWN_BASE = 'N';
+
+    private final ByteBuffer bytes;
+    private final Map<String, Record> records = new LinkedHashMap<>();
+    private final SAMSequenceDictionary sequenceDictionary;
+
+    /**
+     * A sequence of the file: its length, its unknown blocks and where its bases are packed.
+     */
+    private static final class Record {
+        private final int length;
+        private final int[] unknownBlockStarts;
+        private final int[] unknownBlockEnds;
+        private final int packedBasesOffset;
+
+        private Record(final int length, final int[] unknownBlockStarts, final int[] unknownBlockEnds, final int packedBasesOffset) {
+            this.length = length;
+            this.unknownBlockStarts = unknownBlockStarts;
+            this.unknownBlockEnds = unknownBlockEnds;
+            this.packedBasesOffset = packedBasesOffset;
+        }
+    }
+
+    /**
+     * Memory-maps a local .2bit file.
+     */
+    static MappedTwoBitFile map(final Path path) throws IOException {
+        Utils.nonNull(path);
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new UserException.MalformedFile(path, ".2bit files larger than 2GB are not supported");
+            }
+            // the mapping stays valid after the channel is closed
+            return new MappedTwoBitFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    MappedTwoBitFile(final ByteBuffer buffer) {
+        Utils.nonNull(buffer);
+        this.bytes = buffer.duplicate();
+        if (bytes.limit() < HEADER_SIZE) {
+            throw new UserException.MalformedFile("The .2bit file is truncated");
+        }
+        // the byte order of the file is whichever reads the magic number correctly
+        bytes.order(ByteOrder.LITTLE_ENDIAN);
+        if (bytes.getInt(0) != MAGIC_NUMBER) {
+            bytes.order(ByteOrder.BIG_ENDIAN);
+            if (bytes.getInt(0) != MAGIC_NUMBER) {
+                throw new UserException.MalformedFile("Not a .2bit file: wrong magic number");
+            }
+        }
+        final int version = bytes.getInt(4);
+        if (version != 0) {
+            throw new UserException.MalformedFile("Unsupported .2bit version " + version);
+        }
+
+        final int sequenceCount = bytes.getInt(8);
+        final List<SAMSequenceRecord> sequences = new ArrayList<>(sequenceCount);
+        int indexOffset = HEADER_SIZE;
+        for (int i = 0; i < sequenceCount; i++) {
+            final int nameLength = bytes.get(indexOffset) & 0xFF;
+            final byte[] name = new byte[nameLength];
+            for (int j = 0; j < nameLength; j++) {
+                name[j] = bytes.get(indexOffset + 1 + j);
+            }
+            final Record record = readRecord(bytes.getInt(indexOffset + 1 + nameLength));
+            final String contig = new String(name, StandardCharsets.US_ASCII);
+            records.put(contig, record);
+            sequences.add(new SAMSequenceRecord(contig, record.length));
+            indexOffset += 1 + nameLength + Integer.BYTES;
+        }
+        this.sequenceDictionary = new SAMSequenceDictionary(sequences);
+    }
+
+    private Record readRecord(final int offset) {
+        int position = offset;
+        final int length = bytes.getInt(position);
+        final int unknownBlockCount = bytes.getInt(position + Integer.BYTES);
+        position += 2 * Integer.BYTES;
+        final int[] unknownBlockStarts = new int[unknownBlockCount];
+        final int[] unknownBlockEnds = new int[unknownBlockCount];
+        for (int i = 0; i < unknownBlockCount; i++) {
+            unknownBlockStarts[i] = bytes.getInt(position + i * Integer.BYTES);
+            unknownBlockEnds[i] = unknownBlockStarts[i] + bytes.getInt(position + (unknownBlockCount + i) * Integer.BYTES);
+        }
+        position += 2 * unknownBlockCount * Integer.BYTES;
+        // skip the masked blocks, which are only needed for soft-masking, and the reserved field
+        final int maskBlockCount = bytes.getInt(position);
+        position += Integer.BYTES + 2 * maskBlockCount * Integer.BYTES + Integer.BYTES;
+        return new Record(length, unknownBlockStarts, unknownBlockEnds, position);
+    }
+
+    SAMSequenceDictionary getSequenceDictionary() {
+        return sequenceDictionary;
+    }
+
+    /**
+     * Extracts the bases of a region of a sequence.
+     *
+     * @param contig the name of the sequence
+     * @param start the zero-based start of the region, inclusive
+     * @param end the zero-based end of the region, exclusive, which must be within the sequence
+     * @return the bases, upper case
+     */
+    byte[] extract(final String contig, final int start, final int end) {
+        final Record record = records.get(contig);
+        Utils.validateArg(record != null, () -> "Contig " + contig + " not found in reference dictionary");
+        Utils.validateArg(0 <= start && start <= end && end <= record.length,
+                () -> "Invalid region " + start + "-" + end + " of contig " + contig + " of length " + record.length);
+
+        final byte[] bases = new byte[end - start];
+        for (int position = start; position < end; position++) {
+            // four bases per byte, the first in the highest bits
+            final int packed = bytes.get(record.packedBasesOffset + position / 4);
+            bases[position - start] = BASES[(packed >> (6 - 2 * (position % 4))) & 0x3];
+        }
+
+        // the unknown blocks are sorted and disjoint, so their ends are sorted too
+        final int searchResult = Arrays.binarySearch(record.unknownBlockEnds, start);
+        for (int i = searchResult >= 0 ? searchResult + 1 : -searchResult - 1;
+             i < record.unknownBlockStarts.length && record.unknownBlockStarts[i] < end; i++) {
+            Arrays.fill(bases, Math.max(start, record.unknownBlockStarts[i]) - start,
+                    Math.min(end, record.unknownBlockEnds[i]) - start, UNKNOWN_BASE);
+        }
+        return bases;
+    }
+}
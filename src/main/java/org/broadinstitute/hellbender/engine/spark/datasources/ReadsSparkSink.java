@@ -10,6 +10,7 @@ import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapred.FileAlreadyExistsException;
 import org.apache.hadoop.mapreduce.*;
 import org.apache.parquet.avro.AvroParquetOutputFormat;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
@@ -176,6 +177,8 @@ public final class ReadsSparkSink {
         // we are writing the Avro schema to the Configuration as a JSON string. The AvroParquetOutputFormat class knows
         // how to translate objects in the Avro data model to the Parquet primitives that get written.
         AvroParquetOutputFormat.setSchema(job, AlignmentRecord.getClassSchema());
+        // each column is compressed on its own, so readers that project a few fields only decompress those
+        AvroParquetOutputFormat.setCompression(job, CompressionCodecName.SNAPPY);
         deleteHadoopFile(outputFile, ctx.hadoopConfiguration());
         rddAlignmentRecords.saveAsNewAPIHadoopFile(
                 outputFile, Void.class, AlignmentRecord.class, AvroParquetOutputFormat.class, job.getConfiguration());
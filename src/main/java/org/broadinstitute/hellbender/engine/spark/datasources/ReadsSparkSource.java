@@ -1,8 +1,10 @@
 package org.broadinstitute.hellbender.engine.spark.datasources;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.PeekingIterator;
 import htsjdk.samtools.*;
+import org.apache.avro.Schema;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
@@ -13,6 +15,11 @@ import org.apache.hadoop.mapreduce.Job;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.parquet.avro.AvroParquetInputFormat;
+import org.apache.parquet.filter2.predicate.FilterApi;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.filter2.predicate.Operators;
+import org.apache.parquet.hadoop.ParquetInputFormat;
+import org.apache.parquet.io.api.Binary;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
@@ -29,7 +36,9 @@ import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.broadinstitute.hellbender.utils.read.BDGAlignmentRecordToGATKReadAdapter;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadConstants;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
 import org.broadinstitute.hellbender.utils.read.SAMRecordToGATKReadAdapter;
+import org.broadinstitute.hellbender.utils.read.SplittingIndexUtils;
 import org.broadinstitute.hellbender.utils.spark.SparkUtils;
 import org.seqdoop.hadoop_bam.AnySAMInputFormat;
 import org.seqdoop.hadoop_bam.BAMInputFormat;
@@ -40,9 +49,19 @@ import org.seqdoop.hadoop_bam.util.SAMHeaderReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /** Loads the reads from disk either serially (using samReaderFactory) or in parallel using Hadoop-BAM.
  * The parallel code is a modified version of the example writing code from Hadoop-BAM.
@@ -51,6 +70,26 @@ public final class ReadsSparkSource implements Serializable {
     private static final long serialVersionUID = 1L;
     private static final String HADOOP_PART_PREFIX = "part-";
 
+    /**
+     * The {@link AlignmentRecord} fields needed to filter ADAM reads by interval.
+     */
+    private static final List<String> ADAM_TRAVERSAL_FIELDS = Arrays.asList("contigName", "start", "end", "readMapped", "cigar");
+
+    /**
+     * The {@link AlignmentRecord} fields that hold the SAM flags of the reads.
+     */
+    public static final List<String> ADAM_FLAG_FIELDS = Collections.unmodifiableList(Arrays.asList("readInFragment", "readPaired",
+            "properPair", "readMapped", "mateMapped", "failedVendorQualityChecks", "duplicateRead", "readNegativeStrand",
+            "mateNegativeStrand", "primaryAlignment", "secondaryAlignment", "supplementaryAlignment"));
+
+    /**
+     * The maximum number of spans of the traversal intervals pushed down to Parquet. Larger interval lists, e.g. of
+     * exomes, are merged into this many coarser spans, since the predicate is serialized into the job configuration
+     * and evaluated for each row group, and the reads are filtered exactly afterwards anyway.
+     */
+    @VisibleForTesting
+    static final int MAX_ADAM_PREDICATE_SPANS = 1000;
+
     private transient final JavaSparkContext ctx;
     private ValidationStringency validationStringency = ReadConstants.DEFAULT_READ_VALIDATION_STRINGENCY;
 
@@ -153,8 +192,50 @@ public final class ReadsSparkSource implements Serializable {
      * @return RDD of (ADAM-backed) GATKReads from the file.
      */
     public JavaRDD<GATKRead> getADAMReads(final String inputPath, final TraversalParameters traversalParameters, final SAMFileHeader header) throws IOException {
+        return getADAMReads(inputPath, traversalParameters, header, null);
+    }
+
+    /**
+     * Loads ADAM reads stored as Parquet, reading only some of their fields.
+     *
+     * Parquet stores each field in its own column, so only the columns of the requested fields are read and
+     * decompressed. If traversal parameters are given, they are also pushed down to Parquet, which skips the row
+     * groups whose min/max statistics show that none of their reads can overlap the intervals (this is most effective
+     * if the reads were written in coordinate order), before the reads are filtered exactly as usual.
+     *
+     * @param inputPath path to the Parquet data
+     * @param traversalParameters parameters controlling which reads to include. If <code>null</code> then all the reads (both mapped and unmapped) will be returned.
+     * @param header the header of the reads, may be null
+     * @param fields names of the {@link AlignmentRecord} fields to read, or null to read all of them. The fields needed
+     *               to filter the reads by the traversal parameters are always read, and so are the names, flags and
+     *               positions of the reads if the header says they are grouped by name, since
+     *               {@link #putPairsInSamePartition} needs them. The other fields are left unset,
+     *               so the accessors of the returned reads that depend on them return null or default values. Some
+     *               fields are only used along with others, e.g. mapq only for mapped reads, so the projection should
+     *               include readMapped, contigName and start along with it.
+     * @return RDD of (ADAM-backed) GATKReads from the file.
+     */
+    public JavaRDD<GATKRead> getADAMReads(final String inputPath, final TraversalParameters traversalParameters, final SAMFileHeader header,
+                                          final Collection<String> fields) throws IOException {
         Job job = Job.getInstance(ctx.hadoopConfiguration());
         AvroParquetInputFormat.setAvroReadSchema(job, AlignmentRecord.getClassSchema());
+        if (fields != null) {
+            final Set<String> projectedFields = new LinkedHashSet<>(fields);
+            if (traversalParameters != null) {
+                projectedFields.addAll(ADAM_TRAVERSAL_FIELDS);
+            }
+            if (header != null && ReadUtils.isReadNameGroupedBam(header)) {
+                // along with the positions, without which mapped reads can't be converted
+                projectedFields.add("readName");
+                projectedFields.addAll(ADAM_FLAG_FIELDS);
+                projectedFields.addAll(Arrays.asList("contigName", "start", "mateContigName", "mateAlignmentStart"));
+            }
+            AvroParquetInputFormat.setRequestedProjection(job, getADAMProjection(projectedFields));
+        }
+        final FilterPredicate traversalPredicate = getADAMTraversalPredicate(traversalParameters);
+        if (traversalPredicate != null) {
+            ParquetInputFormat.setFilterPredicate(job.getConfiguration(), traversalPredicate);
+        }
         Broadcast<SAMFileHeader> bHeader;
         if (header == null) {
             bHeader= ctx.broadcast(null);
@@ -170,6 +251,124 @@ public final class ReadsSparkSource implements Serializable {
         return putPairsInSamePartition(header, filteredRdd);
     }
 
+    /**
+     * @return a schema for the given fields of {@link AlignmentRecord}, in their original order
+     */
+    @VisibleForTesting
+    static Schema getADAMProjection(final Set<String> fields) {
+        final Schema schema = AlignmentRecord.getClassSchema();
+        final List<Schema.Field> projectedFields = schema.getFields().stream()
+                .filter(field -> fields.contains(field.name()))
+                .map(field -> new Schema.Field(field.name(), field.schema(), field.doc(), field.defaultVal()))
+                .collect(Collectors.toList());
+        if (projectedFields.size() != fields.size()) {
+            throw new IllegalArgumentException("Unknown AlignmentRecord fields in " + fields + ", the fields are " +
+                    schema.getFields().stream().map(Schema.Field::name).collect(Collectors.toList()));
+        }
+        return Schema.createRecord(schema.getName(), schema.getDoc(), schema.getNamespace(), schema.isError(), projectedFields);
+    }
+
+    /**
+     * Builds a Parquet predicate that keeps every ADAM read that {@link #samRecordOverlaps} could keep, so that it can
+     * be used to skip row groups and reads without changing the result of the traversal. ADAM positions are 0-based,
+     * with exclusive ends. The intervals are merged into at most {@link #MAX_ADAM_PREDICATE_SPANS} spans, which are
+     * combined into a balanced tree, so that the predicate stays small and shallow for any number of intervals.
+     *
+     * @return the predicate, or null if all the reads must be read
+     */
+    @VisibleForTesting
+    static FilterPredicate getADAMTraversalPredicate(final TraversalParameters traversalParameters) {
+        if (traversalParameters == null) {
+            return null;
+        }
+        final Operators.BinaryColumn contigName = FilterApi.binaryColumn("contigName");
+        final Operators.LongColumn start = FilterApi.longColumn("start");
+        final Operators.LongColumn end = FilterApi.longColumn("end");
+
+        final List<FilterPredicate> predicates = new ArrayList<>();
+        final List<SimpleInterval> intervals = traversalParameters.getIntervalsForTraversal();
+        for (final SimpleInterval span : mergeIntoSpans(intervals == null ? Collections.emptyList() : intervals, MAX_ADAM_PREDICATE_SPANS)) {
+            // mapped reads that overlap the span, and unmapped reads placed within it (which may have no end)
+            predicates.add(FilterApi.and(
+                    FilterApi.and(FilterApi.eq(contigName, Binary.fromString(span.getContig())),
+                            FilterApi.lt(start, (long) span.getEnd())),
+                    FilterApi.or(FilterApi.gt(end, (long) span.getStart() - 1),
+                            FilterApi.gtEq(start, (long) span.getStart() - 1))));
+        }
+        if (traversalParameters.traverseUnmappedReads()) {
+            // unmapped reads that have no position
+            predicates.add(FilterApi.eq(contigName, null));
+        }
+        return predicates.isEmpty() ? null : or(predicates, 0, predicates.size());
+    }
+
+    /**
+     * @return the disjunction of the predicates in [from, to), as a balanced tree
+     */
+    private static FilterPredicate or(final List<FilterPredicate> predicates, final int from, final int to) {
+        if (to - from == 1) {
+            return predicates.get(from);
+        }
+        final int middle = (from + to) >>> 1;
+        return FilterApi.or(or(predicates, from, middle), or(predicates, middle, to));
+    }
+
+    /**
+     * Merges intervals into spans that cover them, in the order of their contigs' first appearance and sorted by start
+     * within each contig. Overlapping and adjacent intervals are merged, and if that leaves more than {@code maxSpans}
+     * spans, the spans of each contig are also merged across the smallest gaps between them, down to one span per
+     * contig if needed.
+     */
+    @VisibleForTesting
+    static List<SimpleInterval> mergeIntoSpans(final List<SimpleInterval> intervals, final int maxSpans) {
+        final Map<String, List<SimpleInterval>> spansByContig = new LinkedHashMap<>();
+        intervals.forEach(interval -> spansByContig.computeIfAbsent(interval.getContig(), contig -> new ArrayList<>()).add(interval));
+        spansByContig.replaceAll((contig, contigIntervals) -> {
+            final List<SimpleInterval> spans = new ArrayList<>();
+            contigIntervals.stream().sorted(Comparator.comparingInt(SimpleInterval::getStart)).forEach(interval -> {
+                final SimpleInterval last = spans.isEmpty() ? null : spans.get(spans.size() - 1);
+                if (last != null && interval.getStart() <= last.getEnd() + 1) {
+                    spans.set(spans.size() - 1, new SimpleInterval(contig, last.getStart(), Math.max(last.getEnd(), interval.getEnd())));
+                } else {
+                    spans.add(interval);
+                }
+            });
+            return spans;
+        });
+
+        final int numSpans = spansByContig.values().stream().mapToInt(List::size).sum();
+        if (numSpans > maxSpans) {
+            // keep the largest gaps between the spans of each contig, and merge across all the others
+            final List<Integer> gaps = new ArrayList<>();
+            spansByContig.values().forEach(spans -> {
+                for (int i = 1; i < spans.size(); i++) {
+                    gaps.add(spans.get(i).getStart() - spans.get(i - 1).getEnd());
+                }
+            });
+            gaps.sort(Comparator.reverseOrder());
+            final int numGapsToKeep = Math.max(maxSpans - spansByContig.size(), 0);
+            // gaps equal to the smallest kept gap may be kept or merged, as long as no more than numGapsToKeep are kept
+            final int minGap = numGapsToKeep == 0 ? Integer.MAX_VALUE : gaps.get(numGapsToKeep - 1);
+            final int[] numEqualGapsToKeep = {(int) gaps.subList(0, numGapsToKeep).stream().filter(gap -> gap == minGap).count()};
+            spansByContig.replaceAll((contig, spans) -> {
+                final List<SimpleInterval> merged = new ArrayList<>();
+                SimpleInterval current = spans.get(0);
+                for (final SimpleInterval next : spans.subList(1, spans.size())) {
+                    final int gap = next.getStart() - current.getEnd();
+                    if (gap > minGap || (gap == minGap && numEqualGapsToKeep[0]-- > 0)) {
+                        merged.add(current);
+                        current = next;
+                    } else {
+                        current = new SimpleInterval(contig, current.getStart(), next.getEnd());
+                    }
+                }
+                merged.add(current);
+                return merged;
+            });
+        }
+        return spansByContig.values().stream().flatMap(List::stream).collect(Collectors.toList());
+    }
+
     /**
      * Loads the header using Hadoop-BAM.
      * @param filePath path to the bam.
@@ -209,11 +408,29 @@ public final class ReadsSparkSource implements Serializable {
     }
 
     /**
-     * Ensure reads in a pair fall in the same partition (input split), if the reads are queryname-sorted,
-     * so they are processed together. No shuffle is needed.
+     * Creates a splitting index next to a BAM if it doesn't have one, or if its index is older than the BAM.
+     * Hadoop-BAM uses the splitting index, when present, to split the BAM at exact read boundaries instead of
+     * guessing them, and later runs reuse the index. Creating the index requires reading the whole BAM once.
+     * If the index can't be written, e.g. because the directory is read-only, the splits will be guessed as before.
+     * See {@link SplittingIndexUtils#createSplittingIndexIfNecessary}.
+     *
+     * @param bamFileName the BAM, local, on GCS or on HDFS
+     * @param granularity number of reads between consecutive entries of the index
+     */
+    public void createSplittingIndexIfNecessary(final String bamFileName, final int granularity) {
+        final java.nio.file.Path bam = IOUtils.getPath(bamFileName);
+        // a directory of BAM shards written by Hadoop-BAM
+        if (!Files.isDirectory(bam)) {
+            SplittingIndexUtils.createSplittingIndexIfNecessary(bam, granularity);
+        }
+    }
+
+    /**
+     * Ensure reads in a pair fall in the same partition (input split), if the reads are queryname-sorted or
+     * grouped by name, so they are processed together. No shuffle is needed.
      */
     JavaRDD<GATKRead> putPairsInSamePartition(final SAMFileHeader header, final JavaRDD<GATKRead> reads) {
-        if (!header.getSortOrder().equals(SAMFileHeader.SortOrder.queryname)) {
+        if (!ReadUtils.isReadNameGroupedBam(header)) {
             return reads;
         }
         int numPartitions = reads.getNumPartitions();
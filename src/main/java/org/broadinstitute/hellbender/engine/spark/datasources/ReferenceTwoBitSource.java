@@ -3,30 +3,37 @@ package org.broadinstitute.hellbender.engine.spark.datasources;
 import com.google.common.io.ByteStreams;
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.SAMSequenceRecord;
-import org.bdgenomics.adam.models.ReferenceRegion;
-import org.bdgenomics.adam.models.SequenceDictionary;
-import org.bdgenomics.adam.models.SequenceRecord;
-import org.bdgenomics.adam.util.TwoBitFile;
-import org.bdgenomics.formats.avro.Strand;
-import org.bdgenomics.utils.io.ByteAccess;
+import org.apache.spark.SparkEnv;
+import org.apache.spark.SparkFiles;
 import org.broadinstitute.hellbender.engine.datasources.ReferenceSource;
+import org.broadinstitute.hellbender.engine.spark.ExecutorResourceCache;
+import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.broadinstitute.hellbender.utils.reference.ReferenceBases;
-import scala.Option;
-import scala.collection.JavaConversions;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Serializable;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
- * A ReferenceSource impl that is backed by a .2bit representation of a reference genome.  This loads an entire .2bit
- * file into a byte array that is encapsulated by this object.  This is particularly useful for fast reference queries
- * if the entire reference can fit into memory.
+ * A ReferenceSource impl that is backed by a .2bit representation of a reference genome.  This is particularly useful
+ * for fast reference queries if the entire reference can fit into memory.
+ *
+ * <p>
+ *     The .2bit file itself is held by the {@link ExecutorResourceCache}, so that there is only one copy of it per JVM,
+ *     and this object only serializes its URL and sequence dictionary. This makes it cheap to serialize, e.g. in a Spark
+ *     broadcast: each executor loads the file the first time it queries the reference, and each deserialized copy of
+ *     this object then keeps it in a transient field, so that queries don't go through the cache. A node-local file, either at the
+ *     same path as on the driver or distributed with {@link org.apache.spark.SparkContext#addFile}, is memory-mapped;
+ *     otherwise the file is read into memory from its URL.
+ * </p>
  */
 public class ReferenceTwoBitSource implements ReferenceSource, Serializable {
     private static final long serialVersionUID = 1L;
@@ -34,16 +41,14 @@ public class ReferenceTwoBitSource implements ReferenceSource, Serializable {
     public static final String TWO_BIT_EXTENSION = ".2bit";
 
     private final String referenceURL;
-    private final TwoBitFile twoBitFile;
-    private final SequenceDictionary twoBitSeqDictionary;
+    private final SAMSequenceDictionary twoBitSeqDictionary;
+    // set on first use in each JVM; racing threads get the same file from the cache
+    private transient volatile MappedTwoBitFile twoBitFile;
 
     public ReferenceTwoBitSource(String referenceURL) throws IOException {
         this.referenceURL = referenceURL;
         Utils.validateArg(isTwoBit(this.referenceURL), "ReferenceTwoBitSource can only take .2bit files");
-        byte[] bytes = ByteStreams.toByteArray(BucketUtils.openFile(this.referenceURL));
-        ByteAccess byteAccess = new DirectFullByteArrayByteAccess(bytes);
-        this.twoBitFile = new TwoBitFile(byteAccess);
-        this.twoBitSeqDictionary = twoBitFile.sequences();
+        this.twoBitSeqDictionary = getTwoBitFile().getSequenceDictionary();
     }
 
     /**
@@ -57,36 +62,72 @@ public class ReferenceTwoBitSource implements ReferenceSource, Serializable {
     @Override
     public ReferenceBases getReferenceBases(SimpleInterval interval) throws IOException {
         final SimpleInterval queryInterval = cropIntervalAtContigEnd(interval);
-        final String bases = twoBitFile.extract(simpleIntervalToReferenceRegion(queryInterval));
-        return new ReferenceBases(bases.getBytes(), queryInterval);
+        // the .2bit file uses zero-based half-open intervals, like GA4GH
+        final byte[] bases = getTwoBitFile().extract(queryInterval.getContig(),
+                Math.toIntExact(queryInterval.getGA4GHStart()), Math.toIntExact(queryInterval.getGA4GHEnd()));
+        return new ReferenceBases(bases, queryInterval);
     }
 
     @Override
     public SAMSequenceDictionary getReferenceSequenceDictionary(SAMSequenceDictionary optReadSequenceDictionaryToMatch) throws IOException {
-	return this.twoBitSeqDictionary.toSAMSequenceDictionary();
+        return this.twoBitSeqDictionary;
     }
 
     public static boolean isTwoBit(String file) {
         return file.endsWith(TWO_BIT_EXTENSION);
     }
 
-    private static ReferenceRegion simpleIntervalToReferenceRegion(SimpleInterval interval) {
-        // ADAM and GA4GH both use zero-based half-open intervals for genome coordinates
-        String contig = interval.getContig();
-        long start = interval.getGA4GHStart();
-        long end = interval.getGA4GHEnd();
-        return new ReferenceRegion(contig, start, end, Strand.INDEPENDENT);
+    private MappedTwoBitFile getTwoBitFile() {
+        MappedTwoBitFile file = twoBitFile;
+        if (file == null) {
+            file = ExecutorResourceCache.get(TWO_BIT_EXTENSION + ":" + referenceURL, () -> loadTwoBitFile(referenceURL));
+            twoBitFile = file;
+        }
+        return file;
+    }
+
+    private static MappedTwoBitFile loadTwoBitFile(final String referenceURL) {
+        try {
+            final Path localFile = findNodeLocalFile(referenceURL);
+            if (localFile != null) {
+                return MappedTwoBitFile.map(localFile);
+            }
+            try (final InputStream in = BucketUtils.openFile(referenceURL)) {
+                return new MappedTwoBitFile(ByteBuffer.wrap(ByteStreams.toByteArray(in)));
+            }
+        } catch (final IOException e) {
+            throw new UserException.CouldNotReadInputFile(referenceURL, e);
+        }
+    }
+
+    /**
+     * @return the node-local copy of a file, or null if there is none
+     */
+    private static Path findNodeLocalFile(final String url) {
+        if (!BucketUtils.isRemoteStorageUrl(url)) {
+            final Path path = IOUtils.getPath(url);
+            if (Files.isRegularFile(path)) {
+                return path;
+            }
+        }
+        // a copy distributed to this node with SparkContext.addFile
+        if (SparkEnv.get() != null) {
+            final Path path = Paths.get(SparkFiles.get(url.substring(url.lastIndexOf('/') + 1)));
+            if (Files.isRegularFile(path)) {
+                return path;
+            }
+        }
+        return null;
     }
 
     private SimpleInterval cropIntervalAtContigEnd( final SimpleInterval interval ) {
         // The 2bit query API does not support queries beyond the ends of contigs, so we need
         // to truncate our interval at the contig end if necessary.
-        final Option<SequenceRecord> optContigRecord = twoBitSeqDictionary.apply(interval.getContig());
-	if (optContigRecord.isEmpty()) {
-	    throw new IllegalArgumentException("Contig " + interval.getContig() + " not found in reference dictionary");
-	}
-	final SequenceRecord contigRecord = optContigRecord.get();
-	return new SimpleInterval(interval.getContig(), interval.getStart(), Math.min(interval.getEnd(), Math.toIntExact(contigRecord.length())));
+        final SAMSequenceRecord contigRecord = twoBitSeqDictionary.getSequence(interval.getContig());
+        if (contigRecord == null) {
+            throw new IllegalArgumentException("Contig " + interval.getContig() + " not found in reference dictionary");
+        }
+        return new SimpleInterval(interval.getContig(), interval.getStart(), Math.min(interval.getEnd(), contigRecord.getSequenceLength()));
     }
 
 }
@@ -270,7 +270,8 @@ public abstract class MultiLevelReducibleCollector<
                 BiFunction<UNIT_COLLECTOR, UNIT_COLLECTOR, UNIT_COLLECTOR> reMap) {
             Utils.nonNull(source);
             Utils.nonNull(reMap);
-            collectors.keySet().forEach(k -> collectors.merge(k, source.collectors.get(k), reMap));
+            // the source may have collectors that this distributor doesn't have yet, e.g. for unknown records
+            source.collectors.forEach((k, c) -> collectors.merge(k, c, reMap));
         }
 
         /** Add all records to the MetricsFile passed in, this will happen in the order they were
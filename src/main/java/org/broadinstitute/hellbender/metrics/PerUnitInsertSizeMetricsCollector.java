@@ -19,8 +19,9 @@ public final class PerUnitInsertSizeMetricsCollector
     private static final long serialVersionUID = 1L;
 
     // kryo can't serialize an EnumMap so use a LinkedHashMap (also so we can maintain order
-    // the insertion order of entries since the combining code below counts on it
-    private final Map<SamPairUtil.PairOrientation, Histogram<Integer>> histograms = new LinkedHashMap<>();
+    // the insertion order of entries since the combining code below counts on it). The insert sizes are
+    // counted in primitive histograms, which are cheap to combine, and only converted to Histograms for output.
+    private final Map<SamPairUtil.PairOrientation, PrimitiveIntHistogram> histograms = new LinkedHashMap<>();
 
     private final String sample;
     private final String library;
@@ -56,11 +57,9 @@ public final class PerUnitInsertSizeMetricsCollector
         this.histogramWidth = histogramWidth;
         this.deviations = deviations;
 
-        String prefix = createHistogramValuePrefix();
-
-        histograms.put(SamPairUtil.PairOrientation.FR,     new Histogram<>("insert_size", prefix + "fr_count"));
-        histograms.put(SamPairUtil.PairOrientation.TANDEM, new Histogram<>("insert_size", prefix + "tandem_count"));
-        histograms.put(SamPairUtil.PairOrientation.RF,     new Histogram<>("insert_size", prefix + "rf_count"));
+        histograms.put(SamPairUtil.PairOrientation.FR,     new PrimitiveIntHistogram());
+        histograms.put(SamPairUtil.PairOrientation.TANDEM, new PrimitiveIntHistogram());
+        histograms.put(SamPairUtil.PairOrientation.RF,     new PrimitiveIntHistogram());
     }
 
     @Override
@@ -78,14 +77,16 @@ public final class PerUnitInsertSizeMetricsCollector
     @Override
     public void addMetricsToFile(final MetricsFile<InsertSizeMetrics, Integer> file) {
 
-        for(final Map.Entry<SamPairUtil.PairOrientation, Histogram<Integer>> entry : histograms.entrySet()) {
-            totalInserts += entry.getValue().getCount();
+        for(final Map.Entry<SamPairUtil.PairOrientation, PrimitiveIntHistogram> entry : histograms.entrySet()) {
+            totalInserts += entry.getValue().getTotalCount();
         }
 
-        for(final Map.Entry<SamPairUtil.PairOrientation, Histogram<Integer>> entry : histograms.entrySet()) {
+        final String prefix = createHistogramValuePrefix();
+        for(final Map.Entry<SamPairUtil.PairOrientation, PrimitiveIntHistogram> entry : histograms.entrySet()) {
 
             final SamPairUtil.PairOrientation pairOrientation = entry.getKey();
-            final Histogram<Integer> Histogram = entry.getValue();
+            final Histogram<Integer> Histogram = entry.getValue().toHistogram(
+                    "insert_size", prefix + pairOrientation.name().toLowerCase() + "_count");
 
             final double total = Histogram.getCount();
 
@@ -151,10 +152,10 @@ public final class PerUnitInsertSizeMetricsCollector
     }
 
     /**
-     * Combine this PerUnitInsertSizeMetricsCollector with sourceCollector and return a combined
-     * PerUnitInsertSizeMetricsCollector.
+     * Combine sourceCollector into this PerUnitInsertSizeMetricsCollector. NOTE: this implementation is destructive
+     * in that it adds the histograms of the source into the histograms of this collector.
      * @param sourceCollector PerUnitInsertSizeMetricsCollector to combine in
-     * @return PerUnitInsertSizeMetricsCollector representing the combination of the source collector with this collector
+     * @return this PerUnitInsertSizeMetricsCollector, representing the combination of the source collector with this collector
      */
     public PerUnitInsertSizeMetricsCollector combine(final PerUnitInsertSizeMetricsCollector sourceCollector) {
         Utils.nonNull(sourceCollector);
@@ -163,34 +164,12 @@ public final class PerUnitInsertSizeMetricsCollector
         validateEquals(this.library, sourceCollector.library, validationMessage);
         validateEquals(this.readGroup, sourceCollector.readGroup, validationMessage);
 
-        PerUnitInsertSizeMetricsCollector combinedCollector = new PerUnitInsertSizeMetricsCollector(
-                this.sample,
-                this.library,
-                this.readGroup,
-                this.minimumPct,
-                this.deviations,
-                this.histogramWidth);
-        combinedCollector.totalInserts = this.totalInserts + sourceCollector.totalInserts;
+        this.totalInserts += sourceCollector.totalInserts;
 
-        // combine the histograms from each collector into the new combined collector
         // each collector has an entry for each pair orientation added in the initialization
         // code above; though any given entry may be empty
-        this.histograms.forEach(
-                (po, targetHist) -> {
-                    Histogram<Integer> sourceHist = sourceCollector.histograms.get(po);
-                    // as a check, make sure the bin and value labels for the histograms for this PO
-                    // are the same in both histograms
-                    Utils.validate(targetHist.getBinLabel().equals(sourceHist.getBinLabel()) &&
-                            targetHist.getValueLabel().equals(sourceHist.getValueLabel()), "Internal error combining collectors: attempt to combine mismatched histograms");
-
-                    Histogram<Integer> combinedHist = new Histogram<>(targetHist.getBinLabel(), targetHist.getValueLabel());
-                    combinedHist.addHistogram(sourceHist);
-                    combinedHist.addHistogram(targetHist);
-
-                    combinedCollector.histograms.put(po, combinedHist);
-                }
-        );
-        return combinedCollector;
+        this.histograms.forEach((po, targetHist) -> targetHist.add(sourceCollector.histograms.get(po)));
+        return this;
     }
 
     // Safely validate that two strings are equal, even if one or both are null.
@@ -0,0 +1,122 @@
+package org.broadinstitute.hellbender.metrics;
+
+import htsjdk.samtools.util.Histogram;
+import it.unimi.dsi.fastutil.ints.Int2LongMap;
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Counts of integer values, for collecting histograms such as insert sizes on many partitions and combining them.
+ *
+ * Unlike {@link Histogram}, which keeps a boxed bin object per value in a tree map, the counts of the values from 0 to
+ * the maximum dense value are kept in a {@code long[]} that grows with the largest value seen, so that counting and
+ * combining are just array updates. The rare values outside that range are kept in a primitive hash map, so that no
+ * counts are lost. The counts are only converted to a {@link Histogram} once they have all been combined.
+ */
+public final class PrimitiveIntHistogram implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Default largest value that is counted in the array.
+     */
+    public static final int DEFAULT_MAX_DENSE_VALUE = 1 << 16;
+
+    private final int maxDenseValue;
+    private long[] denseCounts = new long[0];
+    private final Int2LongOpenHashMap sparseCounts = new Int2LongOpenHashMap();
+    private long totalCount = 0;
+
+    public PrimitiveIntHistogram() {
+        this(DEFAULT_MAX_DENSE_VALUE);
+    }
+
+    /**
+     * @param maxDenseValue the largest value that is counted in the array, which must be non-negative
+     */
+    public PrimitiveIntHistogram(final int maxDenseValue) {
+        Utils.validateArg(maxDenseValue >= 0, "the maximum dense value must be non-negative");
+        this.maxDenseValue = maxDenseValue;
+    }
+
+    public void increment(final int value) {
+        increment(value, 1);
+    }
+
+    public void increment(final int value, final long count) {
+        Utils.validateArg(count >= 0, "the count must be non-negative");
+        if (value >= 0 && value <= maxDenseValue) {
+            if (value >= denseCounts.length) {
+                denseCounts = Arrays.copyOf(denseCounts, Math.min(maxDenseValue + 1, Math.max(value + 1, 2 * denseCounts.length)));
+            }
+            denseCounts[value] += count;
+        } else {
+            sparseCounts.addTo(value, count);
+        }
+        totalCount += count;
+    }
+
+    /**
+     * @return the number of times the value has been counted
+     */
+    public long getCount(final int value) {
+        if (value >= 0 && value <= maxDenseValue) {
+            return value < denseCounts.length ? denseCounts[value] : 0;
+        }
+        return sparseCounts.get(value);
+    }
+
+    /**
+     * @return the number of values counted
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public boolean isEmpty() {
+        return totalCount == 0;
+    }
+
+    /**
+     * Adds the counts of another histogram to this one.
+     *
+     * @return this histogram
+     */
+    public PrimitiveIntHistogram add(final PrimitiveIntHistogram other) {
+        Utils.nonNull(other);
+        final int denseLength = Math.min(other.denseCounts.length, maxDenseValue + 1);
+        if (denseLength > denseCounts.length) {
+            denseCounts = Arrays.copyOf(denseCounts, denseLength);
+        }
+        for (int i = 0; i < other.denseCounts.length; i++) {
+            if (other.denseCounts[i] != 0) {
+                // the other histogram may have a larger dense range than this one
+                increment(i, other.denseCounts[i]);
+            }
+        }
+        for (final Int2LongMap.Entry entry : other.sparseCounts.int2LongEntrySet()) {
+            increment(entry.getIntKey(), entry.getLongValue());
+        }
+        return this;
+    }
+
+    /**
+     * @return a {@link Histogram} with a bin for each value with a non-zero count
+     */
+    public Histogram<Integer> toHistogram(final String binLabel, final String valueLabel) {
+        final Histogram<Integer> histogram = new Histogram<>(binLabel, valueLabel);
+        for (int i = 0; i < denseCounts.length; i++) {
+            if (denseCounts[i] != 0) {
+                histogram.increment(i, denseCounts[i]);
+            }
+        }
+        for (final Int2LongMap.Entry entry : sparseCounts.int2LongEntrySet()) {
+            if (entry.getLongValue() != 0) {
+                histogram.increment(entry.getIntKey(), entry.getLongValue());
+            }
+        }
+        return histogram;
+    }
+}
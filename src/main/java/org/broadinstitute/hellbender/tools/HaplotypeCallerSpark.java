@@ -1,11 +1,13 @@
 package org.broadinstitute.hellbender.tools;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Iterators;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.reference.ReferenceSequence;
 import htsjdk.samtools.reference.ReferenceSequenceFile;
 import htsjdk.variant.variantcontext.VariantContext;
+import org.apache.spark.Partitioner;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.api.java.function.FlatMapFunction;
@@ -22,6 +24,8 @@ import org.broadinstitute.hellbender.engine.*;
 import org.broadinstitute.hellbender.engine.datasources.ReferenceMultiSource;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.spark.GATKSparkTool;
+import org.broadinstitute.hellbender.engine.spark.ShardPartitionPlanner;
+import org.broadinstitute.hellbender.engine.spark.ShardToMultiIntervalShardAdapter;
 import org.broadinstitute.hellbender.engine.spark.SparkSharder;
 import org.broadinstitute.hellbender.engine.spark.datasources.VariantsSparkSink;
 import org.broadinstitute.hellbender.exceptions.GATKException;
@@ -115,6 +119,16 @@ public final class HaplotypeCallerSpark extends GATKSparkTool {
         @Argument(fullName = AssemblyRegionWalker.PROPAGATION_LONG_NAME, doc="Upper limit on how many bases away probability mass can be moved around when calculating the boundaries between active and inactive assembly regions", optional = true)
         public int maxProbPropagationDistance = HaplotypeCaller.DEFAULT_MAX_PROB_PROPAGATION_DISTANCE;
 
+        @Advanced
+        @Argument(fullName = "balance-partitions-by-cost", doc = "Sort the reads into partitions of about the same estimated work, from the depth of a sample of the reads in each shard, " +
+                "rather than into partitions of about the same number of reads. Also logs the time taken by each partition.", optional = true)
+        public boolean balancePartitionsByCost = false;
+
+        @Advanced
+        @Argument(fullName = "max-buffered-reads", doc = "Maximum number of reads overlapping the padding between two consecutive read shards to hold in memory. " +
+                "The tool fails if more reads than this overlap two shards. Set to 0 to disable.", optional = true)
+        public int maxBufferedReads = 0;
+
     }
 
     @ArgumentCollection
@@ -176,7 +190,15 @@ public final class HaplotypeCallerSpark extends GATKSparkTool {
         // Reads must be coordinate sorted to use the overlaps partitioner
         final SAMFileHeader readsHeader = header.clone();
         readsHeader.setSortOrder(SAMFileHeader.SortOrder.coordinate);
-        final JavaRDD<GATKRead> coordinateSortedReads = SparkUtils.coordinateSortReads(reads, readsHeader, numReducers);
+        final JavaRDD<GATKRead> coordinateSortedReads;
+        if (shardingArgs.balancePartitionsByCost) {
+            final List<ShardBoundary> shardBoundaries = getShardBoundaries(readsHeader, intervals, shardingArgs.readShardSize, shardingArgs.readShardPadding);
+            final Partitioner partitioner = ShardPartitionPlanner.planReadPartitions(reads, readsHeader, shardBoundaries,
+                    numReducers > 0 ? numReducers : reads.getNumPartitions());
+            coordinateSortedReads = SparkUtils.coordinateSortReads(reads, readsHeader, partitioner);
+        } else {
+            coordinateSortedReads = SparkUtils.coordinateSortReads(reads, readsHeader, numReducers);
+        }
 
         final HaplotypeCallerEngine hcEngine = new HaplotypeCallerEngine(hcArgs, false, false, readsHeader, new ReferenceMultiSourceAdapter(reference));
         final JavaRDD<VariantContext> variants = callVariantsWithHaplotypeCaller(ctx, coordinateSortedReads, readsHeader, reference, intervals, hcArgs, shardingArgs);
@@ -211,9 +233,7 @@ public final class HaplotypeCallerSpark extends GATKSparkTool {
             final List<SimpleInterval> intervals,
             final HaplotypeCallerArgumentCollection hcArgs,
             final ShardingArgumentCollection shardingArgs) {
-        Utils.validateArg(hcArgs.dbsnp.dbsnp == null, "HaplotypeCallerSpark does not yet support -D or --dbsnp arguments" );
-        Utils.validateArg(hcArgs.comps.isEmpty(), "HaplotypeCallerSpark does not yet support -comp or --comp arguments" );
-        Utils.validateArg(hcArgs.bamOutputPath == null, "HaplotypeCallerSpark does not yet support -bamout or --bamOutput");
+        validateHaplotypeCallerArguments(hcArgs);
         if ( !reference.isCompatibleWithSparkBroadcast()){
             throw new UserException.Require2BitReferenceForBroadcast();
         }
@@ -228,13 +248,51 @@ public final class HaplotypeCallerSpark extends GATKSparkTool {
 
         final int maxReadLength = reads.map(r -> r.getEnd() - r.getStart() + 1).reduce(Math::max);
 
-        final JavaRDD<Shard<GATKRead>> readShards = SparkSharder.shard(ctx, reads, GATKRead.class, header.getSequenceDictionary(), shardBoundaries, maxReadLength);
+        // the reads of each shard are streamed through an AssemblyRegionIterator, rather than loaded into memory
+        final JavaRDD<Tuple2<AssemblyRegion, SimpleInterval>> assemblyRegions = SparkSharder.mapPartitionsOfShards(ctx, reads, GATKRead.class,
+                header.getSequenceDictionary(), shardBoundaries, maxReadLength, shardingArgs.maxBufferedReads,
+                shardsToAssemblyRegions(referenceBroadcast, hcArgsBroadcast, shardingArgs, header, annotatorEngineBroadcast));
 
-        final JavaRDD<Tuple2<AssemblyRegion, SimpleInterval>> assemblyRegions = readShards
-                .mapPartitions(shardsToAssemblyRegions(referenceBroadcast,
-                                                       hcArgsBroadcast, shardingArgs, header, annotatorEngineBroadcast));
+        final JavaRDD<VariantContext> variants = assemblyRegions.mapPartitions(callVariantsFromAssemblyRegions(header, referenceBroadcast, hcArgsBroadcast, annotatorEngineBroadcast));
+        return shardingArgs.balancePartitionsByCost ? ShardPartitionPlanner.logPartitionTimes(variants, "HaplotypeCallerSpark") : variants;
+    }
 
-        return assemblyRegions.mapPartitions(callVariantsFromAssemblyRegions(header, referenceBroadcast, hcArgsBroadcast, annotatorEngineBroadcast));
+    /**
+     * Checks that the haplotype caller arguments only use features that are supported when calling variants by shard.
+     */
+    public static void validateHaplotypeCallerArguments(final HaplotypeCallerArgumentCollection hcArgs) {
+        Utils.validateArg(hcArgs.dbsnp.dbsnp == null, "HaplotypeCallerSpark does not yet support -D or --dbsnp arguments" );
+        Utils.validateArg(hcArgs.comps.isEmpty(), "HaplotypeCallerSpark does not yet support -comp or --comp arguments" );
+        Utils.validateArg(hcArgs.bamOutputPath == null, "HaplotypeCallerSpark does not yet support -bamout or --bamOutput");
+    }
+
+    /**
+     * Calls the variants that start in a single shard, streaming the reads of the shard through an
+     * {@link AssemblyRegionIterator} as {@link #callVariantsWithHaplotypeCaller} does for each shard of a partition.
+     *
+     * This is for callers that process shards without Spark, e.g. on a pool of threads: the engine and the downsampler
+     * must not be used by another thread at the same time.
+     *
+     * @param shardBoundary the boundary of the shard
+     * @param reads the reads overlapping the padded interval of the shard, in coordinate order, which are only iterated once
+     * @param header the header that goes with the reads
+     * @param reference the reference to use when calling, which must be safe to query concurrently
+     * @param hcEngine the haplotype caller engine
+     * @param shardingArgs arguments to control how the assembly regions are determined
+     * @param readsDownsampler the downsampler to use, or null for no downsampling
+     * @return the variants that start in the (unpadded) interval of the shard
+     */
+    public static List<VariantContext> callVariantsInShard(
+            final ShardBoundary shardBoundary,
+            final Iterable<GATKRead> reads,
+            final SAMFileHeader header,
+            final ReferenceMultiSource reference,
+            final HaplotypeCallerEngine hcEngine,
+            final ShardingArgumentCollection shardingArgs,
+            final ReadsDownsampler readsDownsampler) {
+        final Iterator<Tuple2<AssemblyRegion, SimpleInterval>> assemblyRegions = shardToRegion(shardingArgs, header, reference, hcEngine)
+                .apply(new DownsampleableSparkReadShard(shardBoundary, reads, readsDownsampler));
+        return iteratorToStream(assemblyRegions).flatMap(regionToVariants(hcEngine)).collect(Collectors.toList());
     }
 
     /**
@@ -274,7 +332,7 @@ public final class HaplotypeCallerSpark extends GATKSparkTool {
      * @return a list of {@link ShardBoundary}
      * based on the -L intervals
      */
-    private static List<ShardBoundary> getShardBoundaries(final SAMFileHeader
+    public static List<ShardBoundary> getShardBoundaries(final SAMFileHeader
         header, final List<SimpleInterval> intervals, final int readShardSize, final int readShardPadding) {
         return intervals.stream()
             .flatMap(interval -> Shard.divideIntervalIntoShards(interval, readShardSize, readShardPadding, header.getSequenceDictionary()).stream())
@@ -298,34 +356,36 @@ public final class HaplotypeCallerSpark extends GATKSparkTool {
 
             final ReadsDownsampler readsDownsampler = assemblyArgs.maxReadsPerAlignmentStart > 0 ?
                 new PositionalDownsampler(assemblyArgs.maxReadsPerAlignmentStart, header) : null;
-            return iteratorToStream(shards)
-                .map(shard -> new DownsampleableSparkReadShard(new ShardBoundary(shard.getInterval(), shard.getPaddedInterval()), shard, readsDownsampler))
-                .flatMap(shardToRegion(assemblyArgs, header, referenceSource, hcEngine)).iterator();
+            final Function<Shard<GATKRead>, Iterator<Tuple2<AssemblyRegion, SimpleInterval>>> shardToRegion =
+                    shardToRegion(assemblyArgs, header, referenceMultiSource, hcEngine);
+            // process the shards one at a time, as lazily as their reads are streamed
+            return Iterators.concat(Iterators.transform(shards, shard -> shardToRegion.apply(
+                    new DownsampleableSparkReadShard(new ShardBoundary(shard.getInterval(), shard.getPaddedInterval()), shard, readsDownsampler))));
         };
     }
 
-    private static Function<Shard<GATKRead>, Stream<? extends Tuple2<AssemblyRegion, SimpleInterval>>> shardToRegion(
+    private static Function<Shard<GATKRead>, Iterator<Tuple2<AssemblyRegion, SimpleInterval>>> shardToRegion(
             ShardingArgumentCollection assemblyArgs,
             SAMFileHeader header,
-            ReferenceMultiSourceAdapter referenceSource,
+            ReferenceMultiSource referenceSource,
             HaplotypeCallerEngine evaluator) {
         return shard -> {
-            final ReferenceContext refContext = new ReferenceContext(referenceSource, shard.getPaddedInterval());
+            final ReferenceDataSource reference;
+            try {
+                reference = new ReferenceMemorySource(referenceSource.getReferenceBases(shard.getPaddedInterval()), header.getSequenceDictionary());
+            } catch (IOException e) {
+                throw new GATKException("Failed to read the reference bases of " + shard.getPaddedInterval(), e);
+            }
 
             //TODO load features as a side input
-            final FeatureContext features = new FeatureContext();
-
-            // TODO: this should use the new AssemblyRegionIterator instead of AssemblyRegion.createFromReadShard(),
-            // TODO: since AssemblyRegion.createFromReadShard() slurps all reads in the shard into memory at once,
-            // TODO: whereas AssemblyRegionIterator loads the reads from the shard as lazily as possible.
-            final Iterable<AssemblyRegion> assemblyRegions = AssemblyRegion.createFromReadShard(
-                    shard, header, refContext, features, evaluator,
+            // only the covered loci are evaluated, without the reads with deletions, as AssemblyRegion.createFromReadShard did
+            final Iterator<AssemblyRegion> assemblyRegions = new AssemblyRegionIterator(
+                    new ShardToMultiIntervalShardAdapter<>(shard), header, reference, null, evaluator,
                     assemblyArgs.minAssemblyRegionSize, assemblyArgs.maxAssemblyRegionSize,
                     assemblyArgs.assemblyRegionPadding, assemblyArgs.activeProbThreshold,
-                    assemblyArgs.maxProbPropagationDistance);
+                    assemblyArgs.maxProbPropagationDistance, false, false);
 
-            return StreamSupport.stream(assemblyRegions.spliterator(), false)
-                    .map(a -> new Tuple2<>(a, shard.getInterval()));
+            return Iterators.transform(assemblyRegions, a -> new Tuple2<>(a, shard.getInterval()));
         };
     }
 
@@ -1,13 +1,16 @@
 package org.broadinstitute.hellbender.tools.genomicsdb;
 
+import com.google.common.collect.Iterators;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.intel.genomicsdb.*;
 import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.samtools.util.Locatable;
 import htsjdk.tribble.AbstractFeatureReader;
 import htsjdk.tribble.CloseableTribbleIterator;
 import htsjdk.tribble.FeatureReader;
 import htsjdk.tribble.readers.LineIterator;
+import htsjdk.variant.variantcontext.LazyGenotypesContext;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFCodec;
 import htsjdk.variant.vcf.VCFHeader;
@@ -138,6 +141,12 @@ public final class GenomicsDBImport extends GATKTool {
     public static final String SAMPLE_NAME_MAP_LONG_NAME = "sample-name-map";
     public static final String VALIDATE_SAMPLE_MAP_LONG_NAME = "validate-sample-name-map";
     public static final String VCF_INITIALIZER_THREADS_LONG_NAME = "reader-threads";
+    public static final String PIPELINE_BATCHES_LONG_NAME = "pipeline-batches";
+
+    /**
+     * Number of records of each sample decoded at a time ahead of the import when --pipeline-batches is enabled.
+     */
+    private static final int DECODE_AHEAD_RECORDS_PER_SAMPLE = 100;
 
     @Argument(fullName = WORKSPACE_ARG_LONG_NAME,
               doc = "Workspace for GenomicsDB. Must be a POSIX file system path, but can be a relative path." +
@@ -227,9 +236,22 @@ public final class GenomicsDBImport extends GATKTool {
             minValue = 1)
     private int vcfInitializerThreads = 1;
 
+    @Advanced
+    @Argument(fullName = PIPELINE_BATCHES_LONG_NAME,
+            doc = "Boolean flag to overlap the loading of batches with their import. If true, the readers of the next batch " +
+                    "are opened while the current batch is being imported, and, when --" + VCF_INITIALIZER_THREADS_LONG_NAME +
+                    " is greater than 1, the records of each sample are decoded ahead on the reader threads while GenomicsDB " +
+                    "consumes them. This keeps up to two batches of readers open at once, so memory usage grows accordingly. " +
+                    "Defaults to false",
+            optional = true)
+    private boolean pipelineBatches = false;
+
     //executor service used when vcfInitializerThreads > 1
     private ExecutorService inputPreloadExecutorService;
 
+    //executor service used to load the next batch when pipelineBatches is true
+    private ExecutorService batchPreloadExecutorService;
+
     @Override
     public boolean requiresIntervals() { return true; }
 
@@ -471,6 +493,16 @@ public final class GenomicsDBImport extends GATKTool {
         } else {
             inputPreloadExecutorService = null;
         }
+        if (pipelineBatches) {
+            // a separate thread is needed because loading a batch in parallel waits on tasks of inputPreloadExecutorService
+            final ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                    .setNameFormat("batchPreloader-thread-%d")
+                    .setDaemon(true)
+                    .build();
+            this.batchPreloadExecutorService = Executors.newSingleThreadExecutor(threadFactory);
+        } else {
+            batchPreloadExecutorService = null;
+        }
     }
 
     /**
@@ -487,13 +519,18 @@ public final class GenomicsDBImport extends GATKTool {
         final int totalBatchCount = (sampleCount/updatedBatchSize) + (sampleCount%updatedBatchSize==0 ? 0 : 1);
 
         GenomicsDBImporter importer;
+        Future<SortedMap<String, FeatureReader<VariantContext>>> nextBatchReaders = null;
 
         for (int i = 0, batchCount = 1; i < sampleCount; i += updatedBatchSize, ++batchCount) {
 
             final SortedMap<String, FeatureReader<VariantContext>> sampleToReaderMap =
-                    inputPreloadExecutorService != null
-                            ? getFeatureReadersInParallel(sampleNameToVcfPath, updatedBatchSize, i)
-                            : getFeatureReadersSerially(sampleNameToVcfPath, updatedBatchSize, i);
+                    nextBatchReaders != null ? getPreloadedFeatureReaders(nextBatchReaders, batchCount) : getFeatureReaders(updatedBatchSize, i);
+
+            // start loading the next batch so that it overlaps with the import of this one
+            final int nextBatchLowerSampleIndex = i + updatedBatchSize;
+            nextBatchReaders = batchPreloadExecutorService != null && nextBatchLowerSampleIndex < sampleCount
+                    ? batchPreloadExecutorService.submit(() -> getFeatureReaders(updatedBatchSize, nextBatchLowerSampleIndex))
+                    : null;
 
             logger.info("Importing batch " + batchCount + " with " + sampleToReaderMap.size() + " samples");
             final long variantContextBufferSize = vcfBufferSizePerSample * sampleToReaderMap.size();
@@ -555,6 +592,34 @@ public final class GenomicsDBImport extends GATKTool {
         return true;
     }
 
+    private SortedMap<String, FeatureReader<VariantContext>> getFeatureReaders(final int batchSize, final int lowerSampleIndex) {
+        return inputPreloadExecutorService != null
+                ? getFeatureReadersInParallel(sampleNameToVcfPath, batchSize, lowerSampleIndex)
+                : getFeatureReadersSerially(sampleNameToVcfPath, batchSize, lowerSampleIndex);
+    }
+
+    /**
+     * Waits for the feature readers of a batch loaded ahead of time
+     *
+     * @param batchReaders  Result of loading the batch
+     * @param batchCount  1-based index of the batch, for error messages
+     * @return  Feature readers to be imported in the batch, sorted by sample name
+     */
+    private static SortedMap<String, FeatureReader<VariantContext>> getPreloadedFeatureReaders(final Future<SortedMap<String, FeatureReader<VariantContext>>> batchReaders,
+                                                                                         final int batchCount) {
+        try {
+            return batchReaders.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while waiting for the readers of batch " + batchCount, e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof UserException) {
+                throw (UserException) e.getCause();
+            }
+            throw new UserException.CouldNotReadInputFile("Failure while loading the readers of batch " + batchCount, e);
+        }
+    }
+
     /**
      * Method to create feature readers for input files or GCS URLs
      * in the current batch
@@ -575,7 +640,9 @@ public final class GenomicsDBImport extends GATKTool {
             futures.put(sampleName, inputPreloadExecutorService.submit(() -> {
                 final Path variantPath = sampleNametoPath.get(sampleName);
                 try {
-                    return new InitializedQueryWrapper(getReaderFromPath(variantPath), intervals.get(0));
+                    // when pipelining, the records are also decoded ahead on this executor while GenomicsDB imports them
+                    return new InitializedQueryWrapper(getReaderFromPath(variantPath), intervals.get(0),
+                                                       pipelineBatches ? inputPreloadExecutorService : null);
                 } catch (final IOException e) {
                     throw new UserException.CouldNotReadInputFile("Couldn't read file: " + variantPath.toUri(), e);
                 }
@@ -770,6 +837,9 @@ public final class GenomicsDBImport extends GATKTool {
         if( inputPreloadExecutorService != null) {
             inputPreloadExecutorService.shutdownNow();
         }
+        if( batchPreloadExecutorService != null) {
+            batchPreloadExecutorService.shutdownNow();
+        }
     }
 
     /**
@@ -792,17 +862,20 @@ public final class GenomicsDBImport extends GATKTool {
     /**
      * This class is a hack to force parallel loading of the headers and indexes of remote gvcf files.
      * It initializes a feature reader and starts a query.  This causes the header and index to be read, and also causes any
-     * pre-fetching to begin if enabled.  It is very narrowly crafted and should not be used for other purposes.
+     * pre-fetching to begin if enabled.  If a decoding executor is given, the records of the query are also decoded ahead
+     * in batches on that executor.  It is very narrowly crafted and should not be used for other purposes.
      */
     private static final class InitializedQueryWrapper implements FeatureReader<VariantContext> {
         private final FeatureReader<VariantContext> reader;
         private final SimpleInterval interval;
         private CloseableTribbleIterator<VariantContext> query;
 
-        private InitializedQueryWrapper(final FeatureReader<VariantContext> reader, final Locatable interval) throws IOException {
+        private InitializedQueryWrapper(final FeatureReader<VariantContext> reader, final Locatable interval,
+                                        final ExecutorService decodingExecutor) throws IOException {
             this.reader = reader;
             this.interval = new SimpleInterval(interval);
-            this.query = reader.query(interval.getContig(), interval.getStart(), interval.getEnd());
+            final CloseableTribbleIterator<VariantContext> rawQuery = reader.query(interval.getContig(), interval.getStart(), interval.getEnd());
+            this.query = decodingExecutor == null ? rawQuery : new DecodeAheadIterator(rawQuery, decodingExecutor);
         }
 
         @Override
@@ -840,5 +913,48 @@ public final class GenomicsDBImport extends GATKTool {
             return reader.getHeader();
         }
     }
-}
 
+    /**
+     * Decodes the records of a query ahead of their consumption, including their genotypes: these are otherwise decoded
+     * lazily by the codec of the reader, which is not thread-safe, when GenomicsDB reads them on another thread while
+     * the next records are being decoded.
+     */
+    private static final class DecodeAheadIterator implements CloseableTribbleIterator<VariantContext> {
+        private final CloseableTribbleIterator<VariantContext> query;
+        private final CloseableIterator<VariantContext> prefetchingIterator;
+
+        private DecodeAheadIterator(final CloseableTribbleIterator<VariantContext> query, final ExecutorService decodingExecutor) {
+            this.query = query;
+            this.prefetchingIterator = Utils.prefetchParallel(Iterators.transform(query, DecodeAheadIterator::decodeGenotypes),
+                                                              DECODE_AHEAD_RECORDS_PER_SAMPLE, decodingExecutor);
+        }
+
+        private static VariantContext decodeGenotypes(final VariantContext vc) {
+            if (vc.getGenotypes() instanceof LazyGenotypesContext) {
+                ((LazyGenotypesContext) vc.getGenotypes()).decode();
+            }
+            return vc;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return prefetchingIterator.hasNext();
+        }
+
+        @Override
+        public VariantContext next() {
+            return prefetchingIterator.next();
+        }
+
+        @Override
+        public Iterator<VariantContext> iterator() {
+            return this;
+        }
+
+        @Override
+        public void close() {
+            prefetchingIterator.close();
+            query.close();
+        }
+    }
+}
@@ -103,6 +103,21 @@ public final class BwaSparkEngine implements AutoCloseable {
                 new ReadAligner(resolveIndexFileName ? SparkFiles.get(indexFileName) : indexFileName, broadcastHeader.value(), pairedAlignment).apply(itr));
     }
 
+    /**
+     * Aligns a batch of reads on the calling thread, for pipelines that run in the driver without Spark tasks, such as
+     * the local mode of {@link org.broadinstitute.hellbender.tools.spark.pipelines.ReadsPipelineSpark}. Batches may be
+     * aligned concurrently, since they share the cached index.
+     * @param unalignedReads the reads to align, with the two reads of each pair adjacent if aligning pairs.
+     * @param pairedAlignment whether it should perform pair-end alignment ({@code true}) or single-end alignment ({@code false}).
+     * @return never {@code null}.
+     */
+    public List<GATKRead> alignBatch(final List<GATKRead> unalignedReads, final boolean pairedAlignment) {
+        final List<GATKRead> alignedReads = new ArrayList<>(unalignedReads.size());
+        new ReadAligner(resolveIndexFileName ? SparkFiles.get(indexFileName) : indexFileName, getHeader(), pairedAlignment)
+                .apply(unalignedReads.iterator()).forEachRemaining(alignedReads::add);
+        return alignedReads;
+    }
+
     @Override
     public void close() {
         broadcastHeader.destroy();
@@ -9,11 +9,18 @@ import org.broadinstitute.barclay.help.DocumentedFeature;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import picard.cmdline.programgroups.DiagnosticsAndQCProgramGroup;
 import org.broadinstitute.hellbender.engine.spark.GATKSparkTool;
+import org.broadinstitute.hellbender.engine.spark.datasources.ReadsSparkSource;
 import org.broadinstitute.hellbender.tools.FlagStat.FlagStatus;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
 import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Spark tool to accumulate flag statistics given a BAM file, e.g. total number of reads with QC failure flag set, number of
@@ -66,6 +73,18 @@ public final class FlagStatSpark extends GATKSparkTool {
     )
     public String out;
 
+    /**
+     * The fields of the ADAM reads that the statistics and the default read filter use.
+     */
+    static final List<String> ADAM_FIELDS = Collections.unmodifiableList(Stream.of(
+            WELLFORMED_READ_FILTER_ADAM_FIELDS, ReadsSparkSource.ADAM_FLAG_FIELDS, Arrays.asList("mapq", "mateContigName", "mateAlignmentStart"))
+            .flatMap(List::stream).distinct().collect(Collectors.toList()));
+
+    @Override
+    protected Collection<String> getADAMFieldsToRead() {
+        return ADAM_FIELDS;
+    }
+
     @Override
     protected void runTool(final JavaSparkContext ctx) {
         final JavaRDD<GATKRead> reads = getReads();
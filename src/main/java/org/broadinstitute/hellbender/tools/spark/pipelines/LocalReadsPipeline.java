@@ -0,0 +1,450 @@
+package org.broadinstitute.hellbender.tools.spark.pipelines;
+
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMFileWriterFactory;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMRecordIterator;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.ValidationStringency;
+import htsjdk.samtools.util.CloserUtil;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import org.apache.commons.io.FileUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.engine.FeatureDataSource;
+import org.broadinstitute.hellbender.engine.ReferenceMemorySource;
+import org.broadinstitute.hellbender.engine.Shard;
+import org.broadinstitute.hellbender.engine.ShardBoundary;
+import org.broadinstitute.hellbender.engine.datasources.ReferenceMultiSource;
+import org.broadinstitute.hellbender.engine.filters.ReadFilter;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.tools.ApplyBQSRArgumentCollection;
+import org.broadinstitute.hellbender.tools.HaplotypeCallerSpark;
+import org.broadinstitute.hellbender.tools.spark.bwa.BwaSparkEngine;
+import org.broadinstitute.hellbender.tools.spark.transforms.BaseRecalibratorSparkFn;
+import org.broadinstitute.hellbender.tools.spark.transforms.markduplicates.MarkDuplicatesSparkUtils;
+import org.broadinstitute.hellbender.tools.walkers.annotator.VariantAnnotatorEngine;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.HaplotypeCallerArgumentCollection;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.HaplotypeCallerEngine;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.ReferenceConfidenceMode;
+import org.broadinstitute.hellbender.transformers.BQSRReadTransformer;
+import org.broadinstitute.hellbender.utils.IntervalUtils;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.downsampling.PositionalDownsampler;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+import org.broadinstitute.hellbender.utils.read.SAMRecordToGATKReadAdapter;
+import org.broadinstitute.hellbender.utils.read.markduplicates.MarkDuplicatesScoringStrategy;
+import org.broadinstitute.hellbender.utils.read.markduplicates.OpticalDuplicateFinder;
+import org.broadinstitute.hellbender.utils.recalibration.BaseRecalibrationEngine;
+import org.broadinstitute.hellbender.utils.recalibration.RecalibrationArgumentCollection;
+import org.broadinstitute.hellbender.utils.recalibration.RecalibrationReport;
+import org.broadinstitute.hellbender.utils.recalibration.RecalibrationTables;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
+import org.broadinstitute.hellbender.utils.reference.ReferenceBases;
+import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
+import org.broadinstitute.hellbender.utils.variant.writers.GVCFWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the stages of {@link ReadsPipelineSpark} in a single JVM, without Spark: the reads are streamed from one stage
+ * to the next, and each stage processes batches of reads or shards of the genome on its own pool of threads.
+ *
+ * <p>
+ *     Within a stage, the batches or shards are processed by {@link Utils#flatTransformParallel}, so that only a bounded
+ *     number of them are in flight and their results are returned in order. The reads are only spilled to local disk
+ *     where the stages need a global grouping or sort of them:
+ *     <ul>
+ *         <li>The primary reads are sorted by name into a temporary BAM, since marking duplicates needs the reads of
+ *         each template together, and a second traversal of the reads to apply the decisions.</li>
+ *         <li>The marked reads are then coordinate sorted into a temporary indexed BAM, which base recalibration
+ *         queries by shard, and which is then traversed in order to apply the recalibration.</li>
+ *         <li>The recalibrated reads are written to another temporary indexed BAM (as well as to the output BAM, if
+ *         any), which the haplotype caller queries by shard.</li>
+ *     </ul>
+ *     The sorts only spill to the temporary directory when there are more reads than they keep in memory.
+ * </p>
+ *
+ * <p>
+ *     Unlike in Spark, there is no serialization of reads or of the broadcast data between stages, and the engines
+ *     that are expensive to set up (e.g. the haplotype caller engine) are created once per thread rather than once per
+ *     partition. Closing the pipeline shuts down the thread pools of its stages and deletes its temporary files.
+ * </p>
+ */
+public final class LocalReadsPipeline implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(LocalReadsPipeline.class);
+
+    /**
+     * Number of reads aligned or recalibrated by each task. This is even, so that pairs of interleaved reads are
+     * aligned together.
+     */
+    public static final int READS_PER_BATCH = 10000;
+
+    /**
+     * Size of the shards of the genome that base recalibration statistics are collected over.
+     */
+    public static final int BQSR_SHARD_SIZE = 1000000;
+
+    /**
+     * Number of bases of reference fetched on each side of a base recalibration shard, so that the reads that start
+     * in the shard usually don't need to fetch their own reference bases.
+     */
+    private static final int BQSR_SHARD_REFERENCE_PADDING = 10000;
+
+    /**
+     * Default maximum number of reads kept in memory by each sort before spilling to disk.
+     */
+    public static final int DEFAULT_MAX_RECORDS_IN_RAM = 500000;
+
+    private final int numThreads;
+    private final int maxRecordsInRam;
+    private final File tempDir;
+    private final List<ExecutorService> executors = new ArrayList<>();
+
+    /**
+     * @param numThreads the number of threads of each stage (must be positive)
+     */
+    public LocalReadsPipeline(final int numThreads) {
+        this(numThreads, DEFAULT_MAX_RECORDS_IN_RAM);
+    }
+
+    /**
+     * @param numThreads the number of threads of each stage (must be positive)
+     * @param maxRecordsInRam the maximum number of reads kept in memory by each sort before spilling to disk (must be positive)
+     */
+    public LocalReadsPipeline(final int numThreads, final int maxRecordsInRam) {
+        Utils.validateArg(numThreads > 0, "numThreads must be positive");
+        Utils.validateArg(maxRecordsInRam > 0, "maxRecordsInRam must be positive");
+        this.numThreads = numThreads;
+        this.maxRecordsInRam = maxRecordsInRam;
+        this.tempDir = IOUtils.tempDir("ReadsPipeline", "");
+    }
+
+    /**
+     * Aligns the reads with BWA, in batches of {@link #READS_PER_BATCH} reads on the pool of threads of this stage.
+     *
+     * @param reads the reads to align, with the two reads of each pair adjacent if aligning pairs
+     * @return the aligned reads, in the order of the input reads, computed lazily as they are consumed
+     */
+    public Iterator<GATKRead> align(final Iterator<GATKRead> reads, final BwaSparkEngine bwaEngine, final boolean pairedAlignment) {
+        Utils.nonNull(bwaEngine);
+        return Utils.flatTransformParallel(Iterators.partition(reads, READS_PER_BATCH),
+                batch -> bwaEngine.alignBatch(batch, pairedAlignment), maxTasksInFlight(), newStageExecutor("align"));
+    }
+
+    /**
+     * Marks the duplicates among the primary reads as {@link org.broadinstitute.hellbender.tools.spark.transforms.markduplicates.MarkDuplicatesSpark#mark}
+     * does, and coordinate sorts the marked reads, along with the non-primary reads, into a temporary indexed BAM.
+     *
+     * @return the coordinate sorted BAM, which is deleted when the pipeline is closed
+     */
+    public File markDuplicatesAndSort(final Iterator<GATKRead> reads, final SAMFileHeader header,
+                                      final MarkDuplicatesScoringStrategy scoringStrategy, final OpticalDuplicateFinder finder) {
+        final File nameSortedBam = new File(tempDir, "primaryReads.bam");
+        final File sortedBam = new File(tempDir, "markedDuplicates.bam");
+        final List<SamReader> nameSortedReaders = new ArrayList<>();
+        try (final SAMFileWriter writer = newSortingWriter(header, SAMFileHeader.SortOrder.coordinate, sortedBam)) {
+            try (final SAMFileWriter nameSortingWriter = newSortingWriter(header, SAMFileHeader.SortOrder.queryname, nameSortedBam)) {
+                reads.forEachRemaining(read -> {
+                    if (ReadUtils.isNonPrimary(read)) {
+                        writer.addAlignment(read.convertToSAMRecord(header));
+                    } else {
+                        nameSortingWriter.addAlignment(read.convertToSAMRecord(header));
+                    }
+                });
+            }
+
+            // traversed twice, once to find the duplicates and once to mark them
+            final Iterable<GATKRead> nameGroupedReads = () -> {
+                final SamReader reader = openReader(nameSortedBam);
+                nameSortedReaders.add(reader);
+                return Iterators.transform(reader.iterator(), SAMRecordToGATKReadAdapter::new);
+            };
+            final SAMFileHeader nameSortedHeader = sortedHeader(header, SAMFileHeader.SortOrder.queryname);
+            MarkDuplicatesSparkUtils.markReadNameGroupedReads(nameSortedHeader, scoringStrategy, finder, nameGroupedReads,
+                    maxRecordsInRam, tempDir, read -> {
+                        read.clearAttribute(MarkDuplicatesSparkUtils.OPTICAL_DUPLICATE_TOTAL_ATTRIBUTE_NAME);
+                        writer.addAlignment(read.convertToSAMRecord(header));
+                    });
+        } finally {
+            nameSortedReaders.forEach(CloserUtil::close);
+            FileUtils.deleteQuietly(nameSortedBam);
+        }
+        return sortedBam;
+    }
+
+    /**
+     * Collects the base recalibration statistics of the reads of a coordinate sorted, indexed BAM, over shards of
+     * {@link #BQSR_SHARD_SIZE} bases on the pool of threads of this stage. Each thread collects its statistics in its
+     * own {@link BaseRecalibrationEngine}, and queries the known sites with its own {@link FeatureDataSource}s.
+     *
+     * @param sortedBam the coordinate sorted and indexed reads
+     * @param readFilter the filter for the reads to recalibrate, which must be safe to use concurrently
+     * @param reference the reference, which must be safe to query concurrently
+     * @param knownSites the paths of the known variants
+     * @return the recalibration report
+     */
+    public RecalibrationReport recalibrate(final File sortedBam, final SAMFileHeader header, final ReadFilter readFilter,
+                                           final ReferenceMultiSource reference, final List<String> knownSites,
+                                           final RecalibrationArgumentCollection recalArgs) {
+        final PerThread<SamReader> readers = new PerThread<>(() -> openReader(sortedBam));
+        final PerThread<BaseRecalibrationEngine> engines = new PerThread<>(() -> new BaseRecalibrationEngine(recalArgs, header));
+        final PerThread<List<FeatureDataSource<VariantContext>>> knownSitesSources = new PerThread<>(() -> knownSites.stream()
+                .map(path -> new FeatureDataSource<VariantContext>(path, null, FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES, VariantContext.class))
+                .collect(Collectors.toList()));
+
+        final List<SimpleInterval> shards = IntervalUtils.getAllIntervalsForReference(header.getSequenceDictionary()).stream()
+                .flatMap(interval -> Shard.divideIntervalIntoShards(interval, BQSR_SHARD_SIZE, 0, header.getSequenceDictionary()).stream())
+                .map(ShardBoundary::getInterval)
+                .collect(Collectors.toList());
+        try {
+            final Iterator<Long> numReadsPerShard = Utils.transformParallel(shards.iterator(), shard ->
+                    recalibrateShard(shard, readers.get(), engines.get(), knownSitesSources.get(), header, readFilter, reference),
+                    maxTasksInFlight(), newStageExecutor("recalibrate"));
+            final long numReads = Utils.stream(numReadsPerShard).mapToLong(Long::longValue).sum();
+            logger.info("Collected base recalibration statistics from " + numReads + " reads");
+
+            final RecalibrationTables combinedTables = new RecalibrationTables(new StandardCovariateList(recalArgs, header));
+            engines.getAll().forEach(engine -> RecalibrationTables.inPlaceCombine(combinedTables, engine.getRecalibrationTables()));
+            return BaseRecalibratorSparkFn.createReport(combinedTables, header, recalArgs);
+        } finally {
+            readers.getAll().forEach(CloserUtil::close);
+            knownSitesSources.getAll().forEach(CloserUtil::close);
+        }
+    }
+
+    /**
+     * Processes the reads that start in a shard, so that the reads that overlap several shards are only counted once.
+     *
+     * @return the number of reads processed
+     */
+    private static long recalibrateShard(final SimpleInterval shard, final SamReader reader, final BaseRecalibrationEngine engine,
+                                         final List<FeatureDataSource<VariantContext>> knownSitesSources, final SAMFileHeader header,
+                                         final ReadFilter readFilter, final ReferenceMultiSource reference) {
+        final int contigLength = header.getSequenceDictionary().getSequence(shard.getContig()).getSequenceLength();
+        final SimpleInterval paddedShard = new SimpleInterval(shard.getContig(), Math.max(1, shard.getStart() - BQSR_SHARD_REFERENCE_PADDING),
+                Math.min(contigLength, shard.getEnd() + BQSR_SHARD_REFERENCE_PADDING));
+        ReferenceMemorySource shardReference = null;
+
+        long numReads = 0;
+        try (final SAMRecordIterator records = reader.query(shard.getContig(), shard.getStart(), shard.getEnd(), false)) {
+            while (records.hasNext()) {
+                final GATKRead read = new SAMRecordToGATKReadAdapter(records.next());
+                if (read.getStart() < shard.getStart() || !readFilter.test(read)) {
+                    continue;
+                }
+                final SimpleInterval referenceWindow = BaseRecalibrationEngine.BQSR_REFERENCE_WINDOW_FUNCTION.apply(read);
+                final ReferenceMemorySource readReference;
+                if (paddedShard.contains(referenceWindow)) {
+                    if (shardReference == null) {
+                        shardReference = new ReferenceMemorySource(getReferenceBases(reference, paddedShard), header.getSequenceDictionary());
+                    }
+                    readReference = shardReference;
+                } else {
+                    readReference = new ReferenceMemorySource(getReferenceBases(reference, referenceWindow), header.getSequenceDictionary());
+                }
+
+                final List<VariantContext> overlappingKnownSites = new ArrayList<>();
+                for (final FeatureDataSource<VariantContext> source : knownSitesSources) {
+                    overlappingKnownSites.addAll(source.queryAndPrefetch(referenceWindow));
+                }
+                engine.processRead(read, readReference, overlappingKnownSites);
+                numReads++;
+            }
+        }
+        return numReads;
+    }
+
+    /**
+     * Recalibrates the base qualities of the reads of a coordinate sorted BAM, in batches of {@link #READS_PER_BATCH}
+     * reads on the pool of threads of this stage, and writes them in order to a temporary indexed BAM, and to the
+     * output BAM if there is one.
+     *
+     * @param outputBam the path of the output BAM, or null
+     * @return the temporary coordinate sorted BAM of the recalibrated reads, which is deleted when the pipeline is closed
+     */
+    public File applyRecalibration(final File sortedBam, final SAMFileHeader header, final RecalibrationReport report,
+                                   final ApplyBQSRArgumentCollection applyArgs, final String outputBam) {
+        final SAMFileHeader sortedHeader = sortedHeader(header, SAMFileHeader.SortOrder.coordinate);
+        final PerThread<BQSRReadTransformer> transformers = new PerThread<>(() -> new BQSRReadTransformer(sortedHeader, report, applyArgs));
+
+        final File recalibratedBam = new File(tempDir, "recalibrated.bam");
+        try (final SamReader reader = openReader(sortedBam);
+             final SAMRecordIterator records = reader.iterator();
+             final SAMFileWriter writer = ReadUtils.createCommonSAMWriter(recalibratedBam, null, sortedHeader, true, true, false);
+             final SAMFileWriter outputWriter = outputBam == null ? null :
+                     ReadUtils.createCommonSAMWriter(IOUtils.getPath(outputBam), null, sortedHeader, true, true, false)) {
+            final Iterator<List<GATKRead>> batches = Iterators.partition(Iterators.transform(records, SAMRecordToGATKReadAdapter::new), READS_PER_BATCH);
+            final Iterator<GATKRead> recalibratedReads = Utils.flatTransformParallel(batches, batch -> {
+                final BQSRReadTransformer transformer = transformers.get();
+                return batch.stream().map(transformer::apply).collect(Collectors.toList());
+            }, maxTasksInFlight(), newStageExecutor("applyBQSR"));
+
+            recalibratedReads.forEachRemaining(read -> {
+                final SAMRecord record = read.convertToSAMRecord(sortedHeader);
+                writer.addAlignment(record);
+                if (outputWriter != null) {
+                    outputWriter.addAlignment(record);
+                }
+            });
+        } catch (final IOException e) {
+            throw new GATKException("Failed to read the sorted reads from " + sortedBam, e);
+        }
+        return recalibratedBam;
+    }
+
+    /**
+     * Calls variants with the haplotype caller on the reads of a coordinate sorted, indexed BAM, over the same shards
+     * as {@link HaplotypeCallerSpark} on the pool of threads of this stage, and writes them in order to a VCF. Each
+     * thread calls variants with its own {@link HaplotypeCallerEngine}, and queries the reads with its own reader.
+     *
+     * @param readFilter the filter for the reads to call variants from, which must be safe to use concurrently
+     * @param reference the reference, which must be safe to query concurrently
+     * @param intervals the intervals to call variants in
+     * @param output the path of the output VCF
+     */
+    public void callVariants(final File sortedBam, final SAMFileHeader header, final ReadFilter readFilter,
+                             final ReferenceMultiSource reference, final List<SimpleInterval> intervals,
+                             final HaplotypeCallerArgumentCollection hcArgs,
+                             final HaplotypeCallerSpark.ShardingArgumentCollection shardingArgs, final String output) {
+        HaplotypeCallerSpark.validateHaplotypeCallerArguments(hcArgs);
+        final SAMFileHeader sortedHeader = sortedHeader(header, SAMFileHeader.SortOrder.coordinate);
+
+        final PerThread<SamReader> readers = new PerThread<>(() -> openReader(sortedBam));
+        final PerThread<HaplotypeCallerEngine> engines = new PerThread<>(() -> new HaplotypeCallerEngine(hcArgs, false, false, sortedHeader,
+                new HaplotypeCallerSpark.ReferenceMultiSourceAdapter(reference),
+                VariantAnnotatorEngine.ofSelectedMinusExcluded(hcArgs.variantAnnotationArgumentCollection, hcArgs.dbsnp.dbsnp, hcArgs.comps)));
+        final PerThread<PositionalDownsampler> downsamplers = new PerThread<>(() -> shardingArgs.maxReadsPerAlignmentStart > 0 ?
+                new PositionalDownsampler(shardingArgs.maxReadsPerAlignmentStart, sortedHeader) : null);
+
+        final List<ShardBoundary> shardBoundaries = HaplotypeCallerSpark.getShardBoundaries(sortedHeader, intervals,
+                shardingArgs.readShardSize, shardingArgs.readShardPadding);
+        final HaplotypeCallerEngine headerEngine = new HaplotypeCallerEngine(hcArgs, false, false, sortedHeader, new HaplotypeCallerSpark.ReferenceMultiSourceAdapter(reference));
+        try (final VariantContextWriter writer = createVCFWriter(output, sortedHeader, hcArgs)) {
+            writer.writeHeader(headerEngine.makeVCFHeader(sortedHeader.getSequenceDictionary(), new HashSet<>()));
+            final Iterator<VariantContext> variants = Utils.flatTransformParallel(shardBoundaries.iterator(), shardBoundary -> {
+                final SimpleInterval paddedInterval = shardBoundary.getPaddedInterval();
+                try (final SAMRecordIterator records = readers.get().query(paddedInterval.getContig(), paddedInterval.getStart(), paddedInterval.getEnd(), false)) {
+                    final Iterable<GATKRead> reads = () -> Iterators.filter(Iterators.transform(records, SAMRecordToGATKReadAdapter::new), readFilter::test);
+                    return HaplotypeCallerSpark.callVariantsInShard(shardBoundary, reads, sortedHeader, reference, engines.get(), shardingArgs, downsamplers.get());
+                }
+            }, maxTasksInFlight(), newStageExecutor("haplotypeCaller"));
+            variants.forEachRemaining(writer::add);
+        } finally {
+            headerEngine.shutdown();
+            engines.getAll().forEach(HaplotypeCallerEngine::shutdown);
+            readers.getAll().forEach(CloserUtil::close);
+        }
+    }
+
+    private static VariantContextWriter createVCFWriter(final String output, final SAMFileHeader header, final HaplotypeCallerArgumentCollection hcArgs) {
+        final VariantContextWriter writer = GATKVariantContextUtils.createVCFWriter(new File(output), header.getSequenceDictionary(), false);
+        if (hcArgs.emitReferenceConfidence == ReferenceConfidenceMode.GVCF) {
+            return new GVCFWriter(writer, hcArgs.GVCFGQBands, hcArgs.genotypeArgs.samplePloidy);
+        }
+        return writer;
+    }
+
+    private static ReferenceBases getReferenceBases(final ReferenceMultiSource reference, final SimpleInterval interval) {
+        try {
+            return reference.getReferenceBases(interval);
+        } catch (final IOException e) {
+            throw new GATKException("Failed to read the reference bases of " + interval, e);
+        }
+    }
+
+    private static SAMFileHeader sortedHeader(final SAMFileHeader header, final SAMFileHeader.SortOrder sortOrder) {
+        final SAMFileHeader sortedHeader = header.clone();
+        sortedHeader.setSortOrder(sortOrder);
+        return sortedHeader;
+    }
+
+    /**
+     * @return a writer that sorts the reads, spilling to the temporary directory, and indexes them if coordinate sorted
+     */
+    private SAMFileWriter newSortingWriter(final SAMFileHeader header, final SAMFileHeader.SortOrder sortOrder, final File output) {
+        return new SAMFileWriterFactory()
+                .setCreateIndex(sortOrder == SAMFileHeader.SortOrder.coordinate)
+                .setTempDirectory(tempDir)
+                .setMaxRecordsInRam(maxRecordsInRam)
+                .makeBAMWriter(sortedHeader(header, sortOrder), false, output);
+    }
+
+    private static SamReader openReader(final File bam) {
+        // the temporary files are written by this pipeline from reads that have already been validated
+        return SamReaderFactory.makeDefault().validationStringency(ValidationStringency.SILENT).open(bam);
+    }
+
+    /**
+     * Enough tasks that all the threads of a stage are kept busy while the results of the oldest task are consumed.
+     */
+    private int maxTasksInFlight() {
+        return 2 * numThreads;
+    }
+
+    private ExecutorService newStageExecutor(final String stageName) {
+        final ExecutorService executor = Executors.newFixedThreadPool(numThreads,
+                new ThreadFactoryBuilder().setNameFormat("reads-pipeline-" + stageName + "-%d").setDaemon(true).build());
+        synchronized (executors) {
+            executors.add(executor);
+        }
+        return executor;
+    }
+
+    @Override
+    public void close() {
+        synchronized (executors) {
+            executors.forEach(ExecutorService::shutdownNow);
+            executors.clear();
+        }
+        FileUtils.deleteQuietly(tempDir);
+    }
+
+    /**
+     * A resource of a stage that each thread of the stage creates for its own use, such as an engine that isn't
+     * thread-safe, and that can all be combined or released once the stage is done.
+     */
+    private static final class PerThread<T> {
+        private final List<T> instances = Collections.synchronizedList(new ArrayList<>());
+        private final ThreadLocal<T> threadLocal;
+
+        PerThread(final Supplier<T> supplier) {
+            this.threadLocal = ThreadLocal.withInitial(() -> {
+                final T instance = supplier.get();
+                instances.add(instance);
+                return instance;
+            });
+        }
+
+        T get() {
+            return threadLocal.get();
+        }
+
+        /**
+         * @return the instances created by all the threads so far
+         */
+        List<T> getAll() {
+            synchronized (instances) {
+                return new ArrayList<>(instances);
+            }
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package org.broadinstitute.hellbender.tools.spark.pipelines;
 
+import com.google.common.collect.Iterators;
 import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SamReaderFactory;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
@@ -9,11 +11,14 @@ import org.apache.spark.storage.StorageLevel;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
 import org.broadinstitute.barclay.argparser.BetaFeature;
+import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
 import org.broadinstitute.barclay.help.DocumentedFeature;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.cmdline.programgroups.ShortVariantDiscoveryProgramGroup;
 import org.broadinstitute.hellbender.engine.ReadContextData;
+import org.broadinstitute.hellbender.engine.ReadsDataSource;
+import org.broadinstitute.hellbender.engine.TraversalParameters;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.spark.AddContextDataToReadSpark;
 import org.broadinstitute.hellbender.engine.spark.GATKSparkTool;
@@ -33,6 +38,7 @@ import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.HaplotypeCall
 import org.broadinstitute.hellbender.utils.IntervalUtils;
 import org.broadinstitute.hellbender.utils.SerializableFunction;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.markduplicates.MarkDuplicatesScoringStrategy;
 import org.broadinstitute.hellbender.utils.read.markduplicates.OpticalDuplicateFinder;
@@ -42,6 +48,8 @@ import org.broadinstitute.hellbender.utils.recalibration.RecalibrationReport;
 import org.broadinstitute.hellbender.utils.spark.SparkUtils;
 import org.broadinstitute.hellbender.utils.variant.GATKVariant;
 
+import java.io.File;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -74,6 +82,21 @@ import java.util.List;
  *   --sparkRunner GCS \
  *   --cluster my-dataproc-cluster
  * </pre>
+ * <p>
+ * On a single machine, the stages can instead be run in the JVM of the driver, streaming the reads from one stage to
+ * the next without Spark serialization or shuffle files:
+ * </p>
+ * <pre>
+ * gatk ReadsPipelineSpark \
+ *   -I aligned_reads.bam \
+ *   -R reference.2bit \
+ *   --known-sites sites_of_variation.vcf \
+ *   -O output.vcf \
+ *   --local-pipeline \
+ *   -- \
+ *   --sparkRunner LOCAL \
+ *   --spark-master local[*]
+ * </pre>
  */
 
 @CommandLineProgramProperties(
@@ -90,6 +113,8 @@ public class ReadsPipelineSpark extends GATKSparkTool {
     static final String USAGE_ONE_LINE_SUMMARY = "Takes unaligned or aligned reads and runs BWA (if specified), MarkDuplicates, BQSR, and HaplotypeCaller to generate a VCF file of variants";
     static final String USAGE_SUMMARY = "Takes unaligned or aligned reads and runs BWA (if specified), MarkDuplicates, BQSR, and HaplotypeCaller. The final result is analysis-ready variants.";
 
+    public static final String LOCAL_PIPELINE_LONG_NAME = "local-pipeline";
+
     @Override
     public boolean requiresReads() { return true; }
 
@@ -112,6 +137,13 @@ public class ReadsPipelineSpark extends GATKSparkTool {
     @Argument(doc = "the join strategy for reference bases and known variants", fullName = "join-strategy", optional = true)
     private JoinStrategy joinStrategy = JoinStrategy.BROADCAST;
 
+    @Argument(doc = "whether to run all the stages in this JVM, streaming the reads between them on a pool of threads per stage, " +
+            "rather than as Spark stages; requires a local Spark master", fullName = LOCAL_PIPELINE_LONG_NAME, optional = true)
+    private boolean localPipeline = false;
+
+    @Argument(doc = "the number of threads of each stage of the local pipeline", fullName = "local-pipeline-threads", optional = true, minValue = 1)
+    private int localPipelineThreads = Runtime.getRuntime().availableProcessors();
+
     @ArgumentCollection
     public final BwaArgumentCollection bwaArgs = new BwaArgumentCollection();
 
@@ -143,69 +175,131 @@ public class ReadsPipelineSpark extends GATKSparkTool {
 
     @Override
     protected void runTool(final JavaSparkContext ctx) {
+        if (localPipeline) {
+            if (!ctx.isLocal()) {
+                throw new CommandLineException.BadArgumentValue(LOCAL_PIPELINE_LONG_NAME, "true", "The local pipeline requires a local Spark master");
+            }
+            runLocalPipeline(ctx);
+            return;
+        }
+
         if (joinStrategy == JoinStrategy.BROADCAST && ! getReference().isCompatibleWithSparkBroadcast()){
             throw new UserException.Require2BitReferenceForBroadcast();
         }
 
-        final JavaRDD<GATKRead> alignedReads;
-        final SAMFileHeader header;
-        final BwaSparkEngine bwaEngine;
-        if (align) {
-            bwaEngine = new BwaSparkEngine(ctx, referenceArguments.getReferenceFileName(), bwaArgs.indexImageFile, getHeaderForReads(), getReferenceSequenceDictionary());
-            if (bwaArgs.singleEndAlignment) {
-                alignedReads = bwaEngine.alignUnpaired(getReads());
+        // the RDDs are computed when the outputs are written, so the aligner is only closed after that, even if a stage fails
+        try (final BwaSparkEngine bwaEngine = align ? new BwaSparkEngine(ctx, referenceArguments.getReferenceFileName(), bwaArgs.indexImageFile, getHeaderForReads(), getReferenceSequenceDictionary()) : null) {
+            final JavaRDD<GATKRead> alignedReads;
+            final SAMFileHeader header;
+            if (align) {
+                if (bwaArgs.singleEndAlignment) {
+                    alignedReads = bwaEngine.alignUnpaired(getReads());
+                } else {
+                    // filter reads after alignment in the case of paired reads since filtering does not know about pairs
+                    final ReadFilter filter = makeReadFilter(bwaEngine.getHeader());
+                    alignedReads = bwaEngine.alignPaired(getUnfilteredReads()).filter(filter::test);
+                }
+                header = bwaEngine.getHeader();
             } else {
-                // filter reads after alignment in the case of paired reads since filtering does not know about pairs
-                final ReadFilter filter = makeReadFilter(bwaEngine.getHeader());
-                alignedReads = bwaEngine.alignPaired(getUnfilteredReads()).filter(filter::test);
+                alignedReads = getReads();
+                header = getHeaderForReads();
             }
-            header = bwaEngine.getHeader();
-        } else {
-            bwaEngine = null;
-            alignedReads = getReads();
-            header = getHeaderForReads();
-        }
 
-        final JavaRDD<GATKRead> markedReadsWithOD = MarkDuplicatesSpark.mark(alignedReads, header, duplicatesScoringStrategy, new OpticalDuplicateFinder(), getRecommendedNumReducers());
-        final JavaRDD<GATKRead> markedReads = MarkDuplicatesSpark.cleanupTemporaryAttributes(markedReadsWithOD);
+            final JavaRDD<GATKRead> markedReadsWithOD = MarkDuplicatesSpark.mark(alignedReads, header, duplicatesScoringStrategy, new OpticalDuplicateFinder(), getRecommendedNumReducers());
+            final JavaRDD<GATKRead> markedReads = MarkDuplicatesSpark.cleanupTemporaryAttributes(markedReadsWithOD);
 
-        // The markedReads have already had the WellformedReadFilter applied to them, which
-        // is all the filtering that MarkDupes and ApplyBQSR want. BQSR itself wants additional
-        // filtering performed, so we do that here.
-        //NOTE: this doesn't honor enabled/disabled commandline filters
-        final ReadFilter bqsrReadFilter = ReadFilter.fromList(BaseRecalibrator.getBQSRSpecificReadFilterList(), header);
+            // The markedReads have already had the WellformedReadFilter applied to them, which
+            // is all the filtering that MarkDupes and ApplyBQSR want. BQSR itself wants additional
+            // filtering performed, so we do that here.
+            //NOTE: this doesn't honor enabled/disabled commandline filters
+            final ReadFilter bqsrReadFilter = ReadFilter.fromList(BaseRecalibrator.getBQSRSpecificReadFilterList(), header);
 
-        JavaRDD<GATKRead> markedFilteredReadsForBQSR = markedReads.filter(read -> bqsrReadFilter.test(read));
+            JavaRDD<GATKRead> markedFilteredReadsForBQSR = markedReads.filter(read -> bqsrReadFilter.test(read));
 
-        if (joinStrategy.equals(JoinStrategy.OVERLAPS_PARTITIONER)) {
-            // the overlaps partitioner requires that reads are coordinate-sorted
-            final SAMFileHeader readsHeader = header.clone();
-            readsHeader.setSortOrder(SAMFileHeader.SortOrder.coordinate);
-            markedFilteredReadsForBQSR = SparkUtils.coordinateSortReads(markedFilteredReadsForBQSR, readsHeader, numReducers);
-        }
+            if (joinStrategy.equals(JoinStrategy.OVERLAPS_PARTITIONER)) {
+                // the overlaps partitioner requires that reads are coordinate-sorted
+                final SAMFileHeader readsHeader = header.clone();
+                readsHeader.setSortOrder(SAMFileHeader.SortOrder.coordinate);
+                markedFilteredReadsForBQSR = SparkUtils.coordinateSortReads(markedFilteredReadsForBQSR, readsHeader, numReducers);
+            }
 
-        VariantsSparkSource variantsSparkSource = new VariantsSparkSource(ctx);
-        JavaRDD<GATKVariant> bqsrKnownVariants = variantsSparkSource.getParallelVariants(baseRecalibrationKnownVariants, getIntervals());
+            VariantsSparkSource variantsSparkSource = new VariantsSparkSource(ctx);
+            JavaRDD<GATKVariant> bqsrKnownVariants = variantsSparkSource.getParallelVariants(baseRecalibrationKnownVariants, getIntervals());
 
-        JavaPairRDD<GATKRead, ReadContextData> rddReadContext = AddContextDataToReadSpark.add(ctx, markedFilteredReadsForBQSR, getReference(), bqsrKnownVariants, baseRecalibrationKnownVariants, joinStrategy, header.getSequenceDictionary(), shardingArgs.readShardSize, shardingArgs.readShardPadding);
-        final RecalibrationReport bqsrReport = BaseRecalibratorSparkFn.apply(rddReadContext, header, getReferenceSequenceDictionary(), bqsrArgs);
+            JavaPairRDD<GATKRead, ReadContextData> rddReadContext = AddContextDataToReadSpark.add(ctx, markedFilteredReadsForBQSR, getReference(), bqsrKnownVariants, baseRecalibrationKnownVariants, joinStrategy, header.getSequenceDictionary(), shardingArgs.readShardSize, shardingArgs.readShardPadding);
+            final RecalibrationReport bqsrReport = BaseRecalibratorSparkFn.apply(rddReadContext, header, getReferenceSequenceDictionary(), bqsrArgs);
 
-        final Broadcast<RecalibrationReport> reportBroadcast = ctx.broadcast(bqsrReport);
-        final JavaRDD<GATKRead> finalReads = ApplyBQSRSparkFn.apply(markedReads, reportBroadcast, header, applyBqsrArgs.toApplyBQSRArgumentCollection(bqsrArgs.PRESERVE_QSCORES_LESS_THAN));
+            final Broadcast<RecalibrationReport> reportBroadcast = ctx.broadcast(bqsrReport);
+            final JavaRDD<GATKRead> finalReads = ApplyBQSRSparkFn.apply(markedReads, reportBroadcast, header, applyBqsrArgs.toApplyBQSRArgumentCollection(bqsrArgs.PRESERVE_QSCORES_LESS_THAN));
 
-        if (outputBam != null) { // only write output of BQSR if output BAM is specified
-            writeReads(ctx, outputBam, finalReads, header);
+            if (outputBam != null) { // only write output of BQSR if output BAM is specified
+                writeReads(ctx, outputBam, finalReads, header);
+            }
+
+            // Run Haplotype Caller
+            final ReadFilter hcReadFilter = ReadFilter.fromList(HaplotypeCallerEngine.makeStandardHCReadFilters(), header);
+            final JavaRDD<GATKRead> filteredReadsForHC = finalReads.filter(read -> hcReadFilter.test(read));
+            filteredReadsForHC.persist(StorageLevel.DISK_ONLY()); // without caching, computations are run twice as a side effect of finding partition boundaries for sorting
+            final List<SimpleInterval> intervals = hasIntervals() ? getIntervals() : IntervalUtils.getAllIntervalsForReference(header.getSequenceDictionary());
+            HaplotypeCallerSpark.callVariantsWithHaplotypeCallerAndWriteOutput(ctx, filteredReadsForHC, header, getReference(), intervals, hcArgs, shardingArgs, numReducers, output);
         }
+    }
+
+    /**
+     * Runs the same stages as {@link #runTool} with a {@link LocalReadsPipeline}, which streams the reads between the
+     * stages in this JVM rather than running the stages as Spark jobs, and only spills them to local disk to group
+     * them by name for marking duplicates and to sort them by coordinate.
+     */
+    private void runLocalPipeline(final JavaSparkContext ctx) {
+        final SAMFileHeader header;
+        try (final BwaSparkEngine bwaEngine = align ? new BwaSparkEngine(ctx, referenceArguments.getReferenceFileName(), bwaArgs.indexImageFile, getHeaderForReads(), getReferenceSequenceDictionary()) : null;
+             final ReadsDataSource readsSource = newLocalReadsSource();
+             final LocalReadsPipeline pipeline = new LocalReadsPipeline(localPipelineThreads)) {
+            final Iterator<GATKRead> alignedReads;
+            if (align) {
+                header = bwaEngine.getHeader();
+                if (bwaArgs.singleEndAlignment) {
+                    final ReadFilter filter = makeReadFilter();
+                    alignedReads = pipeline.align(Iterators.filter(readsSource.iterator(), filter::test), bwaEngine, false);
+                } else {
+                    // filter reads after alignment in the case of paired reads since filtering does not know about pairs
+                    final ReadFilter filter = makeReadFilter(header);
+                    alignedReads = Iterators.filter(pipeline.align(readsSource.iterator(), bwaEngine, true), filter::test);
+                }
+            } else {
+                header = getHeaderForReads();
+                final ReadFilter filter = makeReadFilter();
+                alignedReads = Iterators.filter(readsSource.iterator(), filter::test);
+            }
+
+            final File markedReads = pipeline.markDuplicatesAndSort(alignedReads, header, duplicatesScoringStrategy, new OpticalDuplicateFinder());
+
+            //NOTE: as in runTool, this doesn't honor enabled/disabled commandline filters
+            final ReadFilter bqsrReadFilter = ReadFilter.fromList(BaseRecalibrator.getBQSRSpecificReadFilterList(), header);
+            final RecalibrationReport bqsrReport = pipeline.recalibrate(markedReads, header, bqsrReadFilter, getReference(), baseRecalibrationKnownVariants, bqsrArgs);
+
+            final File finalReads = pipeline.applyRecalibration(markedReads, header, bqsrReport,
+                    applyBqsrArgs.toApplyBQSRArgumentCollection(bqsrArgs.PRESERVE_QSCORES_LESS_THAN), outputBam);
 
-        // Run Haplotype Caller
-        final ReadFilter hcReadFilter = ReadFilter.fromList(HaplotypeCallerEngine.makeStandardHCReadFilters(), header);
-        final JavaRDD<GATKRead> filteredReadsForHC = finalReads.filter(read -> hcReadFilter.test(read));
-        filteredReadsForHC.persist(StorageLevel.DISK_ONLY()); // without caching, computations are run twice as a side effect of finding partition boundaries for sorting
-        final List<SimpleInterval> intervals = hasIntervals() ? getIntervals() : IntervalUtils.getAllIntervalsForReference(header.getSequenceDictionary());
-        HaplotypeCallerSpark.callVariantsWithHaplotypeCallerAndWriteOutput(ctx, filteredReadsForHC, header, getReference(), intervals, hcArgs, shardingArgs, numReducers, output);
+            final ReadFilter hcReadFilter = ReadFilter.fromList(HaplotypeCallerEngine.makeStandardHCReadFilters(), header);
+            final List<SimpleInterval> intervals = hasIntervals() ? getIntervals() : IntervalUtils.getAllIntervalsForReference(header.getSequenceDictionary());
+            pipeline.callVariants(finalReads, header, hcReadFilter, getReference(), intervals, hcArgs, shardingArgs, output);
+        }
+    }
 
-        if (bwaEngine != null) {
-            bwaEngine.close();
+    /**
+     * @return a source of the input reads that are read in this JVM, bounded by the intervals if specified, and unfiltered.
+     *         Unbounded traversals of a BAM are read and decoded on the pipeline threads.
+     */
+    private ReadsDataSource newLocalReadsSource() {
+        final ReadsDataSource readsSource = new ReadsDataSource(IOUtils.getPath(getReadSourceName()),
+                SamReaderFactory.makeDefault().validationStringency(readArguments.getReadValidationStringency()));
+        readsSource.setDecodingThreads(localPipelineThreads);
+        if ( intervalArgumentCollection.intervalsSpecified() ) {
+            readsSource.setTraversalBounds(intervalArgumentCollection.getTraversalParameters(getHeaderForReads().getSequenceDictionary()));
+        } else if ( hasIntervals() ) { // intervals may have been supplied by editIntervals
+            readsSource.setTraversalBounds(new TraversalParameters(getIntervals(), false));
         }
+        return readsSource;
     }
 }
@@ -0,0 +1,61 @@
+package org.broadinstitute.hellbender.tools.spark.pipelines.metrics;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.apache.spark.api.java.JavaRDD;
+import org.broadinstitute.hellbender.metrics.MetricsArgumentCollection;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import scala.Tuple2;
+
+import java.io.Serializable;
+
+/**
+ * A {@link MetricsCollectorSpark} that collects its metrics read by read into a serializable accumulator, so that
+ * {@link CollectMultipleMetricsSpark} can run several collectors in a single pass over the reads, and the
+ * accumulators of all the partitions are combined with a {@link JavaRDD#treeAggregate} rather than on the driver.
+ *
+ * The accumulator methods are called on the executors, so they should not use any state of the collector that is
+ * only set up on the driver after {@link #initialize}. Accumulators may be modified and returned by
+ * {@link #addRead} and {@link #combineAccumulators}, like the arguments of {@link JavaRDD#aggregate}.
+ *
+ * @param <T> the argument collection of the collector
+ * @param <A> the type of the accumulator
+ */
+public interface AccumulatingMetricsCollectorSpark<T extends MetricsArgumentCollection, A extends Serializable>
+        extends MetricsCollectorSpark<T> {
+
+    public static final long serialVersionUID = 1L;
+
+    /**
+     * @return a new accumulator, with no reads added
+     */
+    A createAccumulator();
+
+    /**
+     * Add a read that has passed the collector's read filters to an accumulator.
+     * @return the accumulator with the read added
+     */
+    A addRead(A accumulator, GATKRead read);
+
+    /**
+     * Combine two accumulators.
+     * @return an accumulator with the reads of both accumulators added
+     */
+    A combineAccumulators(A accumulator1, A accumulator2);
+
+    /**
+     * Called on the driver with the accumulator of all the reads, before {@link #saveMetrics}.
+     * @param readCount the number of reads added to the accumulator, e.g. to fail on input without any valid reads
+     */
+    void finishCollection(A accumulator, long readCount);
+
+    /**
+     * Collects the metrics by aggregating the reads, and counting them, with {@link JavaRDD#treeAggregate}.
+     */
+    @Override
+    default void collectMetrics(final JavaRDD<GATKRead> filteredReads, final SAMFileHeader samHeader) {
+        final Tuple2<A, Long> result = filteredReads.treeAggregate(new Tuple2<>(createAccumulator(), 0L),
+                (acc, read) -> new Tuple2<>(addRead(acc._1(), read), acc._2() + 1),
+                (acc1, acc2) -> new Tuple2<>(combineAccumulators(acc1._1(), acc2._1()), acc1._2() + acc2._2()));
+        finishCollection(result._1(), result._2());
+    }
+}
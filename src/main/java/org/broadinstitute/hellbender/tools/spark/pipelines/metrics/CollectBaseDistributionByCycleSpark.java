@@ -236,7 +236,7 @@ public final class CollectBaseDistributionByCycleSpark extends GATKSparkTool {
         final MetricsReadFilter metricsFilter =
             new MetricsReadFilter(this.pfReadsOnly, this.alignedReadsOnly);
         final JavaRDD<GATKRead> filteredReads = reads.filter(read -> metricsFilter.test(read));
-        final HistogramGenerator hist = filteredReads.aggregate(new HistogramGenerator(),
+        final HistogramGenerator hist = filteredReads.treeAggregate(new HistogramGenerator(),
                 (hgp, read) -> hgp.addRead(read),
                 (hgp1, hgp2) -> hgp1.merge(hgp2));
 
@@ -18,13 +18,15 @@ import org.broadinstitute.hellbender.metrics.*;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
 
+import java.io.Serializable;
 import java.util.*;
 
 /**
  * Runs multiple metrics collection modules for a given alignment file. The tool leverages the
  * Spark framework for faster operation. Importantly, the aligned reads are loaded into a Spark RDD only once,
  * and the same RDD is used for each metric collection tasks to cut down on I/O time. The tool runs two modules, CollectInsertSizeMetrics
- * and CollectQualityYieldMetrics, with default options and fixed output extensions.
+ * and CollectQualityYieldMetrics, with default options and fixed output extensions. Modules that implement
+ * {@link AccumulatingMetricsCollectorSpark} are all run in a single pass over the reads.
  *
  * <p>
  * It is possible to tune the level at which to collect metrics--READ GROUP, LIBRARY, SAMPLE or ALL_READS--with
@@ -168,11 +170,11 @@ public final class CollectMultipleMetricsSpark extends GATKSparkTool {
     protected void runTool( final JavaSparkContext ctx ) {
         final JavaRDD<GATKRead> unFilteredReads = getUnfilteredReads();
         List<SparkCollectorProvider> collectorsToRun = getCollectorsToRun();
-        if (collectorsToRun.size() > 1) {
-            // if there is more than one collector to run, cache the
-            // unfiltered RDD so we don't recompute it
-            unFilteredReads.cache();
-        }
+
+        final List<MetricsCollectorSpark<? extends MetricsArgumentCollection>> metricsCollectors = new ArrayList<>();
+        final List<AccumulatingMetricsCollectorSpark<?, Serializable>> accumulatingCollectors = new ArrayList<>();
+        final List<ReadFilter> accumulatingReadFilters = new ArrayList<>();
+        final List<MetricsCollectorSpark<? extends MetricsArgumentCollection>> otherCollectors = new ArrayList<>();
         for (final SparkCollectorProvider provider : collectorsToRun) {
             MetricsCollectorSpark<? extends MetricsArgumentCollection> metricsCollector =
                     provider.createCollector(
@@ -182,9 +184,35 @@ public final class CollectMultipleMetricsSpark extends GATKSparkTool {
                         getHeaderForReads()
                     );
             validateCollector(metricsCollector, collectorsToRun.get(collectorsToRun.indexOf(provider)).getClass().getName());
+            metricsCollectors.add(metricsCollector);
+
+            if (metricsCollector instanceof AccumulatingMetricsCollectorSpark) {
+                @SuppressWarnings("unchecked")
+                final AccumulatingMetricsCollectorSpark<?, Serializable> accumulatingCollector =
+                        (AccumulatingMetricsCollectorSpark<?, Serializable>) metricsCollector;
+                accumulatingCollectors.add(accumulatingCollector);
+                //Bypass the framework merging of command line filters and just apply the default
+                //ones specified by the collector
+                accumulatingReadFilters.add(ReadFilter.fromList(metricsCollector.getDefaultReadFilters(), getHeaderForReads()));
+            } else {
+                otherCollectors.add(metricsCollector);
+            }
+        }
 
-            // Execute the collector's lifecycle
+        // all the accumulating collectors are run in a single pass over the reads, and each other collector
+        // needs a pass of its own
+        final int passes = (accumulatingCollectors.isEmpty() ? 0 : 1) + otherCollectors.size();
+        if (passes > 1) {
+            // if there is more than one pass, cache the
+            // unfiltered RDD so we don't recompute it
+            unFilteredReads.cache();
+        }
 
+        // Execute the collectors' lifecycle
+        if (!accumulatingCollectors.isEmpty()) {
+            collectMetricsInSinglePass(unFilteredReads, accumulatingCollectors, accumulatingReadFilters);
+        }
+        for (final MetricsCollectorSpark<? extends MetricsArgumentCollection> metricsCollector : otherCollectors) {
             //Bypass the framework merging of command line filters and just apply the default
             //ones specified by the collector
             ReadFilter readFilter = ReadFilter.fromList(metricsCollector.getDefaultReadFilters(), getHeaderForReads());
@@ -193,10 +221,62 @@ public final class CollectMultipleMetricsSpark extends GATKSparkTool {
                     unFilteredReads.filter(r -> readFilter.test(r)),
                     getHeaderForReads()
             );
+        }
+        for (final MetricsCollectorSpark<? extends MetricsArgumentCollection> metricsCollector : metricsCollectors) {
             metricsCollector.saveMetrics(getReadSourceName());
         }
     }
 
+    /**
+     * Run several collectors in a single pass over the reads: each read is added to the accumulator of each
+     * collector whose read filter it passes, and the accumulators (and read counts) of all the partitions are
+     * combined with a treeAggregate.
+     */
+    private static void collectMetricsInSinglePass(
+            final JavaRDD<GATKRead> unFilteredReads,
+            final List<AccumulatingMetricsCollectorSpark<?, Serializable>> collectors,
+            final List<ReadFilter> readFilters)
+    {
+        final Accumulators emptyAccumulators = new Accumulators(collectors.stream()
+                .map(AccumulatingMetricsCollectorSpark::createAccumulator)
+                .toArray(Serializable[]::new));
+        final Accumulators accumulators = unFilteredReads.treeAggregate(emptyAccumulators,
+                (accs, read) -> {
+                    for (int i = 0; i < accs.values.length; i++) {
+                        if (readFilters.get(i).test(read)) {
+                            accs.values[i] = collectors.get(i).addRead(accs.values[i], read);
+                            accs.readCounts[i]++;
+                        }
+                    }
+                    return accs;
+                },
+                (accs1, accs2) -> {
+                    for (int i = 0; i < accs1.values.length; i++) {
+                        accs1.values[i] = collectors.get(i).combineAccumulators(accs1.values[i], accs2.values[i]);
+                        accs1.readCounts[i] += accs2.readCounts[i];
+                    }
+                    return accs1;
+                });
+        for (int i = 0; i < accumulators.values.length; i++) {
+            collectors.get(i).finishCollection(accumulators.values[i], accumulators.readCounts[i]);
+        }
+    }
+
+    /**
+     * The accumulator of each collector of a single pass, with the number of reads added to it.
+     */
+    private static final class Accumulators implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final Serializable[] values;
+        private final long[] readCounts;
+
+        private Accumulators(final Serializable[] values) {
+            this.values = values;
+            this.readCounts = new long[values.length];
+        }
+    }
+
     /**
      * Determine which collectors to run based on commandline args and programmatically
      * specified custom collectors.
@@ -3,7 +3,6 @@ package org.broadinstitute.hellbender.tools.spark.pipelines.metrics;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.metrics.Header;
 import htsjdk.samtools.metrics.MetricsFile;
-import org.apache.spark.api.java.JavaRDD;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.metrics.InsertSizeMetrics;
@@ -12,7 +11,6 @@ import org.broadinstitute.hellbender.metrics.InsertSizeMetricsCollector;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
 import java.io.Serializable;
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -20,10 +18,11 @@ import java.util.List;
  * accessors to stats of groups of different level.
  */
 public class InsertSizeMetricsCollectorSpark implements
-        MetricsCollectorSpark<InsertSizeMetricsArgumentCollection>, Serializable {
+        AccumulatingMetricsCollectorSpark<InsertSizeMetricsArgumentCollection, InsertSizeMetricsCollector>, Serializable {
     private static final long serialVersionUID = 1L;
 
     private InsertSizeMetricsArgumentCollection inputArgs = null;
+    private SAMFileHeader samHeader = null;
     private InsertSizeMetricsCollector collector = new InsertSizeMetricsCollector();
 
     private InsertSizeMetricsCollector resultMetrics = null;
@@ -39,6 +38,7 @@ public class InsertSizeMetricsCollectorSpark implements
             final List<Header> defaultHeaders)
     {
         this.inputArgs = inputArgs;
+        this.samHeader = samHeader;
         collector.initialize(inputArgs, samHeader);
         metricsFile = new MetricsFile<>();
         if (defaultHeaders != null) {
@@ -57,21 +57,31 @@ public class InsertSizeMetricsCollectorSpark implements
     }
 
     @Override
-    public void collectMetrics(
-            final JavaRDD<GATKRead> filteredReads,
-            final SAMFileHeader samHeader)
-    {
-        if (filteredReads.isEmpty()) {
+    public InsertSizeMetricsCollector createAccumulator() {
+        final InsertSizeMetricsCollector accumulator = new InsertSizeMetricsCollector();
+        accumulator.initialize(inputArgs, samHeader);
+        return accumulator;
+    }
+
+    @Override
+    public InsertSizeMetricsCollector addRead(final InsertSizeMetricsCollector accumulator, final GATKRead read) {
+        accumulator.acceptRecord(read.convertToSAMRecord(samHeader), null);
+        return accumulator;
+    }
+
+    @Override
+    public InsertSizeMetricsCollector combineAccumulators(
+            final InsertSizeMetricsCollector accumulator1,
+            final InsertSizeMetricsCollector accumulator2) {
+        return collector.combine(accumulator1, accumulator2);
+    }
+
+    @Override
+    public void finishCollection(final InsertSizeMetricsCollector accumulator, final long readCount) {
+        if (readCount == 0) {
             throw new GATKException("No valid reads found in input file.");
         }
-
-        resultMetrics = filteredReads
-                .mapPartitions(
-                    it -> {
-                        it.forEachRemaining(r -> collector.acceptRecord(r.convertToSAMRecord(samHeader), null));
-                        return Arrays.asList(collector).iterator();
-                    })
-                .reduce(collector::combine);
+        resultMetrics = accumulator;
     }
 
     @Override
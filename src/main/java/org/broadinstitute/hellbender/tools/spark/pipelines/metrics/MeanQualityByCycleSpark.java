@@ -207,7 +207,7 @@ public final class MeanQualityByCycleSpark extends GATKSparkTool {
         final MetricsReadFilter metricsFilter =
             new MetricsReadFilter(this.pfReadsOnly, this.alignedReadsOnly);
         final JavaRDD<GATKRead> filteredReads = reads.filter(read -> metricsFilter.test(read));
-        final HistogramGeneratorPair aggregate = filteredReads.aggregate(new HistogramGeneratorPair(),
+        final HistogramGeneratorPair aggregate = filteredReads.treeAggregate(new HistogramGeneratorPair(),
                 (hgp, read) -> hgp.addRead(read),
                 (hgp1, hgp2) -> hgp1.merge(hgp2));
         return finish(aggregate.useQuals, aggregate.useOrigQuals);
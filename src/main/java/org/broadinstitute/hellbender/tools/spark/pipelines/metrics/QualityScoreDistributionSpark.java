@@ -129,7 +129,7 @@ public final class QualityScoreDistributionSpark extends GATKSparkTool {
         final MetricsReadFilter metricsFilter =
             new MetricsReadFilter(this.pfReadsOnly, this.alignedReadsOnly);
         final JavaRDD<GATKRead> filteredReads = reads.filter(read -> metricsFilter.test(read));
-        final Counts result = filteredReads.aggregate(new Counts(includeNoCalls),
+        final Counts result = filteredReads.treeAggregate(new Counts(includeNoCalls),
                 (counts, read) -> counts.addRead(read),
                 (counts1, counts2) -> counts1.merge(counts2));
 
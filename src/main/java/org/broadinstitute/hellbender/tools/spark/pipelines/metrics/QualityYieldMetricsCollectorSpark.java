@@ -3,7 +3,6 @@ package org.broadinstitute.hellbender.tools.spark.pipelines.metrics;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.metrics.Header;
 import htsjdk.samtools.metrics.MetricsFile;
-import org.apache.spark.api.java.JavaRDD;
 import org.broadinstitute.hellbender.metrics.MetricsUtils;
 import org.broadinstitute.hellbender.metrics.QualityYieldMetrics;
 import org.broadinstitute.hellbender.metrics.QualityYieldMetricsArgumentCollection;
@@ -16,7 +15,7 @@ import java.util.List;
  * QualityYieldMetricsCollector for Spark.
  */
 public class QualityYieldMetricsCollectorSpark
-        implements MetricsCollectorSpark<QualityYieldMetricsArgumentCollection>, Serializable {
+        implements AccumulatingMetricsCollectorSpark<QualityYieldMetricsArgumentCollection, QualityYieldMetrics>, Serializable {
 
     private static final long serialVersionUID = 1L;
 
@@ -37,23 +36,24 @@ public class QualityYieldMetricsCollectorSpark
         this.args = inputArgs;
     }
 
-    /**
-     * Do the actual metrics collection on the provided RDD.
-     * @param filteredReads The reads to be analyzed for this collector.
-     * @param samHeader The SAMFileHeader associated with the reads in the input RDD.
-     */
     @Override
-    public void collectMetrics(
-            final JavaRDD<GATKRead> filteredReads,
-            final SAMFileHeader samHeader)
-    {
-        final QualityYieldMetrics metrics =
-                filteredReads.aggregate(new QualityYieldMetrics().setUseOriginalQualities(args.useOriginalQualities),
-                        (hgp, read) -> hgp.addRead(read),
-                        (hgp1, hgp2) -> hgp1.combine(hgp2))
-                        .finish();
+    public QualityYieldMetrics createAccumulator() {
+        return new QualityYieldMetrics().setUseOriginalQualities(args.useOriginalQualities);
+    }
+
+    @Override
+    public QualityYieldMetrics addRead(final QualityYieldMetrics accumulator, final GATKRead read) {
+        return accumulator.addRead(read);
+    }
 
-        metricsFile.addMetric(metrics);
+    @Override
+    public QualityYieldMetrics combineAccumulators(final QualityYieldMetrics accumulator1, final QualityYieldMetrics accumulator2) {
+        return accumulator1.combine(accumulator2);
+    }
+
+    @Override
+    public void finishCollection(final QualityYieldMetrics accumulator, final long readCount) {
+        metricsFile.addMetric(accumulator.finish());
     }
 
     /**
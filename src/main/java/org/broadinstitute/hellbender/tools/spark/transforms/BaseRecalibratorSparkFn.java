@@ -41,6 +41,13 @@ public final class BaseRecalibratorSparkFn {
                 RecalibrationTables::inPlaceCombine,
                 Math.max(1, (int)(Math.log(unmergedTables.partitions().size()) / Math.log(2))));
 
+        return createReport(combinedTables, header, recalArgs);
+    }
+
+    /**
+     * Finalizes the recalibration tables combined from all the reads, and makes the recalibration report from them.
+     */
+    public static RecalibrationReport createReport( final RecalibrationTables combinedTables, final SAMFileHeader header, final RecalibrationArgumentCollection recalArgs ) {
         BaseRecalibrationEngine.finalizeRecalibrationTables(combinedTables);
 
         final QuantizationInfo quantizationInfo = new QuantizationInfo(combinedTables, recalArgs.QUANTIZING_LEVELS);
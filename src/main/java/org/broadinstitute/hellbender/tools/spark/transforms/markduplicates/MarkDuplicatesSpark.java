@@ -5,6 +5,7 @@ import htsjdk.samtools.metrics.MetricsFile;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.storage.StorageLevel;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
 import org.broadinstitute.barclay.argparser.BetaFeature;
@@ -56,15 +57,36 @@ public final class MarkDuplicatesSpark extends GATKSparkTool {
         return Collections.singletonList(ReadFilterLibrary.ALLOW_ALL_READS);
     }
 
+    /**
+     * Marks the duplicates in {@code reads}.
+     *
+     * When the header says that the reads are grouped by name, the reads are marked without shuffling them (see
+     * {@link MarkDuplicatesSparkUtils#transformReadNameGroupedReads}), which traverses them several times. Unless
+     * the caller has already persisted {@code reads}, they are then persisted for the duration of this method, so that
+     * they are only computed once (e.g. aligned once when they come straight from BWA), and the marked reads are
+     * persisted and materialized before returning, so that the jobs that consume them read them from the cache.
+     */
     public static JavaRDD<GATKRead> mark(final JavaRDD<GATKRead> reads, final SAMFileHeader header,
                                          final MarkDuplicatesScoringStrategy scoringStrategy,
                                          final OpticalDuplicateFinder opticalDuplicateFinder, final int numReducers) {
 
+        final boolean persistReads = ReadUtils.isReadNameGroupedBam(header) && reads.getStorageLevel().equals(StorageLevel.NONE());
+        if (persistReads) {
+            reads.persist(StorageLevel.MEMORY_AND_DISK_SER());
+        }
+
         JavaRDD<GATKRead> primaryReads = reads.filter(v1 -> !ReadUtils.isNonPrimary(v1));
         JavaRDD<GATKRead> nonPrimaryReads = reads.filter(v1 -> ReadUtils.isNonPrimary(v1));
         JavaRDD<GATKRead> primaryReadsTransformed = MarkDuplicatesSparkUtils.transformReads(header, scoringStrategy, opticalDuplicateFinder, primaryReads, numReducers);
 
-        return primaryReadsTransformed.union(nonPrimaryReads);
+        final JavaRDD<GATKRead> markedReads = primaryReadsTransformed.union(nonPrimaryReads);
+        if (persistReads) {
+            // the marked reads no longer depend on the cached input once they are cached themselves
+            markedReads.persist(StorageLevel.MEMORY_AND_DISK_SER());
+            markedReads.count();
+            reads.unpersist(false);
+        }
+        return markedReads;
     }
 
     @Override
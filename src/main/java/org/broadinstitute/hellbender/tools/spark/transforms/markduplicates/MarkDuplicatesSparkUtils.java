@@ -3,8 +3,12 @@ package org.broadinstitute.hellbender.tools.spark.transforms.markduplicates;
 import com.google.common.collect.*;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.metrics.MetricsFile;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.samtools.util.SortingCollection;
+import org.apache.spark.Partitioner;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.function.FlatMapFunction2;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.metrics.MetricsUtils;
 import org.broadinstitute.hellbender.utils.Utils;
@@ -14,8 +18,10 @@ import org.broadinstitute.hellbender.utils.read.ReadUtils;
 import org.broadinstitute.hellbender.utils.read.markduplicates.*;
 import scala.Tuple2;
 
-import java.io.Serializable;
+import java.io.*;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -46,16 +52,15 @@ public class MarkDuplicatesSparkUtils {
      */
     static JavaRDD<GATKRead> transformReads(final SAMFileHeader header, final MarkDuplicatesScoringStrategy scoringStrategy, final OpticalDuplicateFinder finder, final JavaRDD<GATKRead> reads, final int numReducers) {
 
-        JavaPairRDD<String, Iterable<GATKRead>> keyedReads;
-        if (SAMFileHeader.SortOrder.queryname.equals(header.getSortOrder())) {
-            // reads are already sorted by name, so perform grouping within the partition (no shuffle)
-            keyedReads = spanReadsByKey(header, reads);
-        } else {
-            // sort by group and name (incurs a shuffle)
-            JavaPairRDD<String, GATKRead> keyReadPairs = reads.mapToPair(read -> new Tuple2<>(ReadsKey.keyForRead(header, read), read));
-            keyedReads = keyReadPairs.groupByKey(numReducers);
+        if (ReadUtils.isReadNameGroupedBam(header)) {
+            // reads are already grouped by name, so pair them within the partition and only shuffle fingerprints
+            return transformReadNameGroupedReads(header, scoringStrategy, finder, reads, numReducers);
         }
 
+        // sort by group and name (incurs a shuffle)
+        JavaPairRDD<String, GATKRead> keyReadPairs = reads.mapToPair(read -> new Tuple2<>(ReadsKey.keyForRead(header, read), read));
+        JavaPairRDD<String, Iterable<GATKRead>> keyedReads = keyReadPairs.groupByKey(numReducers);
+
         JavaPairRDD<String, Iterable<PairedEnds>> keyedPairs = keyedReads.flatMapToPair(keyedRead -> {
             List<Tuple2<String, PairedEnds>> out = Lists.newArrayList();
             // Write each read out as a pair with only the first slot filled
@@ -87,6 +92,314 @@ public class MarkDuplicatesSparkUtils {
         return markPairedEnds(keyedPairs, scoringStrategy, finder, header);
     }
 
+    /**
+     * Marks duplicates like {@link #transformReads}, for reads in which the reads with the same name are adjacent, and
+     * the reads of a pair are in the same partition, as ReadsSparkSource ensures for such inputs.
+     *
+     * The reads are paired up within their partition, and only a {@link PairedEndsFingerprint} of each fragment and pair
+     * is shuffled to find the duplicates, rather than the reads themselves. Each read is identified by its partition and
+     * its position in the partition, which is how the decisions (which reads are duplicates, and the number of optical
+     * duplicates of the best pair of each group) are sent back to the partition of the read, and applied to it in a
+     * second pass over the reads. The output has the same partitions and order as the input.
+     *
+     * The input RDD is traversed twice, so it should be persisted by the caller if recomputing it is expensive, as
+     * {@link MarkDuplicatesSpark#mark} does.
+     */
+    static JavaRDD<GATKRead> transformReadNameGroupedReads(final SAMFileHeader header, final MarkDuplicatesScoringStrategy scoringStrategy,
+                                                           final OpticalDuplicateFinder finder, final JavaRDD<GATKRead> reads, final int numReducers) {
+        final JavaPairRDD<String, PairedEndsFingerprint> keyedFingerprints = JavaPairRDD.fromJavaRDD(reads
+                .mapPartitionsWithIndex((partition, iter) -> fingerprintReadNameGroupedReads(header, scoringStrategy, partition, iter), false));
+
+        final JavaPairRDD<Long, Integer> decisions = keyedFingerprints.groupByKey(numReducers)
+                .flatMapToPair(keyedGroup -> markFingerprints(keyedGroup._1(), keyedGroup._2(), finder).iterator())
+                .repartitionAndSortWithinPartitions(new ReadIndexPartitioner(reads.getNumPartitions()));
+
+        return reads.zipPartitions(decisions, (FlatMapFunction2<Iterator<GATKRead>, Iterator<Tuple2<Long, Integer>>, GATKRead>) MarkDuplicatesSparkUtils::applyDecisions);
+    }
+
+    /**
+     * Marks duplicates like {@link #transformReadNameGroupedReads}, for reads that are all in the same JVM, e.g. in a
+     * pipeline that runs without Spark. The reads are treated as a single partition: the fingerprints of all the
+     * fragments and pairs are sorted by key, spilling to disk, so that only one group of duplicates is in memory at a
+     * time, and the decisions are sorted by read the same way and applied to a second traversal of the reads. So
+     * {@code reads} should be cheap to traverse again, e.g. because it is backed by a file on local disk.
+     *
+     * @param reads reads in which the reads with the same name are adjacent, traversed twice
+     * @param maxRecordsInRam the maximum number of fingerprints or decisions kept in memory by each sort before spilling to disk
+     * @param tempDir the directory of the files the sorts spill to
+     * @param action called with the reads of the second traversal, in the same order, marked
+     */
+    @SuppressWarnings("unchecked")
+    public static void markReadNameGroupedReads(final SAMFileHeader header, final MarkDuplicatesScoringStrategy scoringStrategy,
+                                                final OpticalDuplicateFinder finder, final Iterable<GATKRead> reads,
+                                                final int maxRecordsInRam, final File tempDir, final Consumer<GATKRead> action) {
+        Utils.validateArg(maxRecordsInRam > 0, "maxRecordsInRam must be positive");
+        final Collection<Path> tempDirs = Collections.singleton(tempDir.toPath());
+        final SortingCollection<Tuple2<String, PairedEndsFingerprint>> fingerprints = SortingCollection.newInstanceFromPaths(
+                (Class<Tuple2<String, PairedEndsFingerprint>>) (Class<?>) Tuple2.class, new PairedEndsFingerprintCodec(),
+                Comparator.comparing((Tuple2<String, PairedEndsFingerprint> keyed) -> keyed._1())
+                        .thenComparingLong(keyed -> keyed._2().getFirstIndex()),
+                maxRecordsInRam, tempDirs);
+        final SortingCollection<Tuple2<Long, Integer>> decisions = SortingCollection.newInstanceFromPaths(
+                (Class<Tuple2<Long, Integer>>) (Class<?>) Tuple2.class, new DecisionCodec(),
+                Comparator.comparingLong(Tuple2::_1), maxRecordsInRam, tempDirs);
+        try {
+            fingerprintReadNameGroupedReads(header, scoringStrategy, 0, reads.iterator()).forEachRemaining(fingerprints::add);
+            fingerprints.doneAdding();
+            try (final CloseableIterator<Tuple2<String, PairedEndsFingerprint>> sortedFingerprints = fingerprints.iterator()) {
+                spanningIterator(sortedFingerprints).forEachRemaining(keyedGroup ->
+                        markFingerprints(keyedGroup._1(), keyedGroup._2(), finder).forEach(decisions::add));
+            }
+            decisions.doneAdding();
+            try (final CloseableIterator<Tuple2<Long, Integer>> sortedDecisions = decisions.iterator()) {
+                applyDecisions(reads.iterator(), sortedDecisions).forEachRemaining(action);
+            }
+        } finally {
+            fingerprints.cleanup();
+            decisions.cleanup();
+        }
+    }
+
+    /**
+     * Codec for the decisions of {@link #markReadNameGroupedReads}, which just outputs the index of the read and the decision.
+     */
+    private static final class DecisionCodec implements SortingCollection.Codec<Tuple2<Long, Integer>> {
+        private DataInputStream in;
+        private DataOutputStream out;
+
+        @Override
+        public DecisionCodec clone() {
+            return new DecisionCodec();
+        }
+
+        @Override
+        public void setOutputStream(final OutputStream os) { this.out = new DataOutputStream(os); }
+
+        @Override
+        public void setInputStream(final InputStream is) { this.in = new DataInputStream(is); }
+
+        @Override
+        public void encode(final Tuple2<Long, Integer> decision) {
+            try {
+                this.out.writeLong(decision._1());
+                this.out.writeInt(decision._2());
+            } catch (final IOException ioe) {
+                throw new GATKException("Exception writing duplicate marking decision to file.", ioe);
+            }
+        }
+
+        @Override
+        public Tuple2<Long, Integer> decode() {
+            try {
+                final long index;
+                try {
+                    index = this.in.readLong();
+                } catch (final EOFException eof) {
+                    return null;
+                }
+                return new Tuple2<>(index, this.in.readInt());
+            } catch (final IOException ioe) {
+                throw new GATKException("Exception reading duplicate marking decision from file.", ioe);
+            }
+        }
+    }
+
+    // The index of a read packs the index of its partition above the position of the read in the partition.
+    private static final int READ_POSITION_BITS = 40;
+    private static final long READ_POSITION_MASK = (1L << READ_POSITION_BITS) - 1;
+
+    // The decision for a read that is a duplicate. Other decisions are numbers of optical duplicates.
+    private static final int DUPLICATE = -1;
+
+    private static long readIndex(final int partition, final long position) {
+        return ((long) partition << READ_POSITION_BITS) | position;
+    }
+
+    /**
+     * Pairs up the reads of a partition as in {@link #transformReads}, and makes the fingerprints of the fragments and
+     * pairs, keyed by the same keys as the {@link PairedEnds}.
+     */
+    private static Iterator<Tuple2<String, PairedEndsFingerprint>> fingerprintReadNameGroupedReads(final SAMFileHeader header, final MarkDuplicatesScoringStrategy scoringStrategy,
+                                                                                                 final int partition, final Iterator<GATKRead> reads) {
+        final Iterator<Tuple2<String, Tuple2<Long, GATKRead>>> namedReads = new AbstractIterator<Tuple2<String, Tuple2<Long, GATKRead>>>() {
+            private long position = 0;
+
+            @Override
+            protected Tuple2<String, Tuple2<Long, GATKRead>> computeNext() {
+                if (!reads.hasNext()) {
+                    return endOfData();
+                }
+                final GATKRead read = reads.next();
+                return new Tuple2<>(read.getName(), new Tuple2<>(readIndex(partition, position++), read));
+            }
+        };
+        final GATKOrder readOrder = new GATKOrder(header);
+        final Comparator<Tuple2<Long, GATKRead>> gatkOrder = (lhs, rhs) -> readOrder.compare(lhs._2(), rhs._2());
+
+        return Utils.stream(spanningIterator(namedReads)).flatMap(namedGroup -> {
+            // for each name, separate reads by key (group name)
+            final ListMultimap<String, Tuple2<Long, GATKRead>> multi = LinkedListMultimap.create();
+            for (final Tuple2<Long, GATKRead> indexedRead : namedGroup._2()) {
+                multi.put(ReadsKey.keyForRead(header, indexedRead._2()), indexedRead);
+            }
+
+            final List<Tuple2<String, PairedEndsFingerprint>> out = Lists.newArrayList();
+            for (final String key : multi.keySet()) {
+                final List<Tuple2<Long, GATKRead>> group = multi.get(key);
+                for (final Tuple2<Long, GATKRead> indexedRead : group) {
+                    final GATKRead read = indexedRead._2();
+                    read.setIsDuplicate(false);
+                    out.add(new Tuple2<>(ReadsKey.keyForFragment(header, read), PairedEndsFingerprint.ofFragment(read, indexedRead._1(), header, scoringStrategy)));
+                }
+
+                final List<Tuple2<Long, GATKRead>> sorted = Lists.newArrayList(Iterables.filter(group, indexedRead -> ReadUtils.readHasMappedMate(indexedRead._2())));
+                sorted.sort(gatkOrder);
+                for (int i = 0; i < sorted.size(); i += 2) {
+                    final Tuple2<Long, GATKRead> first = sorted.get(i);
+                    final PairedEnds pair = PairedEnds.of(first._2());
+                    if (i + 1 == sorted.size()) {                  //left over read
+                        out.add(new Tuple2<>(pair.key(header), PairedEndsFingerprint.ofPair(pair, first._1(), PairedEndsFingerprint.NO_READ, header, scoringStrategy)));
+                        break;
+                    }
+                    final Tuple2<Long, GATKRead> second = sorted.get(i + 1);
+                    pair.and(second._2());
+                    final boolean swapped = pair.first() != first._2();
+                    out.add(new Tuple2<>(pair.key(header), PairedEndsFingerprint.ofPair(pair,
+                            swapped ? second._1() : first._1(), swapped ? first._1() : second._1(), header, scoringStrategy)));
+                }
+            }
+            return out.stream();
+        }).iterator();
+    }
+
+    /**
+     * Decides which reads of a group of fingerprints with the same key are duplicates, as {@link #markPairedEnds} does
+     * for {@link PairedEnds}.
+     *
+     * @return the index of each duplicate read paired with {@link #DUPLICATE}, and the index of the first read of the
+     *         best pair paired with the number of optical duplicates of the group
+     */
+    private static List<Tuple2<Long, Integer>> markFingerprints(final String key, final Iterable<PairedEndsFingerprint> fingerprints,
+                                                                final OpticalDuplicateFinder finder) {
+        final List<Tuple2<Long, Integer>> out = Lists.newArrayList();
+        final Comparator<PairedEndsFingerprint> fingerprintsComparator =
+                Comparator.comparingInt(PairedEndsFingerprint::getScore).reversed().thenComparing(PairedEndsFingerprint.FIRST_READ_COORDINATE_ORDER);
+
+        if (ReadsKey.isFragment(key)) {
+            final Map<Boolean, List<PairedEndsFingerprint>> byPairing = Utils.stream(fingerprints)
+                    .collect(Collectors.partitioningBy(PairedEndsFingerprint::hasMappedMate));
+            if (byPairing.get(true).isEmpty()) {
+                // There are no paired reads, mark all but the highest scoring fragment as duplicate.
+                final List<PairedEndsFingerprint> frags = byPairing.get(false).stream().sorted(fingerprintsComparator).collect(Collectors.toList());
+                for (final PairedEndsFingerprint fragment : Iterables.skip(frags, 1)) {
+                    out.add(new Tuple2<>(fragment.getFirstIndex(), DUPLICATE));
+                }
+            } else {
+                // There are paired ends so we mark all fragments as duplicates.
+                for (final PairedEndsFingerprint fragment : byPairing.get(false)) {
+                    out.add(new Tuple2<>(fragment.getFirstIndex(), DUPLICATE));
+                }
+            }
+            return out;
+        }
+
+        // As in Picard, unpaired ends left alone.
+        final List<PairedEndsFingerprint> scored = Utils.stream(fingerprints)
+                .filter(PairedEndsFingerprint::hasSecond)
+                .sorted(fingerprintsComparator)
+                .collect(Collectors.toList());
+        final PairedEndsFingerprint best = Iterables.getFirst(scored, null);
+        if (best == null) {
+            return out;
+        }
+
+        // Mark everyone who's not best as a duplicate
+        for (final PairedEndsFingerprint pair : Iterables.skip(scored, 1)) {
+            out.add(new Tuple2<>(pair.getFirstIndex(), DUPLICATE));
+            out.add(new Tuple2<>(pair.getSecondIndex(), DUPLICATE));
+        }
+
+        for (final PairedEndsFingerprint pair : scored) {
+            finder.addLocationInformation(pair.getName(), pair);
+        }
+
+        // Split by orientation and count duplicates in each group separately.
+        final ImmutableListMultimap<Byte, PairedEndsFingerprint> groupByOrientation = Multimaps.index(scored, PairedEndsFingerprint::getOrientationForOpticalDuplicates);
+        final int numOpticalDuplicates;
+        if (groupByOrientation.containsKey(ReadEnds.FR) && groupByOrientation.containsKey(ReadEnds.RF)) {
+            numOpticalDuplicates = countOpticalDuplicates(finder, new ArrayList<>(groupByOrientation.get(ReadEnds.FR))) +
+                    countOpticalDuplicates(finder, new ArrayList<>(groupByOrientation.get(ReadEnds.RF)));
+        } else {
+            numOpticalDuplicates = countOpticalDuplicates(finder, scored);
+        }
+        out.add(new Tuple2<>(best.getFirstIndex(), numOpticalDuplicates));
+        return out;
+    }
+
+    /**
+     * Applies the decisions for the reads of a partition, which are sorted by index, to the reads in order.
+     */
+    private static Iterator<GATKRead> applyDecisions(final Iterator<GATKRead> reads, final Iterator<Tuple2<Long, Integer>> decisions) {
+        final PeekingIterator<Tuple2<Long, Integer>> peekingDecisions = Iterators.peekingIterator(decisions);
+        return new AbstractIterator<GATKRead>() {
+            private long position = 0;
+
+            @Override
+            protected GATKRead computeNext() {
+                if (!reads.hasNext()) {
+                    if (peekingDecisions.hasNext()) {
+                        throw new GATKException("Duplicate marking decision for a read beyond the end of its partition: " + peekingDecisions.peek()._1());
+                    }
+                    return endOfData();
+                }
+                final GATKRead read = reads.next();
+                read.setIsDuplicate(false);
+                while (peekingDecisions.hasNext() && (peekingDecisions.peek()._1() & READ_POSITION_MASK) == position) {
+                    final int decision = peekingDecisions.next()._2();
+                    if (decision == DUPLICATE) {
+                        read.setIsDuplicate(true);
+                    } else {
+                        read.setAttribute(OPTICAL_DUPLICATE_TOTAL_ATTRIBUTE_NAME, decision);
+                    }
+                }
+                position++;
+                return read;
+            }
+        };
+    }
+
+    /**
+     * Sends the decision for a read to the partition of the read.
+     */
+    private static final class ReadIndexPartitioner extends Partitioner {
+        private static final long serialVersionUID = 1L;
+        private final int numPartitions;
+
+        ReadIndexPartitioner(final int numPartitions) {
+            this.numPartitions = numPartitions;
+        }
+
+        @Override
+        public int numPartitions() {
+            return numPartitions;
+        }
+
+        @Override
+        public int getPartition(final Object key) {
+            return (int) ((Long) key >>> READ_POSITION_BITS);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof ReadIndexPartitioner && ((ReadIndexPartitioner) o).numPartitions == numPartitions;
+        }
+
+        @Override
+        public int hashCode() {
+            return numPartitions;
+        }
+    }
+
     static JavaPairRDD<String, Iterable<GATKRead>> spanReadsByKey(final SAMFileHeader header, final JavaRDD<GATKRead> reads) {
         JavaPairRDD<String, GATKRead> nameReadPairs = reads.mapToPair(read -> new Tuple2<>(read.getName(), read));
         return spanByKey(nameReadPairs).flatMapToPair(namedRead -> {
@@ -217,7 +530,7 @@ public class MarkDuplicatesSparkUtils {
         });
     }
 
-    private static int countOpticalDuplicates(OpticalDuplicateFinder finder, List<PairedEnds> scored) {
+    private static int countOpticalDuplicates(OpticalDuplicateFinder finder, List<? extends OpticalDuplicateFinder.PhysicalLocation> scored) {
         final boolean[] opticalDuplicateFlags = finder.findOpticalDuplicates(scored);
         int numOpticalDuplicates = 0;
         for (final boolean b : opticalDuplicateFlags) {
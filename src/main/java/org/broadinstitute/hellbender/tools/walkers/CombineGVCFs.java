@@ -149,16 +149,46 @@ public final class CombineGVCFs extends MultiVariantWalkerGroupedOnStart {
      * a new variant context object by calling endPreviousStates() and closes them by providing appropriate reference
      * information and an empty list of new variant contexts.
      *
+     * The sites are found one at a time in increasing order by {@link #nextSiteToStop}, so reference blocks are only
+     * split where a site is actually closed, rather than enumerating every site of the interval up front.
      */
     @VisibleForTesting
     void createIntermediateVariants(SimpleInterval intervalToClose) {
-        Set<Integer> sitesToStop = new HashSet<>();
         resizeReferenceIfNeeded(intervalToClose);
 
+        // For each stopped loc, create a fake QueuedContextState and pass it to endPreviousStats
+        for (int stoppedLoc = nextSiteToStop(intervalToClose.getStart() - 1, intervalToClose.getEnd());
+             stoppedLoc <= intervalToClose.getEnd();
+             stoppedLoc = nextSiteToStop(stoppedLoc, intervalToClose.getEnd())) {
+            SimpleInterval loc = new SimpleInterval(intervalToClose.getContig(), stoppedLoc, stoppedLoc);
+            if (isWithinInterval(loc)) {
+                byte[] refBases = Arrays.copyOfRange(storedReferenceContext.getBases(), stoppedLoc - storedReferenceContext.getWindow().getStart(), stoppedLoc - storedReferenceContext.getWindow().getStart() + 2);
+                endPreviousStates(loc, refBases, Collections.emptyList(), true);
+            }
+        }
+
+    }
+
+    /**
+     * Finds the first site after the given one where the current merge has to be stopped.
+     *
+     * Records can only be removed from {@link #variantContextsOverlappingCurrentMerge} when they end at a stopped
+     * site, so evaluating the overlapping records again after each stop finds the same sites as enumerating them all
+     * beforehand.
+     *
+     * @param previousSite the last site stopped, or the site before the interval to close
+     * @param lastSite the last site of the interval to close
+     * @return the next site to stop, or a site after lastSite if there is none
+     */
+    private int nextSiteToStop(final int previousSite, final int lastSite) {
+        int nextSite = lastSite + 1;
+
         // Break up the GVCF according to the provided reference blocking scheme
         if ( multipleAtWhichToBreakBands > 0) {
-            for (int i = ((intervalToClose.getStart())/multipleAtWhichToBreakBands)*multipleAtWhichToBreakBands; i <= intervalToClose.getEnd(); i+=multipleAtWhichToBreakBands) {
-                sitesToStop.add(i-1); // Subtract 1 here because we want to split before this base
+            // split before each multiple within the interval, so the sites to stop are one before the multiples
+            final int bandSite = ((previousSite + 1) / multipleAtWhichToBreakBands + 1) * multipleAtWhichToBreakBands - 1;
+            if (bandSite < lastSite) {
+                nextSite = bandSite;
             }
         }
 
@@ -170,26 +200,15 @@ public final class CombineGVCFs extends MultiVariantWalkerGroupedOnStart {
             // deletion that reads into the current site, as we would expect ReferenceConfidenceVariantContextMerger to
             // insert symbolic alleles for those spanning variants.
             if (vc.getNAlleles() > 2) {
-                for (int i = vc.getStart(); i <= vc.getEnd(); i++ ) {
-                    sitesToStop.add(i);
+                final int firstSite = Math.max(vc.getStart(), previousSite + 1);
+                if (firstSite <= vc.getEnd()) {
+                    nextSite = Math.min(nextSite, firstSite);
                 }
-            } else if (vc.getEnd() <= intervalToClose.getEnd()) {
-                sitesToStop.add(vc.getEnd());
+            } else if (vc.getEnd() > previousSite) {
+                nextSite = Math.min(nextSite, vc.getEnd());
             }
         }
-
-        List<Integer> stoppedLocs = new ArrayList<>(sitesToStop);
-        stoppedLocs.sort(Comparator.naturalOrder());
-
-        // For each stopped loc, create a fake QueuedContextState and pass it to endPreviousStats
-        for (int stoppedLoc : stoppedLocs) {
-            SimpleInterval loc = new SimpleInterval(intervalToClose.getContig(), stoppedLoc, stoppedLoc);
-            if (( stoppedLoc <= intervalToClose.getEnd() && stoppedLoc>= intervalToClose.getStart()) && isWithinInterval(loc)) {
-                byte[] refBases = Arrays.copyOfRange(storedReferenceContext.getBases(), stoppedLoc - storedReferenceContext.getWindow().getStart(), stoppedLoc - storedReferenceContext.getWindow().getStart() + 2);
-                endPreviousStates(loc, refBases, Collections.emptyList(), true);
-            }
-        }
-
+        return nextSite;
     }
 
     /**
@@ -312,8 +331,10 @@ public final class CombineGVCFs extends MultiVariantWalkerGroupedOnStart {
 
         final List<VariantContext> stoppedVCs = new ArrayList<>(variantContextsOverlappingCurrentMerge.size());
 
-        for (int i = variantContextsOverlappingCurrentMerge.size() - 1; i >= 0; i-- ) {
-            final VariantContext vc = variantContextsOverlappingCurrentMerge.get(i);
+        // iterate backwards with an iterator rather than by index, as indexed access to the linked list is linear
+        final Iterator<VariantContext> overlappingVCs = variantContextsOverlappingCurrentMerge.descendingIterator();
+        while ( overlappingVCs.hasNext() ) {
+            final VariantContext vc = overlappingVCs.next();
             //the VC for the previous state will be stopped if its position is previous to the current position or it we've moved to a new contig
             if ( vc.getStart() <= pos.getStart() || !vc.contigsMatch(pos)) {
 
@@ -323,7 +344,7 @@ public final class CombineGVCFs extends MultiVariantWalkerGroupedOnStart {
                 // or if ending vc is the same sample as a starting VC, then remove it from the future state
                 if((vc.getEnd() == pos.getStart()) || (variantContexts.size() > 0 && !forceOutputAtCurrentPosition && newSamples.containsAll(vc.getSampleNames()))) {
                     samples.removeAll(vc.getSampleNames());
-                    variantContextsOverlappingCurrentMerge.remove(i);
+                    overlappingVCs.remove();
                 }
             }
         }
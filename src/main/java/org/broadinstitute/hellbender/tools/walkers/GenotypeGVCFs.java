@@ -1,6 +1,7 @@
 package org.broadinstitute.hellbender.tools.walkers;
 
 import com.google.common.annotations.VisibleForTesting;
+import htsjdk.samtools.util.Locatable;
 import htsjdk.variant.variantcontext.*;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import htsjdk.variant.vcf.*;
@@ -11,10 +12,13 @@ import org.broadinstitute.hellbender.cmdline.argumentcollections.DbsnpArgumentCo
 import org.broadinstitute.hellbender.cmdline.argumentcollections.VariantAnnotationArgumentCollection;
 import org.broadinstitute.hellbender.cmdline.programgroups.ShortVariantDiscoveryProgramGroup;
 import org.broadinstitute.hellbender.engine.*;
+import org.broadinstitute.hellbender.engine.filters.VariantFilter;
+import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.tools.walkers.annotator.*;
 import org.broadinstitute.hellbender.tools.walkers.annotator.allelespecific.AS_RMSMappingQuality;
 import org.broadinstitute.hellbender.tools.walkers.genotyper.*;
 import org.broadinstitute.hellbender.tools.walkers.genotyper.afcalc.GeneralPloidyFailOverAFCalculatorProvider;
+import org.broadinstitute.hellbender.utils.IntervalUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
@@ -25,6 +29,8 @@ import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 /**
  * Perform joint genotyping on one or more samples pre-called with HaplotypeCaller
@@ -65,6 +71,15 @@ import java.util.*;
  *   -O output.vcf.gz
  * </pre>
  *
+ * <h4>Perform joint genotyping on a GenomicsDB workspace using several threads</h4>
+ * <pre>
+ * gatk --java-options "-Xmx16g" GenotypeGVCFs \
+ *   -R Homo_sapiens_assembly38.fasta \
+ *   -V gendb://my_database \
+ *   --genotyping-threads 4 \
+ *   -O output.vcf.gz
+ * </pre>
+ *
  * <h3>Caveats</h3>
  * <ul>
  *   <li>Only GVCF files produced by HaplotypeCaller (or CombineGVCFs) can be used as input for this tool. Some other
@@ -87,6 +102,9 @@ public final class GenotypeGVCFs extends VariantWalker {
     public static final String PHASED_HOM_VAR_STRING = "1|1";
     public static final String ONLY_OUTPUT_CALLS_STARTING_IN_INTERVALS_FULL_NAME = "only-output-calls-starting-in-intervals";
     public static final String ALL_SITES_LONG_NAME = "include-non-variant-sites";
+    public static final String GENOTYPING_THREADS_LONG_NAME = "genotyping-threads";
+    public static final String GENOTYPING_SHARD_SIZE_LONG_NAME = "genotyping-shard-size";
+    public static final int DEFAULT_GENOTYPING_SHARD_SIZE = 1_000_000;
     private static final String GVCF_BLOCK = "GVCFBlock";
 
     @Argument(fullName = StandardArgumentDefinitions.OUTPUT_LONG_NAME, shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME,
@@ -122,12 +140,33 @@ public final class GenotypeGVCFs extends VariantWalker {
     @ArgumentCollection
     private final DbsnpArgumentCollection dbsnp = new DbsnpArgumentCollection();
 
-    // the genotyping engine
-    private GenotypingEngine<?> genotypingEngine;
-    // the annotation engine
-    private VariantAnnotatorEngine annotationEngine;
+    /**
+     * When greater than 1, the traversal intervals (or the whole reference if none are given) are cut into shards of
+     * --genotyping-shard-size bases that are genotyped concurrently. Each thread opens its own query on the input
+     * (e.g. its own GenomicsDB iterator), reference and feature sources, and the results are written in shard order,
+     * so the output is identical to the single-threaded output.
+     */
+    @Advanced
+    @Argument(fullName = GENOTYPING_THREADS_LONG_NAME,
+            doc = "Number of threads used to genotype shards of the input concurrently",
+            optional = true,
+            minValue = 1)
+    private int genotypingThreads = 1;
+
+    @Advanced
+    @Argument(fullName = GENOTYPING_SHARD_SIZE_LONG_NAME,
+            doc = "Size in bases of the shards genotyped concurrently when --" + GENOTYPING_THREADS_LONG_NAME + " is greater than 1",
+            optional = true,
+            minValue = 1)
+    private int genotypingShardSize = DEFAULT_GENOTYPING_SHARD_SIZE;
 
-    private ReferenceConfidenceVariantContextMerger merger;
+    // the engines used by the main traversal thread
+    private SiteGenotyper siteGenotyper;
+
+    private SampleList samples;
+
+    // per-thread resources, only used when genotypingThreads > 1
+    private BlockingQueue<ShardResources> shardResources;
 
     private VariantContextWriter vcfWriter;
 
@@ -151,14 +190,9 @@ public final class GenotypeGVCFs extends VariantWalker {
         intervals = hasIntervals() ? intervalArgumentCollection.getIntervals(getBestAvailableSequenceDictionary()) :
                 Collections.emptyList();
 
-        final SampleList samples = new IndexedSampleList(inputVCFHeader.getGenotypeSamples()); //todo should this be getSampleNamesInOrder?
-
-        annotationEngine = VariantAnnotatorEngine.ofSelectedMinusExcluded(variantAnnotationArgumentCollection, dbsnp.dbsnp, Collections.emptyList());
+        samples = new IndexedSampleList(inputVCFHeader.getGenotypeSamples()); //todo should this be getSampleNamesInOrder?
 
-        // We only want the engine to generate the AS_QUAL key if we are using AlleleSpecific annotations.
-        genotypingEngine = new MinimalGenotypingEngine(createUAC(), samples, new GeneralPloidyFailOverAFCalculatorProvider(genotypeArgs), annotationEngine.isRequestedReducibleRawKey(GATKVCFConstants.AS_QUAL_KEY));
-
-        merger = new ReferenceConfidenceVariantContextMerger(annotationEngine);
+        siteGenotyper = new SiteGenotyper();
 
         setupVCFWriter(inputVCFHeader, samples);
     }
@@ -174,8 +208,8 @@ public final class GenotypeGVCFs extends VariantWalker {
         // Remove GCVFBlocks
         headerLines.removeIf(vcfHeaderLine -> vcfHeaderLine.getKey().startsWith(GVCF_BLOCK));
 
-        headerLines.addAll(annotationEngine.getVCFAnnotationDescriptions(false));
-        headerLines.addAll(genotypingEngine.getAppropriateVCFInfoHeaders());
+        headerLines.addAll(siteGenotyper.annotationEngine.getVCFAnnotationDescriptions(false));
+        headerLines.addAll(siteGenotyper.genotypingEngine.getAppropriateVCFInfoHeaders());
 
         // add headers for annotations added by this tool
         headerLines.add(GATKVCFHeaderLines.getInfoLine(GATKVCFConstants.MLE_ALLELE_COUNT_KEY));
@@ -193,76 +227,212 @@ public final class GenotypeGVCFs extends VariantWalker {
         vcfWriter.writeHeader(vcfHeader);
     }
 
+    @Override
+    public void traverse() {
+        if (genotypingThreads == 1) {
+            super.traverse();
+            return;
+        }
+        final List<SimpleInterval> traversalIntervals = hasIntervals() ? intervals :
+                IntervalUtils.getAllIntervalsForReference(getBestAvailableSequenceDictionary());
+        final List<GenotypingShard> shards = makeShards(traversalIntervals, genotypingShardSize);
+        shardResources = new ArrayBlockingQueue<>(genotypingThreads);
+        for (int i = 0; i < genotypingThreads; i++) {
+            shardResources.add(new ShardResources());
+        }
+        // Utils.transformParallel keeps at most genotypingThreads shards in flight and returns them in order,
+        // so there is always a free set of resources for each running shard.
+        final Iterator<List<VariantContext>> results = Utils.transformParallel(shards.iterator(), this::genotypeShard, genotypingThreads);
+        while (results.hasNext()) {
+            for (final VariantContext vc : results.next()) {
+                vcfWriter.add(vc);
+                progressMeter.update(vc);
+            }
+        }
+    }
+
     @Override
     public void apply(VariantContext variant, ReadsContext reads, ReferenceContext ref, FeatureContext features) {
-        ref.setWindow(10, 10); //TODO this matches the gatk3 behavior but may be unnecessary
-        final VariantContext mergedVC = merger.merge(Collections.singletonList(variant), variant, includeNonVariants ? ref.getBase() : null, true, false);
-        final VariantContext regenotypedVC = regenotypeVC(mergedVC, ref, features, includeNonVariants);
-        if (regenotypedVC != null) {
-            final SimpleInterval variantStart = new SimpleInterval(regenotypedVC.getContig(), regenotypedVC.getStart(), regenotypedVC.getStart());
-            if (!onlyOutputCallsStartingInIntervals || intervals.stream().anyMatch(interval -> interval.contains    (variantStart))) {
-                vcfWriter.add(regenotypedVC);
+        final VariantContext genotypedVC = siteGenotyper.genotype(variant, ref, features);
+        if (genotypedVC != null) {
+            vcfWriter.add(genotypedVC);
+        }
+    }
+
+    /**
+     * Genotypes all the variants of a shard that pass the variant filter of the tool, using one of the per-thread
+     * sets of resources. The results of a shard are held in memory until they are written, so the memory used is
+     * bounded by the shard size and the number of threads.
+     */
+    private List<VariantContext> genotypeShard(final GenotypingShard shard) {
+        final ShardResources resources;
+        try {
+            resources = shardResources.take();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while waiting for genotyping resources", e);
+        }
+        try {
+            resources.variants.setIntervalsForTraversal(Collections.singletonList(shard.getInterval()));
+            final List<VariantContext> result = new ArrayList<>();
+            for (final VariantContext variant : resources.variants) {
+                if (!shard.isFirstShardFor(variant) || !resources.variantFilter.test(variant)) {
+                    continue;
+                }
+                final SimpleInterval variantInterval = new SimpleInterval(variant);
+                final VariantContext genotypedVC = resources.genotyper.genotype(variant,
+                        new ReferenceContext(resources.reference, variantInterval),
+                        new FeatureContext(resources.features, variantInterval));
+                if (genotypedVC != null) {
+                    result.add(genotypedVC);
+                }
             }
+            return result;
+        } finally {
+            shardResources.add(resources);
         }
     }
 
+    /**
+     * Cuts the traversal intervals into shards of at most {@code shardSize} bases.
+     *
+     * @param intervals the sorted traversal intervals.
+     * @param shardSize the maximum shard size in bases.
+     * @return never {@code null}, the shards in traversal order.
+     */
+    @VisibleForTesting
+    static List<GenotypingShard> makeShards(final List<SimpleInterval> intervals, final int shardSize) {
+        Utils.nonNull(intervals);
+        Utils.validateArg(shardSize > 0, "the shard size must be positive");
+        final List<GenotypingShard> shards = new ArrayList<>();
+        SimpleInterval previous = null;
+        for (final SimpleInterval interval : IntervalUtils.cutToShards(intervals, shardSize)) {
+            shards.add(new GenotypingShard(interval, previous));
+            previous = interval;
+        }
+        return shards;
+    }
+
+    /**
+     * A shard of the traversal.
+     *
+     * <p>
+     *     A variant that overlaps several consecutive shards is only genotyped in the first one, the same way
+     *     variants overlapping consecutive traversal intervals are only returned once by a single-threaded traversal.
+     * </p>
+     */
+    @VisibleForTesting
+    static final class GenotypingShard {
+        private final SimpleInterval interval;
+        private final SimpleInterval previous;
+
+        GenotypingShard(final SimpleInterval interval, final SimpleInterval previous) {
+            this.interval = Utils.nonNull(interval);
+            this.previous = previous;
+        }
+
+        SimpleInterval getInterval() {
+            return interval;
+        }
 
+        /**
+         * Returns true if a variant returned by a query on this shard has not been returned by the previous shard.
+         */
+        boolean isFirstShardFor(final Locatable variant) {
+            return previous == null || !previous.overlaps(variant);
+        }
+    }
 
     /**
-     * Re-genotype (and re-annotate) a combined genomic VC
-     * @return a new VariantContext or null if the site turned monomorphic and we don't want such sites
+     * Engines needed to genotype a single site. These are not thread-safe, so each thread has its own.
      */
-    private VariantContext  regenotypeVC(final VariantContext originalVC, final ReferenceContext ref, final FeatureContext features, boolean includeNonVariants) {
-        Utils.nonNull(originalVC);
-
-        final VariantContext result;
-        if ( originalVC.isVariant()  && originalVC.getAttributeAsInt(VCFConstants.DEPTH_KEY,0) > 0 ) {
-            // only re-genotype polymorphic sites
-            final VariantContext regenotypedVC = calculateGenotypes(originalVC);
-            if (isProperlyPolymorphic(regenotypedVC)) {
-                // Note that reversetrimAlleles must be performed after the annotations are finalized because the reducible annotation data maps
-                // were generated and keyed on the un reverseTrimmed alleles from the starting VariantContexts. Thus reversing the order will make
-                // it difficult to recover the data mapping due to the keyed alleles no longer being present in the variant context.
-                final VariantContext withGenotypingAnnotations = addGenotypingAnnotations(originalVC.getAttributes(), regenotypedVC);
-                final VariantContext withAnnotations = annotationEngine.finalizeAnnotations(withGenotypingAnnotations, originalVC);
-                result = GATKVariantContextUtils.reverseTrimAlleles(withAnnotations);
-            } else if (includeNonVariants) {
-                result = originalVC;
-            } else {
-                return null;
+    private final class SiteGenotyper {
+        private final VariantAnnotatorEngine annotationEngine;
+        private final GenotypingEngine<?> genotypingEngine;
+        private final ReferenceConfidenceVariantContextMerger merger;
+
+        private SiteGenotyper() {
+            annotationEngine = VariantAnnotatorEngine.ofSelectedMinusExcluded(variantAnnotationArgumentCollection, dbsnp.dbsnp, Collections.emptyList());
+
+            // We only want the engine to generate the AS_QUAL key if we are using AlleleSpecific annotations.
+            genotypingEngine = new MinimalGenotypingEngine(createUAC(), samples, new GeneralPloidyFailOverAFCalculatorProvider(genotypeArgs), annotationEngine.isRequestedReducibleRawKey(GATKVCFConstants.AS_QUAL_KEY));
+
+            merger = new ReferenceConfidenceVariantContextMerger(annotationEngine);
+        }
+
+        /**
+         * Merges, re-genotypes and re-annotates a site.
+         * @return the variant to output or null if there is none
+         */
+        private VariantContext genotype(final VariantContext variant, final ReferenceContext ref, final FeatureContext features) {
+            ref.setWindow(10, 10); //TODO this matches the gatk3 behavior but may be unnecessary
+            final VariantContext mergedVC = merger.merge(Collections.singletonList(variant), variant, includeNonVariants ? ref.getBase() : null, true, false);
+            final VariantContext regenotypedVC = regenotypeVC(mergedVC, ref, features, includeNonVariants);
+            if (regenotypedVC != null) {
+                final SimpleInterval variantStart = new SimpleInterval(regenotypedVC.getContig(), regenotypedVC.getStart(), regenotypedVC.getStart());
+                if (!onlyOutputCallsStartingInIntervals || intervals.stream().anyMatch(interval -> interval.contains    (variantStart))) {
+                    return regenotypedVC;
+                }
             }
-        } else {
-            result = originalVC;
+            return null;
         }
 
+        /**
+         * Re-genotype (and re-annotate) a combined genomic VC
+         * @return a new VariantContext or null if the site turned monomorphic and we don't want such sites
+         */
+        private VariantContext  regenotypeVC(final VariantContext originalVC, final ReferenceContext ref, final FeatureContext features, boolean includeNonVariants) {
+            Utils.nonNull(originalVC);
+
+            final VariantContext result;
+            if ( originalVC.isVariant()  && originalVC.getAttributeAsInt(VCFConstants.DEPTH_KEY,0) > 0 ) {
+                // only re-genotype polymorphic sites
+                final VariantContext regenotypedVC = calculateGenotypes(originalVC);
+                if (isProperlyPolymorphic(regenotypedVC)) {
+                    // Note that reversetrimAlleles must be performed after the annotations are finalized because the reducible annotation data maps
+                    // were generated and keyed on the un reverseTrimmed alleles from the starting VariantContexts. Thus reversing the order will make
+                    // it difficult to recover the data mapping due to the keyed alleles no longer being present in the variant context.
+                    final VariantContext withGenotypingAnnotations = addGenotypingAnnotations(originalVC.getAttributes(), regenotypedVC);
+                    final VariantContext withAnnotations = annotationEngine.finalizeAnnotations(withGenotypingAnnotations, originalVC);
+                    result = GATKVariantContextUtils.reverseTrimAlleles(withAnnotations);
+                } else if (includeNonVariants) {
+                    result = originalVC;
+                } else {
+                    return null;
+                }
+            } else {
+                result = originalVC;
+            }
+
 
-        // if it turned monomorphic then we either need to ignore or fix such sites
-        // Note that the order of these actions matters and is different for polymorphic and monomorphic sites.
-        // For polymorphic sites we need to make sure e.g. the SB tag is sent to the annotation engine and then removed later.
-        // For monomorphic sites we need to make sure e.g. the hom ref genotypes are created and only then are passed to the annotation engine.
-        // We could theoretically make 2 passes to re-create the genotypes, but that gets extremely expensive with large sample sizes.
-        if (result.isPolymorphicInSamples()) {
+            // if it turned monomorphic then we either need to ignore or fix such sites
+            // Note that the order of these actions matters and is different for polymorphic and monomorphic sites.
             // For polymorphic sites we need to make sure e.g. the SB tag is sent to the annotation engine and then removed later.
-            final VariantContext reannotated = annotationEngine.annotateContext(result, features, ref, null, a -> true);
-            return new VariantContextBuilder(reannotated).genotypes(cleanupGenotypeAnnotations(reannotated, false)).make();
-        } else if (includeNonVariants) {
             // For monomorphic sites we need to make sure e.g. the hom ref genotypes are created and only then are passed to the annotation engine.
-            final VariantContext reannotated = new VariantContextBuilder(result).genotypes(cleanupGenotypeAnnotations(result, true)).make();
-            return annotationEngine.annotateContext(reannotated, features, ref, null, GenotypeGVCFs::annotationShouldBeSkippedForHomRefSites);
-        } else {
-            return null;
+            // We could theoretically make 2 passes to re-create the genotypes, but that gets extremely expensive with large sample sizes.
+            if (result.isPolymorphicInSamples()) {
+                // For polymorphic sites we need to make sure e.g. the SB tag is sent to the annotation engine and then removed later.
+                final VariantContext reannotated = annotationEngine.annotateContext(result, features, ref, null, a -> true);
+                return new VariantContextBuilder(reannotated).genotypes(cleanupGenotypeAnnotations(reannotated, false)).make();
+            } else if (includeNonVariants) {
+                // For monomorphic sites we need to make sure e.g. the hom ref genotypes are created and only then are passed to the annotation engine.
+                final VariantContext reannotated = new VariantContextBuilder(result).genotypes(cleanupGenotypeAnnotations(result, true)).make();
+                return annotationEngine.annotateContext(reannotated, features, ref, null, GenotypeGVCFs::annotationShouldBeSkippedForHomRefSites);
+            } else {
+                return null;
+            }
         }
-    }
 
-    private VariantContext calculateGenotypes(VariantContext vc){
-        /*
-         * Query the VariantContext for the appropriate model.  If type == MIXED, one would want to use model = BOTH.
-         * However GenotypingEngine.getAlleleFrequencyPriors throws an exception if you give it anything but a SNP or INDEL model.
-         */
-        final GenotypeLikelihoodsCalculationModel model = vc.getType() == VariantContext.Type.INDEL
-                ? GenotypeLikelihoodsCalculationModel.INDEL
-                : GenotypeLikelihoodsCalculationModel.SNP;
-        return genotypingEngine.calculateGenotypes(vc, model, null);
+        private VariantContext calculateGenotypes(VariantContext vc){
+            /*
+             * Query the VariantContext for the appropriate model.  If type == MIXED, one would want to use model = BOTH.
+             * However GenotypingEngine.getAlleleFrequencyPriors throws an exception if you give it anything but a SNP or INDEL model.
+             */
+            final GenotypeLikelihoodsCalculationModel model = vc.getType() == VariantContext.Type.INDEL
+                    ? GenotypeLikelihoodsCalculationModel.INDEL
+                    : GenotypeLikelihoodsCalculationModel.SNP;
+            return genotypingEngine.calculateGenotypes(vc, model, null);
+        }
     }
 
     /**
@@ -388,6 +558,35 @@ public final class GenotypeGVCFs extends VariantWalker {
         }
     }
 
+    /**
+     * Resources needed by a thread to genotype shards: its own query on the driving variants, reference and feature
+     * sources, and engines.
+     */
+    private final class ShardResources implements AutoCloseable {
+        private final FeatureDataSource<VariantContext> variants;
+        private final ReferenceDataSource reference;
+        private final FeatureManager features;
+        private final SiteGenotyper genotyper;
+        private final VariantFilter variantFilter;
+
+        private ShardResources() {
+            variants = new FeatureDataSource<>(getDrivingVariantsFeatureInput(), FEATURE_CACHE_LOOKAHEAD, VariantContext.class,
+                    cloudPrefetchBuffer, cloudIndexPrefetchBuffer, referenceArguments.getReferencePath());
+            reference = ReferenceDataSource.of(referenceArguments.getReferencePath());
+            features = new FeatureManager(GenotypeGVCFs.this, FEATURE_CACHE_LOOKAHEAD, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
+                    referenceArguments.getReferencePath());
+            genotyper = new SiteGenotyper();
+            variantFilter = makeVariantFilter();
+        }
+
+        @Override
+        public void close() {
+            variants.close();
+            reference.close();
+            features.close();
+        }
+    }
+
     /**
      * Creates a UnifiedArgumentCollection with appropriate values filled in from the arguments in this walker
      * @return a complete UnifiedArgumentCollection
@@ -400,6 +599,9 @@ public final class GenotypeGVCFs extends VariantWalker {
 
     @Override
     public void closeTool() {
+        if ( shardResources != null ) {
+            shardResources.forEach(ShardResources::close);
+        }
         if ( vcfWriter != null) {
             vcfWriter.close();
         }
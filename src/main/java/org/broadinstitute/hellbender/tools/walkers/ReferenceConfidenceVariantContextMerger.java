@@ -8,6 +8,7 @@ import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.walkers.annotator.VariantAnnotatorEngine;
 import org.broadinstitute.hellbender.tools.walkers.annotator.allelespecific.AlleleSpecificAnnotationData;
 import org.broadinstitute.hellbender.tools.walkers.annotator.allelespecific.ReducibleAnnotationData;
+import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypeIndexMapCache;
 import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypeLikelihoodCalculator;
 import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypeLikelihoodCalculators;
 import org.broadinstitute.hellbender.utils.Utils;
@@ -28,6 +29,7 @@ import java.util.stream.Stream;
 public final class ReferenceConfidenceVariantContextMerger {
 
     private final GenotypeLikelihoodCalculators calculators;
+    private final GenotypeIndexMapCache genotypeIndexMapCache = GenotypeIndexMapCache.getSharedInstance();
     protected final VariantAnnotatorEngine annotatorEngine;
     protected final OneShotLogger warning = new OneShotLogger(this.getClass());
 
@@ -423,10 +425,8 @@ public final class ReferenceConfidenceVariantContextMerger {
                                                            final List<Allele> targetAlleles,
                                                            final boolean samplesAreUniquified) {
         final GenotypesContext mergedGenotypes = GenotypesContext.create();
-        final int maximumPloidy = vc.getMaxPloidy(GATKVariantContextUtils.DEFAULT_PLOIDY);
-        // the map is different depending on the ploidy, so in order to keep this method flexible (mixed ploidies)
-        // we need to get a map done (lazily inside the loop) for each ploidy, up to the maximum possible.
-        final int[][] genotypeIndexMapsByPloidy = new int[maximumPloidy + 1][];
+        // the map is different depending on the ploidy and the per-sample allele mapping (e.g. the best spanning
+        // deletion), so in order to keep this method flexible we look them up in the shared genotype index map cache.
         final int maximumAlleleCount = Math.max(remappedAlleles.size(),targetAlleles.size());
         int[] perSampleIndexesOfRelevantAlleles;
 
@@ -441,11 +441,8 @@ public final class ReferenceConfidenceVariantContextMerger {
             final GenotypeBuilder genotypeBuilder = new GenotypeBuilder(g).alleles(GATKVariantContextUtils.noCallAlleles(g.getPloidy()));
             genotypeBuilder.name(name);
             if (g.hasPL()) {
-                // lazy initialization of the genotype index map by ploidy.
                 perSampleIndexesOfRelevantAlleles = getIndexesOfRelevantAlleles(remappedAlleles, targetAlleles, vc.getStart(), g);
-                final int[] genotypeIndexMapByPloidy = genotypeIndexMapsByPloidy[ploidy] == null
-                            ? calculators.getInstance(ploidy, maximumAlleleCount).genotypeIndexMap(perSampleIndexesOfRelevantAlleles, calculators) //probably horribly slow
-                            : genotypeIndexMapsByPloidy[ploidy];
+                final int[] genotypeIndexMapByPloidy = genotypeIndexMapCache.genotypeIndexMap(ploidy, maximumAlleleCount, perSampleIndexesOfRelevantAlleles);
                 final int[] PLs = generatePL(g, genotypeIndexMapByPloidy);
                 final int[] AD = g.hasAD() ? generateAD(g.getAD(), perSampleIndexesOfRelevantAlleles) : null;
                 genotypeBuilder.PL(PLs).AD(AD);
@@ -471,12 +468,7 @@ public final class ReferenceConfidenceVariantContextMerger {
      * @return never {@code null} but an array of exactly {@code genotypeIndexMapByPloidy.length} positions.
      */
     private static int[] generatePL(final Genotype g, final int[] genotypeIndexMapByPloidy) {
-        final int[] PLs = new int[genotypeIndexMapByPloidy.length];
-        final int[] oldPLs = g.getPL();
-        for (int i = 0; i < PLs.length; i++) {
-            PLs[i] = oldPLs[genotypeIndexMapByPloidy[i]];
-        }
-        return PLs;
+        return GenotypeIndexMapCache.subsetPLs(g.getPL(), genotypeIndexMapByPloidy);
     }
 
     /**
@@ -8,7 +8,6 @@ import org.broadinstitute.hellbender.engine.ReferenceContext;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
-import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 
 import java.util.*;
@@ -125,12 +124,24 @@ public abstract class StrandBiasTest extends InfoFieldAnnotation {
         final Allele ref = vc.getReference();
         final List<Allele> allAlts = vc.getAlternateAlleles();
 
+        // row of the table of each allele of the likelihoods, or -1 if it is neither the reference nor an alternate allele
+        final int alleleCount = likelihoods.numberOfAlleles();
+        final int[] rowByAllele = new int[alleleCount];
+        for (int a = 0; a < alleleCount; a++) {
+            rowByAllele[a] = tableRow(likelihoods.getAllele(a), ref, allAlts);
+        }
+
         final int[][] table = new int[ARRAY_DIM][ARRAY_DIM];
         for (final String sample : samples) {
+            // the strand counts of the reads are shared by all the strand bias annotations of the site
+            final int[] strandCounts = likelihoods.informativeStrandCounts(sample);
             final int[] sampleTable = new int[ARRAY_SIZE];
-            likelihoods.bestAlleles(sample).stream()
-                    .filter(ba -> ba.isInformative())
-                    .forEach(ba -> updateTable(sampleTable, ba.allele, ba.read, ref, allAlts));
+            for (int a = 0; a < alleleCount; a++) {
+                if (rowByAllele[a] != -1) {
+                    sampleTable[rowByAllele[a] * ARRAY_DIM] += strandCounts[2 * a];
+                    sampleTable[rowByAllele[a] * ARRAY_DIM + 1] += strandCounts[2 * a + 1];
+                }
+            }
             if (passesMinimumThreshold(sampleTable, minCount)) {
                 copyToMainTable(sampleTable, table);
             }
@@ -152,16 +163,11 @@ public abstract class StrandBiasTest extends InfoFieldAnnotation {
         mainTable[1][1] += perSampleTable[3];
     }
 
-    private static void updateTable(final int[] table, final Allele allele, final GATKRead read, final Allele ref, final List<Allele> allAlts) {
-        final boolean matchesRef = allele.equals(ref, true);
-        final boolean matchesAnyAlt = allAlts.contains(allele);
-
-        if ( matchesRef || matchesAnyAlt ) {
-            final int offset = matchesRef ? 0 : ARRAY_DIM;
-
-            // a normal read with an actual strand
-            final boolean isFW = !read.isReverseStrand();
-            table[offset + (isFW ? 0 : 1)]++;
+    private static int tableRow(final Allele allele, final Allele ref, final List<Allele> allAlts) {
+        if ( allele.equals(ref, true) ) {
+            return 0;
+        } else {
+            return allAlts.contains(allele) ? 1 : -1;
         }
     }
 
@@ -5,8 +5,6 @@ import htsjdk.variant.variantcontext.*;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.utils.MathUtils;
 import org.broadinstitute.hellbender.utils.Utils;
-import org.broadinstitute.hellbender.utils.collections.Permutation;
-import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
 
@@ -28,6 +26,8 @@ public final class AlleleSubsettingUtils {
 
     private static final GenotypeLikelihoodCalculators GL_CALCS = new GenotypeLikelihoodCalculators();
 
+    private static final GenotypeIndexMapCache GENOTYPE_INDEX_MAP_CACHE = GenotypeIndexMapCache.getSharedInstance();
+
 
     /**
      * Create the new GenotypesContext with the subsetted PLs and ADs
@@ -52,15 +52,13 @@ public final class AlleleSubsettingUtils {
         Utils.validateArg(allelesToKeep.get(0).isReference(), "First allele must be the reference allele");
 
         final GenotypesContext newGTs = GenotypesContext.create(originalGs.size());
-        final Permutation<Allele> allelePermutation = new IndexedAlleleList<>(originalAlleles).permutation(new IndexedAlleleList<>(allelesToKeep));
+        final int[] newToOldAlleleIndexMap = GenotypeIndexMapCache.newToOldAlleleIndexMap(originalAlleles, allelesToKeep);
 
         final Map<Integer, int[]> subsettedLikelihoodIndicesByPloidy = new TreeMap<>();
         for (final Genotype g : originalGs) {
             final int ploidy = g.getPloidy() > 0 ? g.getPloidy() : defaultPloidy;
-            if (!subsettedLikelihoodIndicesByPloidy.containsKey(ploidy)) {
-                subsettedLikelihoodIndicesByPloidy.put(ploidy, subsettedPLIndices(ploidy, originalAlleles, allelesToKeep));
-            }
-            final int[] subsettedLikelihoodIndices = subsettedLikelihoodIndicesByPloidy.get(ploidy);
+            final int[] subsettedLikelihoodIndices = subsettedLikelihoodIndicesByPloidy.computeIfAbsent(ploidy,
+                    p -> GENOTYPE_INDEX_MAP_CACHE.genotypeIndexMap(p, originalAlleles.size(), newToOldAlleleIndexMap));
 
             final int expectedNumLikelihoods = GenotypeLikelihoods.numLikelihoods(originalAlleles.size(), ploidy);
             // create the new likelihoods array from the alleles we are allowed to use
@@ -69,8 +67,7 @@ public final class AlleleSubsettingUtils {
             if (g.hasLikelihoods()) {
                 final double[] originalLikelihoods = g.getLikelihoods().getAsVector();
                 newLikelihoods = originalLikelihoods.length == expectedNumLikelihoods ?
-                        MathUtils.scaleLogSpaceArrayForNumericalStability(Arrays.stream(subsettedLikelihoodIndices)
-                                .mapToDouble(idx -> originalLikelihoods[idx]).toArray()) : null;
+                        MathUtils.scaleLogSpaceArrayForNumericalStability(GenotypeIndexMapCache.subsetLikelihoods(originalLikelihoods, subsettedLikelihoodIndices)) : null;
                 if (newLikelihoods != null) {
                     final int PLindex = MathUtils.maxElementIndex(newLikelihoods);
                     newLog10GQ = GenotypeLikelihoods.getGQLog10FromLikelihoods(PLindex, newLikelihoods);
@@ -91,9 +88,7 @@ public final class AlleleSubsettingUtils {
 
             // restrict AD to the new allele subset
             if(g.hasAD()) {
-                final int[] oldAD = g.getAD();
-                final int[] newAD = IntStream.range(0, allelesToKeep.size()).map(n -> oldAD[allelePermutation.fromIndex(n)]).toArray();
-                gb.AD(newAD);
+                gb.AD(GenotypeIndexMapCache.subsetAlleleValues(g.getAD(), newToOldAlleleIndexMap));
             }
             newGTs.add(gb.make());
         }
@@ -237,6 +232,7 @@ public final class AlleleSubsettingUtils {
     @VisibleForTesting
     static double[] calculateLikelihoodSums(final VariantContext vc, final int defaultPloidy) {
         final double[] likelihoodSums = new double[vc.getNAlleles()];
+        final Map<Integer, GenotypeLikelihoodCalculator> calculatorsByPloidy = new HashMap<>();
         for ( final Genotype genotype : vc.getGenotypes().iterateInSampleNameOrder() ) {
             final GenotypeLikelihoods gls = genotype.getLikelihoods();
             if (gls == null) {
@@ -247,8 +243,8 @@ public final class AlleleSubsettingUtils {
             final double GLDiffBetweenRefAndBest = glsVector[indexOfMostLikelyGenotype] - glsVector[PL_INDEX_OF_HOM_REF];
             final int ploidy = genotype.getPloidy() > 0 ? genotype.getPloidy() : defaultPloidy;
 
-            final int[] alleleCounts = new GenotypeLikelihoodCalculators()
-                    .getInstance(ploidy, vc.getNAlleles()).genotypeAlleleCountsAt(indexOfMostLikelyGenotype)
+            final int[] alleleCounts = calculatorsByPloidy.computeIfAbsent(ploidy, p -> GL_CALCS.getInstance(p, vc.getNAlleles()))
+                    .genotypeAlleleCountsAt(indexOfMostLikelyGenotype)
                     .alleleCountsByIndex(vc.getNAlleles() - 1);
 
             for (int allele = 1; allele < alleleCounts.length; allele++) {
@@ -265,7 +261,8 @@ public final class AlleleSubsettingUtils {
      * to new PL indices i.e. result[7] = old PL index of genotype containing same alleles as the new genotype with PL index 7.
      *
      * This method is written in terms f indices rather than subsetting PLs directly in order to produce output that can be
-     * recycled from sample to sample, provided that the ploidy is the same.
+     * recycled from sample to sample, provided that the ploidy is the same. The underlying maps are memoized in the
+     * shared {@link GenotypeIndexMapCache}; this method returns a copy that the caller is free to modify.
      *
      * @param ploidy                Ploidy (number of chromosomes describing PL's)
      * @param originalAlleles       List of original alleles
@@ -273,26 +270,6 @@ public final class AlleleSubsettingUtils {
      * @return                      old PL indices of new genotypes
      */
     public static int[] subsettedPLIndices(final int ploidy, final List<Allele> originalAlleles, final List<Allele> newAlleles) {
-        final int[] result = new int[GenotypeLikelihoods.numLikelihoods(newAlleles.size(), ploidy)];
-        final Permutation<Allele> allelePermutation = new IndexedAlleleList<>(originalAlleles).permutation(new IndexedAlleleList<>(newAlleles));
-
-        final GenotypeLikelihoodCalculator glCalc = GL_CALCS.getInstance(ploidy, originalAlleles.size());
-        for (int oldPLIndex = 0; oldPLIndex < glCalc.genotypeCount(); oldPLIndex++) {
-            final GenotypeAlleleCounts oldAlleleCounts = glCalc.genotypeAlleleCountsAt(oldPLIndex);
-
-            final boolean containsOnlyNewAlleles = IntStream.range(0, oldAlleleCounts.distinctAlleleCount())
-                    .map(oldAlleleCounts::alleleIndexAt).allMatch(allelePermutation::isKept);
-
-            if (containsOnlyNewAlleles) {
-                // make an array in the format described in {@link GenotypeAlleleCounts}:
-                // [(new) index of first allele, count of first allele, (new) index of second allele, count of second allele. . .]
-                final int[] newAlleleCounts = IntStream.range(0, newAlleles.size()).flatMap(newAlleleIndex ->
-                        IntStream.of(newAlleleIndex, oldAlleleCounts.alleleCountFor(allelePermutation.fromIndex(newAlleleIndex)))).toArray();
-
-                final int newPLIndex = glCalc.alleleCountsToIndex(newAlleleCounts);
-                result[newPLIndex] = oldPLIndex;
-            }
-        }
-        return  result;
+        return GENOTYPE_INDEX_MAP_CACHE.subsettedPLIndices(ploidy, originalAlleles, newAlleles).clone();
     }
 }
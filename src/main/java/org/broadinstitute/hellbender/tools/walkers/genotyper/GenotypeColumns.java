@@ -0,0 +1,132 @@
+package org.broadinstitute.hellbender.tools.walkers.genotyper;
+
+import htsjdk.variant.variantcontext.Genotype;
+import htsjdk.variant.variantcontext.GenotypesContext;
+import htsjdk.variant.variantcontext.VariantContext;
+import org.broadinstitute.hellbender.utils.Utils;
+
+/**
+ * Columnar, read-only view of the per-sample genotype likelihoods of a site.
+ *
+ * <p>
+ *     The ploidies and log10 likelihoods are extracted once from the {@link Genotype} objects into primitive arrays
+ *     in sample-major order, so that iterative calculations over large cohorts (e.g. the allele frequency EM) do not
+ *     need to go through the htsjdk genotype objects and their likelihood conversions on every pass.
+ * </p>
+ *
+ * <p>
+ *     The likelihoods are stored in a flat array with a per-sample offset since their number depends on the sample
+ *     ploidy. The arguments of the accessors are not validated, as they are called in the innermost loops; they
+ *     are only checked when assertions are enabled.
+ * </p>
+ *
+ * <p>
+ *     Instances are immutable and thread-safe.
+ * </p>
+ */
+public final class GenotypeColumns {
+
+    /**
+     * Offset of a sample without likelihoods.
+     */
+    private static final int NO_LIKELIHOODS = -1;
+
+    private final int alleleCount;
+    private final int[] ploidy;
+
+    /**
+     * Offset of each sample's likelihoods in {@link #log10Likelihoods}, or {@link #NO_LIKELIHOODS} if the sample
+     * has none; the number of values is in {@link #likelihoodCounts}.
+     */
+    private final int[] likelihoodOffsets;
+    private final int[] likelihoodCounts;
+    private final double[] log10Likelihoods;
+
+    private GenotypeColumns(final GenotypesContext genotypes, final int alleleCount) {
+        final int sampleCount = genotypes.size();
+        this.alleleCount = alleleCount;
+        ploidy = new int[sampleCount];
+        likelihoodOffsets = new int[sampleCount];
+        likelihoodCounts = new int[sampleCount];
+
+        // first pass to size the flat likelihood array.
+        int totalLikelihoodCount = 0;
+        for (int s = 0; s < sampleCount; s++) {
+            final Genotype g = genotypes.get(s);
+            if (g.hasLikelihoods()) {
+                likelihoodOffsets[s] = totalLikelihoodCount;
+                likelihoodCounts[s] = g.hasPL() ? g.getPL().length : g.getLikelihoods().getAsVector().length;
+                totalLikelihoodCount += likelihoodCounts[s];
+            } else {
+                likelihoodOffsets[s] = NO_LIKELIHOODS;
+            }
+        }
+        log10Likelihoods = new double[totalLikelihoodCount];
+
+        for (int s = 0; s < sampleCount; s++) {
+            final Genotype g = genotypes.get(s);
+            ploidy[s] = g.getPloidy();
+            if (likelihoodOffsets[s] != NO_LIKELIHOODS) {
+                System.arraycopy(g.getLikelihoods().getAsVector(), 0, log10Likelihoods, likelihoodOffsets[s], likelihoodCounts[s]);
+            }
+        }
+    }
+
+    /**
+     * Extracts the genotype columns of a variant context.
+     *
+     * @param vc the input variant context.
+     * @return never {@code null}.
+     */
+    public static GenotypeColumns of(final VariantContext vc) {
+        Utils.nonNull(vc, "the variant context cannot be null");
+        return of(vc.getGenotypes(), vc.getNAlleles());
+    }
+
+    /**
+     * Extracts the genotype columns of a collection of genotypes.
+     *
+     * @param genotypes the input genotypes.
+     * @param alleleCount number of alleles at the site.
+     * @return never {@code null}.
+     */
+    public static GenotypeColumns of(final GenotypesContext genotypes, final int alleleCount) {
+        Utils.nonNull(genotypes, "the genotypes cannot be null");
+        Utils.validateArg(alleleCount >= 0, () -> "the allele count cannot be negative: " + alleleCount);
+        return new GenotypeColumns(genotypes, alleleCount);
+    }
+
+    public int sampleCount() {
+        return ploidy.length;
+    }
+
+    public int alleleCount() {
+        return alleleCount;
+    }
+
+    /**
+     * Returns the ploidy of a sample as reported by its genotype, 0 if the genotype has no alleles.
+     */
+    public int ploidy(final int sampleIndex) {
+        return ploidy[sampleIndex];
+    }
+
+    public boolean hasLikelihoods(final int sampleIndex) {
+        return likelihoodOffsets[sampleIndex] != NO_LIKELIHOODS;
+    }
+
+    /**
+     * Returns the number of likelihoods (genotypes) of a sample, 0 if it has none.
+     */
+    public int likelihoodCount(final int sampleIndex) {
+        return likelihoodCounts[sampleIndex];
+    }
+
+    /**
+     * Returns the log10 likelihood of a genotype of a sample, which must have likelihoods.
+     */
+    public double log10Likelihood(final int sampleIndex, final int genotypeIndex) {
+        assert hasLikelihoods(sampleIndex) && genotypeIndex >= 0 && genotypeIndex < likelihoodCounts[sampleIndex];
+        return log10Likelihoods[likelihoodOffsets[sampleIndex] + genotypeIndex];
+    }
+}
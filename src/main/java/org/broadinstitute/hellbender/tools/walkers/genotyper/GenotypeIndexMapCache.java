@@ -0,0 +1,220 @@
+package org.broadinstitute.hellbender.tools.walkers.genotyper;
+
+import htsjdk.variant.variantcontext.Allele;
+import org.broadinstitute.hellbender.utils.LRUCache;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.collections.Permutation;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Thread-safe bounded cache of genotype index maps.
+ *
+ * <p>
+ *     A genotype index map translates the genotype (likelihood) indices of a new allele list into the indices of
+ *     the genotypes with the same alleles in an original allele list. It only depends on the ploidy, the number of
+ *     original alleles and the new-to-original allele index mapping, so at multi-allelic sites with many samples
+ *     the same few maps are requested over and over. This class memoizes them, keeping up to a maximum number
+ *     of maps in least-recently-used order.
+ * </p>
+ *
+ * <p>
+ *     Arrays returned by this cache are shared and must not be modified by the caller.
+ * </p>
+ *
+ * <p>
+ *     It also provides primitive array routines to apply genotype index maps and allele index maps to
+ *     per-genotype (e.g. PLs) and per-allele (e.g. AD) values.
+ * </p>
+ */
+public final class GenotypeIndexMapCache {
+
+    /**
+     * Default maximum number of genotype index maps kept in the cache.
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 1000;
+
+    private static final GenotypeIndexMapCache SHARED_INSTANCE = new GenotypeIndexMapCache(DEFAULT_MAXIMUM_SIZE);
+
+    private final LRUCache<Key, int[]> cache;
+
+    private final GenotypeLikelihoodCalculators calculators = new GenotypeLikelihoodCalculators();
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maximumSize maximum number of genotype index maps kept in the cache.
+     * @throws IllegalArgumentException if {@code maximumSize} is not positive.
+     */
+    public GenotypeIndexMapCache(final int maximumSize) {
+        Utils.validateArg(maximumSize > 0, () -> "the maximum size must be positive: " + maximumSize);
+        cache = new LRUCache<>(maximumSize);
+    }
+
+    /**
+     * Returns the cache instance shared by all genotyping and allele subsetting code.
+     *
+     * @return never {@code null}.
+     */
+    public static GenotypeIndexMapCache getSharedInstance() {
+        return SHARED_INSTANCE;
+    }
+
+    /**
+     * Returns the genotype index map for a given allele recoding.
+     *
+     * @param ploidy the genotype ploidy.
+     * @param alleleCount the number of alleles in the original encoding.
+     * @param newToOldAlleleIndexMap allele recoding. The ith entry indicates the index of the allele in the original
+     *                               encoding that corresponds to the ith allele index in the final encoding.
+     *
+     * @throws IllegalArgumentException if {@code ploidy} is negative, {@code newToOldAlleleIndexMap} is {@code null}
+     *   or it contains invalid original allele indices given {@code alleleCount}.
+     *
+     * @return never {@code null}, an array whose ith element is the original genotype index of the ith genotype in the
+     *   final encoding. This array is shared and must not be modified.
+     */
+    public int[] genotypeIndexMap(final int ploidy, final int alleleCount, final int[] newToOldAlleleIndexMap) {
+        Utils.nonNull(newToOldAlleleIndexMap, "the allele index map cannot be null");
+        Utils.validateArg(ploidy >= 0, () -> "the ploidy provided cannot be negative: " + ploidy);
+        final Key key = new Key(ploidy, alleleCount, newToOldAlleleIndexMap.clone());
+        synchronized (cache) {
+            final int[] cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        // computed outside the lock so that concurrent misses on different keys do not block each other.
+        final int[] result = calculators.getInstance(ploidy, alleleCount).genotypeIndexMap(newToOldAlleleIndexMap, calculators);
+        synchronized (cache) {
+            cache.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the original PL indices of the genotypes formed by a subset of the original alleles.
+     *
+     * <p>
+     *     That is, {@code result[7]} is the original PL index of the genotype containing the same alleles as the
+     *     new genotype with PL index 7.
+     * </p>
+     *
+     * @param ploidy the genotype ploidy.
+     * @param originalAlleles the original alleles.
+     * @param newAlleles the new alleles, which must be a subset of {@code originalAlleles}.
+     *
+     * @return never {@code null}. This array is shared and must not be modified.
+     */
+    public int[] subsettedPLIndices(final int ploidy, final List<Allele> originalAlleles, final List<Allele> newAlleles) {
+        Utils.nonNull(originalAlleles, "the original alleles cannot be null");
+        Utils.nonNull(newAlleles, "the new alleles cannot be null");
+        return genotypeIndexMap(ploidy, originalAlleles.size(), newToOldAlleleIndexMap(originalAlleles, newAlleles));
+    }
+
+    /**
+     * Returns the original allele index of each new allele.
+     *
+     * @param originalAlleles the original alleles.
+     * @param newAlleles the new alleles, which must be a subset of {@code originalAlleles}.
+     * @return never {@code null}, an array with as many elements as {@code newAlleles}.
+     */
+    public static int[] newToOldAlleleIndexMap(final List<Allele> originalAlleles, final List<Allele> newAlleles) {
+        final Permutation<Allele> allelePermutation = new IndexedAlleleList<>(originalAlleles).permutation(new IndexedAlleleList<>(newAlleles));
+        final int[] result = new int[newAlleles.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = allelePermutation.fromIndex(i);
+        }
+        return result;
+    }
+
+    /**
+     * Composes a new PL array given the original PLs and a genotype index map.
+     *
+     * @param originalPLs the original PLs.
+     * @param genotypeIndexMap the genotype index map as returned by {@link #genotypeIndexMap}.
+     * @return never {@code null}, an array with as many elements as {@code genotypeIndexMap}.
+     */
+    public static int[] subsetPLs(final int[] originalPLs, final int[] genotypeIndexMap) {
+        final int[] result = new int[genotypeIndexMap.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = originalPLs[genotypeIndexMap[i]];
+        }
+        return result;
+    }
+
+    /**
+     * Composes a new likelihoods array given the original likelihoods and a genotype index map.
+     *
+     * @param originalLikelihoods the original likelihoods.
+     * @param genotypeIndexMap the genotype index map as returned by {@link #genotypeIndexMap}.
+     * @return never {@code null}, an array with as many elements as {@code genotypeIndexMap}.
+     */
+    public static double[] subsetLikelihoods(final double[] originalLikelihoods, final int[] genotypeIndexMap) {
+        final double[] result = new double[genotypeIndexMap.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = originalLikelihoods[genotypeIndexMap[i]];
+        }
+        return result;
+    }
+
+    /**
+     * Composes a new per-allele value array (e.g. AD) given the original values and an allele index map.
+     *
+     * @param originalValues the original per-allele values.
+     * @param newToOldAlleleIndexMap the original allele index of each new allele.
+     * @return never {@code null}, an array with as many elements as {@code newToOldAlleleIndexMap}.
+     */
+    public static int[] subsetAlleleValues(final int[] originalValues, final int[] newToOldAlleleIndexMap) {
+        final int[] result = new int[newToOldAlleleIndexMap.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = originalValues[newToOldAlleleIndexMap[i]];
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of genotype index maps currently cached.
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Cache key composed of the ploidy, the original allele count and the allele index map.
+     */
+    private static final class Key {
+        private final int ploidy;
+        private final int alleleCount;
+        private final int[] alleleIndexMap;
+        private final int hashCode;
+
+        private Key(final int ploidy, final int alleleCount, final int[] alleleIndexMap) {
+            this.ploidy = ploidy;
+            this.alleleCount = alleleCount;
+            this.alleleIndexMap = alleleIndexMap;
+            this.hashCode = 31 * (31 * ploidy + alleleCount) + Arrays.hashCode(alleleIndexMap);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return ploidy == other.ploidy && alleleCount == other.alleleCount && Arrays.equals(alleleIndexMap, other.alleleIndexMap);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
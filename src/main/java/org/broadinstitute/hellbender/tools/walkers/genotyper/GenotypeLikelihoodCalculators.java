@@ -20,15 +20,6 @@ public final class GenotypeLikelihoodCalculators {
 
     private static final Logger logger = LogManager.getLogger(GenotypeLikelihoodCalculators.class);
 
-    /**
-     * The current maximum ploidy supported by the tables.
-     * <p>
-     *     Its initial value indicates the initial capacity of the shared {@link #genotypeTableByPloidy}. Feel free
-     *     to change it to anything reasonable that is non-negative.
-     * </p>
-     */
-    private int maximumPloidy = 2; // its initial value is the initial capacity of the shared tables.
-
     /**
      * Maximum possible number of genotypes that this calculator can handle.
      */
@@ -40,33 +31,76 @@ public final class GenotypeLikelihoodCalculators {
     static final int GENOTYPE_COUNT_OVERFLOW = -1;
 
     /**
-     * The current maximum allele index supported by the tables.
+     * Initial maximum ploidy supported by the shared tables.
+     */
+    private static final int INITIAL_MAXIMUM_PLOIDY = 2;
+
+    /**
+     * Initial maximum allele index supported by the shared tables.
+     */
+    private static final int INITIAL_MAXIMUM_ALLELE = 1;
+
+    /**
+     * Tables shared by all instances of this class (and so by all the {@link GenotypeLikelihoodCalculator}s they
+     * produce).
+     *
      * <p>
-     *     Its initial value indicates the initial capacity of the shared {@link #alleleFirstGenotypeOffsetByPloidy} table.
-     *     Feel free to change it to anything reasonable that is non-negative.
+     *     The tables are immutable once published; when a larger capacity is requested a new set of tables is
+     *     composed and replaces this reference (see {@link #ensureCapacity}). Readers must get this reference
+     *     once per operation so that the offsets and genotype arrays they use are consistent with each other.
      * </p>
      */
-    private int maximumAllele = 1; // its initial value is the initial capacity of the shared tables.
+    private static volatile SharedTables sharedTables = new SharedTables(INITIAL_MAXIMUM_PLOIDY, INITIAL_MAXIMUM_ALLELE);
 
     /**
-     * Shared copy of the offset table as described in {@link #buildGenotypeAlleleCountsTable(int, int, int[][])}.
-     *
-     * This reference holds the largest requested so far in terms of maximum-allele and maximum-ploidy.
+     * Immutable snapshot of the allele-first-genotype offset table and genotype table for a given capacity.
      */
-    private int[][] alleleFirstGenotypeOffsetByPloidy =
-            buildAlleleFirstGenotypeOffsetTable(maximumPloidy, maximumAllele);
+    private static final class SharedTables {
+
+        /**
+         * The maximum ploidy supported by the tables.
+         */
+        private final int maximumPloidy;
+
+        /**
+         * The maximum allele index supported by the tables.
+         */
+        private final int maximumAllele;
+
+        /**
+         * Offset table as described in {@link #buildAlleleFirstGenotypeOffsetTable(int, int)}.
+         */
+        private final int[][] alleleFirstGenotypeOffsetByPloidy;
+
+        /**
+         * Table of genotypes give the ploidy sorted by their index in the likelihood array.
+         *
+         * <p>
+         *  Its format is described in {@link #buildGenotypeAlleleCountsTable(int, int, int[][])}.
+         * </p>
+         */
+        private final GenotypeAlleleCounts[][] genotypeTableByPloidy;
+
+        private SharedTables(final int maximumPloidy, final int maximumAllele) {
+            this.maximumPloidy = maximumPloidy;
+            this.maximumAllele = maximumAllele;
+            alleleFirstGenotypeOffsetByPloidy = buildAlleleFirstGenotypeOffsetTable(maximumPloidy, maximumAllele);
+            genotypeTableByPloidy = buildGenotypeAlleleCountsTable(maximumPloidy, maximumAllele, alleleFirstGenotypeOffsetByPloidy);
+        }
 
+        private boolean supports(final int ploidy, final int alleleCount) {
+            return ploidy <= maximumPloidy && alleleCount <= maximumAllele;
+        }
+    }
 
     /**
-     * Shared table of genotypes give the ploidy sorted by their index in the likelihood array.
+     * Creates a new calculator factory.
      *
      * <p>
-     *  Its format is described in {@link #buildGenotypeAlleleCountsTable(int, int, int[][])}.
+     *     The underlying genotype tables are shared across all instances, so creating new instances is cheap and
+     *     they are safe to use from different threads.
      * </p>
      */
-    private GenotypeAlleleCounts[][] genotypeTableByPloidy =
-            buildGenotypeAlleleCountsTable(maximumPloidy,maximumAllele,alleleFirstGenotypeOffsetByPloidy);
-
     public GenotypeLikelihoodCalculators(){
 
     }
@@ -259,14 +293,27 @@ public final class GenotypeLikelihoodCalculators {
      */
     public GenotypeLikelihoodCalculator getInstance(final int ploidy, final int alleleCount) {
         checkPloidyAndMaximumAllele(ploidy, alleleCount);
+        final SharedTables tables = tablesWithCapacity(ploidy, alleleCount);
 
-        if (calculateGenotypeCountUsingTables(ploidy, alleleCount) == GENOTYPE_COUNT_OVERFLOW) {
+        if (tables.alleleFirstGenotypeOffsetByPloidy[ploidy][alleleCount] == GENOTYPE_COUNT_OVERFLOW) {
             final double largeGenotypeCount = Math.pow(10, MathUtils.log10BinomialCoefficient(ploidy + alleleCount - 1, alleleCount - 1));
             throw new IllegalArgumentException(String.format("the number of genotypes is too large for ploidy %d and allele %d: approx. %.0f", ploidy, alleleCount, largeGenotypeCount));
         }
 
         // At this point the tables must have at least the requested capacity, likely to be much more.
-        return new GenotypeLikelihoodCalculator(ploidy, alleleCount, alleleFirstGenotypeOffsetByPloidy, genotypeTableByPloidy);
+        return new GenotypeLikelihoodCalculator(ploidy, alleleCount, tables.alleleFirstGenotypeOffsetByPloidy, tables.genotypeTableByPloidy);
+    }
+
+    /**
+     * Returns the shared tables making sure that they support at least the requested ploidy and allele index.
+     *
+     * @param ploidy the requested ploidy.
+     * @param alleleCount the requested allele index.
+     * @return never {@code null}.
+     */
+    private static SharedTables tablesWithCapacity(final int ploidy, final int alleleCount) {
+        final SharedTables tables = sharedTables;
+        return tables.supports(ploidy, alleleCount) ? tables : ensureCapacity(alleleCount, ploidy);
     }
 
     /**
@@ -274,32 +321,24 @@ public final class GenotypeLikelihoodCalculators {
      *
      * @param requestedMaximumAllele the new requested maximum allele maximum.
      * @param requestedMaximumPloidy the new requested ploidy maximum.
+     * @return the shared tables after the update, never {@code null}.
      */
-    private void ensureCapacity(final int requestedMaximumAllele, final int requestedMaximumPloidy) {
-
-        final boolean needsToExpandAlleleCapacity = requestedMaximumAllele > maximumAllele;
-        final boolean needsToExpandPloidyCapacity = requestedMaximumPloidy > maximumPloidy;
+    private static synchronized SharedTables ensureCapacity(final int requestedMaximumAllele, final int requestedMaximumPloidy) {
+        final SharedTables tables = sharedTables;
 
         // Double check with the lock on to avoid double work.
-        if (!needsToExpandAlleleCapacity && !needsToExpandPloidyCapacity) {
-            return;
+        if (tables.supports(requestedMaximumPloidy, requestedMaximumAllele)) {
+            return tables;
         }
 
-        final int newMaximumPloidy = Math.max(maximumPloidy, requestedMaximumPloidy);
-        final int newMaximumAllele = Math.max(maximumAllele, requestedMaximumAllele);
+        final int newMaximumPloidy = Math.max(tables.maximumPloidy, requestedMaximumPloidy);
+        final int newMaximumAllele = Math.max(tables.maximumAllele, requestedMaximumAllele);
 
-        logger.debug("Expanding capacity ploidy:" + maximumPloidy + "->" + newMaximumPloidy + " allele:" +  maximumAllele +"->" + newMaximumAllele );
+        logger.debug("Expanding capacity ploidy:" + tables.maximumPloidy + "->" + newMaximumPloidy + " allele:" +  tables.maximumAllele +"->" + newMaximumAllele );
 
-        // Update tables first.
-        alleleFirstGenotypeOffsetByPloidy = buildAlleleFirstGenotypeOffsetTable(newMaximumPloidy,newMaximumAllele);
-        genotypeTableByPloidy = buildGenotypeAlleleCountsTable(newMaximumPloidy,newMaximumAllele,alleleFirstGenotypeOffsetByPloidy);
-
-        if (needsToExpandAlleleCapacity) {
-            maximumAllele = requestedMaximumAllele;
-        }
-        if (needsToExpandPloidyCapacity) {
-            maximumPloidy = requestedMaximumPloidy;
-        }
+        final SharedTables result = new SharedTables(newMaximumPloidy, newMaximumAllele);
+        sharedTables = result;
+        return result;
     }
 
     /**
@@ -380,11 +419,8 @@ public final class GenotypeLikelihoodCalculators {
         throw new GATKException("Code should never reach here.");
     }
 
-    private int calculateGenotypeCountUsingTables(int ploidy, int alleleCount) {
+    private static int calculateGenotypeCountUsingTables(int ploidy, int alleleCount) {
         checkPloidyAndMaximumAllele(ploidy, alleleCount);
-        if (ploidy > maximumPloidy || alleleCount > maximumAllele) {
-            ensureCapacity(alleleCount, ploidy);
-        }
-        return alleleFirstGenotypeOffsetByPloidy[ploidy][alleleCount];
+        return tablesWithCapacity(ploidy, alleleCount).alleleFirstGenotypeOffsetByPloidy[ploidy][alleleCount];
     }
 }
\ No newline at end of file
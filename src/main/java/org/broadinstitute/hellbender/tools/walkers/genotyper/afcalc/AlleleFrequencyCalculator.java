@@ -1,10 +1,10 @@
 package org.broadinstitute.hellbender.tools.walkers.genotyper.afcalc;
 
 import htsjdk.variant.variantcontext.Allele;
-import htsjdk.variant.variantcontext.Genotype;
 import htsjdk.variant.variantcontext.VariantContext;
 import org.apache.commons.math3.util.MathArrays;
 import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypeAlleleCounts;
+import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypeColumns;
 import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypeLikelihoodCalculator;
 import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypeLikelihoodCalculators;
 import org.broadinstitute.hellbender.utils.Dirichlet;
@@ -63,13 +63,17 @@ public final class AlleleFrequencyCalculator extends AFCalculator {
         final double[] priorPseudocounts = alleles.stream()
                 .mapToDouble(a -> a.isReference() ? refPseudocount : (a.length() > 1 ? snpPseudocount : indelPseudocount)).toArray();
 
+        // extract the likelihoods once as they are used in every EM iteration.
+        final GenotypeColumns genotypes = GenotypeColumns.of(vc);
+        final GenotypeLikelihoodCalculator[] glCalcsByPloidy = new GenotypeLikelihoodCalculator[maximumPloidy(genotypes, defaultPloidy) + 1];
+
         double[] alleleCounts = new double[numAlleles];
         final double flatLog10AlleleFrequency = -MathUtils.log10(numAlleles); // log10(1/numAlleles)
         double[] log10AlleleFrequencies = new IndexRange(0, numAlleles).mapToDouble(n -> flatLog10AlleleFrequency);
         double alleleCountsMaximumDifference = Double.POSITIVE_INFINITY;
 
         while (alleleCountsMaximumDifference > THRESHOLD_FOR_ALLELE_COUNT_CONVERGENCE) {
-            final double[] newAlleleCounts = effectiveAlleleCounts(vc, log10AlleleFrequencies);
+            final double[] newAlleleCounts = effectiveAlleleCounts(genotypes, glCalcsByPloidy, log10AlleleFrequencies);
             alleleCountsMaximumDifference = Arrays.stream(MathArrays.ebeSubtract(alleleCounts, newAlleleCounts)).map(Math::abs).max().getAsDouble();
             alleleCounts = newAlleleCounts;
             final double[] posteriorPseudocounts = MathArrays.ebeAdd(priorPseudocounts, alleleCounts);
@@ -83,14 +87,14 @@ public final class AlleleFrequencyCalculator extends AFCalculator {
         double[] log10POfZeroCountsByAllele = new double[numAlleles];
         double log10PNoVariant = 0;
 
-        for (final Genotype g : vc.getGenotypes()) {
-            if (!g.hasLikelihoods()) {
+        for (int sample = 0; sample < genotypes.sampleCount(); sample++) {
+            if (!genotypes.hasLikelihoods(sample)) {
                 continue;
             }
-            final int ploidy = g.getPloidy() == 0 ? defaultPloidy : g.getPloidy();
-            final GenotypeLikelihoodCalculator glCalc = GL_CALCS.getInstance(ploidy, numAlleles);
+            final int ploidy = genotypes.ploidy(sample) == 0 ? defaultPloidy : genotypes.ploidy(sample);
+            final GenotypeLikelihoodCalculator glCalc = glCalc(glCalcsByPloidy, ploidy, numAlleles);
 
-            final double[] log10GenotypePosteriors = log10NormalizedGenotypePosteriors(g, glCalc, log10AlleleFrequencies);
+            final double[] log10GenotypePosteriors = log10NormalizedGenotypePosteriors(genotypes, sample, glCalc, log10AlleleFrequencies);
 
             //the total probability
             log10PNoVariant += log10GenotypePosteriors[HOM_REF_GENOTYPE_INDEX];
@@ -138,18 +142,18 @@ public final class AlleleFrequencyCalculator extends AFCalculator {
     // for numerical stability we will do this in log space:
     // count = SUM 10^(log (n_g p_g)) = SUM 10^(log n_g + log p_g)
     // thanks to the log-sum-exp trick this lets us work with log posteriors alone
-    private double[] effectiveAlleleCounts(final VariantContext vc, final double[] log10AlleleFrequencies) {
-        final int numAlleles = vc.getNAlleles();
+    private static double[] effectiveAlleleCounts(final GenotypeColumns genotypes, final GenotypeLikelihoodCalculator[] glCalcsByPloidy, final double[] log10AlleleFrequencies) {
+        final int numAlleles = genotypes.alleleCount();
         Utils.validateArg(numAlleles == log10AlleleFrequencies.length, "number of alleles inconsistent");
         final double[] log10Result = new double[numAlleles];
         Arrays.fill(log10Result, Double.NEGATIVE_INFINITY);
-        for (final Genotype g : vc.getGenotypes()) {
-            if (!g.hasLikelihoods()) {
+        for (int sample = 0; sample < genotypes.sampleCount(); sample++) {
+            if (!genotypes.hasLikelihoods(sample)) {
                 continue;
             }
-            final GenotypeLikelihoodCalculator glCalc = GL_CALCS.getInstance(g.getPloidy(), numAlleles);
+            final GenotypeLikelihoodCalculator glCalc = glCalc(glCalcsByPloidy, genotypes.ploidy(sample), numAlleles);
 
-            final double[] log10GenotypePosteriors = log10NormalizedGenotypePosteriors(g, glCalc, log10AlleleFrequencies);
+            final double[] log10GenotypePosteriors = log10NormalizedGenotypePosteriors(genotypes, sample, glCalc, log10AlleleFrequencies);
 
             new IndexRange(0, glCalc.genotypeCount()).forEach(genotypeIndex ->
                 glCalc.genotypeAlleleCountsAt(genotypeIndex).forEachAlleleIndexAndCount((alleleIndex, count) ->
@@ -158,16 +162,33 @@ public final class AlleleFrequencyCalculator extends AFCalculator {
         return MathUtils.applyToArrayInPlace(log10Result, x -> Math.pow(10.0, x));
     }
 
-    private static double[] log10NormalizedGenotypePosteriors(final Genotype g, final GenotypeLikelihoodCalculator glCalc, final double[] log10AlleleFrequencies) {
-        final double[] log10Likelihoods = g.getLikelihoods().getAsVector();
+    private static double[] log10NormalizedGenotypePosteriors(final GenotypeColumns genotypes, final int sample, final GenotypeLikelihoodCalculator glCalc, final double[] log10AlleleFrequencies) {
         final double[] log10Posteriors = new IndexRange(0, glCalc.genotypeCount()).mapToDouble(genotypeIndex -> {
             final GenotypeAlleleCounts gac = glCalc.genotypeAlleleCountsAt(genotypeIndex);
-            return gac.log10CombinationCount() + log10Likelihoods[genotypeIndex]
+            return gac.log10CombinationCount() + genotypes.log10Likelihood(sample, genotypeIndex)
                     + gac.sumOverAlleleIndicesAndCounts((index, count) -> count * log10AlleleFrequencies[index]);
         });
         return MathUtils.normalizeLog10(log10Posteriors);
     }
 
+    /**
+     * Returns the genotype likelihood calculator for a ploidy, creating it the first time that ploidy is seen at this site.
+     */
+    private static GenotypeLikelihoodCalculator glCalc(final GenotypeLikelihoodCalculator[] glCalcsByPloidy, final int ploidy, final int numAlleles) {
+        if (glCalcsByPloidy[ploidy] == null) {
+            glCalcsByPloidy[ploidy] = GL_CALCS.getInstance(ploidy, numAlleles);
+        }
+        return glCalcsByPloidy[ploidy];
+    }
+
+    private static int maximumPloidy(final GenotypeColumns genotypes, final int defaultPloidy) {
+        int result = defaultPloidy;
+        for (int sample = 0; sample < genotypes.sampleCount(); sample++) {
+            result = Math.max(result, genotypes.ploidy(sample));
+        }
+        return result;
+    }
+
     @Override   //Note: unused
     protected AFCalculationResult getResultFromFinalState(final VariantContext vc, final double[] priors, final StateTracker st) { return null; }
 
@@ -1,10 +1,13 @@
 package org.broadinstitute.hellbender.tools.walkers.mutect;
 
+import com.google.common.collect.Iterators;
+import htsjdk.variant.variantcontext.LazyGenotypesContext;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextBuilder;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import htsjdk.variant.vcf.VCFHeader;
 import htsjdk.variant.vcf.VCFHeaderLine;
+import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
 import org.broadinstitute.barclay.argparser.BetaFeature;
@@ -18,11 +21,15 @@ import org.broadinstitute.hellbender.engine.ReferenceContext;
 import org.broadinstitute.hellbender.engine.VariantWalker;
 import org.broadinstitute.hellbender.tools.exome.FilterByOrientationBias;
 import org.broadinstitute.hellbender.tools.walkers.contamination.CalculateContamination;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFHeaderLines;
 
 import java.io.File;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.StreamSupport;
 import java.util.stream.Collectors;
 
 /**
@@ -83,9 +90,28 @@ public final class FilterMutectCalls extends VariantWalker {
             doc="The output filtered VCF file", optional=false)
     private final String outputVcf = null;
 
+    public static final String FILTERING_THREADS_LONG_NAME = "filtering-threads";
+    public static final String FILTERING_BATCH_SIZE_LONG_NAME = "filtering-batch-size";
+    public static final int DEFAULT_FILTERING_BATCH_SIZE = 1000;
+
     @ArgumentCollection
     protected M2FiltersArgumentCollection MTFAC = new M2FiltersArgumentCollection();
 
+    /**
+     * When greater than 1, batches of variants are filtered concurrently, and written in their original order. The
+     * genotypes of each variant are still decoded by the traversal thread, unless --variant-decoding-threads is also
+     * greater than 1.
+     */
+    @Advanced
+    @Argument(fullName = FILTERING_THREADS_LONG_NAME,
+            doc = "Number of threads used to filter variants concurrently", optional = true, minValue = 1)
+    private int filteringThreads = 1;
+
+    @Advanced
+    @Argument(fullName = FILTERING_BATCH_SIZE_LONG_NAME,
+            doc = "Number of variants filtered by each task when --" + FILTERING_THREADS_LONG_NAME + " is greater than 1", optional = true, minValue = 1)
+    private int filteringBatchSize = DEFAULT_FILTERING_BATCH_SIZE;
+
     private VariantContextWriter vcfWriter;
 
     private Mutect2FilteringEngine filteringEngine;
@@ -115,11 +141,43 @@ public final class FilterMutectCalls extends VariantWalker {
         return "SUCCESS";
     }
 
+    @Override
+    public void traverse() {
+        if (filteringThreads == 1) {
+            super.traverse();
+            return;
+        }
+        final Iterator<VariantContext> variants = StreamSupport.stream(getSpliteratorForDrivingVariants(), false)
+                .filter(makeVariantFilter())
+                .peek(FilterMutectCalls::decodeGenotypes)
+                .iterator();
+        // Utils.transformParallel keeps at most filteringThreads batches in flight and returns them in order
+        final Iterator<List<VariantContext>> results = Utils.transformParallel(Iterators.partition(variants, filteringBatchSize),
+                batch -> batch.stream().map(this::filter).collect(Collectors.toList()), filteringThreads);
+        while (results.hasNext()) {
+            for (final VariantContext vc : results.next()) {
+                vcfWriter.add(vc);
+                progressMeter.update(vc);
+            }
+        }
+    }
+
+    // lazily decoded genotypes are parsed by the codec of the input, which can't be shared between threads
+    private static void decodeGenotypes(final VariantContext vc) {
+        if (vc.getGenotypes().isLazyWithData()) {
+            ((LazyGenotypesContext) vc.getGenotypes()).decode();
+        }
+    }
+
     @Override
     public void apply(final VariantContext vc, final ReadsContext readsContext, final ReferenceContext refContext, final FeatureContext fc) {
+        vcfWriter.add(filter(vc));
+    }
+
+    private VariantContext filter(final VariantContext vc) {
         final VariantContextBuilder vcb = new VariantContextBuilder(vc);
         vcb.filters(filteringEngine.calculateFilters(MTFAC, vc));
-        vcfWriter.add(vcb.make());
+        return vcb.make();
     }
 
     @Override
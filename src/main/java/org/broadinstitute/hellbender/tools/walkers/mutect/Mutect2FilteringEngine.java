@@ -26,8 +26,7 @@ public class Mutect2FilteringEngine {
     }
 
     // very naive M1-style contamination filter -- remove calls with AF less than the contamination fraction
-    private void applyContaminationFilter(final M2FiltersArgumentCollection MTFAC, final VariantContext vc, final Collection<String> filters) {
-        final Genotype tumorGenotype = vc.getGenotype(tumorSample);
+    private void applyContaminationFilter(final Genotype tumorGenotype, final Collection<String> filters) {
         final double[] alleleFractions = GATKProtectedVariantContextUtils.getAttributeAsDoubleArray(tumorGenotype, VCFConstants.ALLELE_FREQUENCY_KEY,
                 () -> new double[] {1.0}, 1.0);
         final double maxFraction = MathUtils.arrayMax(alleleFractions);
@@ -36,9 +35,8 @@ public class Mutect2FilteringEngine {
         }
     }
 
-    private void applyTriallelicFilter(final VariantContext vc, final Collection<String> filters) {
-        if (vc.hasAttribute(GATKVCFConstants.TUMOR_LOD_KEY)) {
-            final double[] tumorLods = getArrayAttribute(vc, GATKVCFConstants.TUMOR_LOD_KEY);
+    private void applyTriallelicFilter(final double[] tumorLods, final Collection<String> filters) {
+        if (tumorLods != null) {
             final long numPassingAltAlleles = Arrays.stream(tumorLods).filter(x -> x > MTFAC.TUMOR_LOD_THRESHOLD).count();
 
             if (numPassingAltAlleles > MTFAC.numAltAllelesThreshold) {
@@ -71,29 +69,29 @@ public class Mutect2FilteringEngine {
         }
     }
 
-    private void applyMedianBaseQualityDifferenceFilter(final M2FiltersArgumentCollection MTFAC, final VariantContext vc, final Collection<String> filters) {
-        final int[] baseQualityByAllele = getIntArrayTumorField(vc, BaseQuality.KEY);
+    private static void applyMedianBaseQualityDifferenceFilter(final M2FiltersArgumentCollection MTFAC, final Genotype tumorGenotype, final Collection<String> filters) {
+        final int[] baseQualityByAllele = getIntArrayField(tumorGenotype, BaseQuality.KEY);
         if (baseQualityByAllele != null && baseQualityByAllele[0] < MTFAC.minMedianBaseQuality) {
             filters.add(GATKVCFConstants.MEDIAN_BASE_QUALITY_FILTER_NAME);
         }
     }
 
-    private void applyMedianMappingQualityDifferenceFilter(final M2FiltersArgumentCollection MTFAC, final VariantContext vc, final Collection<String> filters) {
-        final int[] mappingQualityByAllele = getIntArrayTumorField(vc, MappingQuality.KEY);
+    private static void applyMedianMappingQualityDifferenceFilter(final M2FiltersArgumentCollection MTFAC, final Genotype tumorGenotype, final Collection<String> filters) {
+        final int[] mappingQualityByAllele = getIntArrayField(tumorGenotype, MappingQuality.KEY);
         if (mappingQualityByAllele != null && mappingQualityByAllele[0] < MTFAC.minMedianMappingQuality) {
             filters.add(GATKVCFConstants.MEDIAN_MAPPING_QUALITY_FILTER_NAME);
         }
     }
 
-    private void applyMedianFragmentLengthDifferenceFilter(final M2FiltersArgumentCollection MTFAC, final VariantContext vc, final Collection<String> filters) {
-        final int[] fragmentLengthByAllele = getIntArrayTumorField(vc, FragmentLength.KEY);
+    private static void applyMedianFragmentLengthDifferenceFilter(final M2FiltersArgumentCollection MTFAC, final Genotype tumorGenotype, final Collection<String> filters) {
+        final int[] fragmentLengthByAllele = getIntArrayField(tumorGenotype, FragmentLength.KEY);
         if (fragmentLengthByAllele != null && Math.abs(fragmentLengthByAllele[1] - fragmentLengthByAllele[0]) > MTFAC.maxMedianFragmentLengthDifference) {
             filters.add(GATKVCFConstants.MEDIAN_FRAGMENT_LENGTH_DIFFERENCE_FILTER_NAME);
         }
     }
 
-    private void applyReadPositionFilter(final M2FiltersArgumentCollection MTFAC, final VariantContext vc, final Collection<String> filters) {
-        final int[] readPositionByAllele = getIntArrayTumorField(vc, ReadPosition.KEY);
+    private static void applyReadPositionFilter(final M2FiltersArgumentCollection MTFAC, final VariantContext vc, final Genotype tumorGenotype, final Collection<String> filters) {
+        final int[] readPositionByAllele = getIntArrayField(tumorGenotype, ReadPosition.KEY);
         if (readPositionByAllele != null) {
             final int insertionSize =  Math.max(vc.getAltAlleleWithHighestAlleleCount().getBases().length - vc.getReference().getBases().length, 0);
             if (insertionSize + readPositionByAllele[0] < MTFAC.minMedianReadPosition) {
@@ -104,11 +102,8 @@ public class Mutect2FilteringEngine {
 
 
 
-    private static void applyGermlineVariantFilter(final M2FiltersArgumentCollection MTFAC, final VariantContext vc, final Collection<String> filters) {
-        if (vc.hasAttribute(GATKVCFConstants.TUMOR_LOD_KEY) && vc.hasAttribute(GATKVCFConstants.GERMLINE_POSTERIORS_VCF_ATTRIBUTE)) {
-            final double[] tumorLods = getArrayAttribute(vc, GATKVCFConstants.TUMOR_LOD_KEY);
-            final int indexOfMaxTumorLod = MathUtils.maxElementIndex(tumorLods);
-
+    private static void applyGermlineVariantFilter(final M2FiltersArgumentCollection MTFAC, final VariantContext vc, final double[] tumorLods, final int indexOfMaxTumorLod, final Collection<String> filters) {
+        if (tumorLods != null && vc.hasAttribute(GATKVCFConstants.GERMLINE_POSTERIORS_VCF_ATTRIBUTE)) {
             final double[] log10GermlinePosteriors = getArrayAttribute(vc, GATKVCFConstants.GERMLINE_POSTERIORS_VCF_ATTRIBUTE);
             if (log10GermlinePosteriors[indexOfMaxTumorLod] > Math.log10(MTFAC.maxGermlinePosterior)) {
                 filters.add(GATKVCFConstants.GERMLINE_RISK_FILTER_NAME);
@@ -116,10 +111,8 @@ public class Mutect2FilteringEngine {
         }
     }
 
-    private static void applyInsufficientEvidenceFilter(final M2FiltersArgumentCollection MTFAC, final VariantContext vc, final Collection<String> filters) {
-        if (vc.hasAttribute(GATKVCFConstants.TUMOR_LOD_KEY)) {
-            final double[] tumorLods = getArrayAttribute(vc, GATKVCFConstants.TUMOR_LOD_KEY);
-
+    private static void applyInsufficientEvidenceFilter(final M2FiltersArgumentCollection MTFAC, final double[] tumorLods, final Collection<String> filters) {
+        if (tumorLods != null) {
             if (MathUtils.arrayMax(tumorLods) < MTFAC.TUMOR_LOD_THRESHOLD) {
                 filters.add(GATKVCFConstants.TUMOR_LOD_FILTER_NAME);
             }
@@ -128,15 +121,13 @@ public class Mutect2FilteringEngine {
 
     // filter out anything called in tumor that would also be called in the normal if it were treated as a tumor.
     // this handles shared artifacts, such as ones due to alignment and any shared aspects of sequencing
-    private static void applyArtifactInNormalFilter(final M2FiltersArgumentCollection MTFAC, final VariantContext vc, final Collection<String> filters) {
+    private static void applyArtifactInNormalFilter(final M2FiltersArgumentCollection MTFAC, final VariantContext vc, final double[] tumorLods, final int indexOfMaxTumorLod, final Collection<String> filters) {
         if (!( vc.hasAttribute(GATKVCFConstants.NORMAL_ARTIFACT_LOD_ATTRIBUTE)
-                && vc.hasAttribute(GATKVCFConstants.TUMOR_LOD_KEY))) {
+                && tumorLods != null)) {
             return;
         }
 
         final double[] normalArtifactLods = getArrayAttribute(vc, GATKVCFConstants.NORMAL_ARTIFACT_LOD_ATTRIBUTE);
-        final double[] tumorLods = getArrayAttribute(vc, GATKVCFConstants.TUMOR_LOD_KEY);
-        final int indexOfMaxTumorLod = MathUtils.maxElementIndex(tumorLods);
 
         if (normalArtifactLods[indexOfMaxTumorLod] > MTFAC.NORMAL_ARTIFACT_LOD_THRESHOLD) {
             filters.add(GATKVCFConstants.ARTIFACT_IN_NORMAL_FILTER_NAME);
@@ -147,8 +138,7 @@ public class Mutect2FilteringEngine {
         return GATKProtectedVariantContextUtils.getAttributeAsDoubleArray(vc, attribute, () -> null, -1);
     }
 
-    private void applyStrandArtifactFilter(final M2FiltersArgumentCollection MTFAC, final VariantContext vc, final Collection<String> filters) {
-        Genotype tumorGenotype = vc.getGenotype(tumorSample);
+    private static void applyStrandArtifactFilter(final M2FiltersArgumentCollection MTFAC, final Genotype tumorGenotype, final Collection<String> filters) {
         final double[] posteriorProbabilities = GATKProtectedVariantContextUtils.getAttributeAsDoubleArray(
                 tumorGenotype, (StrandArtifact.POSTERIOR_PROBABILITIES_KEY), () -> null, -1);
         final double[] mapAlleleFractionEstimates = GATKProtectedVariantContextUtils.getAttributeAsDoubleArray(
@@ -179,9 +169,7 @@ public class Mutect2FilteringEngine {
 
     // This filter checks for the case in which PCR-duplicates with unique UMIs (which we assume is caused by false adapter priming)
     // amplify the erroneous signal for an alternate allele.
-    private void applyDuplicatedAltReadFilter(final M2FiltersArgumentCollection MTFAC, final VariantContext vc, final Collection<String> filters) {
-        Genotype tumorGenotype = vc.getGenotype(tumorSample);
-
+    private static void applyDuplicatedAltReadFilter(final M2FiltersArgumentCollection MTFAC, final Genotype tumorGenotype, final Collection<String> filters) {
         if (!tumorGenotype.hasExtendedAttribute(UniqueAltReadCount.UNIQUE_ALT_READ_SET_COUNT_KEY)) {
             return;
         }
@@ -194,28 +182,37 @@ public class Mutect2FilteringEngine {
     }
 
     //TODO: building a list via repeated side effects is ugly
+    /**
+     * Computes the filters failed by a variant. The tumor LODs and the tumor genotype, which most filters look at, are
+     * parsed and looked up once per variant. This method doesn't modify the state of the engine, so it can be called
+     * concurrently from several threads.
+     */
     public Set<String> calculateFilters(final M2FiltersArgumentCollection MTFAC, final VariantContext vc) {
         final Set<String> filters = new HashSet<>();
-        applyInsufficientEvidenceFilter(MTFAC, vc, filters);
+        final double[] tumorLods = vc.hasAttribute(GATKVCFConstants.TUMOR_LOD_KEY) ? getArrayAttribute(vc, GATKVCFConstants.TUMOR_LOD_KEY) : null;
+        final int indexOfMaxTumorLod = tumorLods == null ? -1 : MathUtils.maxElementIndex(tumorLods);
+        final Genotype tumorGenotype = vc.getGenotype(tumorSample);
+
+        applyInsufficientEvidenceFilter(MTFAC, tumorLods, filters);
         applyClusteredEventFilter(vc, filters);
-        applyDuplicatedAltReadFilter(MTFAC, vc, filters);
-        applyTriallelicFilter(vc, filters);
+        applyDuplicatedAltReadFilter(MTFAC, tumorGenotype, filters);
+        applyTriallelicFilter(tumorLods, filters);
         applyPanelOfNormalsFilter(MTFAC, vc, filters);
-        applyGermlineVariantFilter(MTFAC, vc, filters);
-        applyArtifactInNormalFilter(MTFAC, vc, filters);
-        applyStrandArtifactFilter(MTFAC, vc, filters);
+        applyGermlineVariantFilter(MTFAC, vc, tumorLods, indexOfMaxTumorLod, filters);
+        applyArtifactInNormalFilter(MTFAC, vc, tumorLods, indexOfMaxTumorLod, filters);
+        applyStrandArtifactFilter(MTFAC, tumorGenotype, filters);
         applySTRFilter(vc, filters);
-        applyContaminationFilter(MTFAC, vc, filters);
-        applyMedianBaseQualityDifferenceFilter(MTFAC, vc, filters);
-        applyMedianMappingQualityDifferenceFilter(MTFAC, vc, filters);
-        applyMedianFragmentLengthDifferenceFilter(MTFAC, vc, filters);
-        applyReadPositionFilter(MTFAC, vc, filters);
+        applyContaminationFilter(tumorGenotype, filters);
+        applyMedianBaseQualityDifferenceFilter(MTFAC, tumorGenotype, filters);
+        applyMedianMappingQualityDifferenceFilter(MTFAC, tumorGenotype, filters);
+        applyMedianFragmentLengthDifferenceFilter(MTFAC, tumorGenotype, filters);
+        applyReadPositionFilter(MTFAC, vc, tumorGenotype, filters);
 
         return filters;
     }
 
-    private int[] getIntArrayTumorField(final VariantContext vc, final String key) {
-        return GATKProtectedVariantContextUtils.getAttributeAsIntArray(vc.getGenotype(tumorSample), key, () -> null, 0);
+    private static int[] getIntArrayField(final Genotype genotype, final String key) {
+        return GATKProtectedVariantContextUtils.getAttributeAsIntArray(genotype, key, () -> null, 0);
     }
 
 }
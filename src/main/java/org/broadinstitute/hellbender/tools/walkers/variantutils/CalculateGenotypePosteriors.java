@@ -281,7 +281,7 @@ public final class CalculateGenotypePosteriors extends VariantWalker {
         vcfWriter.writeHeader(new VCFHeader(headerLines, vcfSamples));
 
         final Map<String,Set<Sample>> families = sampleDB.getFamilies(vcfSamples);
-        famUtils = new FamilyLikelihoods(sampleDB, deNovoPrior, vcfSamples, families);
+        famUtils = new FamilyLikelihoods(sampleDB, deNovoPrior, header.getGenotypeSamples(), families);
     }
 
     /**
@@ -19,20 +19,32 @@ import java.util.*;
 
 /**
  * Utility to compute genotype posteriors given family priors.
+ *
+ * The trios are resolved once, when this object is created, into the positions of their members among the samples of
+ * the VCF, so that the genotypes of each trio are found by index rather than by name at every site. The priors of all
+ * the genotype combinations of a trio are computed up front as well, and the combinations themselves are held in
+ * primitive arrays indexed by {@link #getLikelihoodMatrixIndex}.
  */
 public final class FamilyLikelihoods {
 
     private static final Logger logger = LogManager.getLogger(FamilyLikelihoods.class);
 
-    //Matrix of priors for all genotype combinations
-    private final EnumMap<GenotypeType,EnumMap<GenotypeType,EnumMap<GenotypeType,Integer>>> mvCountMatrix =
-            new EnumMap<>(GenotypeType.class);
-
     static final int NUM_CALLED_GENOTYPETYPES = 3; //HOM_REF, HET, and HOM_VAR
 
-    double[] configurationLikelihoodsMatrix = new double[NUM_CALLED_GENOTYPETYPES*NUM_CALLED_GENOTYPETYPES*NUM_CALLED_GENOTYPETYPES];
+    private static final int NUM_CONFIGURATIONS = NUM_CALLED_GENOTYPETYPES*NUM_CALLED_GENOTYPETYPES*NUM_CALLED_GENOTYPETYPES;
+
+    private static final GenotypeType[] CALLED_TYPES = {GenotypeType.HOM_REF, GenotypeType.HET, GenotypeType.HOM_VAR};
 
-    private List<Sample> trios = new ArrayList<>();
+    //log10 prior of each mother/father/child combination of called genotypes, indexed as the configuration likelihoods
+    private final double[] log10ConfigurationPriors = new double[NUM_CONFIGURATIONS];
+
+    //sample IDs of the members of each trio, and their index among the samples of the VCF
+    private final String[] motherIDs;
+    private final String[] fatherIDs;
+    private final String[] childIDs;
+    private final int[] motherIndices;
+    private final int[] fatherIndices;
+    private final int[] childIndices;
 
     public final double NO_JOINT_VALUE = -1.0;
 
@@ -41,43 +53,81 @@ public final class FamilyLikelihoods {
     private static final double ONE_THIRD = 0.333333333333333333;
     private static final double LOG10_OF_ONE_THIRD = -0.4771213;
 
+    private static final double[] UNINFORMATIVE_LIKELIHOODS = {ONE_THIRD, ONE_THIRD, ONE_THIRD};
+
     private enum FamilyMember {
-        MOTHER,
-        FATHER,
-        CHILD
+        MOTHER(NUM_CALLED_GENOTYPETYPES*NUM_CALLED_GENOTYPETYPES, NUM_CALLED_GENOTYPETYPES, 1),
+        FATHER(NUM_CALLED_GENOTYPETYPES, NUM_CALLED_GENOTYPETYPES*NUM_CALLED_GENOTYPETYPES, 1),
+        CHILD(1, NUM_CALLED_GENOTYPETYPES*NUM_CALLED_GENOTYPETYPES, NUM_CALLED_GENOTYPETYPES);
+
+        //strides in the configuration likelihoods of this member's genotype, and of the other two members' genotypes
+        //in the order in which they are marginalized over
+        private final int stride;
+        private final int outerStride;
+        private final int innerStride;
+
+        FamilyMember(final int stride, final int outerStride, final int innerStride) {
+            this.stride = stride;
+            this.outerStride = outerStride;
+            this.innerStride = innerStride;
+        }
     }
 
-    public FamilyLikelihoods(final SampleDB sampleDB, final double DNprior, final Set<String> vcfSamples, final Map<String,Set<Sample>> families){
+    /**
+     * @param sampleDB samples and their relationships
+     * @param DNprior prior for de novo mutations
+     * @param vcfSamples samples of the VCF, in the order of its genotypes
+     * @param families families of the samples of the VCF
+     */
+    public FamilyLikelihoods(final SampleDB sampleDB, final double DNprior, final List<String> vcfSamples, final Map<String,Set<Sample>> families){
         this.deNovoPrior = DNprior;
-        Arrays.fill(configurationLikelihoodsMatrix,0);
-        buildMatrices();
-        trios = setTrios(sampleDB, vcfSamples, families);
+        buildPriors();
+
+        final List<Sample> trios = setTrios(sampleDB, new HashSet<>(vcfSamples), families);
+        final Map<String, Integer> sampleIndices = new HashMap<>(vcfSamples.size() * 2);
+        for (int i = 0; i < vcfSamples.size(); i++) {
+            sampleIndices.put(vcfSamples.get(i), i);
+        }
+        motherIDs = new String[trios.size()];
+        fatherIDs = new String[trios.size()];
+        childIDs = new String[trios.size()];
+        motherIndices = new int[trios.size()];
+        fatherIndices = new int[trios.size()];
+        childIndices = new int[trios.size()];
+        for (int i = 0; i < trios.size(); i++) {
+            final Sample child = trios.get(i);
+            motherIDs[i] = child.getMaternalID();
+            fatherIDs[i] = child.getPaternalID();
+            childIDs[i] = child.getID();
+            motherIndices[i] = sampleIndices.getOrDefault(motherIDs[i], -1);
+            fatherIndices[i] = sampleIndices.getOrDefault(fatherIDs[i], -1);
+            childIndices[i] = sampleIndices.getOrDefault(childIDs[i], -1);
+        }
     }
 
     /**
      * Applies the trio genotype combination to the given trio.
+     * @param configurationLikelihoods: log10 likelihoods of each genotype combination of the trio, prior included
      * @param motherGenotype: Original genotype of the mother
      * @param fatherGenotype: Original genotype of the father
      * @param childGenotype: Original genotype of the child
-     * @param updatedGenotypes: An ArrayList<Genotype> to which the newly updated genotypes are added in the following order: Mother, Father, Child
+     * @param updatedGenotypes: Array to which the newly updated genotypes are written in the following order: Mother, Father, Child
      */
-    public void getUpdatedGenotypes(final VariantContext vc, final Genotype motherGenotype, final Genotype fatherGenotype, final Genotype childGenotype, final ArrayList<Genotype> updatedGenotypes){
+    private void getUpdatedGenotypes(final VariantContext vc, final double[] configurationLikelihoods, final Genotype motherGenotype, final Genotype fatherGenotype, final Genotype childGenotype, final Genotype[] updatedGenotypes){
         //genotypes here can be no call
         final boolean fatherIsCalled = fatherGenotype != null && hasCalledGT(fatherGenotype.getType()) && fatherGenotype.hasLikelihoods();
         final boolean motherIsCalled = motherGenotype != null && hasCalledGT(motherGenotype.getType()) && motherGenotype.hasLikelihoods();
         final boolean childIsCalled = childGenotype != null && hasCalledGT(childGenotype.getType()) && childGenotype.hasLikelihoods();
 
         //default to posteriors equal to likelihoods (flat priors) in case input genotypes are not called
-        final double[] uninformativeLikelihoods = {ONE_THIRD, ONE_THIRD, ONE_THIRD};
-
-        final double[] motherLikelihoods = motherIsCalled? GeneralUtils.normalizeFromLog10(motherGenotype.getLikelihoods().getAsVector()) : uninformativeLikelihoods;
-        final double[] fatherLikelihoods = fatherIsCalled? GeneralUtils.normalizeFromLog10(fatherGenotype.getLikelihoods().getAsVector()) : uninformativeLikelihoods;
-        final double[] childLikelihoods = childIsCalled? GeneralUtils.normalizeFromLog10(childGenotype.getLikelihoods().getAsVector()) : uninformativeLikelihoods;
+        final double[] motherLikelihoods = motherIsCalled? GeneralUtils.normalizeFromLog10(motherGenotype.getLikelihoods().getAsVector()) : UNINFORMATIVE_LIKELIHOODS;
+        final double[] fatherLikelihoods = fatherIsCalled? GeneralUtils.normalizeFromLog10(fatherGenotype.getLikelihoods().getAsVector()) : UNINFORMATIVE_LIKELIHOODS;
+        final double[] childLikelihoods = childIsCalled? GeneralUtils.normalizeFromLog10(childGenotype.getLikelihoods().getAsVector()) : UNINFORMATIVE_LIKELIHOODS;
 
         //these are also in log10 space
-        final double[] motherLog10Posteriors = getPosteriors(FamilyMember.MOTHER);
-        final double[] fatherLog10Posteriors = getPosteriors(FamilyMember.FATHER);
-        final double[] childLog10Posteriors = getPosteriors(FamilyMember.CHILD);
+        final double[] motherLog10Posteriors = getPosteriors(configurationLikelihoods, FamilyMember.MOTHER);
+        final double[] fatherLog10Posteriors = getPosteriors(configurationLikelihoods, FamilyMember.FATHER);
+        final double[] childLog10Posteriors = getPosteriors(configurationLikelihoods, FamilyMember.CHILD);
 
         final double[] motherPosteriors = GeneralUtils.normalizeFromLog10(motherLog10Posteriors);
         final double[] fatherPosteriors = GeneralUtils.normalizeFromLog10(fatherLog10Posteriors);
@@ -92,9 +142,9 @@ public final class FamilyLikelihoods {
             jointPosteriorProbability = MathUtils.arrayMax(motherPosteriors)*MathUtils.arrayMax(fatherPosteriors)*MathUtils.arrayMax(childPosteriors);
         }
 
-        updatedGenotypes.add(getUpdatedGenotype(vc, motherGenotype, jointTrioLikelihood, jointPosteriorProbability, motherLog10Posteriors));
-        updatedGenotypes.add(getUpdatedGenotype(vc, fatherGenotype, jointTrioLikelihood, jointPosteriorProbability, fatherLog10Posteriors));
-        updatedGenotypes.add(getUpdatedGenotype(vc, childGenotype, jointTrioLikelihood, jointPosteriorProbability, childLog10Posteriors));
+        updatedGenotypes[0] = getUpdatedGenotype(vc, motherGenotype, jointTrioLikelihood, jointPosteriorProbability, motherLog10Posteriors);
+        updatedGenotypes[1] = getUpdatedGenotype(vc, fatherGenotype, jointTrioLikelihood, jointPosteriorProbability, fatherLog10Posteriors);
+        updatedGenotypes[2] = getUpdatedGenotype(vc, childGenotype, jointTrioLikelihood, jointPosteriorProbability, childLog10Posteriors);
     }
 
     private Genotype getUpdatedGenotype(final VariantContext vc, final Genotype genotype, final double jointLikelihood, final double jointPosteriorProb, final double[] log10Posteriors){
@@ -131,67 +181,21 @@ public final class FamilyLikelihoods {
         return builder.make();
     }
 
-    //marginalize over the configurationLikelihoodsMatrix and normalize to get the posteriors
-    private double[] getPosteriors(final FamilyMember recalcInd) {
-        final double[] marginalOverChangedHR = new double[NUM_CALLED_GENOTYPETYPES*NUM_CALLED_GENOTYPETYPES];
-        final double[] marginalOverChangedHET = new double[NUM_CALLED_GENOTYPETYPES*NUM_CALLED_GENOTYPETYPES];
-        final double[] marginalOverChangedHV = new double[NUM_CALLED_GENOTYPETYPES*NUM_CALLED_GENOTYPETYPES];
+    //marginalize over the configuration likelihoods and normalize to get the posteriors
+    private static double[] getPosteriors(final double[] configurationLikelihoods, final FamilyMember recalcInd) {
+        final double[] marginal = new double[NUM_CALLED_GENOTYPETYPES*NUM_CALLED_GENOTYPETYPES];
         final double[] recalcPosteriors = new double[NUM_CALLED_GENOTYPETYPES];
 
-        final GenotypeType[] calledTypes = {GenotypeType.HOM_REF, GenotypeType.HET, GenotypeType.HOM_VAR};
-        int counter = 0;
-
-        switch (recalcInd) {
-            case MOTHER:
-                for(final GenotypeType father : calledTypes) {
-                    for(final GenotypeType child : calledTypes) {
-                        GenotypeType mother;
-                        mother = GenotypeType.HOM_REF;
-                        marginalOverChangedHR[counter] = configurationLikelihoodsMatrix[getLikelihoodMatrixIndex(mother, father, child)];
-                        mother = GenotypeType.HET;
-                        marginalOverChangedHET[counter] = configurationLikelihoodsMatrix[getLikelihoodMatrixIndex(mother, father, child)];
-                        mother = GenotypeType.HOM_VAR;
-                        marginalOverChangedHV[counter] = configurationLikelihoodsMatrix[getLikelihoodMatrixIndex(mother, father, child)];
-                        counter++;
-                    }
+        for (int genotype = 0; genotype < NUM_CALLED_GENOTYPETYPES; genotype++) {
+            int counter = 0;
+            for (int outer = 0; outer < NUM_CALLED_GENOTYPETYPES; outer++) {
+                for (int inner = 0; inner < NUM_CALLED_GENOTYPETYPES; inner++) {
+                    marginal[counter++] = configurationLikelihoods[genotype*recalcInd.stride + outer*recalcInd.outerStride + inner*recalcInd.innerStride];
                 }
-                break;
-            case FATHER:
-                for(final GenotypeType mother : calledTypes){
-                    for (final GenotypeType child : calledTypes){
-                        GenotypeType father;
-                        father = GenotypeType.HOM_REF;
-                        marginalOverChangedHR[counter] = configurationLikelihoodsMatrix[getLikelihoodMatrixIndex(mother, father, child)];
-                        father = GenotypeType.HET;
-                        marginalOverChangedHET[counter] = configurationLikelihoodsMatrix[getLikelihoodMatrixIndex(mother, father, child)];
-                        father = GenotypeType.HOM_VAR;
-                        marginalOverChangedHV[counter] = configurationLikelihoodsMatrix[getLikelihoodMatrixIndex(mother, father, child)];
-                        counter++;
-                    }
-                }
-                break;
-            case CHILD:
-                for(final GenotypeType mother : calledTypes){
-                    for (final GenotypeType father: calledTypes){
-                        GenotypeType child;
-                        child = GenotypeType.HOM_REF;
-                        marginalOverChangedHR[counter] = configurationLikelihoodsMatrix[getLikelihoodMatrixIndex(mother, father, child)];
-                        child = GenotypeType.HET;
-                        marginalOverChangedHET[counter] = configurationLikelihoodsMatrix[getLikelihoodMatrixIndex(mother, father, child)];
-                        child = GenotypeType.HOM_VAR;
-                        marginalOverChangedHV[counter] = configurationLikelihoodsMatrix[getLikelihoodMatrixIndex(mother, father, child)];
-                        counter++;
-                    }
-                }
-                break;
-            default:
-                throw new UserException(String.format("%d does not indicate a valid trio FamilyMember -- use 0 for mother, 1 for father, 2 for child",recalcInd.ordinal()));
+            }
+            recalcPosteriors[genotype] = MathUtils.log10sumLog10(marginal, 0);
         }
 
-        recalcPosteriors[0] = MathUtils.log10sumLog10(marginalOverChangedHR,0);
-        recalcPosteriors[1] = MathUtils.log10sumLog10(marginalOverChangedHET,0);
-        recalcPosteriors[2] = MathUtils.log10sumLog10(marginalOverChangedHV,0);
-
         return MathUtils.scaleLogSpaceArrayForNumericalStability(recalcPosteriors);
     }
 
@@ -200,12 +204,18 @@ public final class FamilyLikelihoods {
      */
     public GenotypesContext calculatePosteriorGLs(final VariantContext vc){
         Utils.nonNull(vc);
-        final GenotypesContext genotypesContext = GenotypesContext.copy(vc.getGenotypes());
-
-        for (final Sample sample : trios) {
-            final Genotype mother = vc.getGenotype(sample.getMaternalID());
-            final Genotype father = vc.getGenotype(sample.getPaternalID());
-            final Genotype child = vc.getGenotype(sample.getID());
+        final GenotypesContext genotypes = vc.getGenotypes();
+        final GenotypesContext genotypesContext = GenotypesContext.copy(genotypes);
+
+        final double[] configurationLikelihoods = new double[NUM_CONFIGURATIONS];
+        final Genotype[] trioGenotypes = new Genotype[3];
+        for (int i = 0; i < childIDs.length; i++) {
+            final int motherIndex = getGenotypeIndex(genotypes, motherIndices[i], motherIDs[i]);
+            final int fatherIndex = getGenotypeIndex(genotypes, fatherIndices[i], fatherIDs[i]);
+            final int childIndex = getGenotypeIndex(genotypes, childIndices[i], childIDs[i]);
+            final Genotype mother = motherIndex >= 0 ? genotypes.get(motherIndex) : genotypes.get(motherIDs[i]);
+            final Genotype father = fatherIndex >= 0 ? genotypes.get(fatherIndex) : genotypes.get(fatherIDs[i]);
+            final Genotype child = childIndex >= 0 ? genotypes.get(childIndex) : genotypes.get(childIDs[i]);
 
             //Keep only trios and parent/child pairs
             if(mother == null && father == null || child == null) {
@@ -213,20 +223,31 @@ public final class FamilyLikelihoods {
                 continue;
             }
 
-            final ArrayList<Genotype> trioGenotypes = new ArrayList<>(3);
-            updateFamilyGenotypes(vc, mother, father, child, trioGenotypes);
-
-            //replace uses sample names to match genotypes, so order doesn't matter
-            if (!trioGenotypes.isEmpty()) {
-                genotypesContext.replace(trioGenotypes.get(0));
-                genotypesContext.replace(trioGenotypes.get(1));
-                genotypesContext.replace(trioGenotypes.get(2));
+            if (updateFamilyGenotypes(vc, configurationLikelihoods, mother, father, child, trioGenotypes)) {
+                //the genotypes are at the same position in the copy; otherwise replace matches them by sample name
+                setGenotype(genotypesContext, motherIndex, trioGenotypes[0]);
+                setGenotype(genotypesContext, fatherIndex, trioGenotypes[1]);
+                setGenotype(genotypesContext, childIndex, trioGenotypes[2]);
             }
         }
 
         return genotypesContext;
     }
 
+    //returns the expected index of the sample if its genotype is found there, -1 otherwise
+    private static int getGenotypeIndex(final GenotypesContext genotypes, final int expectedIndex, final String sampleID) {
+        return expectedIndex >= 0 && expectedIndex < genotypes.size() && genotypes.get(expectedIndex).getSampleName().equals(sampleID) ?
+                expectedIndex : -1;
+    }
+
+    private static void setGenotype(final GenotypesContext genotypes, final int index, final Genotype genotype) {
+        if (index >= 0) {
+            genotypes.set(index, genotype);
+        } else {
+            genotypes.replace(genotype);
+        }
+    }
+
     /**
      * Select trios and parent/child pairs only
      */
@@ -259,14 +280,14 @@ public final class FamilyLikelihoods {
         return trios;
     }
 
-    //Create a lookup matrix to find the number of MVs for each family genotype combination
-    private void buildMatrices(){
-        for(final GenotypeType mother : GenotypeType.values()){
-            mvCountMatrix.put(mother, new EnumMap<>(GenotypeType.class));
-            for(final GenotypeType father : GenotypeType.values()){
-                mvCountMatrix.get(mother).put(father, new EnumMap<>(GenotypeType.class));
-                for(final GenotypeType child : GenotypeType.values()){
-                    mvCountMatrix.get(mother).get(father).put(child, getCombinationMVCount(mother, father, child));
+    //Compute the log10 prior of each genotype combination from its number of MVs
+    private void buildPriors(){
+        for(final GenotypeType mother : CALLED_TYPES){
+            for(final GenotypeType father : CALLED_TYPES){
+                for(final GenotypeType child : CALLED_TYPES){
+                    final int mvCount = getCombinationMVCount(mother, father, child);
+                    final double mvCoeff = mvCount>0 ? Math.pow(deNovoPrior,mvCount) : (1.0-10*deNovoPrior-deNovoPrior*deNovoPrior);
+                    log10ConfigurationPriors[getLikelihoodMatrixIndex(mother, father, child)] = Math.log10(mvCoeff);
                 }
             }
         }
@@ -275,7 +296,7 @@ public final class FamilyLikelihoods {
     //Returns the number of Mendelian Violations for a given genotype combination.
     //If one of the parents' genotypes is missing, it will consider it as a parent/child pair
     //If the child genotype or both parents genotypes are missing, 0 is returned.
-    private int getCombinationMVCount(final GenotypeType mother, final GenotypeType father, final GenotypeType child){
+    private static int getCombinationMVCount(final GenotypeType mother, final GenotypeType father, final GenotypeType child){
 
         //Child is no call => No MV
         if(child == GenotypeType.NO_CALL || child == GenotypeType.UNAVAILABLE) {
@@ -342,51 +363,43 @@ public final class FamilyLikelihoods {
     /**
      * Updates the genotypes of the given trio. If one of the parents is null, it is considered a parent/child pair.
      * @param vc: Input variant context
+     * @param configurationLikelihoods: Array in which to compute the likelihoods of each genotype combination
      * @param mother: Mother's genotype from vc input
      * @param father: Father's genotype from vc input
      * @param child: Child's genotype from vc input
-     * @param finalGenotypes: An ArrayList<Genotype> containing the updated genotypes
+     * @param finalGenotypes: Array to which the updated genotypes are written
+     * @return whether the genotypes were updated
      */
-    private void updateFamilyGenotypes(final VariantContext vc, final Genotype mother, final Genotype father, final Genotype child, final ArrayList<Genotype> finalGenotypes) {
+    private boolean updateFamilyGenotypes(final VariantContext vc, final double[] configurationLikelihoods, final Genotype mother, final Genotype father, final Genotype child, final Genotype[] finalGenotypes) {
 
         //If one of the parents is not called, fill in with uninformative likelihoods
-        final Map<GenotypeType,Double> motherLikelihoods = getLikelihoodsAsMapSafeNull(mother);
-        final Map<GenotypeType,Double> fatherLikelihoods = getLikelihoodsAsMapSafeNull(father);
-        final Map<GenotypeType,Double> childLikelihoods = getLikelihoodsAsMapSafeNull(child);
+        final double[] motherLikelihoods = getLikelihoodsSafeNull(mother);
+        final double[] fatherLikelihoods = getLikelihoodsSafeNull(father);
+        final double[] childLikelihoods = getLikelihoodsSafeNull(child);
 
         //if the child isn't called or neither parent is called, there's no extra inheritance information in that trio so return
         if (!hasCalledGT(child.getType()) || (!hasCalledGT(mother.getType()) && !hasCalledGT(father.getType()))) {
-            return;
+            return false;
         }
 
-        //Fill the configurationLikelihoodsMatrix for each genotype combination
-        int matInd;
-        int mvCount;
-        double jointLikelihood;
-        double mvCoeff;
-        double configurationLikelihood;
-        for(final Map.Entry<GenotypeType,Double> childGenotype :
-                childLikelihoods.entrySet()){
-            for(final Map.Entry<GenotypeType,Double> motherGenotype :
-                    motherLikelihoods.entrySet()){
-                for(final Map.Entry<GenotypeType,Double> fatherGenotype :
-                        fatherLikelihoods.entrySet()){
-                    mvCount = mvCountMatrix.get(motherGenotype.getKey()).get(fatherGenotype.getKey()).get(childGenotype.getKey());
-                    jointLikelihood = motherGenotype.getValue()+fatherGenotype.getValue()+childGenotype.getValue();
-                    mvCoeff = mvCount>0 ? Math.pow(deNovoPrior,mvCount) : (1.0-10*deNovoPrior-deNovoPrior*deNovoPrior);
-                    configurationLikelihood =  Math.log10(mvCoeff) + jointLikelihood;
-                    matInd = getLikelihoodMatrixIndex(motherGenotype.getKey(), fatherGenotype.getKey(), childGenotype.getKey());
-                    configurationLikelihoodsMatrix[matInd] = configurationLikelihood;
+        //Fill the configuration likelihoods for each genotype combination
+        int matInd = 0;
+        for(int motherGenotype = 0; motherGenotype < NUM_CALLED_GENOTYPETYPES; motherGenotype++){
+            for(int fatherGenotype = 0; fatherGenotype < NUM_CALLED_GENOTYPETYPES; fatherGenotype++){
+                for(int childGenotype = 0; childGenotype < NUM_CALLED_GENOTYPETYPES; childGenotype++){
+                    final double jointLikelihood = motherLikelihoods[motherGenotype]+fatherLikelihoods[fatherGenotype]+childLikelihoods[childGenotype];
+                    configurationLikelihoods[matInd] = log10ConfigurationPriors[matInd] + jointLikelihood;
+                    matInd++;
                 }
             }
         }
 
-        getUpdatedGenotypes(vc, mother, father, child, finalGenotypes);
+        getUpdatedGenotypes(vc, configurationLikelihoods, mother, father, child, finalGenotypes);
+        return true;
     }
 
-    //Get a Map of genotype (log10)likelihoods
-    private EnumMap<GenotypeType,Double> getLikelihoodsAsMapSafeNull(final Genotype genotype){
-        final EnumMap<GenotypeType,Double> likelihoodsMap = new EnumMap<>(GenotypeType.class);
+    //Get the (log10)likelihoods of the called genotype types, in the order HOM_REF, HET, HOM_VAR
+    private static double[] getLikelihoodsSafeNull(final Genotype genotype){
         final double[] likelihoods;
 
         if (genotype != null && hasCalledGT(genotype.getType()) && genotype.hasExtendedAttribute(GATKVCFConstants.PHRED_SCALED_POSTERIORS_KEY)) {
@@ -421,13 +434,10 @@ public final class FamilyLikelihoods {
                     " since only the diploid case is supported when applying family priors.");
         }
 
-        likelihoodsMap.put(GenotypeType.HOM_REF,likelihoods[genotypeTypeToValue(GenotypeType.HOM_REF)]);
-        likelihoodsMap.put(GenotypeType.HET,likelihoods[genotypeTypeToValue(GenotypeType.HET)]);
-        likelihoodsMap.put(GenotypeType.HOM_VAR, likelihoods[genotypeTypeToValue(GenotypeType.HOM_VAR)]);
-        return likelihoodsMap;
+        return likelihoods;
     }
 
-    private int getLikelihoodMatrixIndex(final GenotypeType mother, final GenotypeType father, final GenotypeType child){
+    private static int getLikelihoodMatrixIndex(final GenotypeType mother, final GenotypeType father, final GenotypeType child){
         final int childInd = genotypeTypeToValue(child);
         final int motherInd;
         final int fatherInd;
@@ -444,7 +454,7 @@ public final class FamilyLikelihoods {
         return motherInd*NUM_CALLED_GENOTYPETYPES*NUM_CALLED_GENOTYPETYPES + fatherInd*NUM_CALLED_GENOTYPETYPES + childInd;
     }
 
-    private int genotypeTypeToValue(final GenotypeType input){
+    private static int genotypeTypeToValue(final GenotypeType input){
         if (input == GenotypeType.HOM_REF) {
             return 0;
         }
@@ -458,7 +468,7 @@ public final class FamilyLikelihoods {
     }
 
     //this excludes mixed genotypes, whereas the htsjdk Genotype.isCalled() will return true if the GenotypeType is mixed
-    private boolean hasCalledGT(final GenotypeType genotype){
+    private static boolean hasCalledGT(final GenotypeType genotype){
         return genotype == GenotypeType.HOM_REF || genotype == GenotypeType.HET || genotype == GenotypeType.HOM_VAR;
     }
 
@@ -0,0 +1,132 @@
+package org.broadinstitute.hellbender.tools.walkers.variantutils;
+
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.GenotypesContext;
+import htsjdk.variant.variantcontext.LazyGenotypesContext;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.vcf.VCFCodec;
+import htsjdk.variant.vcf.VCFHeader;
+import htsjdk.variant.vcf.VCFHeaderLine;
+import htsjdk.variant.vcf.VCFHeaderVersion;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Restricts lazily decoded VCF records to a subset of the samples before their genotypes are parsed.
+ *
+ * <p>
+ *     The VCF codec keeps the genotype columns of a record as unparsed text, and parses the genotypes of all the samples
+ *     the first time any of them is accessed. When a few samples are selected out of a large callset, nearly all of that
+ *     work is thrown away by {@link VariantContext#subContextFromSamples}. Instead, the columns of the selected samples
+ *     are looked up once in the header, only those columns (and FORMAT) are copied out of the unparsed text of each
+ *     record, and they are left to be parsed lazily by a codec whose header only contains the selected samples.
+ * </p>
+ *
+ * <p>
+ *     Records whose genotypes are not unparsed VCF text (e.g. BCF or already decoded records) are returned unchanged.
+ * </p>
+ */
+final class GenotypeColumnSubsetter {
+
+    // whether each sample column of the input, in header order, is selected
+    private final boolean[] isSelectedColumn;
+    private final int numberOfSelectedSamples;
+    // null if the input version can't be parsed by a VCFCodec, in which case nothing is subset
+    private final VCFCodec subsetCodec;
+
+    /**
+     * @param header header of the input, with the samples in column order
+     * @param samples samples to keep, all of which must be present in the header
+     */
+    GenotypeColumnSubsetter(final VCFHeader header, final Collection<String> samples) {
+        Utils.nonNull(header);
+        Utils.nonNull(samples);
+
+        final List<String> headerSamples = header.getGenotypeSamples();
+        isSelectedColumn = new boolean[headerSamples.size()];
+        final List<String> selectedSamples = new ArrayList<>(samples.size());
+        for (int i = 0; i < headerSamples.size(); i++) {
+            if (samples.contains(headerSamples.get(i))) {
+                isSelectedColumn[i] = true;
+                selectedSamples.add(headerSamples.get(i));
+            }
+        }
+        Utils.validateArg(selectedSamples.size() == samples.size(), () -> "some of the samples are not in the header: " + samples);
+        numberOfSelectedSamples = selectedSamples.size();
+
+        final VCFHeaderVersion version = getVersion(header);
+        if (version.isAtLeastAsRecentAs(VCFHeaderVersion.VCF4_0)) {
+            subsetCodec = new VCFCodec();
+            subsetCodec.setVCFHeader(new VCFHeader(header.getMetaDataInInputOrder(), selectedSamples), version);
+        } else {
+            subsetCodec = null;
+        }
+    }
+
+    private static VCFHeaderVersion getVersion(final VCFHeader header) {
+        final VCFHeaderLine formatLine = header.getOtherHeaderLine(VCFHeaderVersion.VCF4_2.getFormatString());
+        return formatLine != null && VCFHeaderVersion.isVersionString(formatLine.getValue()) ?
+                VCFHeaderVersion.toHeaderVersion(formatLine.getValue()) : VCFHeaderVersion.VCF4_2;
+    }
+
+    /**
+     * Restricts the genotypes of a record to the selected samples, without parsing them.
+     *
+     * @param vc the record to subset
+     * @return a record with lazily parsed genotypes for the selected samples only, or {@code vc} itself if its genotypes
+     *         are not unparsed VCF text for every sample of the header
+     */
+    VariantContext subset(final VariantContext vc) {
+        Utils.nonNull(vc);
+        final GenotypesContext genotypes = vc.getGenotypes();
+        if (subsetCodec == null || !genotypes.isLazyWithData() ||
+                !(((LazyGenotypesContext) genotypes).getUnparsedGenotypeData() instanceof String)) {
+            return vc;
+        }
+
+        final String selectedColumns = selectColumns((String) ((LazyGenotypesContext) genotypes).getUnparsedGenotypeData());
+        if (selectedColumns == null) {
+            // leave malformed records to the full parser, which reports the error
+            return vc;
+        }
+
+        final List<Allele> alleles = vc.getAlleles();
+        final String contig = vc.getContig();
+        final int start = vc.getStart();
+        final LazyGenotypesContext subsetGenotypes = new LazyGenotypesContext(
+                data -> subsetCodec.createGenotypeMap((String) data, alleles, contig, start), selectedColumns, numberOfSelectedSamples);
+        return new VariantContextBuilder(vc).genotypesNoValidation(subsetGenotypes).make();
+    }
+
+    /**
+     * @param unparsed the FORMAT and sample columns of a record
+     * @return the FORMAT column followed by the selected sample columns, or null if the number of sample columns doesn't
+     *         match the header
+     */
+    private String selectColumns(final String unparsed) {
+        final StringBuilder builder = new StringBuilder(unparsed.length() * numberOfSelectedSamples / isSelectedColumn.length + 16);
+        final int length = unparsed.length();
+        int column = 0;
+        int start = 0;
+        while (start <= length) {
+            int end = unparsed.indexOf('\t', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (column == 0) {
+                builder.append(unparsed, start, end);
+            } else if (column > isSelectedColumn.length) {
+                return null;
+            } else if (isSelectedColumn[column - 1]) {
+                builder.append('\t').append(unparsed, start, end);
+            }
+            column++;
+            start = end + 1;
+        }
+        return column == isSelectedColumn.length + 1 ? builder.toString() : null;
+    }
+}
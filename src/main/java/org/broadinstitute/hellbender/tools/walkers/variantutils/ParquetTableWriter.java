@@ -0,0 +1,309 @@
+package org.broadinstitute.hellbender.tools.walkers.variantutils;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.column.ParquetProperties;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.RecordConsumer;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Types;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Writes the rows of a table as a Parquet file, with one typed, optional column per field.
+ *
+ * <p>
+ *     The values of each row are given as they were extracted from the variants, before being formatted for the
+ *     tab-delimited table: numbers and booleans are stored as they are, and only the values that are still text (e.g.
+ *     INFO fields as decoded from a VCF) are parsed to the type of their column. {@link #encode} converts a row to
+ *     primitive values, and can be called concurrently from several threads; {@link #write} then hands them to Parquet
+ *     directly, without building intermediate records. Missing values (null, {@code NA}, {@code .} or empty) are stored
+ *     as nulls. Parquet takes care of the rest: strings are dictionary-encoded, and each row group records the minimum,
+ *     maximum and number of nulls of each column, which lets readers skip the row groups that can't match a filter.
+ * </p>
+ */
+final class ParquetTableWriter implements Closeable {
+
+    /**
+     * Types of the columns of the table.
+     */
+    enum ColumnType {
+        STRING,
+        INTEGER,
+        FLOAT,
+        BOOLEAN
+    }
+
+    private static final String SCHEMA_NAME = "variants";
+
+    private static final String MISSING_VALUE = "NA";
+    private static final String VCF_MISSING_VALUE = ".";
+
+    private final String path;
+    private final List<String> columnNames;
+    private final List<ColumnType> columnTypes;
+    private final MessageType schema;
+    private final ParquetWriter<Row> writer;
+
+    /**
+     * Creates the file and its schema.
+     *
+     * @param path where to write the table, which is overwritten if it exists
+     * @param columnNames names of the columns, which must be unique
+     * @param columnTypes types of the columns, in the same order
+     */
+    ParquetTableWriter(final String path, final List<String> columnNames, final List<ColumnType> columnTypes) {
+        this.path = Utils.nonNull(path);
+        Utils.nonNull(columnNames);
+        Utils.nonNull(columnTypes);
+        Utils.validateArg(columnNames.size() == columnTypes.size(), "there must be one type per column");
+        Utils.validateArg(!columnNames.isEmpty(), "there must be at least one column");
+        this.columnNames = Collections.unmodifiableList(columnNames);
+        this.columnTypes = Collections.unmodifiableList(columnTypes);
+        this.schema = makeSchema(columnNames, columnTypes);
+
+        try {
+            writer = new ParquetWriter<>(new Path(path), ParquetFileWriter.Mode.OVERWRITE, new RowWriteSupport(columnNames, columnTypes, schema),
+                    CompressionCodecName.SNAPPY, ParquetWriter.DEFAULT_BLOCK_SIZE, ParquetWriter.DEFAULT_PAGE_SIZE,
+                    ParquetWriter.DEFAULT_PAGE_SIZE, true, false, ParquetProperties.WriterVersion.PARQUET_1_0, new Configuration());
+        } catch (final IOException e) {
+            throw new UserException.CouldNotCreateOutputFile(path, e.getMessage(), e);
+        }
+    }
+
+    private static MessageType makeSchema(final List<String> columnNames, final List<ColumnType> columnTypes) {
+        Types.GroupBuilder<MessageType> builder = Types.buildMessage();
+        for (int i = 0; i < columnNames.size(); i++) {
+            switch (columnTypes.get(i)) {
+                case STRING:
+                    builder = builder.optional(PrimitiveTypeName.BINARY).as(OriginalType.UTF8).named(columnNames.get(i));
+                    break;
+                case INTEGER:
+                    builder = builder.optional(PrimitiveTypeName.INT32).named(columnNames.get(i));
+                    break;
+                case FLOAT:
+                    builder = builder.optional(PrimitiveTypeName.DOUBLE).named(columnNames.get(i));
+                    break;
+                case BOOLEAN:
+                    builder = builder.optional(PrimitiveTypeName.BOOLEAN).named(columnNames.get(i));
+                    break;
+                default:
+                    throw new GATKException.ShouldNeverReachHereException("Unknown column type " + columnTypes.get(i));
+            }
+        }
+        return builder.named(SCHEMA_NAME);
+    }
+
+    /**
+     * @return the schema of the file
+     */
+    MessageType getSchema() {
+        return schema;
+    }
+
+    /**
+     * Converts a row to the types of the columns. Doesn't modify the state of this writer.
+     *
+     * @param row the values of the row: strings, numbers, booleans or null
+     * @return the row, ready to be written
+     * @throws UserException.BadInput if a value can't be converted to the type of its column
+     */
+    Row encode(final List<?> row) {
+        Utils.validateArg(row.size() == columnTypes.size(), () -> "expected " + columnTypes.size() + " values but got " + row.size());
+        final Row encoded = new Row(row.size());
+        for (int i = 0; i < row.size(); i++) {
+            final Object value = row.get(i);
+            if (isMissing(value)) {
+                continue;
+            }
+            try {
+                switch (columnTypes.get(i)) {
+                    case STRING:
+                        encoded.setBinary(i, Binary.fromString(value.toString()));
+                        break;
+                    case INTEGER:
+                        encoded.setPrimitive(i, toInteger(value));
+                        break;
+                    case FLOAT:
+                        encoded.setPrimitive(i, Double.doubleToRawLongBits(toDouble(value)));
+                        break;
+                    case BOOLEAN:
+                        encoded.setPrimitive(i, toBoolean(value) ? 1 : 0);
+                        break;
+                    default:
+                        throw new GATKException.ShouldNeverReachHereException("Unknown column type " + columnTypes.get(i));
+                }
+            } catch (final NumberFormatException e) {
+                throw new UserException.BadInput(String.format("Value %s of column %s is not of the type %s declared for it",
+                        value, columnNames.get(i), columnTypes.get(i)));
+            }
+        }
+        return encoded;
+    }
+
+    private static boolean isMissing(final Object value) {
+        if (value == null) {
+            return true;
+        }
+        if (value instanceof String) {
+            final String s = (String) value;
+            return s.isEmpty() || s.equals(MISSING_VALUE) || s.equals(VCF_MISSING_VALUE);
+        }
+        return false;
+    }
+
+    private static int toInteger(final Object value) {
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).intValue();
+        }
+        if (value instanceof Long && (Long) value == ((Long) value).intValue()) {
+            return ((Long) value).intValue();
+        }
+        if (value instanceof String) {
+            return Integer.parseInt((String) value);
+        }
+        throw new NumberFormatException(value.toString());
+    }
+
+    private static double toDouble(final Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof String) {
+            return Double.parseDouble((String) value);
+        }
+        throw new NumberFormatException(value.toString());
+    }
+
+    private static boolean toBoolean(final Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof String) {
+            final String s = (String) value;
+            if (s.equalsIgnoreCase("true")) {
+                return true;
+            } else if (s.equalsIgnoreCase("false")) {
+                return false;
+            }
+        }
+        throw new NumberFormatException(value.toString());
+    }
+
+    /**
+     * Appends a row returned by {@link #encode} to the file.
+     */
+    void write(final Row row) {
+        try {
+            writer.write(row);
+        } catch (final IOException e) {
+            throw new UserException.CouldNotCreateOutputFile(path, e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            writer.close();
+        } catch (final IOException e) {
+            throw new UserException.CouldNotCreateOutputFile(path, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * A row converted to the types of the columns: integers, booleans and the bits of doubles are kept as longs, and
+     * strings as their UTF-8 encoding.
+     */
+    static final class Row {
+        private final long[] primitives;
+        private final Binary[] binaries;
+        private final boolean[] present;
+
+        private Row(final int numColumns) {
+            primitives = new long[numColumns];
+            binaries = new Binary[numColumns];
+            present = new boolean[numColumns];
+        }
+
+        private void setPrimitive(final int column, final long value) {
+            primitives[column] = value;
+            present[column] = true;
+        }
+
+        private void setBinary(final int column, final Binary value) {
+            binaries[column] = value;
+            present[column] = true;
+        }
+    }
+
+    /**
+     * Writes {@link Row}s straight to the record consumer, skipping the nulls. Unlike the example GroupWriteSupport, the
+     * schema isn't passed through the configuration as a string, which would restrict the characters allowed in the
+     * column names.
+     */
+    private static final class RowWriteSupport extends WriteSupport<Row> {
+        private final String[] columnNames;
+        private final ColumnType[] columnTypes;
+        private final MessageType schema;
+        private RecordConsumer recordConsumer;
+
+        RowWriteSupport(final List<String> columnNames, final List<ColumnType> columnTypes, final MessageType schema) {
+            this.columnNames = columnNames.toArray(new String[columnNames.size()]);
+            this.columnTypes = columnTypes.toArray(new ColumnType[columnTypes.size()]);
+            this.schema = schema;
+        }
+
+        @Override
+        public WriteContext init(final Configuration configuration) {
+            return new WriteContext(schema, new HashMap<>());
+        }
+
+        @Override
+        public void prepareForWrite(final RecordConsumer recordConsumer) {
+            this.recordConsumer = recordConsumer;
+        }
+
+        @Override
+        public void write(final Row row) {
+            recordConsumer.startMessage();
+            for (int i = 0; i < columnTypes.length; i++) {
+                if (!row.present[i]) {
+                    continue;
+                }
+                recordConsumer.startField(columnNames[i], i);
+                switch (columnTypes[i]) {
+                    case STRING:
+                        recordConsumer.addBinary(row.binaries[i]);
+                        break;
+                    case INTEGER:
+                        recordConsumer.addInteger((int) row.primitives[i]);
+                        break;
+                    case FLOAT:
+                        recordConsumer.addDouble(Double.longBitsToDouble(row.primitives[i]));
+                        break;
+                    case BOOLEAN:
+                        recordConsumer.addBoolean(row.primitives[i] != 0);
+                        break;
+                    default:
+                        throw new GATKException.ShouldNeverReachHereException("Unknown column type " + columnTypes[i]);
+                }
+                recordConsumer.endField(columnNames[i], i);
+            }
+            recordConsumer.endMessage();
+        }
+    }
+}
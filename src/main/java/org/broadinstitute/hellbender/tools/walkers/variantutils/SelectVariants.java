@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.tools.walkers.variantutils;
 
+import com.google.common.annotations.VisibleForTesting;
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.variant.variantcontext.Allele;
 import htsjdk.variant.variantcontext.Genotype;
@@ -15,6 +16,7 @@ import htsjdk.variant.vcf.VCFConstants;
 import htsjdk.variant.vcf.VCFHeaderLine;
 import htsjdk.variant.vcf.VCFStandardHeaderLines;
 import htsjdk.variant.vcf.VCFUtils;
+import org.apache.commons.jexl2.Script;
 
 import java.nio.file.Path;
 import org.broadinstitute.barclay.argparser.Argument;
@@ -428,6 +430,19 @@ public final class SelectVariants extends VariantWalker {
     private Set<VariantContext.Type> selectedTypes = new LinkedHashSet<>();
     private final ArrayList<String> selectNames = new ArrayList<>();
     private List<VariantContextUtils.JexlVCMatchExp> jexls = null;
+    // expressions that only depend on the site, so they can be evaluated before any genotype is decoded or subset
+    private List<VariantContextUtils.JexlVCMatchExp> siteJexls = null;
+
+    // INFO fields and JEXL variables whose values can be changed by sample subsetting
+    private static final Set<String> SUBSET_DEPENDENT_JEXL_VARIABLES = new HashSet<>(Arrays.asList(
+            "vc", "TYPE", "ALLELES", "N_ALLELES", "homRefCount", "hetCount", "homVarCount",
+            VCFConstants.ALLELE_COUNT_KEY, VCFConstants.ALLELE_FREQUENCY_KEY, VCFConstants.ALLELE_NUMBER_KEY, VCFConstants.DEPTH_KEY,
+            GATKVCFConstants.MLE_ALLELE_COUNT_KEY, GATKVCFConstants.MLE_ALLELE_FREQUENCY_KEY,
+            GATKVCFConstants.ORIGINAL_AC_KEY, GATKVCFConstants.ORIGINAL_AF_KEY, GATKVCFConstants.ORIGINAL_AN_KEY,
+            GATKVCFConstants.ORIGINAL_DP_KEY));
+
+    // null if the genotypes are not subset by column before being decoded
+    private GenotypeColumnSubsetter genotypeColumnSubsetter = null;
 
     private boolean discordanceOnly = false;
     private boolean concordanceOnly = false;
@@ -468,6 +483,19 @@ public final class SelectVariants extends VariantWalker {
         samples = createSampleNameInclusionList(vcfHeaders);
         selectedTypes = createSampleTypeInclusionList();
 
+        // Site-level expressions are evaluated before the genotypes are touched, unless genotypes are removed at random,
+        // since the random draws are made for every record reaching the subsetting
+        final Set<String> siteLevelJexlVariables = getSiteLevelJexlVariables(getHeaderForVariants());
+        siteJexls = new ArrayList<>();
+        if (fractionGenotypes <= 0) {
+            siteJexls.addAll(jexls.stream().filter(jexl -> isSiteLevel(jexl, siteLevelJexlVariables)).collect(Collectors.toList()));
+            jexls.removeAll(siteJexls);
+        }
+
+        if (!noSamplesSpecified && !fullyDecode && !mendelianViolations && samples.size() < getHeaderForVariants().getNGenotypeSamples()) {
+            genotypeColumnSubsetter = new GenotypeColumnSubsetter(getHeaderForVariants(), samples);
+        }
+
         // Look at the parameters to decide which analysis to perform
         discordanceOnly = discordanceTrack != null;
         if (discordanceOnly) {
@@ -520,27 +548,38 @@ public final class SelectVariants extends VariantWalker {
             vc = vc.fullyDecode(getHeaderForVariants(), lenientVCFProcessing);
         }
 
-        if (mendelianViolations && invertLogic((mv.countFamilyViolations(sampleDB, samples, vc) == 0), invertMendelianViolations)) {
+        // Site-level selection first, so that the genotypes of the records failing it are never decoded
+        if (alleleRestriction.equals(NumberAlleleRestriction.BIALLELIC) && !vc.isBiallelic()) {
             return;
         }
 
-        if (discordanceOnly && !isDiscordant(vc, featureContext.getValues(discordanceTrack))) {
+        if (alleleRestriction.equals(NumberAlleleRestriction.MULTIALLELIC) && vc.isBiallelic()) {
             return;
         }
 
-        if (concordanceOnly && !isConcordant(vc, featureContext.getValues(concordanceTrack))) {
+        if (containsIndelLargerOrSmallerThan(vc, maxIndelSize, minIndelSize)) {
             return;
         }
 
-        if (alleleRestriction.equals(NumberAlleleRestriction.BIALLELIC) && !vc.isBiallelic()) {
+        if (!matchesAll(vc, siteJexls)) {
             return;
         }
 
-        if (alleleRestriction.equals(NumberAlleleRestriction.MULTIALLELIC) && vc.isBiallelic()) {
+        // Only keep the genotype columns of the selected samples, before any of them is decoded
+        final int originalNSamples = vc.getNSamples();
+        if (genotypeColumnSubsetter != null) {
+            vc = genotypeColumnSubsetter.subset(vc);
+        }
+
+        if (mendelianViolations && invertLogic((mv.countFamilyViolations(sampleDB, samples, vc) == 0), invertMendelianViolations)) {
             return;
         }
 
-        if (containsIndelLargerOrSmallerThan(vc, maxIndelSize, minIndelSize)) {
+        if (discordanceOnly && !isDiscordant(vc, featureContext.getValues(discordanceTrack))) {
+            return;
+        }
+
+        if (concordanceOnly && !isConcordant(vc, featureContext.getValues(concordanceTrack))) {
             return;
         }
 
@@ -562,7 +601,7 @@ public final class SelectVariants extends VariantWalker {
         // Initialize the cache of PL index to a list of alleles for each ploidy.
         initalizeAlleleAnyploidIndicesCache(vc);
 
-        final VariantContext sub = subsetRecord(vc, preserveAlleles, removeUnusedAlternates);
+        final VariantContext sub = subsetRecord(vc, originalNSamples, preserveAlleles, removeUnusedAlternates);
         final VariantContextBuilder builder = new VariantContextBuilder(vc);
         if ( setFilteredGenotypesToNocall ) {
             GATKVariantContextUtils.setFilteredGenotypeToNocall(builder, sub, setFilteredGenotypesToNocall, this::getGenotypeFilters);
@@ -572,28 +611,73 @@ public final class SelectVariants extends VariantWalker {
         // Not excluding non-variants or subsetted polymorphic variants AND including filtered loci or subsetted variant is not filtered
         if ((!XLnonVariants || filteredGenotypeToNocall.isPolymorphicInSamples()) && (!XLfiltered || !filteredGenotypeToNocall.isFiltered())) {
 
-            // Write the subsetted variant if it matches all of the expressions
-            boolean failedJexlMatch = false;
+            // Write the subsetted variant if it matches all of the remaining expressions
+            if (matchesAll(filteredGenotypeToNocall, jexls) &&
+                    (!selectRandomFraction || Utils.getRandomGenerator().nextDouble() < fractionRandom)) {
+                vcfWriter.add(filteredGenotypeToNocall);
+            }
+        }
+    }
 
-            try {
-                for (VariantContextUtils.JexlVCMatchExp jexl : jexls) {
-                    if (invertLogic(!VariantContextUtils.match(filteredGenotypeToNocall, jexl), invertSelect)){
-                        failedJexlMatch = true;
-                        break;
-                    }
+    /**
+     * Checks whether a variant matches all of the given select expressions, taking into account --invert-select
+     *
+     * @param vc the variant context
+     * @param matchExps the expressions to evaluate
+     * @return true if the variant is selected by every expression, false otherwise
+     */
+    private boolean matchesAll(final VariantContext vc, final List<VariantContextUtils.JexlVCMatchExp> matchExps) {
+        try {
+            for (VariantContextUtils.JexlVCMatchExp jexl : matchExps) {
+                if (invertLogic(!VariantContextUtils.match(vc, jexl), invertSelect)){
+                    return false;
                 }
-            } catch (IllegalArgumentException e) {
-                // The IAE thrown by htsjdk already includes an informative error message ("Invalid JEXL
-                //  expression detected...")
-                throw new UserException(e.getMessage() +
-                        "\nSee https://www.broadinstitute.org/gatk/guide/article?id=1255 for documentation on using JEXL in GATK", e);
             }
+        } catch (IllegalArgumentException e) {
+            // The IAE thrown by htsjdk already includes an informative error message ("Invalid JEXL
+            //  expression detected...")
+            throw new UserException(e.getMessage() +
+                    "\nSee https://www.broadinstitute.org/gatk/guide/article?id=1255 for documentation on using JEXL in GATK", e);
+        }
+        return true;
+    }
 
-            if (!failedJexlMatch &&
-                    (!selectRandomFraction || Utils.getRandomGenerator().nextDouble() < fractionRandom)) {
-                vcfWriter.add(filteredGenotypeToNocall);
-            }
+    /**
+     * Get the variables a select expression can use while still being evaluated on the original site, i.e. those whose
+     * values are not changed by subsetting the samples or alleles of the record.
+     *
+     * @param header the header of the input
+     * @return the CHROM, QUAL and FILTER variables, plus the INFO fields and filters declared in the header which don't
+     * depend on the selected samples (and POS, if the alleles are not trimmed)
+     */
+    private Set<String> getSiteLevelJexlVariables(final VCFHeader header) {
+        final Set<String> variables = new HashSet<>(Arrays.asList("CHROM", "QUAL", "FILTER"));
+        if (preserveAlleles) {
+            variables.add("POS");
+        }
+        header.getInfoHeaderLines().forEach(line -> variables.add(line.getID()));
+        header.getFilterLines().forEach(line -> variables.add(line.getID()));
+        variables.removeAll(SUBSET_DEPENDENT_JEXL_VARIABLES);
+        return variables;
+    }
+
+    /**
+     * Checks whether a select expression only refers to site-level variables
+     *
+     * @param jexl the select expression
+     * @param siteLevelVariables the variables which don't depend on the selected samples
+     * @return true if the expression can be evaluated before the genotypes are subset, false otherwise
+     */
+    @VisibleForTesting
+    static boolean isSiteLevel(final VariantContextUtils.JexlVCMatchExp jexl, final Set<String> siteLevelVariables) {
+        if (!(jexl.exp instanceof Script)) {
+            return false;
+        }
+        final Script script = (Script) jexl.exp;
+        if (script.getLocalVariables() != null && script.getLocalVariables().length > 0) {
+            return false;
         }
+        return script.getVariables().stream().allMatch(variable -> !variable.isEmpty() && siteLevelVariables.contains(variable.get(0)));
     }
 
     /**
@@ -1011,11 +1095,12 @@ public final class SelectVariants extends VariantWalker {
      * Helper method to subset a VC record, modifying some metadata stored in the INFO field (i.e. AN, AC, AF).
      *
      * @param vc       the VariantContext record to subset
+     * @param originalNSamples the number of samples of the record before its genotype columns were subset, if they were
      * @param preserveAlleles should we trim constant sequence from the beginning and/or end of all alleles, or preserve it?
      * @param removeUnusedAlternates removes alternate alleles with AC=0
      * @return the subsetted VariantContext
      */
-    private VariantContext subsetRecord(final VariantContext vc, final boolean preserveAlleles, final boolean removeUnusedAlternates) {
+    private VariantContext subsetRecord(final VariantContext vc, final int originalNSamples, final boolean preserveAlleles, final boolean removeUnusedAlternates) {
         //subContextFromSamples() always decodes the vc, which is a fairly expensive operation.  Avoid if possible
         if (noSamplesSpecified && !removeUnusedAlternates) {
             return vc;
@@ -1025,7 +1110,7 @@ public final class SelectVariants extends VariantWalker {
         final VariantContext sub = vc.subContextFromSamples(samples, removeUnusedAlternates);
 
         // If no subsetting happened, exit now
-        if (sub.getNSamples() == vc.getNSamples() && sub.getNAlleles() == vc.getNAlleles()) {
+        if (sub.getNSamples() == originalNSamples && sub.getNAlleles() == vc.getNAlleles()) {
             return vc;
         }
 
@@ -1,13 +1,19 @@
 package org.broadinstitute.hellbender.tools.walkers.variantutils;
 
+import com.google.common.collect.Iterators;
 import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.LazyGenotypesContext;
 import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFCompoundHeaderLine;
 import htsjdk.variant.vcf.VCFConstants;
 import htsjdk.variant.vcf.VCFHeader;
+import htsjdk.variant.vcf.VCFHeaderLineCount;
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
+import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
 import org.broadinstitute.barclay.help.DocumentedFeature;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
@@ -17,15 +23,20 @@ import org.broadinstitute.hellbender.engine.ReadsContext;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
 import org.broadinstitute.hellbender.engine.VariantWalker;
 import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.walkers.variantutils.ParquetTableWriter.ColumnType;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
 import org.broadinstitute.hellbender.utils.variant.VcfUtils;
 
+import java.io.BufferedOutputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.PrintStream;
 import java.lang.reflect.Array;
 import java.util.*;
 import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 /**
  * Extract fields from a VCF file to a tab-delimited table
@@ -88,6 +99,15 @@ import java.util.function.Function;
  *     1      111146235  SNP    69,1          77,4
  * </pre>
  *
+ * <h4>Parquet output</h4>
+ * <p>
+ *     With `--output-format PARQUET`, the table is written as a Parquet file instead, with the same columns as the
+ *     tab-delimited table. The standard numeric fields (e.g. POS, QUAL, HET) and the INFO and FORMAT fields declared in
+ *     the header as a single Integer, Float or Flag are written as typed columns, and everything else as strings.
+ *     Missing values are written as nulls. Parquet dictionary-encodes the strings and keeps statistics for each group
+ *     of rows, so the table can be scanned efficiently by analysis tools. This format can't be combined with --moltenize.
+ * </p>
+ *
  * <h3>Notes</h3>
  * <ul>
  *     <li> It is common for certain annotations to be absent for some variants. By default, this tool will emit an NA for a missing annotation. If you prefer that the tool fail upon encountering a missing annotation, use the --error-if-missing-data flag. </li>
@@ -139,6 +159,45 @@ public final class VariantsToTable extends VariantWalker {
             doc="Include filtered records in the output", optional=true)
     private boolean showFiltered = false;
 
+    /**
+     * Formats in which the table can be written.
+     */
+    public enum OutputFormat {
+        /**
+         * Tab-delimited text, with a header line.
+         */
+        TABLE,
+        /**
+         * Parquet, with a typed column for each field whose type is known.
+         */
+        PARQUET
+    }
+
+    public static final String OUTPUT_FORMAT_LONG_NAME = "output-format";
+    public static final String EXTRACTION_THREADS_LONG_NAME = "extraction-threads";
+    public static final String EXTRACTION_BATCH_SIZE_LONG_NAME = "extraction-batch-size";
+    public static final int DEFAULT_EXTRACTION_BATCH_SIZE = 1000;
+
+    @Argument(fullName = OUTPUT_FORMAT_LONG_NAME,
+            doc = "Format in which to write the table", optional = true)
+    private OutputFormat outputFormat = OutputFormat.TABLE;
+
+    /**
+     * When greater than 1, the fields of batches of variants are extracted and encoded for the output concurrently, and
+     * written in their original order. The genotypes of each variant are still decoded by the traversal thread, unless
+     * --variant-decoding-threads is also greater than 1.
+     */
+    @Advanced
+    @Argument(fullName = EXTRACTION_THREADS_LONG_NAME,
+            doc = "Number of threads used to extract fields concurrently", optional = true, minValue = 1)
+    private int extractionThreads = 1;
+
+    @Advanced
+    @Argument(fullName = EXTRACTION_BATCH_SIZE_LONG_NAME,
+            doc = "Number of variants whose fields are extracted by each task when --" + EXTRACTION_THREADS_LONG_NAME + " is greater than 1",
+            optional = true, minValue = 1)
+    private int extractionBatchSize = DEFAULT_EXTRACTION_BATCH_SIZE;
+
     /**
      * By default, a variant record with multiple ALT alleles will be summarized in one line, with per alt-allele fields
      * (e.g. allele depth) separated by commas. This may cause difficulty when the table is loaded by an R script, for example.
@@ -183,10 +242,14 @@ public final class VariantsToTable extends VariantWalker {
     private SortedSet<String> samples;
     private long nRecords = 0L;
     private PrintStream outputStream = null;
+    private ParquetTableWriter parquetWriter = null;
+    private RowWriter<?> rowWriter;
 
     @Override
     public void onTraversalStart() {
-        outputStream = createPrintStream();
+        if (outputFormat == OutputFormat.PARQUET && moltenizeOutput) {
+            throw new CommandLineException.BadArgumentValue(OUTPUT_FORMAT_LONG_NAME, outputFormat.toString(), "Molten output can only be written as a table");
+        }
 
         if (genotypeFieldsToTake.isEmpty()) {
             samples = Collections.emptySortedSet();
@@ -204,34 +267,131 @@ public final class VariantsToTable extends VariantWalker {
             }
         }
 
+        if ( outputFormat == OutputFormat.PARQUET ) {
+            final List<String> columnNames = new ArrayList<>(fieldsToTake);
+            columnNames.addAll(createGenotypeColumnNames());
+            final Set<String> duplicatedColumns = Utils.getDuplicatedItems(columnNames);
+            if ( !duplicatedColumns.isEmpty() ) {
+                throw new UserException("The columns of a Parquet table must be unique, but these are requested more than once: " + duplicatedColumns);
+            }
+            parquetWriter = new ParquetTableWriter(out, columnNames, getColumnTypes(getHeaderForVariants()));
+            rowWriter = new RowWriter<>(parquetWriter::encode, (row, recordID) -> parquetWriter.write(row));
+            return;
+        }
+
+        outputStream = createPrintStream();
         // print out the header
         if ( moltenizeOutput ) {
             outputStream.println("RecordID\tSample\tVariable\tValue");
+            rowWriter = new RowWriter<>(row -> row, this::emitMoltenizedOutput);
         } else {
             final String baseHeader = Utils.join("\t", fieldsToTake);
             final String genotypeHeader = createGenotypeHeader();
             final String separator = (!baseHeader.isEmpty() && !genotypeHeader.isEmpty()) ? "\t" : "";
             outputStream.println(baseHeader + separator + genotypeHeader);
+            rowWriter = new RowWriter<>(row -> Utils.join("\t", row), (line, recordID) -> outputStream.println(line));
         }
     }
 
     private PrintStream createPrintStream() {
         try {
-            return out != null ? new PrintStream(out) : System.out;
+            return out != null ? new PrintStream(new BufferedOutputStream(new FileOutputStream(out))) : System.out;
         } catch ( final FileNotFoundException e ) {
             throw new UserException.CouldNotCreateOutputFile(out, e);
         }
     }
 
+    /**
+     * Extracts the rows of each variant and encodes them for the output, and writes the encoded rows.
+     *
+     * @param <R> type of the encoded rows
+     */
+    private static final class RowWriter<R> {
+        private final Function<List<Object>, R> encoder;
+        private final RowConsumer<R> consumer;
+
+        private RowWriter(final Function<List<Object>, R> encoder, final RowConsumer<R> consumer) {
+            this.encoder = encoder;
+            this.consumer = consumer;
+        }
+
+        // may be called concurrently
+        private List<R> encode(final List<List<Object>> rows) {
+            return rows.stream().map(encoder).collect(Collectors.toList());
+        }
+
+        private void write(final List<R> rows, final long recordID) {
+            rows.forEach(row -> consumer.accept(row, recordID));
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowConsumer<R> {
+        void accept(R row, long recordID);
+    }
+
+    @Override
+    public void traverse() {
+        if (extractionThreads == 1) {
+            super.traverse();
+            return;
+        }
+        traverseInParallel(rowWriter);
+    }
+
+    private <R> void traverseInParallel(final RowWriter<R> writer) {
+        final Iterator<VariantContext> variants = StreamSupport.stream(getSpliteratorForDrivingVariants(), false)
+                .filter(makeVariantFilter())
+                .peek(VariantsToTable::decodeGenotypes)
+                .iterator();
+        // Utils.transformParallel keeps at most extractionThreads batches in flight and returns them in order;
+        // the rows of the variants that are not emitted are null
+        final Iterator<List<Pair<VariantContext, List<R>>>> results = Utils.transformParallel(Iterators.partition(variants, extractionBatchSize),
+                batch -> batch.stream().map(vc -> Pair.of(vc, isEmitted(vc) ? writer.encode(extractFields(vc)) : null)).collect(Collectors.toList()),
+                extractionThreads);
+        while (results.hasNext()) {
+            for (final Pair<VariantContext, List<R>> result : results.next()) {
+                if (result.getRight() != null) {
+                    writer.write(result.getRight(), ++nRecords);
+                }
+                progressMeter.update(result.getLeft());
+            }
+        }
+    }
+
+    // lazily decoded genotypes are parsed by the codec of the input, which can't be shared between threads
+    private static void decodeGenotypes(final VariantContext vc) {
+        if (vc.getGenotypes().isLazyWithData()) {
+            ((LazyGenotypesContext) vc.getGenotypes()).decode();
+        }
+    }
+
+    private boolean isEmitted(final VariantContext vc) {
+        return showFiltered || vc.isNotFiltered();
+    }
+
     @Override
     public void apply(final VariantContext vc, final ReadsContext readsContext, final ReferenceContext ref, final FeatureContext featureContext) {
-        if ( showFiltered || vc.isNotFiltered() ) {
+        if ( isEmitted(vc) ) {
             nRecords++;
-            final List<List<String>> records = extractFields(vc);
-            if (moltenizeOutput){
-                records.forEach(record -> emitMoltenizedOutput(record));
+            writeRows(rowWriter, extractFields(vc));
+        }
+    }
+
+    private <R> void writeRows(final RowWriter<R> writer, final List<List<Object>> rows) {
+        writer.write(writer.encode(rows), nRecords);
+    }
+
+    @Override
+    public void closeTool() {
+        if ( parquetWriter != null ) {
+            parquetWriter.close();
+        }
+        if ( outputStream != null ) {
+            if ( outputStream == System.out ) {
+                outputStream.flush();
             } else {
-                records.forEach(record -> outputStream.println(Utils.join("\t", record)));
+                outputStream.close();
             }
         }
     }
@@ -241,33 +401,68 @@ public final class VariantsToTable extends VariantWalker {
     }
 
     private String createGenotypeHeader() {
-        boolean firstEntry = true;
+        return Utils.join("\t", createGenotypeColumnNames());
+    }
 
-        final StringBuilder sb = new StringBuilder();
+    private List<String> createGenotypeColumnNames() {
+        final List<String> columnNames = new ArrayList<>(samples.size() * genotypeFieldsToTake.size());
         for ( final String sample : samples ) {
             for ( final String gf : genotypeFieldsToTake ) {
-                if ( firstEntry ) {
-                    firstEntry = false;
-                } else {
-                    sb.append("\t");
-                }
                 // spaces in sample names are legal but wreak havoc in R data frames
-                sb.append(sample.replace(" ","_"));
-                sb.append('.');
-                sb.append(gf);
+                columnNames.add(sample.replace(" ","_") + '.' + gf);
             }
         }
-        return sb.toString();
+        return columnNames;
     }
 
-    private void emitMoltenizedOutput(final List<String> record) {
+    /**
+     * Determines the type of each column of the table, in the same order as the columns.
+     */
+    private List<ColumnType> getColumnTypes(final VCFHeader header) {
+        final List<ColumnType> types = new ArrayList<>(fieldsToTake.size() + samples.size() * genotypeFieldsToTake.size());
+        for ( final String field : fieldsToTake ) {
+            if ( splitMultiAllelic && field.equals("ALT") ) {
+                types.add(ColumnType.STRING);
+            } else if ( getters.containsKey(field) ) {
+                types.add(GETTER_COLUMN_TYPES.getOrDefault(field, ColumnType.STRING));
+            } else {
+                types.add(getColumnType(header.getInfoHeaderLine(field), splitMultiAllelic));
+            }
+        }
+        for ( final String sample : samples ) {
+            for ( final String gf : genotypeFieldsToTake ) {
+                // genotype fields with one value per allele are not split, and GT is formatted as bases
+                types.add(VCFConstants.GENOTYPE_KEY.equals(gf) ? ColumnType.STRING : getColumnType(header.getFormatHeaderLine(gf), false));
+            }
+        }
+        return types;
+    }
+
+    private static ColumnType getColumnType(final VCFCompoundHeaderLine line, final boolean splitPerAllele) {
+        if ( line == null ) {
+            return ColumnType.STRING;
+        }
+        final boolean singleValue = (line.isFixedCount() && line.getCount() == 1) || (splitPerAllele && line.getCountType() == VCFHeaderLineCount.A);
+        switch ( line.getType() ) {
+            case Flag:
+                return ColumnType.BOOLEAN;
+            case Integer:
+                return singleValue ? ColumnType.INTEGER : ColumnType.STRING;
+            case Float:
+                return singleValue ? ColumnType.FLOAT : ColumnType.STRING;
+            default:
+                return ColumnType.STRING;
+        }
+    }
+
+    private void emitMoltenizedOutput(final List<Object> record, final long recordID) {
         int index = 0;
         for ( final String field : fieldsToTake ) {
-            outputStream.println(String.format("%d\tsite\t%s\t%s", nRecords, field, record.get(index++)));
+            outputStream.println(String.format("%d\tsite\t%s\t%s", recordID, field, record.get(index++)));
         }
         for ( final String sample : samples ) {
             for ( final String gf : genotypeFieldsToTake ) {
-                outputStream.println(String.format("%d\t%s\t%s\t%s", nRecords, sample.replace(" ","_"), gf, record.get(index++)));
+                outputStream.println(String.format("%d\t%s\t%s\t%s", recordID, sample.replace(" ","_"), gf, record.get(index++)));
             }
         }
     }
@@ -275,13 +470,16 @@ public final class VariantsToTable extends VariantWalker {
     /**
      * Utility function that returns the list of values for each field in fields from vc.
      *
+     * The values are strings, numbers or booleans, which the output formats as text or stores as they are; lists and
+     * arrays are joined with commas.
+     *
      * @param vc                the VariantContext whose field values we can to capture
      * @return List of lists of field values
      */
-    private List<List<String>> extractFields(final VariantContext vc) {
+    private List<List<Object>> extractFields(final VariantContext vc) {
 
         final int numRecordsToProduce = splitMultiAllelic ? vc.getAlternateAlleles().size() : 1;
-        final List<List<String>> records = new ArrayList<>(numRecordsToProduce);
+        final List<List<Object>> records = new ArrayList<>(numRecordsToProduce);
 
         final int numFields;
         final boolean addGenotypeFields = genotypeFieldsToTake != null && !genotypeFieldsToTake.isEmpty();
@@ -325,7 +523,7 @@ public final class VariantsToTable extends VariantWalker {
         return records;
     }
 
-    private void addGenotypeFieldsToRecords(final VariantContext vc, final List<List<String>> records, final boolean errorIfMissingData) {
+    private void addGenotypeFieldsToRecords(final VariantContext vc, final List<List<Object>> records, final boolean errorIfMissingData) {
         for ( final String sample : samples ) {
             for ( final String gf : genotypeFieldsToTake ) {
                 if ( vc.hasGenotype(sample) && vc.getGenotype(sample).hasAnyAttribute(gf) ) {
@@ -349,7 +547,7 @@ public final class VariantsToTable extends VariantWalker {
         }
     }
 
-    private static void handleMissingData(final boolean errorIfMissingData, final String field, final List<List<String>> records, final VariantContext vc) {
+    private static void handleMissingData(final boolean errorIfMissingData, final String field, final List<List<Object>> records, final VariantContext vc) {
         if (errorIfMissingData) {
             throw new UserException(String.format("Missing field %s in vc %s at %s", field, vc.getSource(), vc));
         } else {
@@ -357,29 +555,37 @@ public final class VariantsToTable extends VariantWalker {
         }
     }
 
-    private static void addFieldValue(final Object val, final List<List<String>> result) {
+    private static void addFieldValue(final Object val, final List<List<Object>> result) {
         final int numResultRecords = result.size();
 
         // if we're trying to create a single output record, add it
         if ( numResultRecords == 1 ) {
-            result.get(0).add(prettyPrintObject(val));
+            result.get(0).add(toCellValue(val));
         }
         // if this field is a list of the proper size, add the appropriate entry to each record
         else if ( (val instanceof List) && ((List)val).size() == numResultRecords ) {
             final List<?> list = (List<?>)val;
             for ( int i = 0; i < numResultRecords; i++ ) {
-                result.get(i).add(list.get(i).toString());
+                result.get(i).add(toCellValue(list.get(i)));
             }
         }
         // otherwise, add the original value to all of the records
         else {
-            final String valStr = prettyPrintObject(val);
-            for ( final List<String> record : result ) {
-                record.add(valStr);
+            final Object cellValue = toCellValue(val);
+            for ( final List<Object> record : result ) {
+                record.add(cellValue);
             }
         }
     }
 
+    // keeps scalar values as they are, so that typed outputs don't have to parse them back from their text
+    private static Object toCellValue(final Object val) {
+        if ( val instanceof String || val instanceof Number || val instanceof Boolean ) {
+            return val;
+        }
+        return prettyPrintObject(val);
+    }
+
     private static String prettyPrintObject(final Object val) {
         if ( val == null ) {
             return "";
@@ -412,11 +618,28 @@ public final class VariantsToTable extends VariantWalker {
     //
     // ----------------------------------------------------------------------------------------------------
 
-    private final Map<String, Function<VariantContext, String>> getters = new LinkedHashMap<>();
+    // types of the getters whose values are not strings
+    private static final Map<String, ColumnType> GETTER_COLUMN_TYPES = new HashMap<>();
+    static {
+        GETTER_COLUMN_TYPES.put("POS", ColumnType.INTEGER);
+        GETTER_COLUMN_TYPES.put("EVENTLENGTH", ColumnType.INTEGER);
+        GETTER_COLUMN_TYPES.put("QUAL", ColumnType.FLOAT);
+        GETTER_COLUMN_TYPES.put("TRANSITION", ColumnType.INTEGER);
+        GETTER_COLUMN_TYPES.put("HET", ColumnType.INTEGER);
+        GETTER_COLUMN_TYPES.put("HOM-REF", ColumnType.INTEGER);
+        GETTER_COLUMN_TYPES.put("HOM-VAR", ColumnType.INTEGER);
+        GETTER_COLUMN_TYPES.put("NO-CALL", ColumnType.INTEGER);
+        GETTER_COLUMN_TYPES.put("VAR", ColumnType.INTEGER);
+        GETTER_COLUMN_TYPES.put("NSAMPLES", ColumnType.INTEGER);
+        GETTER_COLUMN_TYPES.put("NCALLED", ColumnType.INTEGER);
+        GETTER_COLUMN_TYPES.put("MULTI-ALLELIC", ColumnType.BOOLEAN);
+    }
+
+    private final Map<String, Function<VariantContext, Object>> getters = new LinkedHashMap<>();
     {
         // #CHROM  POS     ID      REF     ALT     QUAL    FILTER  INFO    FORMAT
         getters.put("CHROM", vc -> vc.getContig());
-        getters.put("POS", vc -> Integer.toString(vc.getStart()));
+        getters.put("POS", vc -> vc.getStart());
         getters.put("REF", vc -> vc.getReference().getDisplayString());
         getters.put("ALT", vc -> {
             final StringBuilder x = new StringBuilder();
@@ -439,27 +662,27 @@ public final class VariantsToTable extends VariantWalker {
                 final int length = a.length() - vc.getReference().length();
                 if( Math.abs(length) > Math.abs(maxLength) ) { maxLength = length; }
             }
-            return Integer.toString(maxLength);
+            return maxLength;
         });
-        getters.put("QUAL", vc -> Double.toString(vc.getPhredScaledQual()));
+        getters.put("QUAL", vc -> vc.getPhredScaledQual());
         getters.put("TRANSITION", vc -> {
             if ( vc.isSNP() && vc.isBiallelic() ) {
-                return GATKVariantContextUtils.isTransition(vc) ? "1" : "0";
+                return GATKVariantContextUtils.isTransition(vc) ? 1 : 0;
             } else {
-                return "-1";
+                return -1;
             }
         });
         getters.put("FILTER", vc -> vc.isNotFiltered() ? "PASS" : Utils.join(",", vc.getFilters()));
         getters.put("ID", vc -> vc.getID());
-        getters.put("HET", vc -> Integer.toString(vc.getHetCount()));
-        getters.put("HOM-REF", vc -> Integer.toString(vc.getHomRefCount()));
-        getters.put("HOM-VAR", vc -> Integer.toString(vc.getHomVarCount()));
-        getters.put("NO-CALL", vc -> Integer.toString(vc.getNoCallCount()));
+        getters.put("HET", vc -> vc.getHetCount());
+        getters.put("HOM-REF", vc -> vc.getHomRefCount());
+        getters.put("HOM-VAR", vc -> vc.getHomVarCount());
+        getters.put("NO-CALL", vc -> vc.getNoCallCount());
         getters.put("TYPE", vc -> vc.getType().toString());
-        getters.put("VAR", vc -> Integer.toString(vc.getHetCount() + vc.getHomVarCount()));
-        getters.put("NSAMPLES", vc -> Integer.toString(vc.getNSamples()));
-        getters.put("NCALLED", vc -> Integer.toString(vc.getNSamples() - vc.getNoCallCount()));
-        getters.put("MULTI-ALLELIC", vc -> Boolean.toString(vc.getAlternateAlleles().size() > 1));
+        getters.put("VAR", vc -> vc.getHetCount() + vc.getHomVarCount());
+        getters.put("NSAMPLES", vc -> vc.getNSamples());
+        getters.put("NCALLED", vc -> vc.getNSamples() - vc.getNoCallCount());
+        getters.put("MULTI-ALLELIC", vc -> vc.getAlternateAlleles().size() > 1);
     }
 
     private static Object splitAltAlleles(final VariantContext vc) {
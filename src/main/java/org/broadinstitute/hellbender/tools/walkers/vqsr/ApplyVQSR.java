@@ -13,7 +13,6 @@ import org.broadinstitute.barclay.help.DocumentedFeature;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import picard.cmdline.programgroups.VariantFilteringProgramGroup;
 import org.broadinstitute.hellbender.engine.FeatureContext;
-import org.broadinstitute.hellbender.engine.FeatureInput;
 import org.broadinstitute.hellbender.engine.ReadsContext;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
 import org.broadinstitute.hellbender.engine.MultiVariantWalker;
@@ -138,8 +137,9 @@ public class ApplyVQSR extends MultiVariantWalker {
     /////////////////////////////
     // Inputs
     /////////////////////////////
+    // a path rather than a FeatureInput, which the engine would open as well as the RecalibrationTableReader
     @Argument(fullName="recal-file", doc="The input recal file used by ApplyRecalibration", optional=false)
-    private FeatureInput<VariantContext> recal;
+    private String recal;
 
     @Argument(fullName="tranches-file", doc="The input tranches file describing where to cut the data", optional=true)
     private File TRANCHES_FILE;
@@ -189,6 +189,7 @@ public class ApplyVQSR extends MultiVariantWalker {
     // Private Member Variables
     /////////////////////////////
     private VariantContextWriter vcfWriter;
+    private RecalibrationTableReader recalReader;
     final private List<TruthSensitivityTranche> tranches = new ArrayList<>();
     final private Set<String> ignoreInputFilterSet = new TreeSet<>();
     final static private String listPrintSeparator = ",";
@@ -225,6 +226,9 @@ public class ApplyVQSR extends MultiVariantWalker {
             ignoreInputFilterSet.addAll( IGNORE_INPUT_FILTERS );
         }
 
+        // the recal records are streamed alongside the variants rather than queried through the feature context
+        recalReader = new RecalibrationTableReader(recal, cloudPrefetchBuffer, cloudIndexPrefetchBuffer);
+
         // setup the header fields
         VCFHeader inputHeader = getHeaderForVariants();
         final Set<VCFHeaderLine> inputHeaders = inputHeader.getMetaDataInSortedOrder();
@@ -328,7 +332,7 @@ public class ApplyVQSR extends MultiVariantWalker {
     @Override
     public void apply(final VariantContext vc, final ReadsContext readsContext, final ReferenceContext ref, final FeatureContext featureContext) {
 
-        final List<VariantContext> recals =  featureContext.getValues(recal, vc.getStart());
+        final List<RecalRecord> recals = recalReader.getStartingAt(vc.getContig(), vc.getStart());
         final boolean evaluateThisVariant = useASannotations || VariantDataManager.checkVariationClass( vc, MODE );
 
         //vc.isNotFiltered is true for PASS; vc.filtersHaveBeenApplied covers PASS and filters
@@ -464,12 +468,12 @@ public class ApplyVQSR extends MultiVariantWalker {
         return filterString;
     }
 
-    private VariantContext getMatchingRecalVC(final VariantContext target, final List<VariantContext> recalVCs, final Allele allele) {
-        for( final VariantContext recalVC : recalVCs ) {
+    private RecalRecord getMatchingRecalVC(final VariantContext target, final List<RecalRecord> recalVCs, final Allele allele) {
+        for( final RecalRecord recalVC : recalVCs ) {
             if ( target.getEnd() == recalVC.getEnd() ) {
                 if (!useASannotations)
                     return recalVC;
-                else if (allele.equals(recalVC.getAlternateAllele(0)))
+                else if (allele.equals(recalVC.getAlternateAllele()))
                     return recalVC;
             }
         }
@@ -508,7 +512,7 @@ public class ApplyVQSR extends MultiVariantWalker {
      * @param builder   is modified by adding attributes
      * @return a String with the filter status for this site
      */
-    private String doAlleleSpecificFiltering(final VariantContext vc, final List<VariantContext> recals, final VariantContextBuilder builder) {
+    private String doAlleleSpecificFiltering(final VariantContext vc, final List<RecalRecord> recals, final VariantContextBuilder builder) {
         double bestLod = VariantRecalibratorEngine.MIN_ACCEPTABLE_LOD_SCORE;
         final List<String> culpritStrings = new ArrayList<>();
         final List<String> lodStrings = new ArrayList<>();
@@ -547,7 +551,7 @@ public class ApplyVQSR extends MultiVariantWalker {
 
             //if it's not a spanning deletion, replace those allele strings with the real values
             if (!GATKVCFConstants.isSpanningDeletion(allele)) {
-                VariantContext recalDatum = getMatchingRecalVC(vc, recals, allele);
+                RecalRecord recalDatum = getMatchingRecalVC(vc, recals, allele);
                 if (recalDatum == null) {
                     throw new UserException("Encountered input allele which isn't found in the input recal file. Please make sure VariantRecalibrator and ApplyRecalibration were run on the same set of input variants with flag -AS. First seen at: " + vc);
                 }
@@ -593,8 +597,8 @@ public class ApplyVQSR extends MultiVariantWalker {
      * @param builder   is modified by adding attributes
      * @return a String with the filter status for this site
      */
-    private String doSiteSpecificFiltering(final VariantContext vc, final List<VariantContext> recals, final VariantContextBuilder builder) {
-        VariantContext recalDatum = getMatchingRecalVC(vc, recals, null);
+    private String doSiteSpecificFiltering(final VariantContext vc, final List<RecalRecord> recals, final VariantContextBuilder builder) {
+        RecalRecord recalDatum = getMatchingRecalVC(vc, recals, null);
         if( recalDatum == null ) {
             throw new UserException("Encountered input variant which isn't found in the input recal file. Please make sure VariantRecalibrator and ApplyRecalibration were run on the same set of input variants. First seen at: " + vc );
         }
@@ -627,6 +631,9 @@ public class ApplyVQSR extends MultiVariantWalker {
         if (vcfWriter != null) {
             vcfWriter.close();
         }
+        if (recalReader != null) {
+            recalReader.close();
+        }
     }
 }
 
@@ -10,6 +10,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 import Jama.Matrix;
 
@@ -26,6 +28,9 @@ class GaussianMixtureModel {
     public boolean isModelReadyForEvaluation;
     public boolean failedToConverge = false;
 
+    // pool used to train the model, or null to train on the calling thread
+    private ForkJoinPool trainingPool = null;
+
     public GaussianMixtureModel( final int numGaussians, final int numVariantData, final int numAnnotations,
                                  final double shrinkage, final double dirichletParameter, final double priorCounts ) {
 
@@ -120,32 +125,86 @@ class GaussianMixtureModel {
         }
     }
 
-    public void expectationStep( final List<VariantDatum> data ) {
+    /**
+     * Sets the pool used by {@link #expectationStep}, {@link #maximizationStep} and {@link #evaluateFinalModelParameters}.
+     * The expectation step is split across the data and the others across the Gaussians, and every datum and Gaussian
+     * is computed exactly as on a single thread, so the trained model does not depend on the number of threads.
+     *
+     * @param trainingPool the pool to use, or null to train on the calling thread
+     */
+    public void setTrainingPool( final ForkJoinPool trainingPool ) {
+        this.trainingPool = trainingPool;
+    }
+
+    private void runTrainingTask( final Runnable task ) {
+        if( trainingPool == null ) {
+            task.run();
+        } else {
+            trainingPool.submit(task).join();
+        }
+    }
+
+    /**
+     * Copies the annotations of the data into a row-major matrix with one row per datum, so that the training loops
+     * read contiguous memory. This is done once per training run and the result is passed to every EM step.
+     */
+    public double[] flattenAnnotations( final List<VariantDatum> data ) {
+        final int numAnnotations = getNumAnnotations();
+        final double[] annotations = new double[data.size() * numAnnotations];
+        int offset = 0;
+        for( final VariantDatum datum : data ) {
+            System.arraycopy(datum.annotations, 0, annotations, offset, numAnnotations);
+            offset += numAnnotations;
+        }
+        return annotations;
+    }
+
+    /**
+     * @param annotations the annotations of the training data, as returned by {@link #flattenAnnotations}
+     * @param numData the number of training data
+     */
+    public void expectationStep( final double[] annotations, final int numData ) {
 
         for( final MultivariateGaussian gaussian : gaussians ) {
             gaussian.precomputeDenominatorForVariationalBayes( getSumHyperParameterLambda() );
         }
 
-        for( final VariantDatum datum : data ) {
-            final double[] pVarInGaussianLog10 = gaussians.stream().mapToDouble(g -> g.evaluateDatumLog10(datum)).toArray();
+        final int numAnnotations = getNumAnnotations();
+        final int numGaussians = gaussians.size();
+        final IntStream datumIndices = IntStream.range(0, numData);
+        runTrainingTask(() -> (trainingPool == null ? datumIndices : datumIndices.parallel()).forEach(datumIndex -> {
+            final int offset = datumIndex * numAnnotations;
+            final double[] pVarInGaussianLog10 = new double[numGaussians];
+            for( int gaussianIndex = 0; gaussianIndex < numGaussians; gaussianIndex++ ) {
+                pVarInGaussianLog10[gaussianIndex] = gaussians.get(gaussianIndex).evaluateDatumLog10(annotations, offset);
+            }
             final double[] pVarInGaussianNormalized = MathUtils.normalizeLog10DeleteMePlease( pVarInGaussianLog10, false);
-            int gaussianIndex = 0;
-            for( final MultivariateGaussian gaussian : gaussians ) {
-                gaussian.assignPVarInGaussian( pVarInGaussianNormalized[gaussianIndex++] );
+            for( int gaussianIndex = 0; gaussianIndex < numGaussians; gaussianIndex++ ) {
+                gaussians.get(gaussianIndex).setPVarInGaussian( datumIndex, pVarInGaussianNormalized[gaussianIndex] );
             }
-        }
+        }));
     }
 
-    public void maximizationStep( final List<VariantDatum> data ) {
-        gaussians.forEach(g -> g.maximizeGaussian( data, empiricalMu, empiricalSigma, shrinkage, dirichletParameter, priorCounts));
+    /**
+     * @param annotations the annotations of the training data, as returned by {@link #flattenAnnotations}
+     * @param numData the number of training data
+     */
+    public void maximizationStep( final double[] annotations, final int numData ) {
+        runTrainingTask(() -> (trainingPool == null ? gaussians.stream() : gaussians.parallelStream())
+                .forEach(g -> g.maximizeGaussian( annotations, numData, empiricalMu, empiricalSigma, shrinkage, dirichletParameter, priorCounts)));
     }
 
     private double getSumHyperParameterLambda() {
         return gaussians.stream().mapToDouble(g -> g.hyperParameter_lambda).sum();
     }
 
-    public void evaluateFinalModelParameters( final List<VariantDatum> data ) {
-        gaussians.forEach(g -> g.evaluateFinalModelParameters(data));
+    /**
+     * @param annotations the annotations of the training data, as returned by {@link #flattenAnnotations}
+     * @param numData the number of training data
+     */
+    public void evaluateFinalModelParameters( final double[] annotations, final int numData ) {
+        runTrainingTask(() -> (trainingPool == null ? gaussians.stream() : gaussians.parallelStream())
+                .forEach(g -> g.evaluateFinalModelParameters( annotations, numData )));
         normalizePMixtureLog10();
     }
 
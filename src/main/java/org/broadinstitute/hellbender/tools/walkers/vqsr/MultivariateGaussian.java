@@ -7,7 +7,6 @@ import org.broadinstitute.hellbender.utils.MathUtils;
 import org.broadinstitute.hellbender.utils.collections.ExpandingArrayList;
 
 import java.util.Arrays;
-import java.util.List;
 import java.util.Random;
 
 import Jama.Matrix;
@@ -23,13 +22,11 @@ class MultivariateGaussian {
     private double cachedDenomLog10;
     private Matrix cachedSigmaInverse;
     final private double[] pVarInGaussian;
-    int pVarInGaussianIndex;
 
     public MultivariateGaussian( final int numVariants, final int numAnnotations  ) {
         mu = new double[numAnnotations];
         sigma = new Matrix(numAnnotations, numAnnotations);
         pVarInGaussian = new double[numVariants];
-        pVarInGaussianIndex = 0;
     }
 
     public void zeroOutMu() {
@@ -76,8 +73,12 @@ class MultivariateGaussian {
     }
 
     public void incrementMu( final VariantDatum datum, final double prob ) {
+        incrementMu( datum.annotations, 0, prob );
+    }
+
+    private void incrementMu( final double[] annotations, final int offset, final double prob ) {
         for( int jjj = 0; jjj < mu.length; jjj++ ) {
-            mu[jjj] += prob * datum.annotations[jjj];
+            mu[jjj] += prob * annotations[offset + jjj];
         }
     }
 
@@ -125,42 +126,58 @@ class MultivariateGaussian {
     }
 
     public double evaluateDatumLog10( final VariantDatum datum ) {
+        return evaluateDatumLog10( datum.annotations, 0 );
+    }
+
+    /**
+     * Evaluates the datum whose annotations start at {@code offset} in {@code annotations}.
+     * This method only reads the state of this Gaussian, so it can be called concurrently.
+     */
+    public double evaluateDatumLog10( final double[] annotations, final int offset ) {
         double sumKernel = 0.0;
+        final double[][] sigmaInverse = cachedSigmaInverse.getArray();
         final double[] crossProdTmp = new double[mu.length];
-        Arrays.fill(crossProdTmp, 0.0);
         for( int iii = 0; iii < mu.length; iii++ ) {
             for( int jjj = 0; jjj < mu.length; jjj++ ) {
-                crossProdTmp[iii] += (datum.annotations[jjj] - mu[jjj]) * cachedSigmaInverse.get(jjj, iii);
+                crossProdTmp[iii] += (annotations[offset + jjj] - mu[jjj]) * sigmaInverse[jjj][iii];
             }
         }
         for( int iii = 0; iii < mu.length; iii++ ) {
-            sumKernel += crossProdTmp[iii] * (datum.annotations[iii] - mu[iii]);
+            sumKernel += crossProdTmp[iii] * (annotations[offset + iii] - mu[iii]);
         }
 
         return (( -0.5 * sumKernel ) / Math.log(10.0)) + cachedDenomLog10; // This is the definition of a Gaussian PDF Log10
     }
 
-    public void assignPVarInGaussian( final double pVar ) {
-        pVarInGaussian[pVarInGaussianIndex++] = pVar;
+    /**
+     * Sets the probability of the datum with the given index to belong to this Gaussian.
+     * Different indices can be set concurrently.
+     */
+    public void setPVarInGaussian( final int datumIndex, final double pVar ) {
+        pVarInGaussian[datumIndex] = pVar;
     }
 
     public void resetPVarInGaussian() {
         Arrays.fill(pVarInGaussian, 0.0);
-        pVarInGaussianIndex = 0;
     }
 
-    public void maximizeGaussian(final List<VariantDatum> data, final double[] empiricalMu, final Matrix empiricalSigma,
+    /**
+     * Maximization step for this Gaussian.
+     *
+     * @param annotations the annotations of the data as a row-major matrix with one row of mu.length values per datum
+     * @param numData the number of data
+     */
+    public void maximizeGaussian(final double[] annotations, final int numData, final double[] empiricalMu, final Matrix empiricalSigma,
                                  final double SHRINKAGE, final double DIRICHLET_PARAMETER, final double DEGREES_OF_FREEDOM ) {
         sumProb = 1E-10;
         final Matrix wishart = new Matrix(mu.length, mu.length);
         zeroOutMu();
         zeroOutSigma();
 
-        int datumIndex = 0;
-        for( final VariantDatum datum : data ) {
-            final double prob = pVarInGaussian[datumIndex++];
+        for( int datumIndex = 0; datumIndex < numData; datumIndex++ ) {
+            final double prob = pVarInGaussian[datumIndex];
             sumProb += prob;
-            incrementMu( datum, prob );
+            incrementMu( annotations, datumIndex * mu.length, prob );
         }
         divideEqualsMu( sumProb );
 
@@ -172,17 +189,17 @@ class MultivariateGaussian {
             }
         }
 
-        datumIndex = 0;
-        final Matrix pVarSigma = new Matrix(mu.length, mu.length);
-        for( final VariantDatum datum : data ) {
-            final double prob = pVarInGaussian[datumIndex++];
+        // accumulate directly into sigma, which was zeroed out above
+        final double[][] sigmaArray = sigma.getArray();
+        for( int datumIndex = 0; datumIndex < numData; datumIndex++ ) {
+            final double prob = pVarInGaussian[datumIndex];
+            final int offset = datumIndex * mu.length;
             for( int iii = 0; iii < mu.length; iii++ ) {
-                double deltaMu = prob * (datum.annotations[iii]-mu[iii]);
+                double deltaMu = prob * (annotations[offset + iii]-mu[iii]);
                 for( int jjj = 0; jjj < mu.length; jjj++ ) {
-                    pVarSigma.set(iii, jjj, deltaMu * (datum.annotations[jjj]-mu[jjj]));
+                    sigmaArray[iii][jjj] += deltaMu * (annotations[offset + jjj]-mu[jjj]);
                 }
             }
-            sigma.plusEquals( pVarSigma );
         }
 
         sigma.plusEquals( empiricalSigma );
@@ -199,29 +216,32 @@ class MultivariateGaussian {
         resetPVarInGaussian(); // clean up some memory
     }
 
-    public void evaluateFinalModelParameters( final List<VariantDatum> data ) {
+    /**
+     * @param annotations the annotations of the data as a row-major matrix with one row of mu.length values per datum
+     * @param numData the number of data
+     */
+    public void evaluateFinalModelParameters( final double[] annotations, final int numData ) {
         sumProb = 0.0;
         zeroOutMu();
         zeroOutSigma();
 
-        int datumIndex = 0;
-        for( final VariantDatum datum : data ) {
-            final double prob = pVarInGaussian[datumIndex++];
+        for( int datumIndex = 0; datumIndex < numData; datumIndex++ ) {
+            final double prob = pVarInGaussian[datumIndex];
             sumProb += prob;
-            incrementMu( datum, prob );
+            incrementMu( annotations, datumIndex * mu.length, prob );
         }
         divideEqualsMu( sumProb );
 
-        datumIndex = 0;
-        final Matrix pVarSigma = new Matrix(mu.length, mu.length);
-        for( final VariantDatum datum : data ) {
-            final double prob = pVarInGaussian[datumIndex++];
+        // accumulate directly into sigma, which was zeroed out above
+        final double[][] sigmaArray = sigma.getArray();
+        for( int datumIndex = 0; datumIndex < numData; datumIndex++ ) {
+            final double prob = pVarInGaussian[datumIndex];
+            final int offset = datumIndex * mu.length;
             for( int iii = 0; iii < mu.length; iii++ ) {
                 for( int jjj = 0; jjj < mu.length; jjj++ ) {
-                    pVarSigma.set(iii, jjj, prob * (datum.annotations[iii]-mu[iii]) * (datum.annotations[jjj]-mu[jjj]));
+                    sigmaArray[iii][jjj] += prob * (annotations[offset + iii]-mu[iii]) * (annotations[offset + jjj]-mu[jjj]);
                 }
             }
-            sigma.plusEquals( pVarSigma );
         }
         sigma.timesEquals( 1.0 / sumProb );
 
@@ -0,0 +1,124 @@
+package org.broadinstitute.hellbender.tools.walkers.vqsr;
+
+import htsjdk.tribble.Feature;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.vcf.VCFConstants;
+import org.broadinstitute.hellbender.utils.Utils;
+
+/**
+ * A record of the recalibration table written by {@link VariantRecalibrator}, as read by {@link ApplyVQSR}.
+ *
+ * <p>
+ *     Unlike a {@link htsjdk.variant.variantcontext.VariantContext}, only the location is decoded up front. The INFO
+ *     field is kept as text and looked up when one of its keys is requested, and the alternate allele is only created
+ *     on demand, since ApplyVQSR reads just the VQSLOD, the culprit and the training labels of each record. The
+ *     accessors follow the semantics of the corresponding VariantContext methods.
+ * </p>
+ */
+final class RecalRecord implements Feature {
+
+    private final String contig;
+    private final int start;
+    private final int end;
+    private final String alternateAllele;
+    private final String info;
+
+    /**
+     * @param contig contig of the record
+     * @param start 1-based start position of the record
+     * @param end 1-based, inclusive end position of the record
+     * @param alternateAllele text of the ALT column
+     * @param info text of the INFO column, {@link VCFConstants#EMPTY_INFO_FIELD} if there are no attributes
+     */
+    RecalRecord(final String contig, final int start, final int end, final String alternateAllele, final String info) {
+        this.contig = Utils.nonNull(contig);
+        Utils.validateArg(start <= end + 1, () -> "invalid record interval " + contig + ":" + start + "-" + end);
+        this.start = start;
+        this.end = end;
+        this.alternateAllele = Utils.nonNull(alternateAllele);
+        this.info = Utils.nonNull(info);
+    }
+
+    @Override
+    public String getContig() {
+        return contig;
+    }
+
+    @Override
+    public int getStart() {
+        return start;
+    }
+
+    @Override
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     * @return the first alternate allele of the record
+     */
+    public Allele getAlternateAllele() {
+        final int comma = alternateAllele.indexOf(',');
+        return Allele.create(comma < 0 ? alternateAllele : alternateAllele.substring(0, comma), false);
+    }
+
+    public boolean hasAttribute(final String key) {
+        return getAttribute(key) != null;
+    }
+
+    /**
+     * @return the value of the attribute, {@link Boolean#TRUE} for a flag, or null if the attribute is absent
+     */
+    public Object getAttribute(final String key) {
+        return findInfoValue(info, key);
+    }
+
+    public String getAttributeAsString(final String key, final String defaultValue) {
+        final Object value = getAttribute(key);
+        return value == null ? defaultValue : String.valueOf(value);
+    }
+
+    /**
+     * @throws NumberFormatException if the attribute is not a number, e.g. a flag
+     */
+    public double getAttributeAsDouble(final String key, final double defaultValue) {
+        final Object value = getAttribute(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        return value instanceof Number ? ((Number) value).doubleValue() : Double.parseDouble(value.toString());
+    }
+
+    /**
+     * Looks up a key in the text of an INFO field without splitting the whole field.
+     *
+     * @return the value of the key, {@link Boolean#TRUE} if the key is a flag, or null if the key is absent
+     */
+    static Object findInfoValue(final String info, final String key) {
+        if (info.equals(VCFConstants.EMPTY_INFO_FIELD)) {
+            return null;
+        }
+        int entryStart = 0;
+        while (entryStart < info.length()) {
+            int entryEnd = info.indexOf(VCFConstants.INFO_FIELD_SEPARATOR_CHAR, entryStart);
+            if (entryEnd < 0) {
+                entryEnd = info.length();
+            }
+            final int keyEnd = entryStart + key.length();
+            if (keyEnd <= entryEnd && info.startsWith(key, entryStart)) {
+                if (keyEnd == entryEnd) {
+                    return Boolean.TRUE;
+                } else if (info.charAt(keyEnd) == '=') {
+                    return info.substring(keyEnd + 1, entryEnd);
+                }
+            }
+            entryStart = entryEnd + 1;
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return contig + ":" + start + "-" + end + " " + alternateAllele + " " + info;
+    }
+}
@@ -0,0 +1,79 @@
+package org.broadinstitute.hellbender.tools.walkers.vqsr;
+
+import htsjdk.tribble.AsciiFeatureCodec;
+import htsjdk.tribble.readers.LineIterator;
+import htsjdk.variant.vcf.VCFConstants;
+import org.broadinstitute.hellbender.exceptions.UserException;
+
+/**
+ * Decodes the VCF lines of a recalibration table into {@link RecalRecord}s.
+ *
+ * <p>
+ *     Only the CHROM, POS, REF, ALT and INFO columns are read, and of those only CHROM and POS are parsed, as well as
+ *     the END key of the INFO field when present. The header lines are skipped without being parsed.
+ * </p>
+ *
+ * <p>
+ *     This codec is never picked automatically for an input: it is meant to be handed explicitly to a feature reader
+ *     over a file already known to be a recalibration table.
+ * </p>
+ */
+final class RecalRecordCodec extends AsciiFeatureCodec<RecalRecord> {
+
+    private static final char FIELD_SEPARATOR = VCFConstants.FIELD_SEPARATOR_CHAR;
+    private static final int INFO_COLUMN = 7;
+    private static final String HEADER_INDICATOR = "#";
+
+    RecalRecordCodec() {
+        super(RecalRecord.class);
+    }
+
+    @Override
+    public Object readActualHeader(final LineIterator reader) {
+        while (reader.hasNext() && reader.peek().startsWith(HEADER_INDICATOR)) {
+            reader.next();
+        }
+        return null;
+    }
+
+    @Override
+    public RecalRecord decode(final String line) {
+        if (line.isEmpty() || line.startsWith(HEADER_INDICATOR)) {
+            return null;
+        }
+
+        // find the start of the first eight columns, stopping at the end of the INFO column
+        final int[] columnStarts = new int[INFO_COLUMN + 2];
+        int column = 0;
+        for (int i = 0; column < INFO_COLUMN && i < line.length(); i++) {
+            if (line.charAt(i) == FIELD_SEPARATOR) {
+                columnStarts[++column] = i + 1;
+            }
+        }
+        if (column < INFO_COLUMN) {
+            throw new UserException.MalformedFile("The recal file line has fewer than " + (INFO_COLUMN + 1) + " columns: " + line);
+        }
+        final int infoEnd = line.indexOf(FIELD_SEPARATOR, columnStarts[INFO_COLUMN]);
+        columnStarts[INFO_COLUMN + 1] = (infoEnd < 0 ? line.length() : infoEnd) + 1;
+
+        final String contig = column(line, columnStarts, 0);
+        final String info = column(line, columnStarts, INFO_COLUMN);
+        try {
+            final int start = Integer.parseInt(column(line, columnStarts, 1));
+            final Object endValue = RecalRecord.findInfoValue(info, VCFConstants.END_KEY);
+            final int end = endValue instanceof String ? Integer.parseInt((String) endValue) : start + columnStarts[4] - columnStarts[3] - 2;
+            return new RecalRecord(contig, start, end, column(line, columnStarts, 4), info);
+        } catch (final NumberFormatException e) {
+            throw new UserException.MalformedFile("The recal file line has an unreadable position: " + line);
+        }
+    }
+
+    private static String column(final String line, final int[] columnStarts, final int column) {
+        return line.substring(columnStarts[column], columnStarts[column + 1] - 1);
+    }
+
+    @Override
+    public boolean canDecode(final String path) {
+        return false;
+    }
+}
@@ -0,0 +1,133 @@
+package org.broadinstitute.hellbender.tools.walkers.vqsr;
+
+import htsjdk.tribble.AbstractFeatureReader;
+import htsjdk.tribble.CloseableTribbleIterator;
+import htsjdk.tribble.TribbleException;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.IndexFeatureFile;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.nio.SeekableByteChannelPrefetcher;
+
+import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Streams the records of an indexed recalibration table in lockstep with a coordinate-sorted traversal of the variants
+ * that were recalibrated.
+ *
+ * <p>
+ *     A query by interval for every variant re-reads (and re-decodes) the block of the table around the variant each
+ *     time the feature cache moves, whereas the recal records are needed in exactly the order of the variants. This
+ *     reader instead issues a single indexed query per contig, from the first requested position to the end of the
+ *     contig, and then only moves forward through the records as the requested positions increase. A new query is
+ *     only made when the traversal moves to another contig or backwards, e.g. at the start of an overlapping interval.
+ * </p>
+ */
+final class RecalibrationTableReader implements AutoCloseable {
+
+    private final String path;
+    private final AbstractFeatureReader<RecalRecord, ?> reader;
+
+    private CloseableTribbleIterator<RecalRecord> iterator;
+    private String currentContig;
+    private int currentPosition;
+    // first record of the current query that starts after currentPosition, or null if there are no more records
+    private RecalRecord nextRecord;
+    // records of the current query starting at currentPosition, in file order
+    private final List<RecalRecord> startingAt = new ArrayList<>();
+
+    /**
+     * @param path path to the recalibration table, which must be indexed
+     * @param cloudPrefetchBuffer MB size of caching/prefetching wrapper for the data, if on Google Cloud (0 to disable)
+     * @param cloudIndexPrefetchBuffer MB size of caching/prefetching wrapper for the index, if on Google Cloud (0 to disable)
+     */
+    RecalibrationTableReader(final String path, final int cloudPrefetchBuffer, final int cloudIndexPrefetchBuffer) {
+        this.path = Utils.nonNull(path);
+        final String absolutePath = IOUtils.getPath(path).toAbsolutePath().toUri().toString();
+        final boolean isCloud = BucketUtils.isCloudStorageUrl(absolutePath);
+        final Function<SeekableByteChannel, SeekableByteChannel> cloudWrapper = (isCloud && cloudPrefetchBuffer > 0 ? is -> SeekableByteChannelPrefetcher.addPrefetcher(cloudPrefetchBuffer, is) : Function.identity());
+        final Function<SeekableByteChannel, SeekableByteChannel> cloudIndexWrapper = (isCloud && cloudIndexPrefetchBuffer > 0 ? is -> SeekableByteChannelPrefetcher.addPrefetcher(cloudIndexPrefetchBuffer, is) : Function.identity());
+        try {
+            reader = AbstractFeatureReader.getFeatureReader(absolutePath, null, new RecalRecordCodec(), false, cloudWrapper, cloudIndexWrapper);
+        } catch (final TribbleException e) {
+            throw new GATKException("Error initializing feature reader for path " + path, e);
+        }
+        if (!reader.hasIndex()) {
+            closeReader();
+            throw new UserException("Input " + path + " must support random access to enable queries by interval. " +
+                    "If it's a file, please index it using the bundled tool " + IndexFeatureFile.class.getSimpleName());
+        }
+    }
+
+    /**
+     * Returns the records starting at a position, like {@code FeatureContext.getValues(featureInput, position)}.
+     * Records that only overlap the position are not returned.
+     *
+     * Successive calls are expected to be made in coordinate order; they may repeat a position, and are allowed to go
+     * backwards, but each time they do a new query is needed.
+     *
+     * @param contig contig of the position
+     * @param position 1-based position
+     * @return an unmodifiable view of the records starting at the position, valid until the next call
+     */
+    List<RecalRecord> getStartingAt(final String contig, final int position) {
+        Utils.nonNull(contig);
+        if (iterator == null || !contig.equals(currentContig) || position < currentPosition) {
+            startQuery(contig, position);
+        } else if (position == currentPosition) {
+            return Collections.unmodifiableList(startingAt);
+        }
+        currentPosition = position;
+
+        startingAt.clear();
+        // the query also returns the records that start before the position and overlap it, which are skipped
+        while (nextRecord != null && nextRecord.getStart() <= position) {
+            if (nextRecord.getStart() == position) {
+                startingAt.add(nextRecord);
+            }
+            nextRecord = iterator.hasNext() ? iterator.next() : null;
+        }
+        return Collections.unmodifiableList(startingAt);
+    }
+
+    private void startQuery(final String contig, final int position) {
+        closeIterator();
+        try {
+            iterator = reader.query(contig, position, Integer.MAX_VALUE);
+        } catch (final IOException e) {
+            throw new UserException.CouldNotReadInputFile("Could not query " + path + " at " + contig + ":" + position, e);
+        }
+        currentContig = contig;
+        currentPosition = 0;
+        startingAt.clear();
+        nextRecord = iterator.hasNext() ? iterator.next() : null;
+    }
+
+    private void closeIterator() {
+        if (iterator != null) {
+            iterator.close();
+            iterator = null;
+        }
+    }
+
+    private void closeReader() {
+        try {
+            reader.close();
+        } catch (final IOException e) {
+            throw new GATKException("Error closing the feature reader for path " + path, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        closeIterator();
+        closeReader();
+    }
+}
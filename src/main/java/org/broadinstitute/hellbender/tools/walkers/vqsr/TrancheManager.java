@@ -9,7 +9,6 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.PrintStream;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 public class TrancheManager {
@@ -18,7 +17,7 @@ public class TrancheManager {
 
     // ---------------------------------------------------------------------------------------------------------
     //
-    // Code to determine FDR tranches for VariantDatum[]
+    // Code to determine FDR tranches for the rows of a VariantDataStore
     //
     // ---------------------------------------------------------------------------------------------------------
 
@@ -33,9 +32,9 @@ public class TrancheManager {
 
         public abstract double getThreshold(double tranche);
         public abstract double getTarget();
-        public abstract void calculateRunningMetric(List<VariantDatum> data);
+        public abstract void calculateRunningMetric(VariantDataStore data);
         public abstract double getRunningMetric(int i);
-        public abstract int datumValue(VariantDatum d);
+        public abstract int datumValue(VariantDataStore data, int row);
     }
 
     public static class TruthSensitivityMetric extends SelectionMetric {
@@ -56,13 +55,12 @@ public class TrancheManager {
         public double getTarget() { return 1.0; }
 
         @Override
-        public void calculateRunningMetric(final List<VariantDatum> data) {
+        public void calculateRunningMetric(final VariantDataStore data) {
             int nCalledAtTruth = 0;
             runningSensitivity = new double[data.size()];
 
             for ( int i = data.size() - 1; i >= 0; i-- ) {
-                VariantDatum datum = data.get(i);
-                nCalledAtTruth += datum.atTruthSite ? 1 : 0;
+                nCalledAtTruth += data.isAtTruthSite(i) ? 1 : 0;
                 runningSensitivity[i] = 1 - nCalledAtTruth / (1.0 * nTrueSites);
             }
         }
@@ -73,12 +71,12 @@ public class TrancheManager {
         }
 
         @Override
-        public int datumValue(final VariantDatum d) {
-            return d.atTruthSite ? 1 : 0;
+        public int datumValue(final VariantDataStore data, final int row) {
+            return data.isAtTruthSite(row) ? 1 : 0;
         }
     }
 
-    public static List<TruthSensitivityTranche> findTranches(final List<VariantDatum> data,
+    public static List<TruthSensitivityTranche> findTranches(final VariantDataStore data,
                                                              final List<Double> tranches,
                                                              final SelectionMetric metric,
                                                              final VariantRecalibratorArgumentCollection.Mode model ) {
@@ -86,14 +84,14 @@ public class TrancheManager {
     }
 
     public static List<TruthSensitivityTranche> findTranches(
-            final List<VariantDatum> data,
+            final VariantDataStore data,
             final List<Double> trancheThresholds,
             final SelectionMetric metric,
             final VariantRecalibratorArgumentCollection.Mode model,
             final File debugFile ) {
         logger.info(String.format("Finding %d tranches for %d variants", trancheThresholds.size(), data.size()));
 
-        Collections.sort( data, VariantDatum.VariantDatumLODComparator );
+        data.sortByLod();
         metric.calculateRunningMetric(data);
 
         if ( debugFile != null) {
@@ -121,13 +119,13 @@ public class TrancheManager {
     }
 
     public static List<VQSLODTranche> findVQSLODTranches(
-            final List<VariantDatum> data,
+            final VariantDataStore data,
             final List<Double> trancheThresholds,
             final SelectionMetric metric,
             final VariantRecalibratorArgumentCollection.Mode model) {
         logger.info(String.format("Finding %d tranches for %d variants", trancheThresholds.size(), data.size()));
 
-        Collections.sort( data, VariantDatum.VariantDatumLODComparator );
+        data.sortByLod();
         metric.calculateRunningMetric(data);
 
         final List<VQSLODTranche> tranches = new ArrayList<>();
@@ -151,15 +149,14 @@ public class TrancheManager {
 
     }
 
-    private static void writeTranchesDebuggingInfo(final File f, final List<VariantDatum> tranchesData, final SelectionMetric metric ) {
+    private static void writeTranchesDebuggingInfo(final File f, final VariantDataStore tranchesData, final SelectionMetric metric ) {
         try {
             PrintStream out = new PrintStream(f);
             out.println("Qual metricValue runningValue");
             for ( int i = 0; i < tranchesData.size(); i++ ) {
-                VariantDatum  d = tranchesData.get(i);
-                int score = metric.datumValue(d);
+                int score = metric.datumValue(tranchesData, i);
                 double runningValue = metric.getRunningMetric(i);
-                out.printf("%.4f %d %.4f%n", d.lod, score, runningValue);
+                out.printf("%.4f %d %.4f%n", tranchesData.getLod(i), score, runningValue);
             }
             out.close();
         } catch (FileNotFoundException e) {
@@ -168,7 +165,7 @@ public class TrancheManager {
     }
 
     public static TruthSensitivityTranche findTranche(
-            final List<VariantDatum> data,
+            final VariantDataStore data,
             final SelectionMetric metric,
             final double trancheThreshold,
             final VariantRecalibratorArgumentCollection.Mode model ) {
@@ -191,7 +188,7 @@ public class TrancheManager {
     }
 
     public static VQSLODTranche findVQSLODTranche(
-            final List<VariantDatum> data,
+            final VariantDataStore data,
             final SelectionMetric metric,
             final double trancheThreshold,
             final VariantRecalibratorArgumentCollection.Mode model ) {
@@ -200,7 +197,7 @@ public class TrancheManager {
         final double metricThreshold = metric.getThreshold(trancheThreshold);
         final int n = data.size();
         for ( int i = 0; i < n; i++ ) {
-            if ( data.get(i).lod >= trancheThreshold ) {
+            if ( data.getLod(i) >= trancheThreshold ) {
                 // we've found the largest group of variants with LOD >= our target LOD
                 final VQSLODTranche t = VQSLODTranche.trancheOfVariants(data, i, trancheThreshold, model);
                 logger.info(String.format("  Found tranche for %.3f: %.3f threshold starting with variant %d; running score is %.3f ",
@@ -220,9 +217,7 @@ public class TrancheManager {
         return (1.0 - desiredFDR / 100.0) * (targetTiTv - 0.5) + 0.5;
     }
 
-    public static int countCallsAtTruth(final List<VariantDatum> data, double minLOD ) {
-        int n = 0;
-        for ( VariantDatum d : data ) { n += (d.atTruthSite && d.lod >= minLOD ? 1 : 0); }
-        return n;
+    public static int countCallsAtTruth(final VariantDataStore data, double minLOD ) {
+        return data.countCallsAtTruth(minLOD);
     }
 }
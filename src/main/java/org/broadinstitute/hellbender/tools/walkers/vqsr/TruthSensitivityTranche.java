@@ -157,13 +157,12 @@ final class TruthSensitivityTranche extends Tranche {
             return 1.0 - tranche/100.0; // tranche of 1 => 99% sensitivity target
         }
 
-        public void calculateRunningMetric(final List<VariantDatum> data) {
+        public void calculateRunningMetric(final VariantDataStore data) {
             int nCalledAtTruth = 0;
             runningSensitivity = new double[data.size()];
 
             for ( int i = data.size() - 1; i >= 0; i-- ) {
-                VariantDatum datum = data.get(i);
-                nCalledAtTruth += datum.atTruthSite ? 1 : 0;
+                nCalledAtTruth += data.isAtTruthSite(i) ? 1 : 0;
                 runningSensitivity[i] = 1 - nCalledAtTruth / (1.0 * nTrueSites);
             }
         }
@@ -173,10 +172,10 @@ final class TruthSensitivityTranche extends Tranche {
         }
     }
 
-    public static List<TruthSensitivityTranche> findTranches(final List<VariantDatum> data, final double[] trancheThresholds, final TruthSensitivityMetric metric, final VariantRecalibratorArgumentCollection.Mode model) {
+    public static List<TruthSensitivityTranche> findTranches(final VariantDataStore data, final double[] trancheThresholds, final TruthSensitivityMetric metric, final VariantRecalibratorArgumentCollection.Mode model) {
         logger.info(String.format("Finding %d tranches for %d variants", trancheThresholds.length, data.size()));
 
-        Collections.sort(data, VariantDatum.VariantDatumLODComparator);
+        data.sortByLod();
         metric.calculateRunningMetric(data);
 
         List<TruthSensitivityTranche> tranches = new ArrayList<>();
@@ -197,7 +196,7 @@ final class TruthSensitivityTranche extends Tranche {
         return tranches;
     }
 
-    private static TruthSensitivityTranche findTranche(final List<VariantDatum> data, final TruthSensitivityMetric metric, final double trancheThreshold, final VariantRecalibratorArgumentCollection.Mode model ) {
+    private static TruthSensitivityTranche findTranche(final VariantDataStore data, final TruthSensitivityMetric metric, final double trancheThreshold, final VariantRecalibratorArgumentCollection.Mode model ) {
         logger.debug(String.format("  TruthSensitivityTranche threshold %.2f => selection metric threshold %.3f", trancheThreshold, metric.getThreshold(trancheThreshold)));
 
         double metricThreshold = metric.getThreshold(trancheThreshold);
@@ -216,7 +215,7 @@ final class TruthSensitivityTranche extends Tranche {
         return null;
     }
 
-    protected static TruthSensitivityTranche trancheOfVariants(final List<VariantDatum> data, final int minI, final double ts, final VariantRecalibratorArgumentCollection.Mode model ) {
+    protected static TruthSensitivityTranche trancheOfVariants(final VariantDataStore data, final int minI, final double ts, final VariantRecalibratorArgumentCollection.Mode model ) {
         Tranche basicTranche = Tranche.trancheOfVariants(data, minI, ts, model);
         return new TruthSensitivityTranche(ts, basicTranche.minVQSLod, basicTranche.numKnown, basicTranche.knownTiTv, basicTranche.numNovel, basicTranche.novelTiTv, basicTranche.accessibleTruthSites, basicTranche.callsAtTruthSites, model, DEFAULT_TRANCHE_NAME);
     }
@@ -6,23 +6,25 @@ import htsjdk.variant.variantcontext.Allele;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextBuilder;
 import htsjdk.variant.vcf.VCFConstants;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
 import org.broadinstitute.hellbender.engine.FeatureContext;
 import org.broadinstitute.hellbender.exceptions.UserException;
-import org.broadinstitute.hellbender.utils.collections.ExpandingArrayList;
 import org.broadinstitute.hellbender.utils.MathUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 
 import java.util.*;
+import java.util.function.IntPredicate;
 
 
 public class VariantDataManager {
-    private List<VariantDatum> data = Collections.emptyList();
+    private VariantDataStore data;
     private double[] meanVector;
     private double[] varianceVector; // this is really the standard deviation
     public List<String> annotationKeys;
@@ -33,16 +35,24 @@ public class VariantDataManager {
     private static final double PRECISION = 0.01;         //To use mainly with MathUtils.compareDoubles(a,b,PRECISION)
 
     public VariantDataManager( final List<String> annotationKeys, final VariantRecalibratorArgumentCollection VRAC ) {
-        this.data = Collections.emptyList();
         this.annotationKeys = new ArrayList<>( annotationKeys );
+        this.data = new VariantDataStore(this.annotationKeys.size(), false);
         this.VRAC = VRAC;
         meanVector = new double[this.annotationKeys.size()];
         varianceVector = new double[this.annotationKeys.size()];
         trainingSets = new ArrayList<>();
     }
 
+    /**
+     * Replaces the data with a copy of the given datums.
+     */
     public void setData( final List<VariantDatum> data ) {
-        this.data = data;
+        final int numAnnotations = data.isEmpty() || data.get(0).annotations == null ? annotationKeys.size() : data.get(0).annotations.length;
+        this.data = VariantDataStore.of(data, numAnnotations);
+    }
+
+    public void setData( final VariantDataStore data ) {
+        this.data = Utils.nonNull(data);
     }
 
     public void setNormalization(final Map<String, Double> anMeans, final Map<String, Double> anStdDevs) {
@@ -52,7 +62,7 @@ public class VariantDataManager {
         }
     }
 
-    public List<VariantDatum> getData() {
+    public VariantDataStore getDataStore() {
         return data;
     }
 
@@ -76,9 +86,9 @@ public class VariantDataManager {
                 theSTD = varianceVector[iii];
             }
             logger.info(annotationKeys.get(iii) + String.format(": \t mean = %.2f\t standard deviation = %.2f", theMean, theSTD));
-            for( final VariantDatum datum : data ) {
+            for( int row = 0; row < data.size(); row++ ) {
                 // Transform each data point via: (x - mean) / standard deviation
-                datum.annotations[iii] = ( datum.isNull[iii] ? 0.1 * Utils.getRandomGenerator().nextGaussian() : ( datum.annotations[iii] - theMean ) / theSTD );
+                data.setAnnotation(row, iii, data.isNull(row, iii) ? 0.1 * Utils.getRandomGenerator().nextGaussian() : ( data.getAnnotation(row, iii) - theMean ) / theSTD );
             }
         }
         if( foundZeroVarianceAnnotation ) {
@@ -86,12 +96,12 @@ public class VariantDataManager {
         }
 
         // trim data by standard deviation threshold and mark failing data for exclusion later
-        for( final VariantDatum datum : data ) {
+        for( int row = 0; row < data.size(); row++ ) {
             boolean remove = false;
-            for( final double val : datum.annotations ) {
-                remove = remove || (Math.abs(val) > VRAC.STD_THRESHOLD);
+            for( int iii = 0; iii < data.getNumAnnotations(); iii++ ) {
+                remove = remove || (Math.abs(data.getAnnotation(row, iii)) > VRAC.STD_THRESHOLD);
             }
-            datum.failingSTDThreshold = remove;
+            data.setFailingSTDThreshold(row, remove);
         }
 
         // re-order the data by increasing standard deviation so that the results don't depend on the order things were specified on the command line
@@ -100,10 +110,7 @@ public class VariantDataManager {
         annotationKeys = reorderList(annotationKeys, theOrder);
         varianceVector = ArrayUtils.toPrimitive(reorderArray(ArrayUtils.toObject(varianceVector), theOrder));
         meanVector = ArrayUtils.toPrimitive(reorderArray(ArrayUtils.toObject(meanVector), theOrder));
-        for( final VariantDatum datum : data ) {
-            datum.annotations = ArrayUtils.toPrimitive(reorderArray(ArrayUtils.toObject(datum.annotations), theOrder));
-            datum.isNull = ArrayUtils.toPrimitive(reorderArray(ArrayUtils.toObject(datum.isNull), theOrder));
-        }
+        data.permuteAnnotations(theOrder);
         logger.info("Annotations are now ordered by their information content: " + annotationKeys.toString());
     }
 
@@ -209,82 +216,107 @@ public class VariantDataManager {
         return false;
     }
 
+    /**
+     * Returns copies of the training data, downsampled to at most {@link VariantRecalibratorArgumentCollection#MAX_NUM_TRAINING_DATA}.
+     */
     public List<VariantDatum> getTrainingData() {
-        final List<VariantDatum> trainingData = new ExpandingArrayList<>();
-        for( final VariantDatum datum : data ) {
-            if( datum.atTrainingSite && !datum.failingSTDThreshold ) {
-                trainingData.add( datum );
-            }
-        }
-        logger.info( "Training with " + trainingData.size() + " variants after standard deviation thresholding." );
-        if( trainingData.size() < VRAC.MIN_NUM_BAD_VARIANTS ) {
+        final IntArrayList trainingRows = selectRows(row -> data.isAtTrainingSite(row) && !data.isFailingSTDThreshold(row));
+        logger.info( "Training with " + trainingRows.size() + " variants after standard deviation thresholding." );
+        if( trainingRows.size() < VRAC.MIN_NUM_BAD_VARIANTS ) {
             logger.warn( "WARNING: Training with very few variant sites! Please check the model reporting PDF to ensure the quality of the model is reliable." );
-        } else if( trainingData.size() > VRAC.MAX_NUM_TRAINING_DATA ) {
+        } else if( trainingRows.size() > VRAC.MAX_NUM_TRAINING_DATA ) {
             logger.warn( "WARNING: Very large training set detected. Downsampling to " + VRAC.MAX_NUM_TRAINING_DATA + " training variants." );
-            Collections.shuffle(trainingData, Utils.getRandomGenerator());
-            return trainingData.subList(0, VRAC.MAX_NUM_TRAINING_DATA);
+            shuffle(trainingRows, Utils.getRandomGenerator());
+            trainingRows.size(VRAC.MAX_NUM_TRAINING_DATA);
         }
-        return trainingData;
+        return getDatums(trainingRows);
     }
 
+    /**
+     * Marks the variants scoring below {@link VariantRecalibratorArgumentCollection#BAD_LOD_CUTOFF} as anti-training
+     * sites and returns copies of them.
+     */
     public List<VariantDatum> selectWorstVariants() {
-        final List<VariantDatum> trainingData = new ExpandingArrayList<>();
-
-        for( final VariantDatum datum : data ) {
-            if( datum != null && !datum.failingSTDThreshold && !Double.isInfinite(datum.lod) && datum.lod < VRAC.BAD_LOD_CUTOFF ) {
-                datum.atAntiTrainingSite = true;
-                trainingData.add( datum );
-            }
+        final IntArrayList worstRows = selectRows(row -> !data.isFailingSTDThreshold(row) && !Double.isInfinite(data.getLod(row)) && data.getLod(row) < VRAC.BAD_LOD_CUTOFF);
+        for( final int row : worstRows ) {
+            data.setAtAntiTrainingSite(row, true);
         }
 
-        logger.info( "Selected worst " + trainingData.size() + " scoring variants --> variants with LOD <= " + String.format("%.4f", VRAC.BAD_LOD_CUTOFF) + "." );
+        logger.info( "Selected worst " + worstRows.size() + " scoring variants --> variants with LOD <= " + String.format("%.4f", VRAC.BAD_LOD_CUTOFF) + "." );
 
-        return trainingData;
+        return getDatums(worstRows);
     }
 
     public List<VariantDatum> getEvaluationData() {
-        final List<VariantDatum> evaluationData = new ExpandingArrayList<>();
-
-        for( final VariantDatum datum : data ) {
-            if( datum != null && !datum.failingSTDThreshold && !datum.atTrainingSite && !datum.atAntiTrainingSite ) {
-                evaluationData.add( datum );
-            }
-        }
+        return getDatums(selectRows(this::isEvaluationRow));
+    }
 
-        return evaluationData;
+    private boolean isEvaluationRow( final int row ) {
+        return !data.isFailingSTDThreshold(row) && !data.isAtTrainingSite(row) && !data.isAtAntiTrainingSite(row);
     }
 
     /**
-     * Remove all VariantDatum's from the data list which are marked as aggregate data
+     * Remove all rows from the data which are marked as aggregate data
      */
     public void dropAggregateData() {
-        final Iterator<VariantDatum> iter = data.iterator();
-        while (iter.hasNext()) {
-            final VariantDatum datum = iter.next();
-            if( datum.isAggregate ) {
-                iter.remove();
-            }
-        }
+        data.removeRows(data::isAggregate);
     }
 
-    public List<VariantDatum> getRandomDataForPlotting( final int numToAdd, final List<VariantDatum> trainingData, final List<VariantDatum> antiTrainingData, final List<VariantDatum> evaluationData ) {
-        final List<VariantDatum> returnData = new ExpandingArrayList<>();
-        Collections.shuffle(trainingData, Utils.getRandomGenerator());
-        Collections.shuffle(antiTrainingData, Utils.getRandomGenerator());
-        Collections.shuffle(evaluationData, Utils.getRandomGenerator());
-        returnData.addAll(trainingData.subList(0, Math.min(numToAdd, trainingData.size())));
-        returnData.addAll(antiTrainingData.subList(0, Math.min(numToAdd, antiTrainingData.size())));
-        returnData.addAll(evaluationData.subList(0, Math.min(numToAdd, evaluationData.size())));
+    /**
+     * Returns copies of up to {@code numToAdd} random training, anti-training and evaluation variants each, in random order.
+     */
+    public List<VariantDatum> getRandomDataForPlotting( final int numToAdd ) {
+        final IntArrayList trainingRows = selectRows(row -> data.isAtTrainingSite(row) && !data.isFailingSTDThreshold(row));
+        final IntArrayList antiTrainingRows = selectRows(row -> data.isAtAntiTrainingSite(row) && !data.isFailingSTDThreshold(row));
+        final IntArrayList evaluationRows = selectRows(this::isEvaluationRow);
+        shuffle(trainingRows, Utils.getRandomGenerator());
+        shuffle(antiTrainingRows, Utils.getRandomGenerator());
+        shuffle(evaluationRows, Utils.getRandomGenerator());
+        final List<VariantDatum> returnData = new ArrayList<>();
+        returnData.addAll(getDatums(trainingRows.subList(0, Math.min(numToAdd, trainingRows.size()))));
+        returnData.addAll(getDatums(antiTrainingRows.subList(0, Math.min(numToAdd, antiTrainingRows.size()))));
+        returnData.addAll(getDatums(evaluationRows.subList(0, Math.min(numToAdd, evaluationRows.size()))));
         Collections.shuffle(returnData, Utils.getRandomGenerator());
         return returnData;
     }
 
+    private IntArrayList selectRows( final IntPredicate predicate ) {
+        final IntArrayList rows = new IntArrayList();
+        for( int row = 0; row < data.size(); row++ ) {
+            if( predicate.test(row) ) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private List<VariantDatum> getDatums( final IntList rows ) {
+        final List<VariantDatum> datums = new ArrayList<>(rows.size());
+        for( final int row : rows ) {
+            datums.add(data.getDatum(row));
+        }
+        return datums;
+    }
+
+    /**
+     * Shuffles the given rows exactly as {@link Collections#shuffle(List, Random)} would, without boxing them.
+     */
+    private static void shuffle( final IntArrayList rows, final Random rnd ) {
+        final int[] elements = rows.elements();
+        for( int i = rows.size(); i > 1; i-- ) {
+            final int j = rnd.nextInt(i);
+            final int tmp = elements[i - 1];
+            elements[i - 1] = elements[j];
+            elements[j] = tmp;
+        }
+    }
+
     protected double mean( final int index, final boolean trainingData ) {
         double sum = 0.0;
         int numNonNull = 0;
-        for( final VariantDatum datum : data ) {
-            if( (trainingData == datum.atTrainingSite) && !datum.isNull[index] ) {
-                sum += datum.annotations[index];
+        for( int row = 0; row < data.size(); row++ ) {
+            if( (trainingData == data.isAtTrainingSite(row)) && !data.isNull(row, index) ) {
+                sum += data.getAnnotation(row, index);
                 numNonNull++;
             }
         }
@@ -294,8 +326,12 @@ public class VariantDataManager {
     protected double standardDeviation( final double mean, final int index, final boolean trainingData ) {
         double sum = 0.0;
         int numNonNull = 0;
-        for( final VariantDatum datum : data ) {
-            if( (trainingData == datum.atTrainingSite) && !datum.isNull[index] ) { sum += ((datum.annotations[index] - mean)*(datum.annotations[index] - mean)); numNonNull++; }
+        for( int row = 0; row < data.size(); row++ ) {
+            if( (trainingData == data.isAtTrainingSite(row)) && !data.isNull(row, index) ) {
+                final double deviation = data.getAnnotation(row, index) - mean;
+                sum += deviation * deviation;
+                numNonNull++;
+            }
         }
         return Math.sqrt( sum / ((double) numNonNull) );
     }
@@ -442,21 +478,23 @@ public class VariantDataManager {
 
     public void writeOutRecalibrationTable(final VariantContextWriter recalWriter, final SAMSequenceDictionary seqDictionary) {
         // we need to sort in coordinate order in order to produce a valid VCF
-        Collections.sort( data, VariantDatum.getComparator(seqDictionary) );
+        data.sortByCoordinate(seqDictionary);
 
         // create dummy alleles to be used
         List<Allele> alleles = Arrays.asList(Allele.create("N", true), Allele.create("<VQSR>", false));
 
-        for( final VariantDatum datum : data ) {
+        for( int row = 0; row < data.size(); row++ ) {
             if (VRAC.useASannotations)
-                alleles = Arrays.asList(datum.referenceAllele, datum.alternateAllele); //use the alleles to distinguish between multiallelics in AS mode
-            VariantContextBuilder builder = new VariantContextBuilder("VQSR", datum.loc.getContig(), datum.loc.getStart(), datum.loc.getEnd(), alleles);
-            builder.attribute(VCFConstants.END_KEY, datum.loc.getEnd());
-            builder.attribute(GATKVCFConstants.VQS_LOD_KEY, String.format("%.4f", datum.lod));
-            builder.attribute(GATKVCFConstants.CULPRIT_KEY, (datum.worstAnnotation != -1 ? annotationKeys.get(datum.worstAnnotation) : "NULL"));
-
-            if ( datum.atTrainingSite ) builder.attribute(GATKVCFConstants.POSITIVE_LABEL_KEY, true);
-            if ( datum.atAntiTrainingSite ) builder.attribute(GATKVCFConstants.NEGATIVE_LABEL_KEY, true);
+                alleles = Arrays.asList(data.getReferenceAllele(row), data.getAlternateAllele(row)); //use the alleles to distinguish between multiallelics in AS mode
+            final SimpleInterval loc = data.getLocation(row);
+            final int worstAnnotation = data.getWorstAnnotation(row);
+            VariantContextBuilder builder = new VariantContextBuilder("VQSR", loc.getContig(), loc.getStart(), loc.getEnd(), alleles);
+            builder.attribute(VCFConstants.END_KEY, loc.getEnd());
+            builder.attribute(GATKVCFConstants.VQS_LOD_KEY, String.format("%.4f", data.getLod(row)));
+            builder.attribute(GATKVCFConstants.CULPRIT_KEY, (worstAnnotation != -1 ? annotationKeys.get(worstAnnotation) : "NULL"));
+
+            if ( data.isAtTrainingSite(row) ) builder.attribute(GATKVCFConstants.POSITIVE_LABEL_KEY, true);
+            if ( data.isAtAntiTrainingSite(row) ) builder.attribute(GATKVCFConstants.NEGATIVE_LABEL_KEY, true);
 
             recalWriter.add(builder.make());
         }
@@ -0,0 +1,536 @@
+package org.broadinstitute.hellbender.tools.walkers.vqsr;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.variant.variantcontext.Allele;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.ints.AbstractIntComparator;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.*;
+import java.util.function.IntPredicate;
+
+/**
+ * Compact columnar storage for the data of a VQSR callset, one row per site (or allele in allele-specific mode).
+ *
+ * <p>
+ *     Instead of one {@link VariantDatum} object per row, with its own annotation and null-flag arrays and interval,
+ *     the rows are kept in fixed-size chunks of primitive columns: the annotation values (row-major within the chunk),
+ *     a bit set of missing annotations, the LOD, the prior, the contig index, start and end, the culprit annotation
+ *     and a byte of boolean flags. The annotation values, which make up most of the data, can optionally be kept in
+ *     direct buffers outside of the Java heap (bounded by {@code -XX:MaxDirectMemorySize}).
+ * </p>
+ *
+ * <p>
+ *     {@link VariantDatum#originalQual}, {@link VariantDatum#worstValue} and {@link VariantDatum#assignment} are not
+ *     retained, since they are not needed once a datum has been added. Datums returned by {@link #getDatum(int)} are
+ *     copies, so changes to them are not reflected in the store.
+ * </p>
+ */
+final class VariantDataStore {
+
+    /**
+     * Default number of rows per chunk.
+     */
+    static final int DEFAULT_ROWS_PER_CHUNK = 1 << 16;
+
+    private static final int KNOWN = 1;
+    private static final int TRUTH_SITE = 1 << 1;
+    private static final int TRAINING_SITE = 1 << 2;
+    private static final int ANTI_TRAINING_SITE = 1 << 3;
+    private static final int TRANSITION = 1 << 4;
+    private static final int SNP = 1 << 5;
+    private static final int FAILING_STD_THRESHOLD = 1 << 6;
+    private static final int AGGREGATE = 1 << 7;
+
+    private static final int NO_CONTIG = -1;
+
+    private final int numAnnotations;
+    private final boolean offHeap;
+    private final int rowsPerChunk;
+    private final List<Chunk> chunks = new ArrayList<>();
+    private int size = 0;
+
+    private final List<String> contigs = new ArrayList<>();
+    private final Map<String, Integer> contigIndices = new HashMap<>();
+
+    /**
+     * Creates an empty store.
+     *
+     * @param numAnnotations number of annotations of each row.
+     * @param offHeap whether to keep the annotation values in direct buffers outside of the Java heap.
+     */
+    VariantDataStore(final int numAnnotations, final boolean offHeap) {
+        this(numAnnotations, offHeap, DEFAULT_ROWS_PER_CHUNK);
+    }
+
+    /**
+     * Creates an empty store.
+     *
+     * @param numAnnotations number of annotations of each row.
+     * @param offHeap whether to keep the annotation values in direct buffers outside of the Java heap.
+     * @param rowsPerChunk number of rows allocated at a time.
+     */
+    VariantDataStore(final int numAnnotations, final boolean offHeap, final int rowsPerChunk) {
+        Utils.validateArg(numAnnotations >= 0, "the number of annotations cannot be negative");
+        Utils.validateArg(rowsPerChunk > 0, "the number of rows per chunk must be positive");
+        this.numAnnotations = numAnnotations;
+        this.offHeap = offHeap;
+        this.rowsPerChunk = rowsPerChunk;
+    }
+
+    /**
+     * Creates a store holding a copy of the given data.
+     *
+     * @param data the data to copy, whose annotation arrays must all have {@code numAnnotations} elements.
+     * @param numAnnotations number of annotations of each datum.
+     */
+    static VariantDataStore of(final List<VariantDatum> data, final int numAnnotations) {
+        Utils.nonNull(data);
+        final VariantDataStore store = new VariantDataStore(numAnnotations, false);
+        data.forEach(store::add);
+        return store;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int getNumAnnotations() {
+        return numAnnotations;
+    }
+
+    /**
+     * Appends a row with the contents of a datum.
+     */
+    void add(final VariantDatum datum) {
+        Utils.nonNull(datum);
+        Utils.validateArg(numAnnotations == 0 || (datum.annotations != null && datum.annotations.length == numAnnotations
+                        && datum.isNull != null && datum.isNull.length == numAnnotations),
+                () -> "the datum must have " + numAnnotations + " annotations");
+        if (size == chunks.size() * rowsPerChunk) {
+            chunks.add(new Chunk(rowsPerChunk));
+        }
+        final Chunk chunk = chunk(size);
+        final int offset = offset(size);
+        size++;
+
+        for (int i = 0; i < numAnnotations; i++) {
+            chunk.annotations.put(offset * numAnnotations + i, datum.annotations[i]);
+            chunk.setNull(offset * numAnnotations + i, datum.isNull[i]);
+        }
+        chunk.lod[offset] = datum.lod;
+        chunk.prior[offset] = datum.prior;
+        chunk.worstAnnotation[offset] = (short) datum.worstAnnotation;
+        chunk.flags[offset] = (byte) ((datum.isKnown ? KNOWN : 0)
+                | (datum.atTruthSite ? TRUTH_SITE : 0)
+                | (datum.atTrainingSite ? TRAINING_SITE : 0)
+                | (datum.atAntiTrainingSite ? ANTI_TRAINING_SITE : 0)
+                | (datum.isTransition ? TRANSITION : 0)
+                | (datum.isSNP ? SNP : 0)
+                | (datum.failingSTDThreshold ? FAILING_STD_THRESHOLD : 0)
+                | (datum.isAggregate ? AGGREGATE : 0));
+        if (datum.loc == null) {
+            chunk.contig[offset] = NO_CONTIG;
+        } else {
+            chunk.contig[offset] = contigIndices.computeIfAbsent(datum.loc.getContig(), contig -> {
+                contigs.add(contig);
+                return contigs.size() - 1;
+            });
+            chunk.start[offset] = datum.loc.getStart();
+            chunk.end[offset] = datum.loc.getEnd();
+        }
+        chunk.setAlleles(offset, datum.referenceAllele, datum.alternateAllele);
+    }
+
+    /**
+     * Returns a new datum with the contents of a row.
+     */
+    VariantDatum getDatum(final int row) {
+        final VariantDatum datum = new VariantDatum();
+        datum.annotations = new double[numAnnotations];
+        datum.isNull = new boolean[numAnnotations];
+        readAnnotations(row, datum.annotations, datum.isNull);
+        datum.lod = getLod(row);
+        datum.prior = getPrior(row);
+        datum.worstAnnotation = getWorstAnnotation(row);
+        datum.isKnown = isKnown(row);
+        datum.atTruthSite = isAtTruthSite(row);
+        datum.atTrainingSite = isAtTrainingSite(row);
+        datum.atAntiTrainingSite = isAtAntiTrainingSite(row);
+        datum.isTransition = isTransition(row);
+        datum.isSNP = isSNP(row);
+        datum.failingSTDThreshold = isFailingSTDThreshold(row);
+        datum.isAggregate = isAggregate(row);
+        datum.loc = getLocation(row);
+        datum.referenceAllele = getReferenceAllele(row);
+        datum.alternateAllele = getAlternateAllele(row);
+        return datum;
+    }
+
+    /**
+     * Copies the annotation values and null flags of a row into the given arrays.
+     *
+     * @return whether any annotation of the row is missing.
+     */
+    boolean readAnnotations(final int row, final double[] annotations, final boolean[] isNull) {
+        checkRow(row);
+        final Chunk chunk = chunk(row);
+        final int first = offset(row) * numAnnotations;
+        boolean anyNull = false;
+        for (int i = 0; i < numAnnotations; i++) {
+            annotations[i] = chunk.annotations.get(first + i);
+            isNull[i] = chunk.isNull(first + i);
+            anyNull |= isNull[i];
+        }
+        return anyNull;
+    }
+
+    double getAnnotation(final int row, final int annotation) {
+        checkRow(row);
+        return chunk(row).annotations.get(offset(row) * numAnnotations + annotation);
+    }
+
+    void setAnnotation(final int row, final int annotation, final double value) {
+        checkRow(row);
+        chunk(row).annotations.put(offset(row) * numAnnotations + annotation, value);
+    }
+
+    boolean isNull(final int row, final int annotation) {
+        checkRow(row);
+        return chunk(row).isNull(offset(row) * numAnnotations + annotation);
+    }
+
+    double getLod(final int row) {
+        checkRow(row);
+        return chunk(row).lod[offset(row)];
+    }
+
+    void setLod(final int row, final double lod) {
+        checkRow(row);
+        chunk(row).lod[offset(row)] = lod;
+    }
+
+    double getPrior(final int row) {
+        checkRow(row);
+        return chunk(row).prior[offset(row)];
+    }
+
+    int getWorstAnnotation(final int row) {
+        checkRow(row);
+        return chunk(row).worstAnnotation[offset(row)];
+    }
+
+    void setWorstAnnotation(final int row, final int worstAnnotation) {
+        checkRow(row);
+        chunk(row).worstAnnotation[offset(row)] = (short) worstAnnotation;
+    }
+
+    boolean isKnown(final int row) {
+        return hasFlag(row, KNOWN);
+    }
+
+    boolean isAtTruthSite(final int row) {
+        return hasFlag(row, TRUTH_SITE);
+    }
+
+    boolean isAtTrainingSite(final int row) {
+        return hasFlag(row, TRAINING_SITE);
+    }
+
+    boolean isAtAntiTrainingSite(final int row) {
+        return hasFlag(row, ANTI_TRAINING_SITE);
+    }
+
+    void setAtAntiTrainingSite(final int row, final boolean value) {
+        setFlag(row, ANTI_TRAINING_SITE, value);
+    }
+
+    boolean isTransition(final int row) {
+        return hasFlag(row, TRANSITION);
+    }
+
+    boolean isSNP(final int row) {
+        return hasFlag(row, SNP);
+    }
+
+    boolean isFailingSTDThreshold(final int row) {
+        return hasFlag(row, FAILING_STD_THRESHOLD);
+    }
+
+    void setFailingSTDThreshold(final int row, final boolean value) {
+        setFlag(row, FAILING_STD_THRESHOLD, value);
+    }
+
+    boolean isAggregate(final int row) {
+        return hasFlag(row, AGGREGATE);
+    }
+
+    /**
+     * @return the location of a row, or {@code null} if it has none (e.g. aggregate data).
+     */
+    SimpleInterval getLocation(final int row) {
+        checkRow(row);
+        final Chunk chunk = chunk(row);
+        final int offset = offset(row);
+        return chunk.contig[offset] == NO_CONTIG ? null
+                : new SimpleInterval(contigs.get(chunk.contig[offset]), chunk.start[offset], chunk.end[offset]);
+    }
+
+    Allele getReferenceAllele(final int row) {
+        checkRow(row);
+        final Chunk chunk = chunk(row);
+        return chunk.referenceAlleles == null ? null : chunk.referenceAlleles[offset(row)];
+    }
+
+    Allele getAlternateAllele(final int row) {
+        checkRow(row);
+        final Chunk chunk = chunk(row);
+        return chunk.alternateAlleles == null ? null : chunk.alternateAlleles[offset(row)];
+    }
+
+    /**
+     * @return the number of rows at truth sites with a LOD of at least {@code minLod}.
+     */
+    int countCallsAtTruth(final double minLod) {
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            if (isAtTruthSite(row) && getLod(row) >= minLod) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reorders the annotations of every row.
+     *
+     * @param order the ith element is the current index of the annotation that becomes the ith one.
+     */
+    void permuteAnnotations(final List<Integer> order) {
+        Utils.validateArg(order.size() == numAnnotations, "the order must have one element per annotation");
+        final double[] values = new double[numAnnotations];
+        final boolean[] isNull = new boolean[numAnnotations];
+        for (int row = 0; row < size; row++) {
+            readAnnotations(row, values, isNull);
+            final Chunk chunk = chunk(row);
+            final int first = offset(row) * numAnnotations;
+            for (int i = 0; i < numAnnotations; i++) {
+                chunk.annotations.put(first + i, values[order.get(i)]);
+                chunk.setNull(first + i, isNull[order.get(i)]);
+            }
+        }
+    }
+
+    /**
+     * Removes the rows matching a predicate, keeping the others in their current order.
+     */
+    void removeRows(final IntPredicate toRemove) {
+        int kept = 0;
+        for (int row = 0; row < size; row++) {
+            if (!toRemove.test(row)) {
+                if (kept != row) {
+                    copyRow(chunk(row), offset(row), chunk(kept), offset(kept));
+                }
+                kept++;
+            }
+        }
+        size = kept;
+        // release the chunks that are no longer used
+        final int neededChunks = (size + rowsPerChunk - 1) / rowsPerChunk;
+        chunks.subList(neededChunks, chunks.size()).clear();
+    }
+
+    /**
+     * Stably sorts the rows by increasing LOD.
+     */
+    void sortByLod() {
+        sortRows((row1, row2) -> Double.compare(getLod(row1), getLod(row2)));
+    }
+
+    /**
+     * Stably sorts the rows in coordinate order.
+     *
+     * @throws IllegalArgumentException if the contig of a row is not in the dictionary.
+     */
+    void sortByCoordinate(final SAMSequenceDictionary dictionary) {
+        Utils.nonNull(dictionary);
+        final int[] contigRanks = contigs.stream().mapToInt(dictionary::getSequenceIndex).toArray();
+        sortRows((row1, row2) -> {
+            final Chunk chunk1 = chunk(row1);
+            final Chunk chunk2 = chunk(row2);
+            final int offset1 = offset(row1);
+            final int offset2 = offset(row2);
+            final int rank1 = chunk1.contig[offset1] == NO_CONTIG ? -1 : contigRanks[chunk1.contig[offset1]];
+            final int rank2 = chunk2.contig[offset2] == NO_CONTIG ? -1 : contigRanks[chunk2.contig[offset2]];
+            if (rank1 == -1 || rank2 == -1) {
+                throw new IllegalArgumentException("Can't do comparison because Locatables' contigs not found in sequence dictionary");
+            }
+            int result = Integer.compare(rank1, rank2);
+            if (result == 0) {
+                result = Integer.compare(chunk1.start[offset1], chunk2.start[offset2]);
+                if (result == 0) {
+                    result = Integer.compare(chunk1.end[offset1], chunk2.end[offset2]);
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Compares two rows given their current indices.
+     */
+    @FunctionalInterface
+    interface RowComparator {
+        int compare(int row1, int row2);
+    }
+
+    /**
+     * Stably sorts the rows.
+     */
+    void sortRows(final RowComparator comparator) {
+        Utils.nonNull(comparator);
+        final int[] order = new int[size];
+        for (int row = 0; row < size; row++) {
+            order[row] = row;
+        }
+        IntArrays.mergeSort(order, new AbstractIntComparator() {
+            @Override
+            public int compare(final int row1, final int row2) {
+                return comparator.compare(row1, row2);
+            }
+        });
+        applyOrder(order);
+    }
+
+    /**
+     * Moves the rows to their new positions, following the cycles of the permutation so that no more than one row
+     * needs to be held outside of the store at any time.
+     *
+     * @param order the ith element is the current index of the row that moves to index i.
+     */
+    private void applyOrder(final int[] order) {
+        final Chunk scratch = new Chunk(1);
+        final BitSet placed = new BitSet(size);
+        for (int start = 0; start < size; start++) {
+            if (placed.get(start) || order[start] == start) {
+                continue;
+            }
+            copyRow(chunk(start), offset(start), scratch, 0);
+            int destination = start;
+            while (true) {
+                placed.set(destination);
+                final int source = order[destination];
+                if (source == start) {
+                    copyRow(scratch, 0, chunk(destination), offset(destination));
+                    break;
+                }
+                copyRow(chunk(source), offset(source), chunk(destination), offset(destination));
+                destination = source;
+            }
+        }
+    }
+
+    private boolean hasFlag(final int row, final int flag) {
+        checkRow(row);
+        return (chunk(row).flags[offset(row)] & flag) != 0;
+    }
+
+    private void setFlag(final int row, final int flag, final boolean value) {
+        checkRow(row);
+        final Chunk chunk = chunk(row);
+        final int offset = offset(row);
+        chunk.flags[offset] = (byte) (value ? chunk.flags[offset] | flag : chunk.flags[offset] & ~flag);
+    }
+
+    private void checkRow(final int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("row " + row + " is out of bounds for a store of size " + size);
+        }
+    }
+
+    private Chunk chunk(final int row) {
+        return chunks.get(row / rowsPerChunk);
+    }
+
+    private int offset(final int row) {
+        return row % rowsPerChunk;
+    }
+
+    private void copyRow(final Chunk source, final int sourceOffset, final Chunk destination, final int destinationOffset) {
+        for (int i = 0; i < numAnnotations; i++) {
+            destination.annotations.put(destinationOffset * numAnnotations + i, source.annotations.get(sourceOffset * numAnnotations + i));
+            destination.setNull(destinationOffset * numAnnotations + i, source.isNull(sourceOffset * numAnnotations + i));
+        }
+        destination.lod[destinationOffset] = source.lod[sourceOffset];
+        destination.prior[destinationOffset] = source.prior[sourceOffset];
+        destination.worstAnnotation[destinationOffset] = source.worstAnnotation[sourceOffset];
+        destination.flags[destinationOffset] = source.flags[sourceOffset];
+        destination.contig[destinationOffset] = source.contig[sourceOffset];
+        destination.start[destinationOffset] = source.start[sourceOffset];
+        destination.end[destinationOffset] = source.end[sourceOffset];
+        destination.setAlleles(destinationOffset,
+                source.referenceAlleles == null ? null : source.referenceAlleles[sourceOffset],
+                source.alternateAlleles == null ? null : source.alternateAlleles[sourceOffset]);
+    }
+
+    /**
+     * Columns of a fixed number of consecutive rows.
+     */
+    private final class Chunk {
+        private final int capacity;
+        private final DoubleBuffer annotations;
+        private final long[] nullBits;
+        private final double[] lod;
+        private final double[] prior;
+        private final short[] worstAnnotation;
+        private final byte[] flags;
+        private final int[] contig;
+        private final int[] start;
+        private final int[] end;
+        // only allocated if the chunk holds allele-specific data
+        private Allele[] referenceAlleles;
+        private Allele[] alternateAlleles;
+
+        private Chunk(final int capacity) {
+            this.capacity = capacity;
+            final int numValues = capacity * numAnnotations;
+            annotations = offHeap ? ByteBuffer.allocateDirect(numValues * Double.BYTES).order(ByteOrder.nativeOrder()).asDoubleBuffer()
+                    : DoubleBuffer.allocate(numValues);
+            nullBits = new long[(numValues + Long.SIZE - 1) / Long.SIZE];
+            lod = new double[capacity];
+            prior = new double[capacity];
+            worstAnnotation = new short[capacity];
+            flags = new byte[capacity];
+            contig = new int[capacity];
+            start = new int[capacity];
+            end = new int[capacity];
+        }
+
+        private boolean isNull(final int index) {
+            return (nullBits[index / Long.SIZE] & (1L << (index % Long.SIZE))) != 0;
+        }
+
+        private void setNull(final int index, final boolean value) {
+            if (value) {
+                nullBits[index / Long.SIZE] |= 1L << (index % Long.SIZE);
+            } else {
+                nullBits[index / Long.SIZE] &= ~(1L << (index % Long.SIZE));
+            }
+        }
+
+        private void setAlleles(final int offset, final Allele referenceAllele, final Allele alternateAllele) {
+            if (referenceAlleles == null && (referenceAllele != null || alternateAllele != null)) {
+                referenceAlleles = new Allele[capacity];
+                alternateAlleles = new Allele[capacity];
+            }
+            if (referenceAlleles != null) {
+                referenceAlleles[offset] = referenceAllele;
+                alternateAlleles[offset] = alternateAllele;
+            }
+        }
+    }
+}
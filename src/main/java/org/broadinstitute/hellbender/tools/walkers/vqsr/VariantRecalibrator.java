@@ -25,7 +25,6 @@ import org.broadinstitute.hellbender.engine.ReferenceContext;
 import org.broadinstitute.hellbender.engine.MultiVariantWalker;
 import org.broadinstitute.hellbender.utils.R.RScriptExecutor;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
-import org.broadinstitute.hellbender.utils.collections.ExpandingArrayList;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.io.Resource;
 import org.broadinstitute.hellbender.utils.report.GATKReport;
@@ -377,7 +376,7 @@ public class VariantRecalibrator extends MultiVariantWalker {
     final private ArrayList<Double> replicate = new ArrayList<>(REPLICATE * 2);
     private final Set<String> ignoreInputFilterSet = new TreeSet<>();
     private final VariantRecalibratorEngine engine = new VariantRecalibratorEngine( VRAC );
-    final private ExpandingArrayList<VariantDatum> reduceSum = new ExpandingArrayList<>(2000);
+    private VariantDataStore reduceSum;
     final private List<ImmutablePair<VariantContext, FeatureContext>> variantsAtLocus = new ArrayList<>();
     private long counter = 0;
     private GATKReportTable nmcTable;
@@ -399,6 +398,7 @@ public class VariantRecalibrator extends MultiVariantWalker {
     public void onTraversalStart() {
 
         dataManager = new VariantDataManager( new ArrayList<>(USE_ANNOTATIONS), VRAC );
+        reduceSum = new VariantDataStore( dataManager.annotationKeys.size(), VRAC.OFF_HEAP_DATA_STORE );
 
         if (RSCRIPT_FILE != null) {
             rScriptExecutor = new RScriptExecutor();
@@ -557,10 +557,10 @@ public class VariantRecalibrator extends MultiVariantWalker {
 
     /**
      * add a datum representing a variant site (or allele) to the data in {@code variants}, which represents the callset to be recalibrated
-     * @param variants is modified by having a new VariantDatum added to it
+     * @param variants is modified by having a new row added to it
      */
     private void addDatum(
-            final ExpandingArrayList<VariantDatum> variants,
+            final VariantDataStore variants,
             final boolean isInput,
             final FeatureContext featureContext,
             final VariantContext vc,
@@ -617,13 +617,13 @@ public class VariantRecalibrator extends MultiVariantWalker {
                 if (inputModel != null) {  // GMMs were loaded from a file
                     logger.info("Using serialized GMMs from file...");
                     goodModel = GMMFromTables(pmmTable, pmcTable, pPMixTable, numAnnotations, positiveTrainingData.size());
-                    engine.evaluateData(dataManager.getData(), goodModel, false);
+                    engine.evaluateData(dataManager.getDataStore(), goodModel, false);
                     negativeTrainingData = dataManager.selectWorstVariants();
                     badModel = GMMFromTables(nmmTable, nmcTable, nPMixTable, numAnnotations, negativeTrainingData.size());
                 } else { // Generate the GMMs from scratch
                     // Generate the positive model using the training data and evaluate each variant
                     goodModel = engine.generateModel(positiveTrainingData, VRAC.MAX_GAUSSIANS);
-                    engine.evaluateData(dataManager.getData(), goodModel, false);
+                    engine.evaluateData(dataManager.getDataStore(), goodModel, false);
                     // Generate the negative model using the worst performing data and evaluate each variant contrastively
                     negativeTrainingData = dataManager.selectWorstVariants();
                     badModel = engine.generateModel(negativeTrainingData,
@@ -636,7 +636,7 @@ public class VariantRecalibrator extends MultiVariantWalker {
                 }
 
                 dataManager.dropAggregateData(); // Don't need the aggregate data anymore so let's free up the memory
-                engine.evaluateData(dataManager.getData(), badModel, true);
+                engine.evaluateData(dataManager.getDataStore(), badModel, true);
 
                 if (outputModel != null) {
                     final GATKReport report = writeModelReport(goodModel, badModel, USE_ANNOTATIONS);
@@ -647,19 +647,19 @@ public class VariantRecalibrator extends MultiVariantWalker {
                     }
                 }
 
-                engine.calculateWorstPerformingAnnotation(dataManager.getData(), goodModel, badModel);
+                engine.calculateWorstPerformingAnnotation(dataManager.getDataStore(), goodModel, badModel);
 
 
                 // Find the VQSLOD cutoff values which correspond to the various tranches of calls requested by the user
-                final int nCallsAtTruth = TrancheManager.countCallsAtTruth(dataManager.getData(), Double.NEGATIVE_INFINITY);
+                final int nCallsAtTruth = TrancheManager.countCallsAtTruth(dataManager.getDataStore(), Double.NEGATIVE_INFINITY);
                 final TrancheManager.SelectionMetric metric = new TrancheManager.TruthSensitivityMetric(nCallsAtTruth);
                 if ( !scatterTranches ) {
-                    final List<? extends Tranche> tranches = TrancheManager.findTranches(dataManager.getData(), TS_TRANCHES, metric, VRAC.MODE);
+                    final List<? extends Tranche> tranches = TrancheManager.findTranches(dataManager.getDataStore(), TS_TRANCHES, metric, VRAC.MODE);
                     tranchesStream.print(TruthSensitivityTranche.printHeader());
                     tranchesStream.print(Tranche.tranchesString(tranches));
                 }
                 else {
-                    final List<? extends Tranche> tranches = TrancheManager.findVQSLODTranches(dataManager.getData(), VQSLOD_TRANCHES, metric, VRAC.MODE);
+                    final List<? extends Tranche> tranches = TrancheManager.findVQSLODTranches(dataManager.getDataStore(), VQSLOD_TRANCHES, metric, VRAC.MODE);
                     tranchesStream.print(VQSLODTranche.printHeader());
                     tranchesStream.print(Tranche.tranchesString(tranches));
                 }
@@ -668,11 +668,7 @@ public class VariantRecalibrator extends MultiVariantWalker {
                 dataManager.writeOutRecalibrationTable(recalWriter, getBestAvailableSequenceDictionary());
                 if (RSCRIPT_FILE != null) {
                     logger.info("Writing out visualization Rscript file...");
-                    createVisualizationScript(dataManager.getRandomDataForPlotting(
-                            1000,
-                            positiveTrainingData,
-                            negativeTrainingData,
-                            dataManager.getEvaluationData()),
+                    createVisualizationScript(dataManager.getRandomDataForPlotting(1000),
                             goodModel,
                             badModel,
                             0.0,
@@ -1000,7 +996,7 @@ private GATKReportTable makeVectorTable(final String tableName,
             for( int jjj = iii + 1; jjj < annotationKeys.length; jjj++) {
                 logger.info( "Building " + annotationKeys[iii] + " x " + annotationKeys[jjj] + " plot...");
 
-                final List<VariantDatum> fakeData = new ExpandingArrayList<>();
+                final VariantDataStore fakeData = new VariantDataStore(randomData.get(0).annotations.length, false);
                 double minAnn1 = 100.0, maxAnn1 = -100.0, minAnn2 = 100.0, maxAnn2 = -100.0;
                 for( final VariantDatum datum : randomData ) {
                     minAnn1 = Math.min(minAnn1, datum.annotations[iii]);
@@ -1033,11 +1029,11 @@ private GATKReportTable makeVectorTable(final String tableName,
                 engine.evaluateData( fakeData, badModel, true );
 
                 stream.print("surface <- c(");
-                for( final VariantDatum datum : fakeData ) {
+                for( int row = 0; row < fakeData.size(); row++ ) {
                     stream.print(String.format("%.4f, %.4f, %.4f, ",
-                            dataManager.denormalizeDatum(datum.annotations[iii], iii),
-                            dataManager.denormalizeDatum(datum.annotations[jjj], jjj),
-                            Math.min(4.0, Math.max(-4.0, datum.lod))));
+                            dataManager.denormalizeDatum(fakeData.getAnnotation(row, iii), iii),
+                            dataManager.denormalizeDatum(fakeData.getAnnotation(row, jjj), jjj),
+                            Math.min(4.0, Math.max(-4.0, fakeData.getLod(row)))));
                 }
                 stream.println("NA,NA,NA)");
                 stream.println("s <- matrix(surface,ncol=3,byrow=T)");
@@ -92,6 +92,25 @@ final class VariantRecalibratorArgumentCollection {
     @Argument(fullName = "maximum-training-variants", doc = "Maximum number of training data", optional = true)
     protected int MAX_NUM_TRAINING_DATA = 2500000;
 
+    /**
+     * The expectation step of the Gaussian mixture model training is split across the training variants and the
+     * maximization step across the Gaussians. Each variant and Gaussian is computed as with a single thread, so the
+     * resulting models do not depend on the number of threads.
+     */
+    @Advanced
+    @Argument(fullName = "em-threads", doc = "Number of threads used to train the Gaussian mixture models", optional = true, minValue = 1)
+    public int EM_THREADS = 1;
+
+    /**
+     * The annotation values of all the variants, which are kept in memory until the end of the traversal, are the
+     * largest part of the VariantRecalibrator memory footprint. With this option they are kept in direct buffers
+     * outside of the Java heap instead, so that the heap can be sized independently of the number of variants. The
+     * total amount of direct memory is limited by the JVM option -XX:MaxDirectMemorySize.
+     */
+    @Advanced
+    @Argument(fullName = "off-heap-data-store", doc = "Keep the annotation values of the variants outside of the Java heap", optional = true)
+    public boolean OFF_HEAP_DATA_STORE = false;
+
     /**
      * This parameter determines the minimum number of variants that will be selected from the list of worst scoring
      * variants to use for building the Gaussian mixture model of bad variants.
@@ -6,6 +6,7 @@ import org.apache.logging.log4j.LogManager;
 import org.broadinstitute.hellbender.utils.Utils;
 
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 public class VariantRecalibratorEngine {
 
@@ -44,11 +45,26 @@ public class VariantRecalibratorEngine {
                 VRAC.SHRINKAGE,
                 VRAC.DIRICHLET_PARAMETER,
                 VRAC.PRIOR_COUNTS );
-        variationalBayesExpectationMaximization( model, data );
+        final ForkJoinPool trainingPool = VRAC.EM_THREADS > 1 ? new ForkJoinPool(VRAC.EM_THREADS) : null;
+        model.setTrainingPool(trainingPool);
+        try {
+            variationalBayesExpectationMaximization( model, data );
+        } finally {
+            model.setTrainingPool(null);
+            if( trainingPool != null ) {
+                trainingPool.shutdown();
+            }
+        }
         return model;
     }
 
-    public void evaluateData( final List<VariantDatum> data, final GaussianMixtureModel model, final boolean evaluateContrastively ) {
+    /**
+     * Evaluates every row of a data store with a model and updates its LOD. Missing annotations are marginalized over.
+     *
+     * @param evaluateContrastively if true, the model is the negative model and the LODs computed with the positive
+     *                              model are combined with its results; otherwise the LODs are replaced.
+     */
+    public void evaluateData( final VariantDataStore data, final GaussianMixtureModel model, final boolean evaluateContrastively ) {
         if( !model.isModelReadyForEvaluation ) {
             try {
                 model.precomputeDenominatorForEvaluation();
@@ -60,37 +76,62 @@ public class VariantRecalibratorEngine {
         }
 
         logger.info("Evaluating full set of " + data.size() + " variants...");
-        for( final VariantDatum datum : data ) {
+        final VariantDatum datum = newScratchDatum( data );
+        for( int row = 0; row < data.size(); row++ ) {
+            final boolean hasNullAnnotations = data.readAnnotations( row, datum.annotations, datum.isNull );
             final double thisLod = evaluateDatum( datum, model );
             if( Double.isNaN(thisLod) ) {
                 logger.warn("Evaluate datum returned a NaN.");
                 model.failedToConverge = true;
                 return;
             }
+            if( hasNullAnnotations ) {
+                // marginalizing over the missing annotations leaves the last random draw in their place
+                for( int iii = 0; iii < datum.annotations.length; iii++ ) {
+                    if( datum.isNull[iii] ) {
+                        data.setAnnotation( row, iii, datum.annotations[iii] );
+                    }
+                }
+            }
 
-            datum.lod = ( evaluateContrastively ?
-                            ( Double.isInfinite(datum.lod) ? // positive model said negative infinity
-                                    ( MIN_ACCEPTABLE_LOD_SCORE + Utils.getRandomGenerator().nextDouble() * MIN_ACCEPTABLE_LOD_SCORE ) // Negative infinity lod values are possible when covariates are extremely far away from their tight Gaussians
-                                    : datum.prior + datum.lod - thisLod) // contrastive evaluation: (prior + positive model - negative model)
-                            : thisLod ); // positive model only so set the lod and return
+            data.setLod( row, updatedLod( data.getLod(row), data.getPrior(row), thisLod, evaluateContrastively ) );
         }
     }
 
-    public void calculateWorstPerformingAnnotation( final List<VariantDatum> data, final GaussianMixtureModel goodModel, final GaussianMixtureModel badModel ) {
-        for( final VariantDatum datum : data ) {
+    private static double updatedLod( final double currentLod, final double prior, final double thisLod, final boolean evaluateContrastively ) {
+        return ( evaluateContrastively ?
+                ( Double.isInfinite(currentLod) ? // positive model said negative infinity
+                        ( MIN_ACCEPTABLE_LOD_SCORE + Utils.getRandomGenerator().nextDouble() * MIN_ACCEPTABLE_LOD_SCORE ) // Negative infinity lod values are possible when covariates are extremely far away from their tight Gaussians
+                        : prior + currentLod - thisLod) // contrastive evaluation: (prior + positive model - negative model)
+                : thisLod ); // positive model only so set the lod and return
+    }
+
+    private static VariantDatum newScratchDatum( final VariantDataStore data ) {
+        final VariantDatum datum = new VariantDatum();
+        datum.annotations = new double[data.getNumAnnotations()];
+        datum.isNull = new boolean[data.getNumAnnotations()];
+        return datum;
+    }
+
+    /**
+     * Sets the culprit of every row of a data store, the annotation on which the negative model performs the
+     * worst relative to the positive model.
+     */
+    public void calculateWorstPerformingAnnotation( final VariantDataStore data, final GaussianMixtureModel goodModel, final GaussianMixtureModel badModel ) {
+        final VariantDatum datum = newScratchDatum( data );
+        for( int row = 0; row < data.size(); row++ ) {
+            data.readAnnotations( row, datum.annotations, datum.isNull );
             int worstAnnotation = -1;
             double minProb = Double.MAX_VALUE;
-            double worstValue = -1;
             for( int iii = 0; iii < datum.annotations.length; iii++ ) {
                 final Double goodProbLog10 = goodModel.evaluateDatumInOneDimension(datum, iii);
                 final Double badProbLog10 = badModel.evaluateDatumInOneDimension(datum, iii);
                 if( goodProbLog10 != null && badProbLog10 != null ) {
                     final double prob = goodProbLog10 - badProbLog10;
-                    if(prob < minProb) { minProb = prob; worstAnnotation = iii; worstValue = datum.annotations[iii];}
+                    if(prob < minProb) { minProb = prob; worstAnnotation = iii; }
                 }
             }
-            datum.worstAnnotation = worstAnnotation;
-            datum.worstValue = worstValue;
+            data.setWorstAnnotation( row, worstAnnotation );
         }
     }
 
@@ -104,16 +145,18 @@ public class VariantRecalibratorEngine {
         model.initializeRandomModel( data, VRAC.NUM_KMEANS_ITERATIONS );
 
         // The VBEM loop
+        final double[] annotations = model.flattenAnnotations( data );
+        final int numData = data.size();
         model.normalizePMixtureLog10();
-        model.expectationStep( data );
+        model.expectationStep( annotations, numData );
         double currentChangeInMixtureCoefficients;
         int iteration = 0;
         logger.info("Finished iteration " + iteration + ".");
         while( iteration < VRAC.MAX_ITERATIONS ) {
             iteration++;
-            model.maximizationStep( data );
+            model.maximizationStep( annotations, numData );
             currentChangeInMixtureCoefficients = model.normalizePMixtureLog10();
-            model.expectationStep( data );
+            model.expectationStep( annotations, numData );
             if( iteration % 5 == 0 ) { // cut down on the number of output lines so that users can read the warning messages
                 logger.info("Finished iteration " + iteration + ". \tCurrent change in mixture coefficients = " + String.format("%.5f", currentChangeInMixtureCoefficients));
             }
@@ -123,7 +166,7 @@ public class VariantRecalibratorEngine {
             }
         }
 
-        model.evaluateFinalModelParameters( data );
+        model.evaluateFinalModelParameters( annotations, numData );
     }
 
     /////////////////////////////
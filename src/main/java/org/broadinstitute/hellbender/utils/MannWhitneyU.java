@@ -1,12 +1,11 @@
 package org.broadinstitute.hellbender.utils;
 
-import htsjdk.samtools.util.Histogram;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import org.apache.commons.math3.distribution.NormalDistribution;
 import org.apache.log4j.Logger;
 
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Imported with changes from Picard private.
@@ -17,32 +16,6 @@ public class MannWhitneyU {
 
     protected static Logger logger = Logger.getLogger(MannWhitneyU.class);
 
-    private static final class Rank implements Comparable<Rank> {
-        final double value;
-        float rank;
-        final int series;
-
-        private Rank(double value, float rank, int series) {
-            this.value = value;
-            this.rank = rank;
-            this.series = series;
-        }
-
-        @Override
-        public int compareTo(Rank that) {
-            return (int) (this.value - that.value);
-        }
-
-        @Override
-        public String toString() {
-            return "Rank{" +
-                    "value=" + value +
-                    ", rank=" + rank +
-                    ", series=" + series +
-                    '}';
-        }
-    }
-
     /**
      * The results of performing a rank sum test.
      */
@@ -118,51 +91,29 @@ public class MannWhitneyU {
     }
 
     /**
-     * The ranked data in one list and a list of the number of ties.
-     */
-    public static class RankedData {
-        private final Rank[] rank;
-        private final ArrayList<Integer> numOfTies;
-
-        public RankedData(Rank[] rank, ArrayList<Integer> numOfTies) {
-            this.rank = rank;
-            this.numOfTies = numOfTies;
-        }
-
-        public Rank[] getRank() {
-            return rank;
-        }
-
-        public ArrayList<Integer> getNumOfTies() {
-            return numOfTies;
-        }
-    }
-
-    /**
-     * Key for the map from Integer[] to set of all permutations of that array.
+     * Key for the cache of exact null distributions: the sizes of both series and the lengths of the runs of tied
+     * values in the ranked data (including runs of length one), which together determine the distribution of U.
      */
-    private static class Key {
-        final Integer[] listToPermute;
+    private static final class NullDistributionKey {
+        private final int n1;
+        private final int[] runLengths;
 
-        private Key(Integer[] listToPermute) {
-            this.listToPermute = listToPermute;
+        private NullDistributionKey(final int n1, final int[] runLengths) {
+            this.n1 = n1;
+            this.runLengths = runLengths;
         }
 
         @Override
-        public boolean equals(Object o) {
+        public boolean equals(final Object o) {
             if (o == null || getClass() != o.getClass()) return false;
 
-            Key that = (Key) o;
-            return (Arrays.deepEquals(this.listToPermute, that.listToPermute));
+            final NullDistributionKey that = (NullDistributionKey) o;
+            return n1 == that.n1 && Arrays.equals(runLengths, that.runLengths);
         }
 
         @Override
         public int hashCode() {
-            int result = 17;
-            for (Integer i : listToPermute) {
-                result = 31 * result + listToPermute[i];
-            }
-            return result;
+            return 31 * n1 + Arrays.hashCode(runLengths);
         }
     }
 
@@ -172,9 +123,15 @@ public class MannWhitneyU {
     private static final NormalDistribution NORMAL = new NormalDistribution(NORMAL_MEAN, NORMAL_SD);
 
     /**
-     * A map of an Integer[] of the labels to the set of all possible permutations of those labels.
+     * The maximum number of exact null distributions kept in {@link #NULL_DISTRIBUTIONS}.
+     */
+    private static final int MAX_CACHED_NULL_DISTRIBUTIONS = 1000;
+
+    /**
+     * Exact null distributions of U, by sizes of the series and tie structure, least recently used first.
+     * Access must be synchronized on the map.
      */
-    private static Map<Key, Set<List<Integer>>> PERMUTATIONS = new ConcurrentHashMap<Key, Set<List<Integer>>>();
+    private static final Map<NullDistributionKey, double[]> NULL_DISTRIBUTIONS = new LRUCache<>(MAX_CACHED_NULL_DISTRIBUTIONS);
 
     /**
      * The minimum length for both data series in order to use a normal distribution
@@ -200,101 +157,69 @@ public class MannWhitneyU {
         TWO_SIDED
     }
 
-    public RankedData calculateRank(final double[] series1, final double[] series2) {
+    /**
+     * Rank both groups together and return a TestStatistic object that includes U1, U2 and number of ties for sigma
+     */
+    public TestStatistic calculateU1andU2(final double[] series1, final double[] series2) {
+        return rankSums(series1, series2, null);
+    }
+
+    /**
+     * Ranks both groups together, accumulating the rank sums and the transformed number of ties of the tie bands
+     * as they are found.
+     *
+     * @param runLengths if not null, receives the length of every run of tied values (including runs of length one)
+     *                   in rank order
+     */
+    private static TestStatistic rankSums(final double[] series1, final double[] series2, final IntArrayList runLengths) {
         Arrays.sort(series1);
         Arrays.sort(series2);
 
-        // Make a merged ranks array
-        final Rank[] ranks = new Rank[series1.length + series2.length];
-        {
-            int i = 0, j = 0, r = 0;
-            while (r < ranks.length) {
-                if (i >= series1.length) {
-                    ranks[r++] = new Rank(series2[j++], r, 2);
-                } else if (j >= series2.length) {
-                    ranks[r++] = new Rank(series1[i++], r, 1);
-                } else if (series1[i] <= series2[j]) {
-                    ranks[r++] = new Rank(series1[i++], r, 1);
-                } else {
-                    ranks[r++] = new Rank(series2[j++], r, 2);
-                }
-            }
+        // merge both series, ties going to series 1 first
+        final int n = series1.length + series2.length;
+        final double[] values = new double[n];
+        final boolean[] inFirstSeries = new boolean[n];
+        for (int i = 0, j = 0, r = 0; r < n; r++) {
+            inFirstSeries[r] = j >= series2.length || (i < series1.length && series1[i] <= series2[j]);
+            values[r] = inFirstSeries[r] ? series1[i++] : series2[j++];
         }
 
-        ArrayList<Integer> numOfTies = new ArrayList<>();
-
-        // Now sort out any tie bands
-        for (int i = 0; i < ranks.length; ) {
-            float rank = ranks[i].rank;
+        // ranks are 1-based and averaged (in single precision) over each tie band
+        float r1 = 0, r2 = 0;
+        double numOfTiesForSigma = 0.0;
+        for (int i = 0; i < n; ) {
+            float rank = i + 1;
             int count = 1;
-
-            for (int j = i + 1; j < ranks.length && ranks[j].value == ranks[i].value; ++j) {
-                rank += ranks[j].rank;
+            for (int j = i + 1; j < n && values[j] == values[i]; ++j) {
+                rank += j + 1;
                 ++count;
             }
-
             if (count > 1) {
                 rank /= count;
-                for (int j = i; j < i + count; ++j) {
-                    ranks[j].rank = rank;
+                // If every single datapoint is tied then we want to return a p-value of .5 and the formula for sigma
+                // that includes the number of ties breaks down. Ignoring the ties in this case gets the desired result
+                // in the normal approximation case.
+                if (count != n) {
+                    numOfTiesForSigma += Math.pow(count, 3) - count;
                 }
-                numOfTies.add(count);
             }
-
-            // Skip forward the right number of items
+            for (int j = i; j < i + count; ++j) {
+                if (inFirstSeries[j]) r1 += rank;
+                else r2 += rank;
+            }
+            if (runLengths != null) {
+                runLengths.add(count);
+            }
             i += count;
         }
 
-        return new RankedData(ranks, numOfTies);
-    }
-
-    /**
-     * Rank both groups together and return a TestStatistic object that includes U1, U2 and number of ties for sigma
-     */
-    public TestStatistic calculateU1andU2(final double[] series1, final double[] series2) {
-        RankedData ranked = calculateRank(series1, series2);
-        Rank[] ranks = ranked.getRank();
-        ArrayList<Integer> numOfTies = ranked.getNumOfTies();
-        int lengthOfRanks = ranks.length;
-
-        double numOfTiesForSigma = transformTies(lengthOfRanks, numOfTies);
-
-        // Calculate R1 and R2 and U.
-        float r1 = 0, r2 = 0;
-        for (Rank rank : ranks) {
-            if (rank.series == 1) r1 += rank.rank;
-            else r2 += rank.rank;
-        }
-
-        double n1 = series1.length;
-        double n2 = series2.length;
-        double u1 = r1 - ((n1 * (n1 + 1)) / 2);
-        double u2 = r2 - ((n2 * (n2 + 1)) / 2);
-
-        TestStatistic result = new TestStatistic(u1, u2, numOfTiesForSigma);
-        return result;
+        final double n1 = series1.length;
+        final double n2 = series2.length;
+        final double u1 = r1 - ((n1 * (n1 + 1)) / 2);
+        final double u2 = r2 - ((n2 * (n2 + 1)) / 2);
+        return new TestStatistic(u1, u2, numOfTiesForSigma);
     }
 
-    public double transformTies(int numOfRanks, ArrayList<Integer> numOfTies) {
-        //Calculate number of ties transformed for formula for Sigma to calculate Z-score
-        ArrayList<Double> transformedTies = new ArrayList<>();
-        for (int count : numOfTies) {
-            //If every single datapoint is tied then we want to return a p-value of .5 and
-            //the formula for sigma that includes the number of ties breaks down. Setting
-            //the number of ties to 0 in this case gets the desired result in the normal
-            //approximation case.
-            if (count != numOfRanks) {
-                transformedTies.add((Math.pow(count, 3)) - count);
-            }
-        }
-
-        double numOfTiesForSigma = 0.0;
-        for (double count : transformedTies) {
-            numOfTiesForSigma += count;
-        }
-
-        return(numOfTiesForSigma);
-    }
     /**
      * Calculates the rank-sum test statisic U (sometimes W) from two sets of input data for a one-sided test
      * with an int indicating which group is the dominator. Returns a test statistic object with trueU and number of
@@ -413,119 +338,35 @@ public class MannWhitneyU {
         return new Result(u, z, p, Math.abs(median(series1) - median(series2)));
     }
 
-    private void swap(Integer[] arr, int i, int j) {
-        int temp = arr[i];
-        arr[i] = arr[j];
-        arr[j] = temp;
-    }
-
-    /**
-     * Uses a method that generates permutations in lexicographic order. (https://en.wikipedia.org/wiki/Permutation#Generation_in_lexicographic_order)
-     * @param temp Sorted list of elements to be permuted.
-     * @param allPermutations Empty set that will hold all possible permutations.
-     */
-    private void calculatePermutations(Integer[] temp, Set<List<Integer>> allPermutations) {
-        allPermutations.add(new ArrayList<>(Arrays.asList(temp)));
-        while (true) {
-            int k = -1;
-            for (int i = temp.length - 2; i >= 0; i--) {
-                if (temp[i] < temp[i + 1]) {
-                    k = i;
-                    break;
-                }
-            }
-
-            if (k == -1) {
-                break;
-            }
-
-            int l = -1;
-            for (int i = temp.length - 1; i >= k + 1; i--) {
-                if (temp[k] < temp[i]) {
-                    l = i;
-                    break;
-                }
-            }
-
-            swap(temp, k, l);
-
-            int end = temp.length - 1;
-            for (int begin = k + 1; begin < end; begin++) {
-                swap(temp, begin, end);
-                end--;
-            }
-            allPermutations.add(new ArrayList<>(Arrays.asList(temp)));
-        }
-    }
-
-    /**
-     * Checks to see if the permutations have already been computed before creating them from scratch.
-     * @param listToPermute List of tags in numerical order to be permuted
-     * @param numOfPermutations The number of permutations this list will have (n1+n2 choose n1)
-     * @return Set of all possible permutations for the given list.
-     */
-    Set<List<Integer>> getPermutations(final Integer[] listToPermute, int numOfPermutations) {
-        Key key = new Key(listToPermute);
-        Set<List<Integer>> permutations = PERMUTATIONS.get(key);
-        if (permutations == null) {
-            permutations = new HashSet<>(numOfPermutations);
-            calculatePermutations(listToPermute, permutations);
-            PERMUTATIONS.put(key, permutations);
-        }
-        return permutations;
-    }
-
     /**
-     * Creates histogram of test statistics from a permutation test.
+     * Computes the p-value of the observed U in the exact distribution of U over all the (n1+n2 choose n1) possible
+     * assignments of the ranked data to the two groups, which only depends on n1, n2 and the tie structure of the data.
+     *
+     * <p>
+     *     The distribution is computed by dynamic programming over the tie bands rather than by enumerating the
+     *     assignments, and the most recently used distributions are cached.
+     * </p>
      *
      * @param series1 Data from group 1
      * @param series2 Data from group 2
      * @param testStatU Test statistic U from observed data
-     * @return P-value based on histogram with u calculated for every possible permutation of group tag.
+     * @return P-value based on the distribution of u over every possible permutation of group tag.
      */
     public double permutationTest(final double[] series1, final double[] series2, final double testStatU) {
-        final Histogram<Double> histo = new Histogram<>();
         final int n1 = series1.length;
-        final int n2 = series2.length;
-
-        RankedData rankedGroups = calculateRank(series1, series2);
-        Rank[] ranks = rankedGroups.getRank();
-
-        Integer[] firstPermutation = new Integer[n1 + n2];
-
-        for (int i = 0; i < firstPermutation.length; i++) {
-            if (i < n1) {
-                firstPermutation[i] = 0;
-            } else {
-                firstPermutation[i] = 1;
-            }
-        }
-
-        final int numOfPerms = (int) MathUtils.binomialCoefficient(n1 + n2, n2);
-        Set<List<Integer>> allPermutations = getPermutations(firstPermutation, numOfPerms);
-
-        double[] newSeries1 = new double[n1];
-        double[] newSeries2 = new double[n2];
-
-        //iterate over all permutations
-        for (List<Integer> currPerm : allPermutations) {
-            int series1End = 0;
-            int series2End = 0;
-            for (int i = 0; i < currPerm.size(); i++) {
-                int grouping = currPerm.get(i);
-                if (grouping == 0) {
-                    newSeries1[series1End] = ranks[i].rank;
-                    series1End++;
-                } else {
-                    newSeries2[series2End] = ranks[i].rank;
-                    series2End++;
-                }
+        final IntArrayList runLengths = new IntArrayList();
+        rankSums(series1, series2, runLengths);
+        final NullDistributionKey key = new NullDistributionKey(n1, runLengths.toIntArray());
+
+        double[] countsByDoubledU;
+        synchronized (NULL_DISTRIBUTIONS) {
+            countsByDoubledU = NULL_DISTRIBUTIONS.get(key);
+        }
+        if (countsByDoubledU == null) {
+            countsByDoubledU = exactNullDistribution(n1, series2.length, key.runLengths);
+            synchronized (NULL_DISTRIBUTIONS) {
+                NULL_DISTRIBUTIONS.put(key, countsByDoubledU);
             }
-            assert (series1End == n1);
-            assert (series2End == n2);
-
-            double newU = MathUtils.sum(newSeries1) - ((n1 * (n1 + 1)) / 2.0);
-            histo.increment(newU);
         }
 
         /**
@@ -534,13 +375,56 @@ public class MannWhitneyU {
          * and dividing by the total count of everything in the histogram. Just using getCumulativeDistribution() gives
          * a p-value of 1 in the most extreme case which doesn't result in a usable z-score.
          */
-        double sumOfAllSmallerBins = histo.get(testStatU).getValue() / 2.0;
+        final int observed = (int) Math.round(2 * testStatU);
+        double sumOfAllSmallerBins = observed >= 0 && observed < countsByDoubledU.length ? countsByDoubledU[observed] / 2.0 : 0;
+        double total = 0;
+        for (int doubledU = 0; doubledU < countsByDoubledU.length; doubledU++) {
+            if (doubledU < observed) sumOfAllSmallerBins += countsByDoubledU[doubledU];
+            total += countsByDoubledU[doubledU];
+        }
+
+        return sumOfAllSmallerBins / total;
+    }
 
-        for (final Histogram.Bin<Double> bin : histo.values()) {
-            if (bin.getId() < testStatU) sumOfAllSmallerBins += bin.getValue();
+    /**
+     * Counts the assignments of n1 of the ranked values to group 1 by the resulting value of U for group 1.
+     *
+     * @param runLengths lengths of the runs of tied values in rank order; the values of a run all get the average of
+     *                   their ranks, so twice their rank is an integer
+     * @return the number of assignments indexed by 2*U, which ranges from 0 to 2*n1*n2
+     */
+    private static double[] exactNullDistribution(final int n1, final int n2, final int[] runLengths) {
+        final int maxDoubledRankSum = (n1 + n2) * (n1 + n2 + 1);
+        // counts[k][s]: number of ways to pick k values among the runs seen so far with twice their rank sum equal to s
+        double[][] counts = new double[n1 + 1][maxDoubledRankSum + 1];
+        counts[0][0] = 1;
+        int firstRank = 1;
+        for (final int runLength : runLengths) {
+            final int doubledRank = 2 * firstRank + runLength - 1;
+            final double[][] next = new double[n1 + 1][maxDoubledRankSum + 1];
+            for (int k = 0; k <= n1; k++) {
+                for (int s = 0; s <= maxDoubledRankSum; s++) {
+                    if (counts[k][s] == 0) {
+                        continue;
+                    }
+                    double ways = 1; // runLength choose picked
+                    for (int picked = 0; picked <= runLength && k + picked <= n1; picked++) {
+                        next[k + picked][s + picked * doubledRank] += counts[k][s] * ways;
+                        ways = ways * (runLength - picked) / (picked + 1);
+                    }
+                }
+            }
+            counts = next;
+            firstRank += runLength;
         }
 
-        return sumOfAllSmallerBins / histo.getCount();
+        // U = R1 - n1(n1+1)/2
+        final int doubledOffset = n1 * (n1 + 1);
+        final double[] countsByDoubledU = new double[2 * n1 * n2 + 1];
+        for (int doubledU = 0; doubledU < countsByDoubledU.length; doubledU++) {
+            countsByDoubledU[doubledU] = counts[n1][doubledU + doubledOffset];
+        }
+        return countsByDoubledU;
     }
 
 }
@@ -4,6 +4,7 @@ import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.Iterators;
 import com.google.common.primitives.Ints;
 import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.tribble.util.ParsingUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.ArrayUtils;
@@ -1062,7 +1063,8 @@ public final class Utils {
     /**
      * Like Guava's {@link Iterators#transform(Iterator, com.google.common.base.Function)}, but runs a fixed number
      * ({@code numThreads}) of transformations in parallel, while maintaining ordering of the output iterator.
-     * This is useful if the transformations are CPU intensive.
+     * This is useful if the transformations are CPU intensive. Runtime exceptions thrown by the transformations are
+     * rethrown as they are by the output iterator.
      */
     public static <F, T> Iterator<T> transformParallel(final Iterator<F> fromIterator, final Function<F, T> function, final int numThreads) {
         Utils.nonNull(fromIterator, "fromIterator");
@@ -1078,31 +1080,165 @@ public final class Utils {
                 }
             });
         }
-        // use an executor service for the multi-threaded case
+        // use an executor service for the multi-threaded case, which is shut down once the output iterator is done
         final ExecutorService executorService = Executors.newFixedThreadPool(numThreads);
-        final Queue<Future<T>> futures = new LinkedList<>();
-        return new AbstractIterator<T>() {
+        return new ParallelTransformingIterator<>(fromIterator, from -> Collections.singletonList(function.apply(from)),
+                numThreads, executorService, executorService::shutdown);
+    }
+
+    /**
+     * Like {@link #transformParallel(Iterator, Function, int)}, but runs the transformations on the given executor,
+     * with at most {@code maxInFlight} of them submitted at any time. See {@link #flatTransformParallel}.
+     */
+    public static <F, T> CloseableIterator<T> transformParallel(final Iterator<F> fromIterator, final Function<F, T> function,
+                                                                final int maxInFlight, final ExecutorService executor) {
+        Utils.nonNull(function, "function");
+        return flatTransformParallel(fromIterator, from -> Collections.singletonList(function.apply(from)), maxInFlight, executor);
+    }
+
+    /**
+     * Transforms each element of {@code fromIterator} into zero or more elements on the given executor, and returns
+     * them in the order of the elements they come from.
+     *
+     * <p>
+     *     The elements, e.g. batches of reads or shards of the genome, are pulled from {@code fromIterator} on the
+     *     thread that consumes the output iterator, and up to {@code maxInFlight} of them are being transformed at
+     *     any time; the consumer only waits for the oldest one. This bounds the memory used by the results that have
+     *     not been consumed yet, so that a chain of these iterators acts as a pipeline of stages connected by bounded
+     *     queues. Since the transformations never wait for each other, several iterators may share an executor.
+     * </p>
+     *
+     * <p>
+     *     The function is called concurrently, so any state it uses must either be thread-safe or be kept per thread,
+     *     e.g. in a {@link ThreadLocal}. Runtime exceptions thrown by the function are rethrown as they are by the
+     *     output iterator. Closing the output iterator discards the results, and returns once the function is no
+     *     longer running, but does not close {@code fromIterator}.
+     * </p>
+     */
+    public static <F, T> CloseableIterator<T> flatTransformParallel(final Iterator<F> fromIterator, final Function<F, ? extends Iterable<T>> function,
+                                                                    final int maxInFlight, final ExecutorService executor) {
+        return new ParallelTransformingIterator<>(fromIterator, function, maxInFlight, executor, () -> {});
+    }
+
+    /**
+     * Pulls the elements of {@code iterator} in batches of {@code batchSize} on the given executor, so that the
+     * (possibly expensive) work done by {@code iterator}, e.g. decoding records, overlaps with the consumption of the
+     * previous batch. At most one batch is read at any time, so {@code iterator} is only ever accessed by one thread
+     * at a time. Closing the output iterator returns once the batch being read, if any, is done, so that
+     * {@code iterator} can then be closed.
+     */
+    public static <T> CloseableIterator<T> prefetchParallel(final Iterator<T> iterator, final int batchSize, final ExecutorService executor) {
+        Utils.nonNull(iterator, "iterator");
+        Utils.validateArg(batchSize > 0, "batchSize must be positive");
+        // a short batch means that the iterator is exhausted, which is only known once that batch has been read,
+        // so the batches are read one after the other
+        final boolean[] exhausted = {false};
+        final Iterator<Integer> batchSizes = new Iterator<Integer>() {
             @Override
-            protected T computeNext() {
-                try {
-                    while (fromIterator.hasNext()) {
-                        if (futures.size() == numThreads) {
-                            return futures.remove().get();
-                        }
-                        final F next = fromIterator.next();
-                        final Future<T> future = executorService.submit(() -> function.apply(next));
-                        futures.add(future);
-                    }
-                    if (!futures.isEmpty()) {
-                        return futures.remove().get();
-                    }
-                    executorService.shutdown();
+            public boolean hasNext() {
+                return !exhausted[0];
+            }
+
+            @Override
+            public Integer next() {
+                return batchSize;
+            }
+        };
+        return flatTransformParallel(batchSizes, size -> {
+            final List<T> batch = new ArrayList<>(size);
+            while (batch.size() < size && iterator.hasNext()) {
+                batch.add(iterator.next());
+            }
+            exhausted[0] = batch.size() < size;
+            return batch;
+        }, 1, executor);
+    }
+
+    /**
+     * The iterator of {@link #flatTransformParallel}. More elements are submitted as soon as the result of the oldest
+     * one has been taken, so that up to {@code maxInFlight} elements are transformed while the consumer traverses the
+     * results of another one.
+     */
+    private static final class ParallelTransformingIterator<F, T> extends AbstractIterator<T> implements CloseableIterator<T> {
+        private final Iterator<F> fromIterator;
+        private final Function<F, ? extends Iterable<T>> function;
+        private final int maxInFlight;
+        private final ExecutorService executor;
+        private final Runnable onDone;
+
+        private final Deque<Future<? extends Iterable<T>>> pending = new ArrayDeque<>();
+        private Iterator<T> current = Collections.emptyIterator();
+        private volatile boolean closed = false;
+
+        ParallelTransformingIterator(final Iterator<F> fromIterator, final Function<F, ? extends Iterable<T>> function,
+                                     final int maxInFlight, final ExecutorService executor, final Runnable onDone) {
+            this.fromIterator = Utils.nonNull(fromIterator, "fromIterator");
+            this.function = Utils.nonNull(function, "function");
+            Utils.validateArg(maxInFlight > 0, "maxInFlight must be positive");
+            this.maxInFlight = maxInFlight;
+            this.executor = Utils.nonNull(executor, "executor");
+            this.onDone = onDone;
+            submit();
+        }
+
+        private void submit() {
+            while (!closed && pending.size() < maxInFlight && fromIterator.hasNext()) {
+                final F from = fromIterator.next();
+                // elements that have not started when the iterator is closed are skipped
+                pending.add(executor.submit(() -> closed ? Collections.<T>emptyList() : function.apply(from)));
+            }
+        }
+
+        @Override
+        protected T computeNext() {
+            while (!current.hasNext()) {
+                if (pending.isEmpty()) {
+                    close();
                     return endOfData();
-                } catch (InterruptedException | ExecutionException e) {
-                    throw new GATKException("Problem running task", e);
                 }
+                current = await(pending.poll()).iterator();
+                submit();
             }
-        };
+            return current.next();
+        }
+
+        private Iterable<T> await(final Future<? extends Iterable<T>> future) {
+            try {
+                return future.get();
+            } catch (final InterruptedException | ExecutionException e) {
+                close();
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                // let errors such as user exceptions through unchanged
+                if (e instanceof ExecutionException && e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new GATKException("Problem running task", e);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            current = Collections.emptyIterator();
+            // wait for the running tasks, so that the function is no longer running once the iterator is closed
+            for (final Future<? extends Iterable<T>> future : pending) {
+                try {
+                    future.get();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (final ExecutionException e) {
+                    // the results are being discarded anyway
+                }
+            }
+            pending.clear();
+            onDone.run();
+        }
     }
 
     /** Gets duplicated items in the collection. */
@@ -90,6 +90,23 @@ public final class ReadLikelihoods<A extends Allele> implements SampleList, Alle
      */
     private final LikelihoodMatrix<A>[] sampleMatrices;
 
+    /**
+     * Caches the best alleles per sample returned by {@link #bestAlleles(int)}, so that all the annotations of a site
+     * share a single search. Elements are reset whenever the reads, alleles or likelihoods of the sample change.
+     */
+    private final List<BestAllele>[] bestAllelesBySampleIndex;
+
+    /**
+     * Caches the best alleles across samples returned by {@link #bestAlleles()}.
+     */
+    private List<BestAllele> bestAlleles;
+
+    /**
+     * Caches the strand counts per sample returned by {@link #informativeStrandCounts(String)}; reset together with
+     * {@link #bestAllelesBySampleIndex}.
+     */
+    private final int[][] strandCountsBySampleIndex;
+
     /**
      * Constructs a new read-likelihood collection.
      *
@@ -130,6 +147,8 @@ public final class ReadLikelihoods<A extends Allele> implements SampleList, Alle
         setupIndexes(reads, sampleCount, alleleCount);
 
         sampleMatrices = (LikelihoodMatrix<A>[]) new LikelihoodMatrix[sampleCount];
+        bestAllelesBySampleIndex = (List<BestAllele>[]) new List[sampleCount];
+        strandCountsBySampleIndex = new int[sampleCount][];
     }
 
 
@@ -150,6 +169,8 @@ public final class ReadLikelihoods<A extends Allele> implements SampleList, Alle
 
         referenceAlleleIndex = findReferenceAllele(alleles);
         sampleMatrices = (LikelihoodMatrix<A>[]) new LikelihoodMatrix[sampleCount];
+        bestAllelesBySampleIndex = (List<BestAllele>[]) new List[sampleCount];
+        strandCountsBySampleIndex = new int[sampleCount][];
     }
 
     // Add all the indices to alleles, sample and reads in the look-up maps.
@@ -345,6 +366,7 @@ public final class ReadLikelihoods<A extends Allele> implements SampleList, Alle
             return;
         }
 
+        invalidateBestAlleles();
         for (int s = 0; s < valuesBySampleIndex.length; s++) {
             final double[][] sampleValues = valuesBySampleIndex[s];
             final int readCount = readsBySampleIndex[s].length;
@@ -463,6 +485,7 @@ public final class ReadLikelihoods<A extends Allele> implements SampleList, Alle
     }
 
     public void changeReads(final Map<GATKRead, GATKRead> readRealignments) {
+        invalidateBestAlleles();
         final int sampleCount = samples.numberOfSamples();
         for (int s = 0; s < sampleCount; s++) {
             final GATKRead[] sampleReads = readsBySampleIndex[s];
@@ -512,6 +535,7 @@ public final class ReadLikelihoods<A extends Allele> implements SampleList, Alle
         final int newAlleleCount = alleles.numberOfAlleles() + allelesToAdd.size();
 
         alleleList = null;
+        invalidateBestAlleles();
         int referenceIndex = this.referenceAlleleIndex;
 
         @SuppressWarnings("unchecked")
@@ -849,6 +873,7 @@ public final class ReadLikelihoods<A extends Allele> implements SampleList, Alle
     // Append the new read reference into the structure per-sample.
     private void appendReads(final List<GATKRead> newSampleReads, final int sampleIndex,
                              final int sampleReadCount, final int newSampleReadCount) {
+        invalidateBestAlleles(sampleIndex);
         final GATKRead[] sampleReads = readsBySampleIndex[sampleIndex] =
                 Arrays.copyOf(readsBySampleIndex[sampleIndex], newSampleReadCount);
 
@@ -915,6 +940,7 @@ public final class ReadLikelihoods<A extends Allele> implements SampleList, Alle
         if ( nonRefAlleleIndex < 0) {
             return;
         }
+        invalidateBestAlleles();
         final int alleleCount = alleles.numberOfAlleles();
         final int nonSymbolicAlleleCount = alleleCount - 1;
         // likelihood buffer reused across reads:
@@ -981,20 +1007,32 @@ public final class ReadLikelihoods<A extends Allele> implements SampleList, Alle
     /**
      * Returns the collection of best allele estimates for the reads based on the read-likelihoods.
      *
+     * <p>
+     *     The estimates are computed once and then shared by all callers until the reads, alleles or likelihoods
+     *     change, so that e.g. all the annotations of a site do a single search.
+     * </p>
+     *
      * @throws IllegalStateException if there is no alleles.
      *
-     * @return never {@code null}, one element per read in the read-likelihoods collection.
+     * @return never {@code null}, an unmodifiable collection with one element per read in the read-likelihoods collection.
      */
     public Collection<BestAllele> bestAlleles() {
-        return IntStream.range(0, numberOfSamples()).boxed().flatMap(n -> bestAlleles(n).stream()).collect(Collectors.toList());
+        if (bestAlleles == null) {
+            bestAlleles = Collections.unmodifiableList(IntStream.range(0, numberOfSamples()).boxed().flatMap(n -> bestAlleles(n).stream()).collect(Collectors.toList()));
+        }
+        return bestAlleles;
     }
 
     /**
      * Returns the collection of best allele estimates for one sample's reads based on the read-likelihoods.
      *
+     * <p>
+     *     As with {@link #bestAlleles()}, the estimates are shared by all callers until the sample's data change.
+     * </p>
+     *
      * @throws IllegalStateException if there is no alleles.
      *
-     * @return never {@code null}, one element per read in the read-likelihoods collection.
+     * @return never {@code null}, an unmodifiable collection with one element per read in the read-likelihoods collection.
      */
     public Collection<BestAllele> bestAlleles(final String sample) {
         final int sampleIndex = indexOfSample(sample);
@@ -1010,6 +1048,9 @@ public final class ReadLikelihoods<A extends Allele> implements SampleList, Alle
      */
     private Collection<BestAllele> bestAlleles(final int sampleIndex) {
         Utils.validIndex(sampleIndex, numberOfSamples());
+        if (bestAllelesBySampleIndex[sampleIndex] != null) {
+            return bestAllelesBySampleIndex[sampleIndex];
+        }
 
         final GATKRead[] sampleReads = readsBySampleIndex[sampleIndex];
         final int readCount = sampleReads.length;
@@ -1018,7 +1059,49 @@ public final class ReadLikelihoods<A extends Allele> implements SampleList, Alle
             result.add(searchBestAllele(sampleIndex, r, true));
         }
 
-        return result;
+        return bestAllelesBySampleIndex[sampleIndex] = Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Returns the number of reads of a sample that are informative for each allele, by strand.
+     *
+     * <p>
+     *     The counts are derived from {@link #bestAlleles(String)} and shared in the same way, so that the strand bias
+     *     annotations of a site do not each scan the reads.
+     * </p>
+     *
+     * @throws IllegalStateException if there is no alleles.
+     *
+     * @return never {@code null}, a new array with the forward and reverse strand counts of the allele with index
+     * {@code i} at {@code 2 * i} and {@code 2 * i + 1} respectively.
+     */
+    public int[] informativeStrandCounts(final String sample) {
+        final int sampleIndex = indexOfSample(sample);
+        Utils.validIndex(sampleIndex, numberOfSamples());
+        if (strandCountsBySampleIndex[sampleIndex] == null) {
+            final int[] counts = new int[2 * alleles.numberOfAlleles()];
+            for (final BestAllele bestAllele : bestAlleles(sampleIndex)) {
+                if (bestAllele.isInformative() && bestAllele.alleleIndex != -1) {
+                    counts[2 * bestAllele.alleleIndex + (bestAllele.read.isReverseStrand() ? 1 : 0)]++;
+                }
+            }
+            strandCountsBySampleIndex[sampleIndex] = counts;
+        }
+        return strandCountsBySampleIndex[sampleIndex].clone();
+    }
+
+    // Resets the cached best alleles of all samples.
+    private void invalidateBestAlleles() {
+        Arrays.fill(bestAllelesBySampleIndex, null);
+        Arrays.fill(strandCountsBySampleIndex, null);
+        bestAlleles = null;
+    }
+
+    // Resets the cached best alleles of one sample.
+    private void invalidateBestAlleles(final int sampleIndex) {
+        bestAllelesBySampleIndex[sampleIndex] = null;
+        strandCountsBySampleIndex[sampleIndex] = null;
+        bestAlleles = null;
     }
 
 
@@ -1174,9 +1257,15 @@ public final class ReadLikelihoods<A extends Allele> implements SampleList, Alle
          */
         public final double confidence;
 
+        /**
+         * Index of {@link #allele}, -1 if there is no possible match.
+         */
+        private final int alleleIndex;
+
         private BestAllele(final int sampleIndex, final int readIndex, final int bestAlleleIndex,
                            final double likelihood, final double secondBestLikelihood) {
             allele = bestAlleleIndex == -1 ? null : alleles.getAllele(bestAlleleIndex);
+            alleleIndex = bestAlleleIndex;
             this.likelihood = likelihood;
             sample = samples.getSample(sampleIndex);
             read = readsBySampleIndex[sampleIndex][readIndex];
@@ -1223,6 +1312,7 @@ public final class ReadLikelihoods<A extends Allele> implements SampleList, Alle
         valuesBySampleIndex[sampleIndex] = newSampleValues;
         readsBySampleIndex[sampleIndex] = newSampleReads;
         readListBySampleIndex[sampleIndex] = null; // reset the unmodifiable list.
+        invalidateBestAlleles(sampleIndex);
     }
 
 
@@ -1281,6 +1371,7 @@ public final class ReadLikelihoods<A extends Allele> implements SampleList, Alle
         valuesBySampleIndex[sampleIndex] = newSampleValues;
         readsBySampleIndex[sampleIndex] = newSampleReads;
         readListBySampleIndex[sampleIndex] = null; // reset the unmodifiable list.
+        invalidateBestAlleles(sampleIndex);
     }
 
 
@@ -1322,6 +1413,7 @@ public final class ReadLikelihoods<A extends Allele> implements SampleList, Alle
             Utils.validIndex(alleleIndex, valuesBySampleIndex[sampleIndex].length);
             Utils.validIndex(readIndex, valuesBySampleIndex[sampleIndex][alleleIndex].length);
             valuesBySampleIndex[sampleIndex][alleleIndex][readIndex] = value;
+            invalidateBestAlleles(sampleIndex);
         }
 
         @Override
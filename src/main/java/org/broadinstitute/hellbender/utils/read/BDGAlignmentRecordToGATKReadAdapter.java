@@ -30,11 +30,23 @@ public final class BDGAlignmentRecordToGATKReadAdapter extends SAMRecordToGATKRe
     private final AlignmentRecord alignmentRecord;
 
     public BDGAlignmentRecordToGATKReadAdapter(final AlignmentRecord alignmentRecord, final SAMFileHeader header) {
-        super(new AlignmentRecordConverter().convert(alignmentRecord, SAMFileHeaderWritable.apply(header),
-                RecordGroupDictionary.fromSAMHeader(header)));
+        super(convert(alignmentRecord, header));
         this.alignmentRecord = alignmentRecord;
     }
 
+    private static SAMRecord convert(final AlignmentRecord alignmentRecord, final SAMFileHeader header) {
+        final SAMRecord samRecord = new AlignmentRecordConverter().convert(alignmentRecord, SAMFileHeaderWritable.apply(header),
+                RecordGroupDictionary.fromSAMHeader(header));
+        // records read with a projection may lack their sequence, which SAMRecord represents as "*"
+        if (samRecord.getReadBases() == null) {
+            samRecord.setReadBases(SAMRecord.NULL_SEQUENCE);
+        }
+        if (samRecord.getBaseQualities() == null) {
+            samRecord.setBaseQualities(SAMRecord.NULL_QUALS);
+        }
+        return samRecord;
+    }
+
     public static GATKRead sparkReadAdapter(final AlignmentRecord record, final SAMFileHeader header) {
         return new BDGAlignmentRecordToGATKReadAdapter(record, header);
     }
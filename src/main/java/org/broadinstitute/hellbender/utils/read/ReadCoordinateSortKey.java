@@ -0,0 +1,95 @@
+package org.broadinstitute.hellbender.utils.read;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A compact key for sorting reads by coordinate, which can be compared without a header or the reads themselves.
+ *
+ * The reference index, start position and strand of a read are packed into a single long, with unplaced reads
+ * after all the others. Reads that tie on these are ordered by {@link ReadCoordinateComparator} and
+ * {@link HeaderlessSAMRecordCoordinateComparator} by name (among other things), so the name of unplaced reads is kept
+ * as a tie-breaker: this spreads them over many distinct keys, instead of giving them all the same key. Reads with the
+ * same key still have to be ordered by the full comparator, but there are very few of them.
+ *
+ * The ordering of the keys is consistent with both comparators: if a comparator orders two reads strictly, their keys
+ * are either equal or ordered the same way.
+ */
+public final class ReadCoordinateSortKey implements Comparable<ReadCoordinateSortKey>, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // unplaced reads sort after the reads on any contig
+    private static final long UNPLACED_REFERENCE_INDEX = Integer.MAX_VALUE;
+
+    private final long coordinate;
+    private final String unplacedReadName;
+
+    private ReadCoordinateSortKey(final int referenceIndex, final int start, final boolean isReverseStrand, final String name) {
+        final boolean unplaced = referenceIndex == -1;
+        this.coordinate = ((unplaced ? UNPLACED_REFERENCE_INDEX : referenceIndex) << 32) |
+                (unplaced ? 0L : (long) start << 1) |
+                (isReverseStrand ? 1L : 0L);
+        this.unplacedReadName = unplaced ? name : null;
+    }
+
+    /**
+     * @return the key of a read in the ordering of {@link ReadCoordinateComparator}
+     */
+    public static ReadCoordinateSortKey of(final GATKRead read, final SAMFileHeader header) {
+        return new ReadCoordinateSortKey(ReadUtils.getAssignedReferenceIndex(read, header), read.getAssignedStart(), read.isReverseStrand(), read.getName());
+    }
+
+    /**
+     * @return the key of a headerless record in the ordering of {@link HeaderlessSAMRecordCoordinateComparator}
+     */
+    public static ReadCoordinateSortKey of(final SAMRecord record, final SAMFileHeader header) {
+        return new ReadCoordinateSortKey(header.getSequenceIndex(record.getReferenceName()), record.getAlignmentStart(), record.getReadNegativeStrandFlag(), record.getReadName());
+    }
+
+    /**
+     * @return the smallest key of the reads that start at a locus, for splitting keys into ranges
+     */
+    public static ReadCoordinateSortKey ofLocus(final int referenceIndex, final int start) {
+        Utils.validateArg(referenceIndex >= 0, () -> "invalid reference index " + referenceIndex);
+        return new ReadCoordinateSortKey(referenceIndex, start, false, null);
+    }
+
+    @Override
+    public int compareTo(final ReadCoordinateSortKey other) {
+        final int result = Long.compare(coordinate, other.coordinate);
+        if ( result != 0 || Objects.equals(unplacedReadName, other.unplacedReadName) ) {
+            return result;
+        }
+        // unplaced reads without a name go first, which the comparators leave unspecified
+        if ( unplacedReadName == null || other.unplacedReadName == null ) {
+            return unplacedReadName == null ? -1 : 1;
+        }
+        return unplacedReadName.compareTo(other.unplacedReadName);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if ( this == o ) {
+            return true;
+        }
+        if ( o == null || getClass() != o.getClass() ) {
+            return false;
+        }
+        final ReadCoordinateSortKey that = (ReadCoordinateSortKey) o;
+        return coordinate == that.coordinate && Objects.equals(unplacedReadName, that.unplacedReadName);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(coordinate) + Objects.hashCode(unplacedReadName);
+    }
+
+    @Override
+    public String toString() {
+        return "ReadCoordinateSortKey{" + Long.toHexString(coordinate) + (unplacedReadName == null ? "" : ", " + unplacedReadName) + "}";
+    }
+}
@@ -1148,6 +1148,16 @@ public final class ReadUtils {
         return read.isSecondaryAlignment() || read.isSupplementaryAlignment() || read.isUnmapped();
     }
 
+    /**
+     * @param header header of a SAM/BAM file
+     * @return true if the header declares that the reads with the same name are adjacent, either because they are
+     *         sorted by name or because they are grouped by name (as in the output of an aligner)
+     */
+    public static boolean isReadNameGroupedBam(final SAMFileHeader header) {
+        return SAMFileHeader.SortOrder.queryname.equals(header.getSortOrder()) ||
+                SAMFileHeader.GroupOrder.query.equals(header.getGroupOrder());
+    }
+
     /**
      * is this base inside the adaptor of the read?
      *
@@ -0,0 +1,159 @@
+package org.broadinstitute.hellbender.utils.read;
+
+import htsjdk.samtools.Chunk;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.seqdoop.hadoop_bam.SplittingBAMIndex;
+import org.seqdoop.hadoop_bam.SplittingBAMIndexer;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Utilities for Hadoop-BAM splitting indexes ({@code .splitting-bai} files), which record the virtual file offset of
+ * every n-th read of a BAM. These offsets are exact record boundaries, so a BAM can be split at them without guessing,
+ * both by Hadoop-BAM when loading reads in Spark and by local traversals that read a BAM with several threads.
+ */
+public final class SplittingIndexUtils {
+    private static final Logger logger = LogManager.getLogger(SplittingIndexUtils.class);
+
+    private SplittingIndexUtils() {}
+
+    /**
+     * @return the path of the splitting index for the given BAM, which is where Hadoop-BAM looks for it
+     */
+    public static Path getSplittingIndexPath(final Path bam) {
+        Utils.nonNull(bam);
+        return bam.resolveSibling(bam.getFileName().toString() + SplittingBAMIndexer.OUTPUT_FILE_EXTENSION);
+    }
+
+    /**
+     * Returns the splitting index cached next to the given BAM, creating it first if it doesn't exist or is older
+     * than the BAM. Creating the index requires reading the whole BAM. If the index can't be written next to the BAM
+     * (e.g. because the directory is read-only) it is only kept in memory.
+     *
+     * @param bam the BAM file, may not be null
+     * @param granularity number of reads between consecutive entries of the index, if it has to be created
+     * @return the splitting index of the BAM
+     */
+    public static SplittingBAMIndex getOrCreateSplittingIndex(final Path bam, final int granularity) {
+        Utils.nonNull(bam);
+        Utils.validateArg(granularity > 0, "granularity must be positive");
+        final Path index = getSplittingIndexPath(bam);
+        if (isUpToDate(bam, index)) {
+            try (final InputStream in = new BufferedInputStream(Files.newInputStream(index))) {
+                return new SplittingBAMIndex(in);
+            } catch (final IOException e) {
+                throw new UserException.CouldNotReadInputFile(index, e);
+            }
+        }
+
+        final byte[] bytes = createAndWriteSplittingIndex(bam, index, granularity);
+        try {
+            return new SplittingBAMIndex(new ByteArrayInputStream(bytes));
+        } catch (final IOException e) {
+            throw new UserException.CouldNotReadInputFile(bam, e);
+        }
+    }
+
+    /**
+     * Creates the splitting index next to the given BAM if it doesn't exist or is older than the BAM, e.g. so that
+     * Hadoop-BAM finds it when loading the reads in Spark. Creating the index requires reading the whole BAM. If the
+     * index can't be written (e.g. because the directory is read-only) there is no index, as before.
+     *
+     * @param bam the BAM file, may not be null
+     * @param granularity number of reads between consecutive entries of the index, if it has to be created
+     */
+    public static void createSplittingIndexIfNecessary(final Path bam, final int granularity) {
+        Utils.nonNull(bam);
+        Utils.validateArg(granularity > 0, "granularity must be positive");
+        final Path index = getSplittingIndexPath(bam);
+        if (!isUpToDate(bam, index)) {
+            createAndWriteSplittingIndex(bam, index, granularity);
+        }
+    }
+
+    private static byte[] createAndWriteSplittingIndex(final Path bam, final Path index, final int granularity) {
+        logger.info("Creating splitting index " + index.toUri());
+        final byte[] bytes = createSplittingIndex(bam, granularity);
+        writeSplittingIndex(index, bytes);
+        return bytes;
+    }
+
+    /**
+     * @return true if the index exists and was modified after the BAM
+     */
+    private static boolean isUpToDate(final Path bam, final Path index) {
+        try {
+            return Files.exists(index) && Files.getLastModifiedTime(index).compareTo(Files.getLastModifiedTime(bam)) >= 0;
+        } catch (final IOException e) {
+            return false;
+        }
+    }
+
+    private static byte[] createSplittingIndex(final Path bam, final int granularity) {
+        try (final InputStream in = new BufferedInputStream(Files.newInputStream(bam))) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            SplittingBAMIndexer.index(in, out, Files.size(bam), granularity);
+            return out.toByteArray();
+        } catch (final IOException e) {
+            throw new UserException.CouldNotReadInputFile(bam, "Couldn't create splitting index", e);
+        }
+    }
+
+    /**
+     * Writes the index to a temporary file which then replaces the index, so that concurrent readers never see a
+     * partial index, atomically where the file system supports it. Failures are not fatal since the index can be
+     * recreated.
+     */
+    private static void writeSplittingIndex(final Path index, final byte[] bytes) {
+        final Path temp = index.resolveSibling(index.getFileName().toString() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            Files.write(temp, bytes);
+            try {
+                Files.move(temp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(temp, index, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (final IOException | UnsupportedOperationException e) {
+            logger.warn("Couldn't write splitting index " + index.toUri() + ", it will only be kept in memory: " + e.getMessage());
+            try {
+                Files.deleteIfExists(temp);
+            } catch (final IOException | UnsupportedOperationException ignored) {
+                // the temporary file was most likely never created
+            }
+        }
+    }
+
+    /**
+     * Splits a BAM at the entries of its splitting index. Each split is the range of virtual file offsets between
+     * two consecutive entries, so it starts at the first record of the split and ends (exclusively) at the first
+     * record of the next one.
+     *
+     * @param index the splitting index of the BAM, may not be null
+     * @return the splits, in file order
+     */
+    public static List<Chunk> getSplits(final SplittingBAMIndex index) {
+        Utils.nonNull(index);
+        final List<Long> offsets = index.getVirtualOffsets();
+        final List<Chunk> splits = new ArrayList<>(Math.max(offsets.size() - 1, 0));
+        for (int i = 0; i < offsets.size() - 1; i++) {
+            if (offsets.get(i) < offsets.get(i + 1)) {
+                splits.add(new Chunk(offsets.get(i), offsets.get(i + 1)));
+            }
+        }
+        return splits;
+    }
+}
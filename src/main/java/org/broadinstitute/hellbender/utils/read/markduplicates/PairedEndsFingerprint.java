@@ -0,0 +1,233 @@
+package org.broadinstitute.hellbender.utils.read.markduplicates;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFlag;
+import htsjdk.samtools.SAMRecord;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadCoordinateComparator;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+
+import java.util.Comparator;
+
+/**
+ * The part of a {@link PairedEnds} that is needed to decide which reads are duplicates, without the reads themselves.
+ *
+ * The reads are identified by an index, which the caller uses to apply the decisions back to them. A fingerprint
+ * keeps the score of the pair (or of the fragment), the orientation of the pair, the fields of its first read that
+ * {@link ReadCoordinateComparator} uses to break ties between equal scores, and the location of the read on the flowcell
+ * for finding optical duplicates.
+ */
+public final class PairedEndsFingerprint implements OpticalDuplicateFinder.PhysicalLocation {
+
+    /**
+     * The index of the second read of a fingerprint that has only one read.
+     */
+    public static final long NO_READ = -1L;
+
+    /**
+     * Orders fingerprints as {@link ReadCoordinateComparator} orders their first reads.
+     */
+    public static final Comparator<PairedEndsFingerprint> FIRST_READ_COORDINATE_ORDER = PairedEndsFingerprint::compareFirstReads;
+
+    // package-private for PairedEndsFingerprintCodec
+    final long firstIndex;
+    final long secondIndex;
+    final int score;
+    final boolean hasMappedMate;
+    final byte orientationForOpticalDuplicates;
+
+    // fields of the first read, in the order ReadCoordinateComparator compares them
+    final int referenceIndex;
+    final int start;
+    final String name;
+    final int flags;
+    final int mappingQuality;
+    final int mateReferenceIndex;
+    final int mateStart;
+    final int fragmentLength;
+
+    // Information used to detect optical dupes
+    public short readGroup = -1;
+    public short tile = -1;
+    public short x = -1, y = -1;
+    public short libraryId = -1;
+
+    private PairedEndsFingerprint(final GATKRead first, final long firstIndex, final long secondIndex, final int score,
+                                  final byte orientationForOpticalDuplicates, final SAMFileHeader header) {
+        this.firstIndex = firstIndex;
+        this.secondIndex = secondIndex;
+        this.score = score;
+        this.hasMappedMate = ReadUtils.readHasMappedMate(first);
+        this.orientationForOpticalDuplicates = orientationForOpticalDuplicates;
+        this.referenceIndex = ReadUtils.getAssignedReferenceIndex(first, header);
+        this.start = first.getAssignedStart();
+        this.name = first.getName();
+        this.flags = ReadUtils.getSAMFlagsForRead(first);
+        this.mappingQuality = first.getMappingQuality();
+        this.mateReferenceIndex = first.isPaired() ? ReadUtils.getMateReferenceIndex(first, header) : SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX;
+        this.mateStart = first.isPaired() ? first.getMateStart() : 0;
+        this.fragmentLength = first.getFragmentLength();
+    }
+
+    /**
+     * Makes a fingerprint from its fields, e.g. when reading it back from a file.
+     */
+    PairedEndsFingerprint(final long firstIndex, final long secondIndex, final int score, final boolean hasMappedMate,
+                          final byte orientationForOpticalDuplicates, final int referenceIndex, final int start,
+                          final String name, final int flags, final int mappingQuality, final int mateReferenceIndex,
+                          final int mateStart, final int fragmentLength) {
+        this.firstIndex = firstIndex;
+        this.secondIndex = secondIndex;
+        this.score = score;
+        this.hasMappedMate = hasMappedMate;
+        this.orientationForOpticalDuplicates = orientationForOpticalDuplicates;
+        this.referenceIndex = referenceIndex;
+        this.start = start;
+        this.name = name;
+        this.flags = flags;
+        this.mappingQuality = mappingQuality;
+        this.mateReferenceIndex = mateReferenceIndex;
+        this.mateStart = mateStart;
+        this.fragmentLength = fragmentLength;
+    }
+
+    /**
+     * Makes the fingerprint of a single read, scored on its own.
+     *
+     * @param read the read
+     * @param index the index of the read
+     */
+    public static PairedEndsFingerprint ofFragment(final GATKRead read, final long index, final SAMFileHeader header,
+                                                   final MarkDuplicatesScoringStrategy scoringStrategy) {
+        Utils.nonNull(read);
+        return new PairedEndsFingerprint(read, index, NO_READ, scoringStrategy.score(read), (byte) -1, header);
+    }
+
+    /**
+     * Makes the fingerprint of a pair, which may be missing its second read.
+     *
+     * @param pair the pair
+     * @param firstIndex the index of {@link PairedEnds#first()}
+     * @param secondIndex the index of {@link PairedEnds#second()}, or {@link #NO_READ} if the pair doesn't have one
+     */
+    public static PairedEndsFingerprint ofPair(final PairedEnds pair, final long firstIndex, final long secondIndex,
+                                               final SAMFileHeader header, final MarkDuplicatesScoringStrategy scoringStrategy) {
+        Utils.nonNull(pair);
+        Utils.validateArg((pair.second() == null) == (secondIndex == NO_READ), "the second index must be given if and only if the pair has a second read");
+        if (pair.second() == null) {
+            // an incomplete pair is never scored
+            return new PairedEndsFingerprint(pair.first(), firstIndex, NO_READ, 0, (byte) -1, header);
+        }
+        return new PairedEndsFingerprint(pair.first(), firstIndex, secondIndex, pair.score(scoringStrategy),
+                pair.getOrientationForOpticalDuplicates(), header);
+    }
+
+    public long getFirstIndex() {
+        return firstIndex;
+    }
+
+    public long getSecondIndex() {
+        return secondIndex;
+    }
+
+    public boolean hasSecond() {
+        return secondIndex != NO_READ;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return whether the first read is paired and has a mapped mate
+     */
+    public boolean hasMappedMate() {
+        return hasMappedMate;
+    }
+
+    /**
+     * @return the name of the first read, which is also the name of the second
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @see PairedEnds#getOrientationForOpticalDuplicates()
+     */
+    public byte getOrientationForOpticalDuplicates() {
+        return orientationForOpticalDuplicates;
+    }
+
+    private static int compareFirstReads(final PairedEndsFingerprint first, final PairedEndsFingerprint second) {
+        // same as ReadCoordinateComparator.compareCoordinates
+        if ( first.referenceIndex == -1 ) {
+            if ( second.referenceIndex != -1 ) {
+                return 1;
+            }
+        } else if ( second.referenceIndex == -1 ) {
+            return -1;
+        } else {
+            final int refIndexDifference = first.referenceIndex - second.referenceIndex;
+            if ( refIndexDifference != 0 ) {
+                return refIndexDifference;
+            }
+            final int result = Integer.compare(first.start, second.start);
+            if ( result != 0 ) {
+                return result;
+            }
+        }
+
+        final boolean firstIsReverseStrand = (first.flags & SAMFlag.READ_REVERSE_STRAND.intValue()) != 0;
+        final boolean secondIsReverseStrand = (second.flags & SAMFlag.READ_REVERSE_STRAND.intValue()) != 0;
+        if ( firstIsReverseStrand != secondIsReverseStrand ) {
+            return firstIsReverseStrand ? 1 : -1;
+        }
+        if ( first.name != null && second.name != null ) {
+            final int result = first.name.compareTo(second.name);
+            if ( result != 0 ) { return result; }
+        }
+        int result = Integer.compare(first.flags, second.flags);
+        if ( result != 0 ) { return result; }
+        result = Integer.compare(first.mappingQuality, second.mappingQuality);
+        if ( result != 0 ) { return result; }
+        if ( (first.flags & second.flags & SAMFlag.READ_PAIRED.intValue()) != 0 ) {
+            result = Integer.compare(first.mateReferenceIndex, second.mateReferenceIndex);
+            if ( result != 0 ) { return result; }
+            result = Integer.compare(first.mateStart, second.mateStart);
+            if ( result != 0 ) { return result; }
+        }
+        return Integer.compare(first.fragmentLength, second.fragmentLength);
+    }
+
+    @Override
+    public short getReadGroup() { return this.readGroup; }
+
+    @Override
+    public void setReadGroup(final short readGroup) { this.readGroup = readGroup; }
+
+    @Override
+    public short getTile() { return this.tile; }
+
+    @Override
+    public void setTile(final short tile) { this.tile = tile; }
+
+    @Override
+    public short getX() { return this.x; }
+
+    @Override
+    public void setX(final short x) { this.x = x; }
+
+    @Override
+    public short getY() { return this.y; }
+
+    @Override
+    public void setY(final short y) { this.y = y; }
+
+    @Override
+    public short getLibraryId() { return this.libraryId; }
+
+    @Override
+    public void setLibraryId(final short libraryId) { this.libraryId = libraryId; }
+}
@@ -0,0 +1,88 @@
+package org.broadinstitute.hellbender.utils.read.markduplicates;
+
+import htsjdk.samtools.util.SortingCollection;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import scala.Tuple2;
+
+import java.io.*;
+
+/**
+ * Codec for {@link PairedEndsFingerprint}s keyed by the key of their {@link PairedEnds}, which just outputs the key and
+ * the primitive fields and reads them back, so that the fingerprints can be sorted by key on disk.
+ */
+public final class PairedEndsFingerprintCodec implements SortingCollection.Codec<Tuple2<String, PairedEndsFingerprint>> {
+    private DataInputStream in;
+    private DataOutputStream out;
+
+    /**
+     * For an explanation of why codecs must implement clone(),
+     * see the HTSJDK documentation for {@link SortingCollection.Codec}.
+     */
+    @Override
+    public PairedEndsFingerprintCodec clone() {
+        return new PairedEndsFingerprintCodec();
+    }
+
+    @Override
+    public void setOutputStream(final OutputStream os) { this.out = new DataOutputStream(os); }
+
+    @Override
+    public void setInputStream(final InputStream is) { this.in = new DataInputStream(is); }
+
+    @Override
+    public void encode(final Tuple2<String, PairedEndsFingerprint> keyedFingerprint) {
+        final PairedEndsFingerprint fingerprint = keyedFingerprint._2();
+        try {
+            this.out.writeUTF(keyedFingerprint._1());
+            this.out.writeLong(fingerprint.firstIndex);
+            this.out.writeLong(fingerprint.secondIndex);
+            this.out.writeInt(fingerprint.score);
+            this.out.writeBoolean(fingerprint.hasMappedMate);
+            this.out.writeByte(fingerprint.orientationForOpticalDuplicates);
+            this.out.writeInt(fingerprint.referenceIndex);
+            this.out.writeInt(fingerprint.start);
+            this.out.writeUTF(fingerprint.name);
+            this.out.writeInt(fingerprint.flags);
+            this.out.writeInt(fingerprint.mappingQuality);
+            this.out.writeInt(fingerprint.mateReferenceIndex);
+            this.out.writeInt(fingerprint.mateStart);
+            this.out.writeInt(fingerprint.fragmentLength);
+
+            this.out.writeShort(fingerprint.readGroup);
+            this.out.writeShort(fingerprint.tile);
+            this.out.writeShort(fingerprint.x);
+            this.out.writeShort(fingerprint.y);
+            this.out.writeShort(fingerprint.libraryId);
+        } catch (final IOException ioe) {
+            throw new GATKException("Exception writing PairedEndsFingerprint to file.", ioe);
+        }
+    }
+
+    @Override
+    public Tuple2<String, PairedEndsFingerprint> decode() {
+        try {
+            // If the first read results in an EOF we've exhausted the stream
+            final String key;
+            try {
+                key = this.in.readUTF();
+            } catch (final EOFException eof) {
+                return null;
+            }
+
+            final PairedEndsFingerprint fingerprint = new PairedEndsFingerprint(this.in.readLong(), this.in.readLong(),
+                    this.in.readInt(), this.in.readBoolean(), this.in.readByte(), this.in.readInt(), this.in.readInt(),
+                    this.in.readUTF(), this.in.readInt(), this.in.readInt(), this.in.readInt(), this.in.readInt(),
+                    this.in.readInt());
+
+            fingerprint.readGroup = this.in.readShort();
+            fingerprint.tile = this.in.readShort();
+            fingerprint.x = this.in.readShort();
+            fingerprint.y = this.in.readShort();
+            fingerprint.libraryId = this.in.readShort();
+
+            return new Tuple2<>(key, fingerprint);
+        } catch (final IOException ioe) {
+            throw new GATKException("Exception reading PairedEndsFingerprint from file.", ioe);
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package org.broadinstitute.hellbender.utils.spark;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SAMSequenceRecord;
@@ -12,6 +16,7 @@ import org.apache.commons.io.FileUtils;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.log4j.Logger;
+import org.apache.spark.Partitioner;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
@@ -24,7 +29,11 @@ import scala.Tuple2;
 
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
 
 /**
  * Miscellaneous Spark-related utilities
@@ -121,6 +130,11 @@ public final class SparkUtils {
 
     /**
      * Sorts the given reads in coordinate sort order.
+     *
+     * The reads are shuffled with a compact {@link ReadCoordinateSortKey} rather than as keys themselves, so that the
+     * range partitioner only samples the keys, and the shuffle only compares them. The few reads that share a key are
+     * then ordered with a {@link ReadCoordinateComparator} within their partition.
+     *
      * @param reads the reads to sort
      * @param header the reads header, which must specify coordinate sort order
      * @param numReducers the number of reducers to use; a value of 0 means use the default number of reducers
@@ -129,19 +143,28 @@ public final class SparkUtils {
     public static JavaRDD<GATKRead> coordinateSortReads(final JavaRDD<GATKRead> reads, final SAMFileHeader header, final int numReducers) {
         Utils.validate(header.getSortOrder().equals(SAMFileHeader.SortOrder.coordinate), "Header must specify coordinate sort order, but was" + header.getSortOrder());
 
-        // Turn into key-value pairs so we can sort (by key). Values are null so there is no overhead in the amount
-        // of data going through the shuffle.
-        final JavaPairRDD<GATKRead, Void> rddReadPairs = reads.mapToPair(read -> new Tuple2<>(read, (Void) null));
+        final JavaPairRDD<ReadCoordinateSortKey, GATKRead> keyedReads = reads.mapToPair(read -> new Tuple2<>(ReadCoordinateSortKey.of(read, header), read));
+        return sortByCoordinateKey(keyedReads, new ReadCoordinateComparator(header), numReducers);
+    }
+
+    /**
+     * Sorts the given reads in coordinate sort order, into the partitions chosen by a partitioner, as
+     * {@link #coordinateSortReads(JavaRDD, SAMFileHeader, int)} does into partitions of about the same number of reads.
+     *
+     * @param reads the reads to sort
+     * @param header the reads header, which must specify coordinate sort order
+     * @param rangePartitioner partitioner of {@link ReadCoordinateSortKey}s, which must put smaller keys in partitions
+     *                         with smaller indices
+     * @return a sorted RDD of reads
+     */
+    public static JavaRDD<GATKRead> coordinateSortReads(final JavaRDD<GATKRead> reads, final SAMFileHeader header, final Partitioner rangePartitioner) {
+        Utils.validate(header.getSortOrder().equals(SAMFileHeader.SortOrder.coordinate), "Header must specify coordinate sort order, but was" + header.getSortOrder());
+        Utils.nonNull(rangePartitioner);
 
-        // do a total sort so that all the reads in partition i are less than those in partition i+1
         final Comparator<GATKRead> comparator = new ReadCoordinateComparator(header);
-        final JavaPairRDD<GATKRead, Void> readVoidPairs;
-        if (numReducers > 0) {
-            readVoidPairs = rddReadPairs.sortByKey(comparator, true, numReducers);
-        } else {
-            readVoidPairs = rddReadPairs.sortByKey(comparator);
-        }
-        return readVoidPairs.keys();
+        return reads.mapToPair(read -> new Tuple2<>(ReadCoordinateSortKey.of(read, header), read))
+                .repartitionAndSortWithinPartitions(rangePartitioner)
+                .mapPartitions(iter -> sortReadsWithEqualKeys(iter, comparator));
     }
 
     /**
@@ -152,6 +175,12 @@ public final class SparkUtils {
      * @return a sorted RDD of reads
      */
     public static JavaRDD<SAMRecord> sortReads(final JavaRDD<SAMRecord> reads, final SAMFileHeader header, final int numReducers) {
+        if (header.getSortOrder() == SAMFileHeader.SortOrder.coordinate) {
+            // sort on compact keys, see coordinateSortReads
+            final JavaPairRDD<ReadCoordinateSortKey, SAMRecord> keyedReads = reads.mapToPair(read -> new Tuple2<>(ReadCoordinateSortKey.of(read, header), read));
+            return sortByCoordinateKey(keyedReads, new HeaderlessSAMRecordCoordinateComparator(header), numReducers);
+        }
+
         // Turn into key-value pairs so we can sort (by key). Values are null so there is no overhead in the amount
         // of data going through the shuffle.
         final JavaPairRDD<SAMRecord, Void> rddReadPairs = reads.mapToPair(read -> new Tuple2<>(read, (Void) null));
@@ -169,6 +198,50 @@ public final class SparkUtils {
         return readVoidPairs.keys();
     }
 
+    /**
+     * Does a total sort of keyed reads by key, so that all the reads in partition i are less than those in partition
+     * i+1, then orders the reads that share a key with the given comparator, with which the keys must be consistent.
+     */
+    private static <T> JavaRDD<T> sortByCoordinateKey(final JavaPairRDD<ReadCoordinateSortKey, T> keyedReads,
+                                                      final Comparator<T> comparator, final int numReducers) {
+        final JavaPairRDD<ReadCoordinateSortKey, T> sortedReads = numReducers > 0 ? keyedReads.sortByKey(true, numReducers) : keyedReads.sortByKey();
+        // equal keys always end up in the same partition
+        return sortedReads.mapPartitions(iter -> sortReadsWithEqualKeys(iter, comparator));
+    }
+
+    /**
+     * Orders the runs of reads that share a key with a comparator, given reads sorted by key.
+     */
+    @VisibleForTesting
+    static <T> Iterator<T> sortReadsWithEqualKeys(final Iterator<Tuple2<ReadCoordinateSortKey, T>> sortedReads, final Comparator<T> comparator) {
+        final PeekingIterator<Tuple2<ReadCoordinateSortKey, T>> reads = Iterators.peekingIterator(sortedReads);
+        return new AbstractIterator<T>() {
+            private Iterator<T> run = Collections.emptyIterator();
+
+            @Override
+            protected T computeNext() {
+                if (run.hasNext()) {
+                    return run.next();
+                }
+                if (!reads.hasNext()) {
+                    return endOfData();
+                }
+                final Tuple2<ReadCoordinateSortKey, T> first = reads.next();
+                if (!reads.hasNext() || !reads.peek()._1().equals(first._1())) {
+                    return first._2();
+                }
+                final List<T> tiedReads = new ArrayList<>();
+                tiedReads.add(first._2());
+                while (reads.hasNext() && reads.peek()._1().equals(first._1())) {
+                    tiedReads.add(reads.next()._2());
+                }
+                tiedReads.sort(comparator);
+                run = tiedReads.iterator();
+                return run.next();
+            }
+        };
+    }
+
     //Returns the comparator to use or null if no sorting is required.
     private static Comparator<SAMRecord> getSAMRecordComparator(final SAMFileHeader header) {
         switch (header.getSortOrder()){
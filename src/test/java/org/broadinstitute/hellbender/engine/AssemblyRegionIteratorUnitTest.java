@@ -11,12 +11,14 @@ import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.HaplotypeCall
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.HaplotypeCallerEngine;
 import org.broadinstitute.hellbender.utils.IntervalUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.activityprofile.ActivityProfileState;
 import org.broadinstitute.hellbender.utils.fasta.CachingIndexedFastaSequenceFile;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.broadinstitute.hellbender.utils.pileup.PileupElement;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadCoordinateComparator;
+import org.broadinstitute.hellbender.utils.reference.ReferenceBases;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -193,4 +195,48 @@ public class AssemblyRegionIteratorUnitTest extends GATKBaseTest {
             }
         }
     }
+
+    /*
+     * With includeUncoveredLoci and includeReadsWithDeletionsInIsActivePileups both false, the AssemblyRegionIterator
+     * must produce the same assembly regions, with the same reads, as AssemblyRegion.createFromReadShard, which it
+     * replaces in the Spark tools. The shard starts before the reads, so that it has uncovered loci.
+     */
+    @Test
+    public void testCoveredLociMatchCreateFromReadShard() {
+        final String reads = publicTestDir + "org/broadinstitute/hellbender/tools/BQSR/CEUTrio.HiSeq.WGS.b37.ch20.1m-1m1k.NA12878.bam";
+        final SimpleInterval shardInterval = new SimpleInterval("20", 999500, 1000500);
+        final int shardPadding = 100;
+        // an artificial evaluator, so that the reference bases do not matter
+        final AssemblyRegionEvaluator evaluator = (locusPileup, referenceContext, featureContext) -> {
+            final long thymines = locusPileup.getBasePileup().getBaseCounts()[3];
+            return new ActivityProfileState(new SimpleInterval(locusPileup), thymines * 2 > locusPileup.size() ? 1.0 : 0.0);
+        };
+
+        try ( final ReadsDataSource readsSource = new ReadsDataSource(IOUtils.getPath(reads)) ) {
+            final SAMSequenceDictionary readsDictionary = readsSource.getSequenceDictionary();
+            final SimpleInterval paddedInterval = shardInterval.expandWithinContig(shardPadding, readsDictionary);
+            final ReferenceDataSource refSource = new ReferenceMemorySource(new ReferenceBases(
+                    Utils.repeatChars('A', paddedInterval.size()), paddedInterval), readsDictionary);
+            final ReadFilter readFilter = CountingReadFilter.fromList(Arrays.asList(new WellformedReadFilter(), new ReadFilterLibrary.MappedReadFilter()), readsSource.getHeader());
+
+            final LocalReadShard shard = new LocalReadShard(shardInterval, paddedInterval, readsSource);
+            shard.setReadFilter(readFilter);
+            final List<AssemblyRegion> expectedRegions = Lists.newArrayList(AssemblyRegion.createFromReadShard(shard, readsSource.getHeader(),
+                    new ReferenceContext(refSource, paddedInterval), new FeatureContext(null, paddedInterval), evaluator, 50, 300, 100, 0.002, 50));
+
+            final MultiIntervalLocalReadShard readShard = new MultiIntervalLocalReadShard(Arrays.asList(paddedInterval), 0, readsSource);
+            readShard.setReadFilter(readFilter);
+            final List<AssemblyRegion> actualRegions = Lists.newArrayList(new AssemblyRegionIterator(readShard, readsSource.getHeader(),
+                    refSource, null, evaluator, 50, 300, 100, 0.002, 50, false, false));
+
+            Assert.assertTrue(expectedRegions.size() > 1, "too few regions to compare");
+            Assert.assertTrue(expectedRegions.get(0).getSpan().getStart() > paddedInterval.getStart(), "the shard should start with uncovered loci");
+            Assert.assertEquals(actualRegions.size(), expectedRegions.size());
+            for ( int i = 0; i < expectedRegions.size(); i++ ) {
+                Assert.assertEquals(actualRegions.get(i).getSpan(), expectedRegions.get(i).getSpan());
+                Assert.assertEquals(actualRegions.get(i).isActive(), expectedRegions.get(i).isActive());
+                Assert.assertEquals(actualRegions.get(i).getReads(), expectedRegions.get(i).getReads(), "Wrong reads in region " + expectedRegions.get(i));
+            }
+        }
+    }
 }
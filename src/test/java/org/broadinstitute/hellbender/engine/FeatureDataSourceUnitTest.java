@@ -2,7 +2,10 @@ package org.broadinstitute.hellbender.engine;
 
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.tribble.Feature;
+import htsjdk.tribble.TribbleException;
+import htsjdk.tribble.index.IndexFactory;
 import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFCodec;
 import htsjdk.variant.vcf.VCFFileReader;
 import htsjdk.variant.vcf.VCFHeader;
 import org.apache.commons.lang3.tuple.Pair;
@@ -14,6 +17,8 @@ import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -162,6 +167,97 @@ public final class FeatureDataSourceUnitTest extends GATKBaseTest {
         Assert.assertEquals(recordCount, expectedVariantIDs.size(), "Wrong number of records returned in iteration over " + vcfFile.getAbsolutePath() + intervalString);
     }
 
+    @Test(dataProvider = "TraversalByIntervalsTestData")
+    public void testTraversalByIntervalsWithParallelDecoding( final List<SimpleInterval> intervalsForTraversal, final List<String> expectedVariantIDs ) {
+        try ( FeatureDataSource<VariantContext> featureSource = new FeatureDataSource<>(new FeatureInput<>(QUERY_TEST_VCF.getAbsolutePath()), 0, null, 0, 0, null, 3) ) {
+            featureSource.setIntervalsForTraversal(intervalsForTraversal);
+            Iterator<VariantContext> iter = featureSource.iterator();
+
+            checkTraversalResults(iter, expectedVariantIDs, QUERY_TEST_VCF, intervalsForTraversal);
+        }
+    }
+
+    private static File writeMultiSampleVcf( final int numRecords, final String extraLine ) throws IOException {
+        final File vcf = createTempFile("parallelDecoding", ".vcf");
+        final Random random = new Random(13);
+        try ( final PrintWriter writer = new PrintWriter(vcf) ) {
+            writer.println("##fileformat=VCFv4.2");
+            writer.println("##INFO=<ID=END,Number=1,Type=Integer,Description=\"End\">");
+            writer.println("##INFO=<ID=DP,Number=1,Type=Integer,Description=\"Depth\">");
+            writer.println("##FORMAT=<ID=GT,Number=1,Type=String,Description=\"Genotype\">");
+            writer.println("##FORMAT=<ID=DP,Number=1,Type=Integer,Description=\"Depth\">");
+            writer.println("##FORMAT=<ID=PL,Number=G,Type=Integer,Description=\"Likelihoods\">");
+            writer.println("##contig=<ID=1,length=1000000>");
+            writer.println("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\tS1\tS2\tS3");
+            final String[] genotypes = { "0/0:10:0,30,300", "0/1:7:40,0,40", "1/1:.:.", "./.:0" };
+            for ( int i = 0; i < numRecords; i++ ) {
+                final String info = i % 7 == 0 ? "END=" + (i * 10 + 105) : "DP=" + random.nextInt(100);
+                final String alt = i % 7 == 0 ? "<NON_REF>" : "C";
+                writer.println("1\t" + (i * 10 + 100) + "\trs" + i + "\tA\t" + alt + "\t" + random.nextInt(100) + "\tPASS\t" + info + "\tGT:DP:PL\t" +
+                        genotypes[random.nextInt(4)] + "\t" + genotypes[random.nextInt(4)] + "\t" + genotypes[random.nextInt(4)]);
+                if ( i == numRecords / 2 && extraLine != null ) {
+                    writer.println(extraLine);
+                }
+            }
+        }
+        return vcf;
+    }
+
+    private static List<String> decodeAll( final File vcf, final int decodingThreads ) {
+        return decodeAll(vcf, decodingThreads, null);
+    }
+
+    private static List<String> decodeAll( final File vcf, final int decodingThreads, final List<SimpleInterval> intervals ) {
+        try ( FeatureDataSource<VariantContext> featureSource = new FeatureDataSource<>(new FeatureInput<>(vcf.getAbsolutePath()), 0, null, 0, 0, null, decodingThreads) ) {
+            featureSource.setIntervalsForTraversal(intervals);
+            final List<String> records = new ArrayList<>();
+            featureSource.iterator().forEachRemaining(vc -> records.add(vc.toStringDecodeGenotypes()));
+            return records;
+        }
+    }
+
+    @Test
+    public void testParallelDecodingMatchesSerialDecoding() throws IOException {
+        // enough records for many batches to be decoded concurrently
+        final File vcf = writeMultiSampleVcf(20 * FeatureDataSource.DECODING_BATCH_SIZE + 17, null);
+        final List<String> expected = decodeAll(vcf, 1);
+        Assert.assertEquals(expected.size(), 20 * FeatureDataSource.DECODING_BATCH_SIZE + 17);
+        Assert.assertEquals(decodeAll(vcf, 4), expected);
+
+        // the records are located without being decoded, including those with an END key, when traversing intervals
+        final File indexedVcf = writeMultiSampleVcf(20 * FeatureDataSource.DECODING_BATCH_SIZE + 17, null);
+        IndexFactory.createDynamicIndex(indexedVcf, new VCFCodec()).writeBasedOnFeatureFile(indexedVcf);
+        new File(indexedVcf.getPath() + ".idx").deleteOnExit();
+        final List<SimpleInterval> intervals = Arrays.asList(new SimpleInterval("1", 103, 1003), new SimpleInterval("1", 5002, 9000), new SimpleInterval("1", 15001, 15001));
+        final List<String> expectedOverlapping = decodeAll(indexedVcf, 1, intervals);
+        Assert.assertTrue(expectedOverlapping.size() > 0 && expectedOverlapping.size() < expected.size());
+        Assert.assertEquals(decodeAll(indexedVcf, 4, intervals), expectedOverlapping);
+
+        // BCF and VCF3 inputs are decoded on the traversal thread
+        for ( final String input : Arrays.asList("minimal_bcf_file.bcf", "minimal_vcf3_file.vcf", "minimal_vcf4_file.vcf") ) {
+            final File file = new File(FEATURE_DATA_SOURCE_TEST_DIRECTORY, input);
+            Assert.assertEquals(decodeAll(file, 4), decodeAll(file, 1), input);
+        }
+    }
+
+    @Test
+    public void testParallelDecodingStopsEarly() throws IOException {
+        final File vcf = writeMultiSampleVcf(10 * FeatureDataSource.DECODING_BATCH_SIZE, null);
+        try ( FeatureDataSource<VariantContext> featureSource = new FeatureDataSource<>(new FeatureInput<>(vcf.getAbsolutePath()), 0, null, 0, 0, null, 2) ) {
+            final Iterator<VariantContext> iter = featureSource.iterator();
+            Assert.assertEquals(iter.next().getID(), "rs0");
+            // starting a new traversal closes the previous one, discarding the records decoded ahead
+            final Iterator<VariantContext> secondIter = featureSource.iterator();
+            Assert.assertEquals(secondIter.next().getID(), "rs0");
+            Assert.assertEquals(secondIter.next().getID(), "rs1");
+        }
+    }
+
+    @Test(expectedExceptions = TribbleException.class)
+    public void testParallelDecodingOfMalformedRecord() throws IOException {
+        decodeAll(writeMultiSampleVcf(5 * FeatureDataSource.DECODING_BATCH_SIZE, "1\t1000000\t.\tA\tC\t."), 3);
+    }
+
     @DataProvider(name = "IndependentFeatureQueryTestData")
     public Object[][] getIndependentFeatureQueryTestData() {
         // Query Interval + Expected Variant ID(s)
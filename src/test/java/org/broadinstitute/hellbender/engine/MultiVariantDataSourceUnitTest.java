@@ -161,6 +161,32 @@ public final class MultiVariantDataSourceUnitTest extends GATKBaseTest {
         }
     }
 
+    @Test
+    public void testIteratorOverlappingWithDecodingThreads() {
+        List<FeatureInput<VariantContext>> featureInputs = new ArrayList<>();
+        featureInputs.add(new FeatureInput<>(
+                new File(MULTI_VARIANT_TEST_DIRECTORY, "interleavedVariants_1_WithOverlap.vcf").getAbsolutePath(),
+                "interleavedVariants_1_WithOverlap"));
+        featureInputs.add(new FeatureInput<>(
+                new File(MULTI_VARIANT_TEST_DIRECTORY, "interleavedVariants_2_WithOverlap.vcf").getAbsolutePath(),
+                "interleavedVariants_2_WithOverlap"));
+
+        final List<String> expectedIDs = new ArrayList<>();
+        try (final MultiVariantDataSource multiVariantSource =
+                     new MultiVariantDataSource(featureInputs, FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES)) {
+            multiVariantSource.forEach(vc -> expectedIDs.add(vc.getID()));
+        }
+        try (final MultiVariantDataSource multiVariantSource =
+                     new MultiVariantDataSource(featureInputs, FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES, 0, 0, null, 2)) {
+            // iterate twice to check that re-opening a traversal works
+            for (int i = 0; i < 2; i++) {
+                final List<String> actualIDs = new ArrayList<>();
+                multiVariantSource.forEach(vc -> actualIDs.add(vc.getID()));
+                Assert.assertEquals(actualIDs, expectedIDs);
+            }
+        }
+    }
+
     @Test
     public void testSerialQueries() {
         List<FeatureInput<VariantContext>> featureInputs = new ArrayList<>();
@@ -11,12 +11,15 @@ import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
 import org.broadinstitute.hellbender.utils.read.SAMFileGATKReadWriter;
 import org.broadinstitute.hellbender.utils.read.SAMRecordToGATKReadAdapter;
+import org.broadinstitute.hellbender.utils.read.SplittingIndexUtils;
 import org.broadinstitute.hellbender.GATKBaseTest;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 
@@ -431,6 +434,74 @@ public final class ReadsDataSourceUnitTest extends GATKBaseTest {
         }
     }
 
+    @DataProvider(name = "ParallelDecodingTestData")
+    public Object[][] parallelDecodingTestData() {
+        final Path unmappedBam = IOUtils.getPath(READS_DATA_SOURCE_TEST_DIRECTORY + "reads_data_source_test1_with_unmapped.bam");
+        final Path ceuSnippet = IOUtils.getPath(READS_DATA_SOURCE_TEST_DIRECTORY + "CEUTrio.HiSeq.WGS.b37.NA12878.snippet_with_unmapped.bam");
+        // BAMs, with the granularity of their splitting index and the number of decoding threads
+        return new Object[][] {
+                { unmappedBam, 1, 2 },
+                { unmappedBam, 3, 4 },
+                { unmappedBam, 100, 2 },
+                { ceuSnippet, 2, 3 },
+                { FIRST_TEST_BAM, 4, 2 },
+        };
+    }
+
+    @Test(dataProvider = "ParallelDecodingTestData")
+    public void testParallelDecodingCompleteTraversal( final Path bam, final int granularity, final int decodingThreads ) throws IOException {
+        // copy the BAM so that its splitting index is created next to the copy
+        final Path copy = createTempDir("parallelDecoding").toPath().resolve(bam.getFileName().toString());
+        Files.copy(bam, copy);
+        SplittingIndexUtils.getOrCreateSplittingIndex(copy, granularity);
+
+        final List<String> expected = new ArrayList<>();
+        try (ReadsDataSource readsSource = new ReadsDataSource(bam)) {
+            readsSource.forEach(read -> expected.add(read.convertToSAMRecord(readsSource.getHeader()).getSAMString()));
+        }
+
+        try (ReadsDataSource readsSource = new ReadsDataSource(copy)) {
+            readsSource.setDecodingThreads(decodingThreads);
+            // traverse twice, to make sure that each traversal starts from the beginning
+            for ( int i = 0; i < 2; i++ ) {
+                final List<String> actual = new ArrayList<>();
+                readsSource.forEach(read -> actual.add(read.convertToSAMRecord(readsSource.getHeader()).getSAMString()));
+                Assert.assertEquals(actual, expected);
+            }
+        }
+    }
+
+    @Test
+    public void testParallelDecodingCreatesSplittingIndex() throws IOException {
+        final Path copy = createTempDir("parallelDecoding").toPath().resolve(FIRST_TEST_BAM.getFileName().toString());
+        Files.copy(FIRST_TEST_BAM, copy);
+        Assert.assertFalse(Files.exists(SplittingIndexUtils.getSplittingIndexPath(copy)));
+
+        try (ReadsDataSource readsSource = new ReadsDataSource(copy)) {
+            readsSource.setDecodingThreads(2);
+            final List<String> names = new ArrayList<>();
+            readsSource.forEach(read -> names.add(read.getName()));
+            Assert.assertEquals(names, Arrays.asList("a", "b", "c", "d", "e", "f", "g", "h", "i", "j", "k"));
+        }
+        Assert.assertTrue(Files.exists(SplittingIndexUtils.getSplittingIndexPath(copy)));
+    }
+
+    @Test
+    public void testParallelDecodingDoesNotAffectBoundedTraversal() throws IOException {
+        final Path copy = createTempDir("parallelDecoding").toPath().resolve(FIRST_TEST_BAM.getFileName().toString());
+        Files.copy(FIRST_TEST_BAM, copy);
+        Files.copy(IOUtils.getPath(FIRST_TEST_BAM.toString() + ".bai"), IOUtils.getPath(copy.toString() + ".bai"));
+
+        try (ReadsDataSource readsSource = new ReadsDataSource(copy)) {
+            readsSource.setDecodingThreads(2);
+            readsSource.setTraversalBounds(Arrays.asList(new SimpleInterval("1", 205, 209), new SimpleInterval("3", 400, 410)));
+            final List<String> names = new ArrayList<>();
+            readsSource.forEach(read -> names.add(read.getName()));
+            Assert.assertEquals(names, Arrays.asList("a", "b", "j"));
+        }
+        Assert.assertFalse(Files.exists(SplittingIndexUtils.getSplittingIndexPath(copy)));
+    }
+
     @DataProvider(name = "QueryUnmappedTestData")
     public Object[][] queryUnmappedTestData() {
         return new Object[][] {
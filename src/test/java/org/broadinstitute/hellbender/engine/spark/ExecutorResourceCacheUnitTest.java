@@ -0,0 +1,68 @@
+package org.broadinstitute.hellbender.engine.spark;
+
+import org.apache.spark.api.java.JavaSparkContext;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class ExecutorResourceCacheUnitTest extends GATKBaseTest {
+
+    @Test
+    public void testResourceIsLoadedOnce() {
+        final String key = "test:loaded-once";
+        final AtomicInteger loads = new AtomicInteger();
+        final String first = ExecutorResourceCache.get(key, () -> "resource" + loads.incrementAndGet());
+        final String second = ExecutorResourceCache.get(key, () -> "resource" + loads.incrementAndGet());
+        Assert.assertEquals(first, "resource1");
+        Assert.assertSame(second, first);
+        Assert.assertEquals(loads.get(), 1);
+        Assert.assertTrue(ExecutorResourceCache.contains(key));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testLoaderCannotReturnNull() {
+        ExecutorResourceCache.get("test:null", () -> null);
+    }
+
+    @Test
+    public void testLoadingDoesNotBlockOtherResources() throws InterruptedException {
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch otherResourceLoaded = new CountDownLatch(1);
+        final AtomicBoolean loadedAfterOtherResource = new AtomicBoolean(false);
+        final Thread slowLoad = new Thread(() -> ExecutorResourceCache.get("test:slow", () -> {
+            loading.countDown();
+            try {
+                loadedAfterOtherResource.set(otherResourceLoaded.await(10, TimeUnit.SECONDS));
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "slow";
+        }));
+        slowLoad.start();
+        Assert.assertTrue(loading.await(10, TimeUnit.SECONDS));
+
+        Assert.assertEquals(ExecutorResourceCache.get("test:fast", () -> "fast"), "fast");
+        otherResourceLoaded.countDown();
+        slowLoad.join();
+        Assert.assertTrue(loadedAfterOtherResource.get(), "loading a resource blocked the loading of another one");
+        Assert.assertEquals(ExecutorResourceCache.get("test:slow", () -> "reloaded"), "slow");
+    }
+
+    @Test(groups = "spark")
+    public void testResourceIsSharedByTasks() {
+        final JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
+        final String key = "test:shared";
+        final List<Integer> resources = ctx.parallelize(Arrays.asList(1, 2, 3, 4), 4)
+                .map(i -> System.identityHashCode(ExecutorResourceCache.get(key, Object::new)))
+                .collect();
+        // the test context runs all tasks in this JVM
+        Assert.assertEquals(resources.stream().distinct().count(), 1);
+    }
+}
@@ -1,15 +1,23 @@
 package org.broadinstitute.hellbender.engine.spark;
 
 import com.esotericsoftware.kryo.Kryo;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
 import org.apache.spark.SparkConf;
 import org.apache.spark.serializer.KryoRegistrator;
+import org.broadinstitute.hellbender.GATKBaseTest;
 import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.SAMRecordToGATKReadAdapter;
 import org.broadinstitute.hellbender.utils.test.SparkTestUtils;
 import org.testng.Assert;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.File;
+import java.io.IOException;
+
 public class SAMRecordToGATKReadAdapterSerializerUnitTest {
 
     public static class TestGATKRegistrator implements KryoRegistrator {
@@ -43,4 +51,62 @@ public class SAMRecordToGATKReadAdapterSerializerUnitTest {
         final GATKRead roundTrippedRead2 = SparkTestUtils.roundTripInKryo(read, GATKRead.class, conf);
         Assert.assertEquals(roundTrippedRead2, read);
     }
+
+    @DataProvider(name = "reads")
+    public Object[][] reads() {
+        final GATKRead mateOnSameContig = ArtificialReadUtils.createHeaderlessSamBackedRead("read1", "1", 100, 50);
+        mateOnSameContig.setIsPaired(true);
+        mateOnSameContig.setMatePosition("1", 300);
+        mateOnSameContig.setFragmentLength(-250);
+        mateOnSameContig.setMappingQuality(255);
+
+        final GATKRead mateOnOtherContig = ArtificialReadUtils.createHeaderlessSamBackedRead("read2", "1", 100000, 50);
+        mateOnOtherContig.setIsPaired(true);
+        mateOnOtherContig.setMatePosition("2", 1);
+        mateOnOtherContig.setAttribute("NM", 3);
+        mateOnOtherContig.setAttribute("XS", "some string");
+
+        final GATKRead unmappedMate = ArtificialReadUtils.createHeaderlessSamBackedRead("read3", "1", 100, 50);
+        unmappedMate.setIsPaired(true);
+        unmappedMate.setMateIsUnmapped();
+
+        final GATKRead unmapped = ArtificialReadUtils.createHeaderlessSamBackedRead("read4", "1", 100, 50);
+        final SAMRecord unmappedRecord = ((SAMRecordToGATKReadAdapter) unmapped).getEncapsulatedSamRecord();
+        unmappedRecord.setReadUnmappedFlag(true);
+        unmappedRecord.setReferenceName(SAMRecord.NO_ALIGNMENT_REFERENCE_NAME);
+        unmappedRecord.setAlignmentStart(SAMRecord.NO_ALIGNMENT_START);
+        unmapped.setBaseQualities(new byte[0]);
+
+        return new Object[][] {{mateOnSameContig}, {mateOnOtherContig}, {unmappedMate}, {unmapped}};
+    }
+
+    @Test(dataProvider = "reads")
+    public void testSerializerRoundTripReads(final GATKRead read) {
+        final SparkConf conf = new SparkConf().set("spark.kryo.registrator",
+                "org.broadinstitute.hellbender.engine.spark.SAMRecordToGATKReadAdapterSerializerUnitTest$TestGATKRegistrator");
+        final GATKRead roundTrippedRead = SparkTestUtils.roundTripInKryo(read, GATKRead.class, conf);
+        Assert.assertEquals(roundTrippedRead, read);
+        Assert.assertEquals(roundTrippedRead.getContig(), read.getContig());
+        if (read.isPaired()) {
+            Assert.assertEquals(roundTrippedRead.getMateContig(), read.getMateContig());
+        }
+    }
+
+    @Test
+    public void testSerializerRoundTripReadsFromBAM() throws IOException {
+        final SparkConf conf = new SparkConf().set("spark.kryo.registrator",
+                "org.broadinstitute.hellbender.engine.spark.SAMRecordToGATKReadAdapterSerializerUnitTest$TestGATKRegistrator");
+        final File bam = new File(GATKBaseTest.publicTestDir, "org/broadinstitute/hellbender/engine/CEUTrio.HiSeq.WGS.b37.NA12878.snippet_with_unmapped.bam");
+        int count = 0;
+        try (final SamReader reader = SamReaderFactory.makeDefault().open(bam)) {
+            for (final SAMRecord record : reader) {
+                // the variable-length part of these records is still in its BAM representation
+                final GATKRead read = SAMRecordToGATKReadAdapter.headerlessReadAdapter(record);
+                final GATKRead roundTrippedRead = SparkTestUtils.roundTripInKryo(read, GATKRead.class, conf);
+                Assert.assertEquals(roundTrippedRead, read);
+                count++;
+            }
+        }
+        Assert.assertTrue(count > 0);
+    }
 }
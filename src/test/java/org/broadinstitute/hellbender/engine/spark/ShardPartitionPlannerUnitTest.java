@@ -0,0 +1,152 @@
+package org.broadinstitute.hellbender.engine.spark;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.apache.spark.Partitioner;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.engine.Shard;
+import org.broadinstitute.hellbender.engine.ShardBoundary;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadCoordinateSortKey;
+import org.broadinstitute.hellbender.utils.spark.SparkUtils;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import scala.Tuple2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public final class ShardPartitionPlannerUnitTest extends GATKBaseTest {
+
+    private static final int SHARD_SIZE = 100;
+
+    // two contigs of 1000 bases
+    private static final SAMFileHeader HEADER = ArtificialReadUtils.createArtificialSamHeader(2, 1, 1000);
+
+    private static final byte[] BASES = "ACGTACGTAC".getBytes();
+    private static final byte[] QUALS = new byte[] {30, 30, 30, 30, 30, 30, 30, 30, 30, 30};
+
+    private static List<ShardBoundary> makeShards() {
+        final List<ShardBoundary> shards = new ArrayList<>();
+        for (final String contig : Arrays.asList("1", "2")) {
+            shards.addAll(Shard.divideIntervalIntoShards(new SimpleInterval(contig, 1, 1000), SHARD_SIZE, 10, HEADER.getSequenceDictionary()));
+        }
+        return shards;
+    }
+
+    @DataProvider(name = "costSplits")
+    public Object[][] costSplits() {
+        return new Object[][] {
+                {new double[] {}, 3, new int[] {}},
+                {new double[] {0, 0, 0}, 3, new int[] {}},
+                {new double[] {1, 1, 1, 1}, 1, new int[] {}},
+                {new double[] {1, 1, 1, 1}, 2, new int[] {2}},
+                {new double[] {1, 1, 1, 1}, 4, new int[] {1, 2, 3}},
+                {new double[] {1, 1, 1, 1}, 8, new int[] {1, 2, 3}},
+                // the expensive shard makes up a run on its own
+                {new double[] {1, 1, 10, 1, 1}, 4, new int[] {2, 3}},
+                {new double[] {0, 0, 1, 1, 0, 0}, 2, new int[] {3}},
+        };
+    }
+
+    @Test(dataProvider = "costSplits")
+    public void testSplitShardsByCost(final double[] costs, final int maxRuns, final int[] expected) {
+        Assert.assertEquals(ShardPartitionPlanner.splitShardsByCost(costs, maxRuns), expected);
+    }
+
+    @Test
+    public void testEstimateShardCosts() {
+        final List<ShardBoundary> shards = makeShards();
+        // 4 sampled reads standing for 40 reads, and 2 sampled reads standing for 2 reads
+        final List<Tuple2<Long, List<SimpleInterval>>> samples = Arrays.asList(
+                new Tuple2<>(40L, Arrays.asList(new SimpleInterval("1", 1, 1), new SimpleInterval("1", 50, 50),
+                        new SimpleInterval("1", 100, 100), new SimpleInterval("1", 101, 101))),
+                new Tuple2<>(2L, Arrays.asList(new SimpleInterval("2", 950, 950), new SimpleInterval("2", 1000, 1000))),
+                new Tuple2<>(0L, Collections.emptyList()));
+
+        final double[] costs = ShardPartitionPlanner.estimateShardCosts(shards, HEADER.getSequenceDictionary(), samples);
+        Assert.assertEquals(costs.length, shards.size());
+
+        // 30, 10 and 2 reads in three shards, with a mean of 14
+        final double[] expected = new double[shards.size()];
+        expected[0] = 30 * (1 + 30 / 14.0);
+        expected[1] = 10 * (1 + 10 / 14.0);
+        expected[shards.size() - 1] = 2 * (1 + 2 / 14.0);
+        for (int i = 0; i < costs.length; i++) {
+            Assert.assertEquals(costs[i], expected[i], 1e-9, "shard " + i);
+        }
+    }
+
+    @Test
+    public void testReadRangePartitioner() {
+        final Partitioner partitioner = new ShardPartitionPlanner.ReadRangePartitioner(new ReadCoordinateSortKey[] {
+                ReadCoordinateSortKey.ofLocus(0, 101), ReadCoordinateSortKey.ofLocus(1, 1)});
+        Assert.assertEquals(partitioner.numPartitions(), 3);
+
+        final GATKRead read = ArtificialReadUtils.createArtificialRead(HEADER, "read", 0, 100, 10);
+        Assert.assertEquals(partitioner.getPartition(ReadCoordinateSortKey.of(read, HEADER)), 0);
+        read.setPosition("1", 101);
+        Assert.assertEquals(partitioner.getPartition(ReadCoordinateSortKey.of(read, HEADER)), 1);
+        read.setIsReverseStrand(true);
+        Assert.assertEquals(partitioner.getPartition(ReadCoordinateSortKey.of(read, HEADER)), 1);
+        read.setPosition("2", 1);
+        Assert.assertEquals(partitioner.getPartition(ReadCoordinateSortKey.of(read, HEADER)), 2);
+        read.setIsUnmapped();
+        Assert.assertEquals(partitioner.getPartition(ReadCoordinateSortKey.of(read, HEADER)), 2);
+    }
+
+    @Test(groups = "spark")
+    public void testPlanReadPartitionsIsolatesDeepShards() {
+        final JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
+        final List<GATKRead> reads = new ArrayList<>();
+        int n = 0;
+        // one read every 10 bases on both contigs, and a pile of reads in the shard at 1:501-600
+        for (final String contig : Arrays.asList("1", "2")) {
+            for (int start = 1; start <= 990; start += 10) {
+                reads.add(ArtificialReadUtils.createArtificialRead(HEADER, "read" + n++, contig, start, BASES, QUALS, "10M"));
+            }
+        }
+        for (int i = 0; i < 200; i++) {
+            reads.add(ArtificialReadUtils.createArtificialRead(HEADER, "deep" + i, "1", 550, BASES, QUALS, "10M"));
+        }
+        Collections.shuffle(reads, Utils.getRandomGenerator());
+        final JavaRDD<GATKRead> readsRDD = ctx.parallelize(reads, 4);
+
+        final SAMFileHeader sortedHeader = HEADER.clone();
+        sortedHeader.setSortOrder(SAMFileHeader.SortOrder.coordinate);
+        final List<ShardBoundary> shards = makeShards();
+        final Partitioner partitioner = ShardPartitionPlanner.planReadPartitions(readsRDD, sortedHeader, shards, 4, 50);
+        Assert.assertTrue(partitioner.numPartitions() > 1 && partitioner.numPartitions() <= 4);
+
+        final JavaRDD<GATKRead> sortedReads = SparkUtils.coordinateSortReads(readsRDD, sortedHeader, partitioner);
+        Assert.assertEquals(sortedReads.getNumPartitions(), partitioner.numPartitions());
+        final List<String> expectedNames = SparkUtils.coordinateSortReads(readsRDD, sortedHeader, 3).map(GATKRead::getName).collect();
+        Assert.assertEquals(sortedReads.map(GATKRead::getName).collect(), expectedNames);
+
+        // the deep shard gets a partition of its own, which starts at a shard boundary
+        final List<List<GATKRead>> partitions = sortedReads.glom().collect();
+        final List<GATKRead> deepPartition = partitions.stream()
+                .filter(partition -> partition.stream().anyMatch(read -> read.getName().startsWith("deep")))
+                .collect(Collectors.toList()).get(0);
+        Assert.assertTrue(deepPartition.stream().allMatch(read -> read.getContig().equals("1") && read.getStart() > 500 && read.getStart() <= 600),
+                deepPartition.get(0) + " - " + deepPartition.get(deepPartition.size() - 1));
+    }
+
+    @Test(groups = "spark")
+    public void testLogPartitionTimes() {
+        final JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
+        final List<Integer> numbers = Arrays.asList(1, 2, 3, 4, 5, 6, 7);
+        final JavaRDD<Integer> rdd = ctx.parallelize(numbers, 3);
+        final JavaRDD<Integer> timed = ShardPartitionPlanner.logPartitionTimes(rdd, "test");
+        Assert.assertEquals(timed.getNumPartitions(), 3);
+        Assert.assertEquals(timed.glom().collect(), rdd.glom().collect());
+    }
+}
@@ -12,6 +12,7 @@ import org.apache.spark.api.java.function.PairFlatMapFunction;
 import org.broadinstitute.hellbender.engine.Shard;
 import org.broadinstitute.hellbender.engine.ShardBoundary;
 import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.IntervalUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.GATKBaseTest;
 import org.testng.annotations.Test;
@@ -110,6 +111,125 @@ public class SparkSharderUnitTest extends GATKBaseTest implements Serializable {
         assertFalse(it.hasNext());
     }
 
+    @Test
+    public void testStreamLocatablesPerShard() throws IOException {
+        // same reads and intervals as testLocatablesPerShard
+        List<TestRead> reads = ImmutableList.of(
+                new TestRead(1, 3), new TestRead(5, 7), new TestRead(7, 9),
+                new TestRead(7, 9), new TestRead(7, 9), new TestRead(7, 9),
+                new TestRead(7, 9), new TestRead(11, 13), new TestRead(12, 14),
+                new TestRead(17, 19), new TestRead(21, 23), new TestRead(25, 27)
+        );
+
+        List<SimpleInterval> intervals = ImmutableList.of(
+                new SimpleInterval("1", 2, 4),
+                new SimpleInterval("1", 8, 12),
+                new SimpleInterval("1", 11, 22));
+
+        Iterator<Tuple2<SimpleInterval, Iterator<TestRead>>> it = SparkSharder.streamLocatablesPerShard(reads.iterator(), intervals.iterator(), sequenceDictionary, STANDARD_READ_LENGTH, 0);
+        assertTrue(it.hasNext());
+        Tuple2<SimpleInterval, Iterator<TestRead>> next = it.next();
+        assertEquals(next._1(), intervals.get(0));
+        assertEquals(ImmutableList.copyOf(next._2()), ImmutableList.of(reads.get(0)));
+
+        assertTrue(it.hasNext());
+        next = it.next();
+        assertEquals(next._1(), intervals.get(1));
+        assertEquals(ImmutableList.copyOf(next._2()), ImmutableList.of(reads.get(2), reads.get(3), reads.get(4), reads.get(5), reads.get(6), reads.get(7), reads.get(8)));
+
+        assertTrue(it.hasNext());
+        next = it.next();
+        assertEquals(next._1(), intervals.get(2));
+        assertEquals(ImmutableList.copyOf(next._2()), ImmutableList.of(reads.get(7), reads.get(8), reads.get(9), reads.get(10)));
+
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void testStreamLocatablesPerShardRandomized() throws IOException {
+        Random random = new Random(42);
+        for (int trial = 0; trial < 20; trial++) {
+            List<TestRead> reads = new ArrayList<>();
+            for (String contig : ImmutableList.of("1", "2")) {
+                int contigLength = sequenceDictionary.getSequence(contig).getSequenceLength();
+                for (int start = 1; start + STANDARD_READ_LENGTH <= contigLength; start += random.nextInt(3)) {
+                    reads.add(new TestRead(contig, start, start + random.nextInt(STANDARD_READ_LENGTH)));
+                }
+            }
+            List<SimpleInterval> intervals = new ArrayList<>();
+            for (String contig : ImmutableList.of("1", "2")) {
+                int contigLength = sequenceDictionary.getSequence(contig).getSequenceLength();
+                int shardSize = 1 + random.nextInt(10);
+                int padding = random.nextInt(5);
+                for (int start = 1 + random.nextInt(5); start <= contigLength; start += shardSize + random.nextInt(3)) {
+                    intervals.add(new SimpleInterval(contig, Math.max(1, start - padding), Math.min(contigLength, start + shardSize - 1 + padding)));
+                }
+            }
+
+            // every read that overlaps each shard, dropping the empty shards
+            List<Tuple2<SimpleInterval, List<TestRead>>> expected = intervals.stream()
+                    .map(interval -> new Tuple2<>(interval, reads.stream().filter(read -> IntervalUtils.overlaps(interval, read)).collect(Collectors.toList())))
+                    .filter(shard -> !shard._2().isEmpty())
+                    .collect(Collectors.toList());
+
+            // reading the shards fully gives the same reads
+            List<Tuple2<SimpleInterval, List<TestRead>>> actual = ImmutableList.copyOf(Iterators.transform(
+                    SparkSharder.streamLocatablesPerShard(reads.iterator(), intervals.iterator(), sequenceDictionary, STANDARD_READ_LENGTH, 0),
+                    shard -> new Tuple2<>(shard._1(), ImmutableList.copyOf(shard._2()))));
+            assertEquals(actual, expected);
+
+            // reading only part of each shard doesn't affect the next ones
+            List<Tuple2<SimpleInterval, List<TestRead>>> partial = ImmutableList.copyOf(Iterators.transform(
+                    SparkSharder.streamLocatablesPerShard(reads.iterator(), intervals.iterator(), sequenceDictionary, STANDARD_READ_LENGTH, 0),
+                    shard -> new Tuple2<>(shard._1(), ImmutableList.copyOf(Iterators.limit(shard._2(), 2)))));
+            assertEquals(partial, expected.stream()
+                    .map(shard -> new Tuple2<>(shard._1(), shard._2().subList(0, Math.min(2, shard._2().size()))))
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    @Test(expectedExceptions = UserException.class)
+    public void testStreamLocatablesPerShardBufferLimit() throws IOException {
+        // five reads overlap both intervals
+        List<TestRead> reads = Collections.nCopies(5, new TestRead(4, 6));
+        List<SimpleInterval> intervals = ImmutableList.of(new SimpleInterval("1", 1, 5), new SimpleInterval("1", 5, 10));
+        Iterators.size(SparkSharder.streamLocatablesPerShard(reads.iterator(), intervals.iterator(), sequenceDictionary, STANDARD_READ_LENGTH, 4));
+    }
+
+    @Test
+    public void testMapPartitionsOfShards() throws IOException {
+        JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
+
+        // same reads and intervals as testSingleContig
+        JavaRDD<TestRead> reads = ctx.parallelize(ImmutableList.of(
+                new TestRead(1, 3), new TestRead(5, 7), new TestRead(7, 9),
+                new TestRead(7, 9), new TestRead(7, 9), new TestRead(7, 9),
+                new TestRead(7, 9), new TestRead(11, 13), new TestRead(12, 14),
+                new TestRead(17, 19), new TestRead(21, 23), new TestRead(25, 27)
+        ), 4);
+
+        List<SimpleInterval> intervals = ImmutableList.of(
+                new SimpleInterval("1", 2, 4),
+                new SimpleInterval("1", 8, 12),
+                new SimpleInterval("1", 11, 22));
+
+        List<ShardBoundary> shardBoundaries = intervals.stream().map(si -> new ShardBoundary(si, si)).collect(Collectors.toList());
+
+        ImmutableMap<SimpleInterval, Integer> expectedReadsPerInterval = ImmutableMap.of(intervals.get(0), 1, intervals.get(1), 7, intervals.get(2), 4);
+
+        CountOverlappingReadsFunction countFunction = new CountOverlappingReadsFunction();
+        JavaRDD<Tuple2<Locatable, Integer>> readsPerInterval =
+                SparkSharder.mapPartitionsOfShards(ctx, reads, TestRead.class, sequenceDictionary, shardBoundaries, STANDARD_READ_LENGTH, 10,
+                        shards -> Iterators.concat(Iterators.transform(shards, shard -> {
+                            try {
+                                return countFunction.call(shard);
+                            } catch (Exception e) {
+                                throw new RuntimeException(e);
+                            }
+                        })));
+        assertEquals(readsPerInterval.collect().stream().collect(Collectors.toMap(t -> t._1(), t -> t._2())), expectedReadsPerInterval);
+    }
+
     @Test
     public void testSingleContig() throws IOException {
         JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
@@ -3,8 +3,13 @@ package org.broadinstitute.hellbender.engine.spark.datasources;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
+import com.google.common.io.Files;
 import htsjdk.samtools.*;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.hadoop.ParquetInputFormat;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.api.java.function.FlatMapFunction;
@@ -17,9 +22,11 @@ import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadConstants;
+import org.broadinstitute.hellbender.utils.read.ReadsWriteFormat;
 import org.broadinstitute.hellbender.utils.read.SAMRecordToGATKReadAdapter;
 import org.broadinstitute.hellbender.GATKBaseTest;
 import org.broadinstitute.hellbender.utils.test.MiniClusterUtils;
+import org.seqdoop.hadoop_bam.SplittingBAMIndexer;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -28,8 +35,14 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 import static org.testng.Assert.assertEquals;
 
@@ -130,6 +143,163 @@ public class ReadsSparkSourceUnitTest extends GATKBaseTest {
         Assert.assertEquals(parallelReads.size(), serialReads.size());
     }
 
+    @Test(groups = "spark")
+    public void testCreateSplittingIndexIfNecessary() throws IOException {
+        JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
+        final File bam = new File(createTempDir("splittingIndex"), "HiSeq.1mb.1RG.2k_lines.alternate.bam");
+        Files.copy(new File(dirBQSR + "HiSeq.1mb.1RG.2k_lines.alternate.bam"), bam);
+        final File index = new File(bam.getPath() + SplittingBAMIndexer.OUTPUT_FILE_EXTENSION);
+
+        ReadsSparkSource readSource = new ReadsSparkSource(ctx);
+        readSource.createSplittingIndexIfNecessary(bam.getAbsolutePath(), 100);
+        Assert.assertTrue(index.exists());
+        // the index is up to date, so it is not recreated
+        Assert.assertTrue(index.setLastModified(bam.lastModified() + 1000));
+        readSource.createSplittingIndexIfNecessary(bam.getAbsolutePath(), 100);
+        Assert.assertEquals(index.lastModified(), bam.lastModified() + 1000);
+
+        // small splits, which all start at exact read boundaries
+        final JavaRDD<GATKRead> reads = readSource.getParallelReads(bam.getAbsolutePath(), null, 1000);
+        Assert.assertTrue(reads.getNumPartitions() > 1);
+        assertEquals(reads.map(GATKRead::getName).collect(),
+                getSerialReads(ctx, bam.getAbsolutePath(), null, ReadConstants.DEFAULT_READ_VALIDATION_STRINGENCY).map(GATKRead::getName).collect());
+    }
+
+    private static File writeADAMReads(final JavaSparkContext ctx, final String inputBam) throws IOException {
+        final File output = new File(createTempDir("adamReads"), "reads.adam");
+        ReadsSparkSource readSource = new ReadsSparkSource(ctx);
+        // several partitions, each covering a range of coordinates, and no unmapped reads, which don't round trip
+        final JavaRDD<GATKRead> reads = readSource.getParallelReads(inputBam, null).filter(r -> !r.isUnmapped()).repartition(1)
+                .sortBy(r -> r.getContig() + ":" + String.format("%010d", r.getStart()), true, 4);
+        ReadsSparkSink.writeReads(ctx, output.getAbsolutePath(), null, reads, readSource.getHeader(inputBam, null), ReadsWriteFormat.ADAM);
+        return output;
+    }
+
+    @DataProvider(name = "adamTraversals")
+    public Object[][] adamTraversals() {
+        return new Object[][]{
+                {Arrays.asList(new SimpleInterval("1", 17000, 18000))},
+                {Arrays.asList(new SimpleInterval("1", 17000, 18000), new SimpleInterval("1", 1000000, 1000100))},
+                {Arrays.asList(new SimpleInterval("2", 1, 1000000))},
+        };
+    }
+
+    @Test(dataProvider = "adamTraversals", groups = "spark")
+    public void testADAMReadsWithTraversalParameters(final List<SimpleInterval> intervals) throws IOException {
+        JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
+        final String inputBam = dirBQSR + "HiSeq.1mb.1RG.2k_lines.bam";
+        final File adam = writeADAMReads(ctx, inputBam);
+        ReadsSparkSource readSource = new ReadsSparkSource(ctx);
+        final SAMFileHeader header = readSource.getHeader(inputBam, null);
+        final TraversalParameters traversalParameters = new TraversalParameters(intervals, false);
+
+        final List<String> expected = readSource.getParallelReads(inputBam, null)
+                .filter(r -> !r.isUnmapped() && intervals.stream().anyMatch(interval -> interval.overlaps(r)))
+                .map(r -> r.getName() + r.getStart()).collect();
+        expected.sort(null);
+        // all fields, and only the names, whatever the fields needed for the traversal
+        for (final List<String> fields : Arrays.asList(null, Collections.singletonList("readName"))) {
+            final List<String> actual = new ArrayList<>(readSource.getADAMReads(adam.getAbsolutePath(), traversalParameters, header, fields)
+                    .map(r -> r.getName() + r.getStart()).collect());
+            actual.sort(null);
+            Assert.assertEquals(actual, expected);
+        }
+    }
+
+    @Test(groups = "spark")
+    public void testADAMReadsProjection() throws IOException {
+        JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
+        final String inputBam = dirBQSR + "HiSeq.1mb.1RG.2k_lines.bam";
+        final File adam = writeADAMReads(ctx, inputBam);
+        ReadsSparkSource readSource = new ReadsSparkSource(ctx);
+        final SAMFileHeader header = readSource.getHeader(inputBam, null);
+
+        final List<GATKRead> allFields = readSource.getADAMReads(adam.getAbsolutePath(), null, header).collect();
+        final List<GATKRead> projected = readSource.getADAMReads(adam.getAbsolutePath(), null, header,
+                Arrays.asList("readName", "duplicateRead", "readMapped", "contigName", "start", "mapq")).collect();
+        Assert.assertEquals(readSource.getADAMReads(adam.getAbsolutePath(), null, header, Collections.singletonList("mapq")).count(), allFields.size());
+        Assert.assertEquals(projected.size(), allFields.size());
+        Assert.assertEquals(projected.stream().map(ReadsSparkSourceUnitTest::describeProjectedFields).sorted().collect(Collectors.toList()),
+                allFields.stream().map(ReadsSparkSourceUnitTest::describeProjectedFields).sorted().collect(Collectors.toList()));
+        // the other fields are not read
+        Assert.assertTrue(allFields.stream().allMatch(r -> r.getLength() > 0));
+        Assert.assertTrue(projected.stream().allMatch(r -> r.getLength() == 0));
+    }
+
+    @Test(groups = "spark")
+    public void testADAMReadsProjectionKeepsNamesAndFlagsOfNameGroupedReads() throws IOException {
+        JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
+        final String inputBam = dirBQSR + "HiSeq.1mb.1RG.2k_lines.bam";
+        final File adam = writeADAMReads(ctx, inputBam);
+        ReadsSparkSource readSource = new ReadsSparkSource(ctx);
+        final SAMFileHeader header = readSource.getHeader(inputBam, null).clone();
+        header.setSortOrder(SAMFileHeader.SortOrder.queryname);
+
+        // putPairsInSamePartition needs the names and flags of name grouped reads, whatever the projection
+        final List<GATKRead> projected = readSource.getADAMReads(adam.getAbsolutePath(), null, header, Collections.singletonList("mapq")).collect();
+        Assert.assertFalse(projected.isEmpty());
+        Assert.assertTrue(projected.stream().allMatch(r -> r.getName() != null));
+        Assert.assertTrue(projected.stream().anyMatch(GATKRead::isPaired));
+        Assert.assertTrue(projected.stream().anyMatch(GATKRead::isSecondOfPair));
+    }
+
+    private static String describeProjectedFields(final GATKRead read) {
+        return read.getName() + "," + read.isDuplicate() + "," + read.getContig() + ":" + read.getStart() + "," + read.getMappingQuality();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testADAMProjectionWithUnknownField() {
+        ReadsSparkSource.getADAMProjection(new LinkedHashSet<>(Arrays.asList("readName", "notAField")));
+    }
+
+    @Test
+    public void testADAMTraversalPredicate() {
+        Assert.assertNull(ReadsSparkSource.getADAMTraversalPredicate(null));
+        Assert.assertNull(ReadsSparkSource.getADAMTraversalPredicate(new TraversalParameters(Collections.emptyList(), false)));
+        Assert.assertEquals(ReadsSparkSource.getADAMTraversalPredicate(new TraversalParameters(Collections.emptyList(), true)).toString(),
+                "eq(contigName, null)");
+        Assert.assertEquals(ReadsSparkSource.getADAMTraversalPredicate(new TraversalParameters(Arrays.asList(new SimpleInterval("1", 10, 20)), false)).toString(),
+                "and(and(eq(contigName, Binary{\"1\"}), lt(start, 20)), or(gt(end, 9), gteq(start, 9)))");
+    }
+
+    @Test
+    public void testMergeIntoSpans() {
+        final List<SimpleInterval> intervals = Arrays.asList(new SimpleInterval("2", 100, 200), new SimpleInterval("1", 50, 60),
+                new SimpleInterval("1", 10, 20), new SimpleInterval("1", 21, 30), new SimpleInterval("1", 25, 27), new SimpleInterval("2", 1000, 1100));
+        // overlapping and adjacent intervals are always merged
+        Assert.assertEquals(ReadsSparkSource.mergeIntoSpans(intervals, 10), Arrays.asList(new SimpleInterval("2", 100, 200),
+                new SimpleInterval("2", 1000, 1100), new SimpleInterval("1", 10, 30), new SimpleInterval("1", 50, 60)));
+        // then across the smallest gaps
+        Assert.assertEquals(ReadsSparkSource.mergeIntoSpans(intervals, 3), Arrays.asList(new SimpleInterval("2", 100, 200),
+                new SimpleInterval("2", 1000, 1100), new SimpleInterval("1", 10, 60)));
+        // but never across contigs
+        Assert.assertEquals(ReadsSparkSource.mergeIntoSpans(intervals, 1), Arrays.asList(new SimpleInterval("2", 100, 1100),
+                new SimpleInterval("1", 10, 60)));
+    }
+
+    @Test
+    public void testADAMTraversalPredicateForManyIntervals() {
+        // as many intervals as an exome, which must neither make the predicate deep nor large
+        final List<SimpleInterval> intervals = new ArrayList<>();
+        for (int i = 0; i < 200_000; i++) {
+            intervals.add(new SimpleInterval(i % 2 == 0 ? "1" : "2", 1 + i * 1000 + (i % 7) * 100, 1 + i * 1000 + (i % 7) * 100 + 150));
+        }
+        final List<SimpleInterval> spans = ReadsSparkSource.mergeIntoSpans(intervals, ReadsSparkSource.MAX_ADAM_PREDICATE_SPANS);
+        Assert.assertTrue(spans.size() <= ReadsSparkSource.MAX_ADAM_PREDICATE_SPANS);
+        final Map<String, TreeMap<Integer, SimpleInterval>> spansByStart = new HashMap<>();
+        spans.forEach(span -> spansByStart.computeIfAbsent(span.getContig(), contig -> new TreeMap<>()).put(span.getStart(), span));
+        for (final SimpleInterval interval : intervals) {
+            final Map.Entry<Integer, SimpleInterval> span = spansByStart.get(interval.getContig()).floorEntry(interval.getStart());
+            Assert.assertTrue(span != null && span.getValue().contains(interval), interval + " is not covered");
+        }
+
+        final FilterPredicate predicate = ReadsSparkSource.getADAMTraversalPredicate(new TraversalParameters(intervals, true));
+        final Configuration conf = new Configuration();
+        ParquetInputFormat.setFilterPredicate(conf, predicate);
+        final FilterCompat.Filter filter = ParquetInputFormat.getFilter(conf);
+        Assert.assertEquals(((FilterCompat.FilterPredicateCompat) filter).getFilterPredicate().toString(), predicate.toString());
+    }
+
     @Test(groups = "spark")
     public void testHeadersAreStripped() {
         JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.engine.spark.datasources;
 
+import org.apache.commons.lang3.SerializationUtils;
 import org.broadinstitute.hellbender.engine.datasources.ReferenceFileSource;
 import org.broadinstitute.hellbender.engine.datasources.ReferenceSource;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
@@ -10,6 +11,9 @@ import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 public class ReferenceTwoBitSourceUnitTest extends GATKBaseTest {
     private static String fastaRefURL = publicTestDir + "large/human_g1k_v37.20.21.fasta";
@@ -58,4 +62,38 @@ public class ReferenceTwoBitSourceUnitTest extends GATKBaseTest {
         Assert.assertEquals(bases.getBases().length, expectedNumBases, "Wrong number of bases returned from query");
         Assert.assertEquals(bases.getInterval().size(), expectedNumBases, "Wrong interval in ReferenceBases object returned from query");
     }
+
+    @Test
+    public void testWholeContigMatchesFasta() throws IOException {
+        // the contig starts with a block of Ns
+        final ReferenceSource fastaRef = new ReferenceFileSource(publicTestDir + "human_g1k_v37.chr17_1Mb.fasta");
+        final ReferenceSource twoBitRef = new ReferenceTwoBitSource(publicTestDir + "human_g1k_v37.chr17_1Mb.2bit");
+        Assert.assertEquals(twoBitRef.getReferenceSequenceDictionary(null).getSequence("17").getSequenceLength(), 1000000);
+        for (int start = 1; start <= 1000000; start += 99991) {
+            final SimpleInterval interval = new SimpleInterval("17", start, Math.min(start + 99990, 1000000));
+            Assert.assertEquals(twoBitRef.getReferenceBases(interval), fastaRef.getReferenceBases(interval), interval.toString());
+        }
+    }
+
+    @Test
+    public void testMappedFileMatchesFileInMemory() throws IOException {
+        final String twoBitPath = publicTestDir + "human_g1k_v37.chr17_1Mb.2bit";
+        final MappedTwoBitFile mapped = MappedTwoBitFile.map(Paths.get(twoBitPath));
+        final MappedTwoBitFile inMemory = new MappedTwoBitFile(ByteBuffer.wrap(Files.readAllBytes(Paths.get(twoBitPath))));
+        Assert.assertEquals(mapped.getSequenceDictionary(), inMemory.getSequenceDictionary());
+        Assert.assertEquals(mapped.extract("17", 0, 1000000), inMemory.extract("17", 0, 1000000));
+        Assert.assertEquals(mapped.extract("17", 500, 500).length, 0);
+    }
+
+    @Test
+    public void testSerializationKeepsOnlyTheURL() throws IOException {
+        final ReferenceTwoBitSource twoBitRef = new ReferenceTwoBitSource(publicTestDir + "human_g1k_v37.chr17_1Mb.2bit");
+        final byte[] serialized = SerializationUtils.serialize(twoBitRef);
+        Assert.assertTrue(serialized.length < 10000, "serialized to " + serialized.length + " bytes");
+
+        final ReferenceTwoBitSource deserialized = SerializationUtils.deserialize(serialized);
+        final SimpleInterval interval = new SimpleInterval("17", 100000, 100100);
+        Assert.assertEquals(deserialized.getReferenceBases(interval), twoBitRef.getReferenceBases(interval));
+        Assert.assertEquals(deserialized.getReferenceSequenceDictionary(null).getSequence("17").getSequenceLength(), 1000000);
+    }
 }
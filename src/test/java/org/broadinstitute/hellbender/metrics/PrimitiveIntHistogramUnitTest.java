@@ -0,0 +1,78 @@
+package org.broadinstitute.hellbender.metrics;
+
+import htsjdk.samtools.util.Histogram;
+import org.apache.commons.lang3.SerializationUtils;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+public final class PrimitiveIntHistogramUnitTest extends GATKBaseTest {
+
+    @Test
+    public void testMatchesHistogram() {
+        final Random random = new Random(13);
+        final PrimitiveIntHistogram primitiveHistogram = new PrimitiveIntHistogram(100);
+        final Histogram<Integer> expectedHistogram = new Histogram<>("bin", "value");
+        for (int i = 0; i < 10000; i++) {
+            // mostly dense values, and a few beyond the dense range or negative
+            final int value = random.nextInt(10) == 0 ? random.nextInt(2000) - 1000 : random.nextInt(100);
+            primitiveHistogram.increment(value);
+            expectedHistogram.increment(value);
+        }
+
+        final Histogram<Integer> histogram = primitiveHistogram.toHistogram("bin", "value");
+        Assert.assertEquals(histogram, expectedHistogram);
+        Assert.assertEquals(primitiveHistogram.getTotalCount(), 10000);
+        for (final Integer value : expectedHistogram.keySet()) {
+            Assert.assertEquals(primitiveHistogram.getCount(value), (long) expectedHistogram.get(value).getValue());
+        }
+        Assert.assertEquals(primitiveHistogram.getCount(5000), 0);
+    }
+
+    @Test
+    public void testAdd() {
+        final PrimitiveIntHistogram histogram1 = new PrimitiveIntHistogram(10);
+        histogram1.increment(3);
+        histogram1.increment(20, 2);
+        // a different dense range, so values move between the array and the map
+        final PrimitiveIntHistogram histogram2 = new PrimitiveIntHistogram(100);
+        histogram2.increment(3, 4);
+        histogram2.increment(20);
+        histogram2.increment(50);
+
+        Assert.assertSame(histogram1.add(histogram2), histogram1);
+        Assert.assertEquals(histogram1.getCount(3), 5);
+        Assert.assertEquals(histogram1.getCount(20), 3);
+        Assert.assertEquals(histogram1.getCount(50), 1);
+        Assert.assertEquals(histogram1.getTotalCount(), 9);
+        // the source is unchanged
+        Assert.assertEquals(histogram2.getTotalCount(), 6);
+    }
+
+    @Test
+    public void testEmpty() {
+        final PrimitiveIntHistogram histogram = new PrimitiveIntHistogram();
+        Assert.assertTrue(histogram.isEmpty());
+        Assert.assertTrue(histogram.toHistogram("bin", "value").isEmpty());
+        histogram.increment(7, 0);
+        Assert.assertTrue(histogram.isEmpty());
+        Assert.assertTrue(histogram.toHistogram("bin", "value").isEmpty());
+    }
+
+    @Test
+    public void testSerialization() {
+        final PrimitiveIntHistogram histogram = new PrimitiveIntHistogram(10);
+        histogram.increment(1);
+        histogram.increment(1000, 3);
+        final PrimitiveIntHistogram copy = SerializationUtils.clone(histogram);
+        Assert.assertEquals(copy.toHistogram("bin", "value"), histogram.toHistogram("bin", "value"));
+        Assert.assertEquals(copy.getTotalCount(), 4);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNegativeCount() {
+        new PrimitiveIntHistogram().increment(1, -1);
+    }
+}
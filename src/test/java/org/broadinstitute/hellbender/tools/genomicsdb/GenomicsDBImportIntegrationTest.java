@@ -179,6 +179,32 @@ public final class GenomicsDBImportIntegrationTest extends CommandLineProgramTes
         testGenomicsDBImporterWithBatchSize(LOCAL_GVCFS, INTERVAL, COMBINED, batchSize);
     }
 
+    @Test(dataProvider = "batchSizes")
+    public void testGenomicsDBImportFileInputsInPipelinedBatches(final int batchSize) throws IOException {
+        final String workspace = createTempDir("genomicsdb-pipelined-tests-").getAbsolutePath() + "/workspace-" + batchSize;
+
+        writeToGenomicsDB(LOCAL_GVCFS, INTERVAL, workspace, batchSize, false, 0, 2, true);
+        checkJSONFilesAreWritten(workspace);
+        checkGenomicsDBAgainstExpected(workspace, INTERVAL, COMBINED, b38_reference_20_21, true);
+    }
+
+    @Test(dataProvider = "batchSizes")
+    public void testPipelinedBatchesMatchSequentialImport(final int batchSize) throws IOException {
+        // the records of the samples of a batch are decoded ahead on several threads while GenomicsDB imports them
+        final String sequentialWorkspace = createTempDir("genomicsdb-sequential-tests-").getAbsolutePath() + "/workspace-" + batchSize;
+        final String pipelinedWorkspace = createTempDir("genomicsdb-pipelined-tests-").getAbsolutePath() + "/workspace-" + batchSize;
+        writeToGenomicsDB(LOCAL_GVCFS, INTERVAL, sequentialWorkspace, batchSize, false, 0, 1, false);
+        writeToGenomicsDB(LOCAL_GVCFS, INTERVAL, pipelinedWorkspace, batchSize, false, 0, LOCAL_GVCFS.size(), true);
+
+        try (CloseableTribbleIterator<VariantContext> pipelinedVcs = getGenomicsDBFeatureReader(pipelinedWorkspace, b38_reference_20_21)
+                     .query(INTERVAL.getContig(), INTERVAL.getStart(), INTERVAL.getEnd());
+             CloseableTribbleIterator<VariantContext> sequentialVcs = getGenomicsDBFeatureReader(sequentialWorkspace, b38_reference_20_21)
+                     .query(INTERVAL.getContig(), INTERVAL.getStart(), INTERVAL.getEnd())) {
+            BaseTest.assertCondition(pipelinedVcs, sequentialVcs,
+                    (a, e) -> VariantContextTestUtils.assertVariantContextsAreEqual(a, e, Collections.emptyList()));
+        }
+    }
+
     @Test(groups = {"bucket"}, dataProvider = "batchSizes")
     public void testGenomicsDBImportGCSInputsInBatches(final int batchSize) throws IOException {
         testGenomicsDBImporterWithBatchSize(resolveLargeFilesAsCloudURIs(LOCAL_GVCFS), INTERVAL, COMBINED, batchSize);
@@ -247,6 +273,12 @@ public final class GenomicsDBImportIntegrationTest extends CommandLineProgramTes
 
     private void writeToGenomicsDB(final List<String> vcfInputs, final SimpleInterval interval, final String workspace,
                                    final int batchSize, final Boolean useBufferSize, final int bufferSizePerSample, int threads) {
+        writeToGenomicsDB(vcfInputs, interval, workspace, batchSize, useBufferSize, bufferSizePerSample, threads, false);
+    }
+
+    private void writeToGenomicsDB(final List<String> vcfInputs, final SimpleInterval interval, final String workspace,
+                                   final int batchSize, final Boolean useBufferSize, final int bufferSizePerSample, int threads,
+                                   final boolean pipelineBatches) {
         final ArgumentsBuilder args = new ArgumentsBuilder();
         args.addArgument(GenomicsDBImport.WORKSPACE_ARG_LONG_NAME, workspace);
         args.addArgument("L", IntervalUtils.locatableToString(interval));
@@ -255,6 +287,8 @@ public final class GenomicsDBImportIntegrationTest extends CommandLineProgramTes
         args.addArgument(GenomicsDBImport.VCF_INITIALIZER_THREADS_LONG_NAME, String.valueOf(threads));
         if (useBufferSize)
             args.addArgument("genomicsdb-vcf-buffer-size", String.valueOf(bufferSizePerSample));
+        if (pipelineBatches)
+            args.addBooleanArgument(GenomicsDBImport.PIPELINE_BATCHES_LONG_NAME, true);
 
         runCommandLine(args);
     }
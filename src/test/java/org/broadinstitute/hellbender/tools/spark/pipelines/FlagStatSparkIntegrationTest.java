@@ -1,7 +1,15 @@
 package org.broadinstitute.hellbender.tools.spark.pipelines;
 
 import com.google.common.collect.Lists;
+import htsjdk.samtools.SAMFileHeader;
+import org.apache.spark.api.java.JavaSparkContext;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
+import org.broadinstitute.hellbender.engine.filters.WellformedReadFilter;
+import org.broadinstitute.hellbender.engine.spark.SparkContextFactory;
+import org.broadinstitute.hellbender.engine.spark.datasources.ReadsSparkSink;
+import org.broadinstitute.hellbender.engine.spark.datasources.ReadsSparkSource;
+import org.broadinstitute.hellbender.tools.FlagStat.FlagStatus;
+import org.broadinstitute.hellbender.utils.read.ReadsWriteFormat;
 import org.broadinstitute.hellbender.utils.test.ArgumentsBuilder;
 import org.broadinstitute.hellbender.utils.test.IntegrationTestSpec;
 import org.testng.Assert;
@@ -70,6 +78,26 @@ public final class FlagStatSparkIntegrationTest extends CommandLineProgramTest {
         IntegrationTestSpec.assertMatchingFiles(Lists.newArrayList(outputFile), Lists.newArrayList(getToolTestDataDir() +"/"+ "expectedStats.chr1_1.txt"), false, null);
     }
 
+    @Test(groups = "spark")
+    public void testADAMFieldsAreSufficient() throws IOException {
+        final JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
+        final String inputBam = getTestFile("flag_stat.bam").getAbsolutePath();
+        final ReadsSparkSource readSource = new ReadsSparkSource(ctx);
+        final SAMFileHeader header = readSource.getHeader(inputBam, null);
+        // unmapped reads don't round trip through ADAM
+        final File adam = new File(createTempDir("flagStatADAM"), "reads.adam");
+        ReadsSparkSink.writeReads(ctx, adam.getAbsolutePath(), null, readSource.getParallelReads(inputBam, null).filter(r -> !r.isUnmapped()),
+                header, ReadsWriteFormat.ADAM);
+
+        final WellformedReadFilter filter = new WellformedReadFilter(header);
+        final FlagStatus expected = readSource.getADAMReads(adam.getAbsolutePath(), null, header)
+                .filter(filter::test).aggregate(new FlagStatus(), FlagStatus::add, FlagStatus::merge);
+        final FlagStatus actual = readSource.getADAMReads(adam.getAbsolutePath(), null, header, FlagStatSpark.ADAM_FIELDS)
+                .filter(filter::test).aggregate(new FlagStatus(), FlagStatus::add, FlagStatus::merge);
+        Assert.assertFalse(expected.toString().startsWith("0 in total"), "the comparison is vacuous");
+        Assert.assertEquals(actual.toString(), expected.toString());
+    }
+
     @Test(groups = "spark")
     public void testNoNPRWhenOutputIsUnspecified(){
         ArgumentsBuilder args = new ArgumentsBuilder();
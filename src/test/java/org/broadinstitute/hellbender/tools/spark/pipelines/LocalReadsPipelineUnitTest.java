@@ -0,0 +1,82 @@
+package org.broadinstitute.hellbender.tools.spark.pipelines;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.ValidationStringency;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.engine.spark.SparkContextFactory;
+import org.broadinstitute.hellbender.engine.spark.datasources.ReadsSparkSource;
+import org.broadinstitute.hellbender.tools.spark.transforms.markduplicates.MarkDuplicatesSpark;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadCoordinateComparator;
+import org.broadinstitute.hellbender.utils.read.SAMRecordToGATKReadAdapter;
+import org.broadinstitute.hellbender.utils.read.markduplicates.MarkDuplicatesScoringStrategy;
+import org.broadinstitute.hellbender.utils.read.markduplicates.OpticalDuplicateFinder;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public final class LocalReadsPipelineUnitTest extends GATKBaseTest {
+
+    @DataProvider(name = "markDuplicatesInputs")
+    public Object[][] markDuplicatesInputs() {
+        final String dir = "src/test/resources/org/broadinstitute/hellbender/tools/walkers/MarkDuplicatesGATK/";
+        return new Object[][]{
+                // coordinate sorted inputs, whose reads, fingerprints and decisions are sorted in memory or, with a small maxRecordsInRam, on disk
+                {dir + "example.chr1.1-1K.unmarkedDups.bam", 1, LocalReadsPipeline.DEFAULT_MAX_RECORDS_IN_RAM},
+                {dir + "example.chr1.1-1K.unmarkedDups.bam", 4, 7},
+                {dir + "optical_dupes.bam", 2, 3},
+                {dir + "inputSingleLibrarySolexa16404.bam", 4, 100},
+        };
+    }
+
+    @Test(dataProvider = "markDuplicatesInputs", groups = "spark")
+    public void testMarkDuplicatesAndSortMatchesSpark(final String input, final int numThreads, final int maxRecordsInRam) throws IOException {
+        final JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
+        final ReadsSparkSource readSource = new ReadsSparkSource(ctx);
+        final SAMFileHeader header = readSource.getHeader(input, null);
+        final JavaRDD<GATKRead> reads = readSource.getParallelReads(input, null);
+
+        final List<GATKRead> expected = MarkDuplicatesSpark.cleanupTemporaryAttributes(MarkDuplicatesSpark.mark(reads, header,
+                MarkDuplicatesScoringStrategy.SUM_OF_BASE_QUALITIES, new OpticalDuplicateFinder(), 2)).collect();
+
+        try (final LocalReadsPipeline pipeline = new LocalReadsPipeline(numThreads, maxRecordsInRam)) {
+            final File sortedBam = pipeline.markDuplicatesAndSort(reads.collect().iterator(), header,
+                    MarkDuplicatesScoringStrategy.SUM_OF_BASE_QUALITIES, new OpticalDuplicateFinder());
+
+            final List<GATKRead> actual = new ArrayList<>();
+            try (final SamReader reader = SamReaderFactory.makeDefault().validationStringency(ValidationStringency.SILENT).open(sortedBam)) {
+                Assert.assertTrue(reader.hasIndex());
+                Assert.assertEquals(reader.getFileHeader().getSortOrder(), SAMFileHeader.SortOrder.coordinate);
+                for (final SAMRecord record : reader) {
+                    actual.add(new SAMRecordToGATKReadAdapter(record));
+                }
+            }
+
+            final ReadCoordinateComparator comparator = new ReadCoordinateComparator(header);
+            for (int i = 1; i < actual.size(); i++) {
+                Assert.assertTrue(comparator.compare(actual.get(i - 1), actual.get(i)) <= 0, "the reads are not coordinate sorted");
+            }
+            Assert.assertEquals(describeAll(actual), describeAll(expected));
+            Assert.assertTrue(actual.stream().anyMatch(GATKRead::isDuplicate), "the comparison is vacuous");
+        }
+    }
+
+    private static List<String> describeAll(final List<GATKRead> reads) {
+        return reads.stream()
+                .map(read -> read.getName() + "/" + (read.isFirstOfPair() ? 1 : 2) + "@" + read.getContig() + ":" + read.getStart()
+                        + "," + read.isSecondaryAlignment() + "," + read.isSupplementaryAlignment() + "," + read.isDuplicate())
+                .sorted()
+                .collect(Collectors.toList());
+    }
+}
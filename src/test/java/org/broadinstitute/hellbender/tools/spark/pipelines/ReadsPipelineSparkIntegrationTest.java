@@ -97,6 +97,10 @@ public class ReadsPipelineSparkIntegrationTest extends CommandLineProgramTest {
 
                 // BWA-MEM
                 {new PipelineTest(GRCh37Ref2bit_chr2021, unalignedBam, ".bam", dbSNPb37_20, "--align --bwa-mem-index-image " + GRCh37Ref_2021_img + " --disable-sequence-dictionary-validation true --join-strategy BROADCAST --known-sites " + more20Sites, null, largeFileTestDir + expectedMultipleKnownSitesFromUnalignedVcf)},
+
+                // local pipeline
+                {new PipelineTest(GRCh37Ref2bit_chr2021, hiSeqBam_chr20, ".bam", dbSNPb37_20, "--local-pipeline --known-sites " + more20Sites, null, getResourceDir() + expectedMultipleKnownSitesVcf)},
+                {new PipelineTest(GRCh37Ref2bit_chr2021, hiSeqBam_chr20_queryNameSorted, ".bam", dbSNPb37_20, "--local-pipeline", null, getResourceDir() + expectedSingleKnownSitesVcf)},
         };
     }
 
@@ -5,6 +5,7 @@ import htsjdk.samtools.metrics.Header;
 import org.apache.spark.api.java.JavaRDD;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
+import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.metrics.MetricAccumulationLevel;
 import org.broadinstitute.hellbender.metrics.MetricsArgumentCollection;
 import org.broadinstitute.hellbender.metrics.QualityYieldMetrics;
@@ -19,6 +20,8 @@ import org.testng.annotations.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -68,6 +71,30 @@ public final class CollectMultipleMetricsSparkIntegrationTest extends CommandLin
         validateQualityYieldMetrics(outBase, expectedQualityYieldResults);
     }
 
+    @Test(groups = "spark", expectedExceptions = GATKException.class, expectedExceptionsMessageRegExp = "No valid reads found in input file.")
+    public void testInsertSizeFailsWithoutValidReads() throws IOException {
+        // unpaired reads, which the insert size collector filters out but the quality yield collector counts
+        final File input = createTempFile("unpairedReads", ".sam");
+        Files.write(input.toPath(), Arrays.asList(
+                "@HD\tVN:1.5\tSO:coordinate",
+                "@SQ\tSN:chr1\tLN:1000",
+                "read1\t0\tchr1\t100\t60\t10M\t*\t0\t0\tACGTACGTAC\tIIIIIIIIII",
+                "read2\t16\tchr1\t200\t60\t10M\t*\t0\t0\tACGTACGTAC\tIIIIIIIIII"));
+        final File outDir = GATKBaseTest.createTempDir("collectMultiMetricsSparkTest");
+
+        final ArgumentsBuilder args = new ArgumentsBuilder();
+        args.add("-" + StandardArgumentDefinitions.INPUT_SHORT_NAME);
+        args.add(input.getAbsolutePath());
+        args.add("-" + StandardArgumentDefinitions.OUTPUT_SHORT_NAME);
+        args.add(outDir.getAbsolutePath() + "/collectMultiSparkMetrics");
+        args.add("--collectors");
+        args.add("CollectInsertSizeMetrics");
+        args.add("--collectors");
+        args.add("CollectQualityYieldMetrics");
+
+        this.runCommandLine(args.getArgsArray());
+    }
+
     private String setupMultipleCollector(
             final ArgumentsBuilder args,
             final String fileName,
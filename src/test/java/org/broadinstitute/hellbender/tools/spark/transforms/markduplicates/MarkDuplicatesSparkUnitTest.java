@@ -3,6 +3,8 @@ package org.broadinstitute.hellbender.tools.spark.transforms.markduplicates;
 import htsjdk.samtools.SAMFileHeader;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.storage.StorageLevel;
+import org.apache.spark.util.LongAccumulator;
 import org.broadinstitute.hellbender.cmdline.argumentcollections.OpticalDuplicatesArgumentCollection;
 import org.broadinstitute.hellbender.engine.spark.SparkContextFactory;
 import org.broadinstitute.hellbender.engine.spark.datasources.ReadsSparkSource;
@@ -16,6 +18,9 @@ import org.testng.annotations.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
 
 public class MarkDuplicatesSparkUnitTest extends GATKBaseTest {
     @DataProvider(name = "md")
@@ -48,4 +53,29 @@ public class MarkDuplicatesSparkUnitTest extends GATKBaseTest {
         Assert.assertEquals(dupes.count(), dupsExpected);
     }
 
+    @Test(groups = "spark")
+    public void testReadNameGroupedInputIsComputedOnce() {
+        final JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
+        final String input = new File("src/test/resources/org/broadinstitute/hellbender/tools/walkers/MarkDuplicatesGATK/example.chr1.1-1K.unmarkedDups.bam").getAbsolutePath();
+        final ReadsSparkSource readSource = new ReadsSparkSource(ctx);
+        final List<GATKRead> readsByName = readSource.getParallelReads(input, null).collect().stream()
+                .sorted(Comparator.comparing(GATKRead::getName))
+                .collect(Collectors.toList());
+        final SAMFileHeader header = readSource.getHeader(input, null).clone();
+        header.setSortOrder(SAMFileHeader.SortOrder.queryname);
+
+        // count how many times the input is computed, e.g. how many times it would be aligned in a pipeline
+        final LongAccumulator computedReads = ctx.sc().longAccumulator();
+        final JavaRDD<GATKRead> reads = ctx.parallelize(readsByName, 1).map(read -> {
+            computedReads.add(1);
+            return read;
+        });
+        final JavaRDD<GATKRead> markedReads = MarkDuplicatesSpark.mark(reads, header, MarkDuplicatesScoringStrategy.SUM_OF_BASE_QUALITIES, new OpticalDuplicateFinder(), 1);
+
+        Assert.assertEquals(markedReads.count(), readsByName.size());
+        Assert.assertEquals(markedReads.filter(GATKRead::isDuplicate).count(), 6);
+        Assert.assertEquals(computedReads.value().longValue(), readsByName.size());
+        Assert.assertEquals(reads.getStorageLevel(), StorageLevel.NONE());
+        markedReads.unpersist();
+    }
 }
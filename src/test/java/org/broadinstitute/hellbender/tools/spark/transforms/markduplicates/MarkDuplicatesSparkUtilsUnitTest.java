@@ -6,12 +6,18 @@ import htsjdk.samtools.SAMFileHeader;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
+import org.broadinstitute.hellbender.cmdline.argumentcollections.OpticalDuplicatesArgumentCollection;
 import org.broadinstitute.hellbender.engine.spark.SparkContextFactory;
+import org.broadinstitute.hellbender.engine.spark.datasources.ReadsSparkSource;
 import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+import org.broadinstitute.hellbender.utils.read.markduplicates.MarkDuplicatesScoringStrategy;
+import org.broadinstitute.hellbender.utils.read.markduplicates.OpticalDuplicateFinder;
 import org.broadinstitute.hellbender.utils.read.markduplicates.ReadsKey;
 import org.broadinstitute.hellbender.GATKBaseTest;
 import org.testng.Assert;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 import scala.Tuple2;
 
@@ -19,6 +25,9 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 public class MarkDuplicatesSparkUtilsUnitTest extends GATKBaseTest {
     @Test(groups = "spark")
@@ -67,6 +76,67 @@ public class MarkDuplicatesSparkUtilsUnitTest extends GATKBaseTest {
                 ImmutableList.of(pairIterable(key1, read1, read3), pairIterable(key2, read2, read4)));
     }
 
+    @DataProvider(name = "readNameGroupedInputs")
+    public Object[][] readNameGroupedInputs() {
+        final String dir = "src/test/resources/org/broadinstitute/hellbender/tools/walkers/MarkDuplicatesGATK/";
+        return new Object[][]{
+                {dir + "example.chr1.1-1K.unmarkedDups.bam", 1},
+                {dir + "example.chr1.1-1K.unmarkedDups.bam", 3},
+                {dir + "optical_dupes.bam", 2},
+                {dir + "inputSingleLibrarySolexa16404.bam", 4},
+        };
+    }
+
+    @Test(dataProvider = "readNameGroupedInputs", groups = "spark")
+    public void testReadNameGroupedReadsMatchShuffledReads(final String input, final int numPartitions) {
+        final JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
+        final ReadsSparkSource readSource = new ReadsSparkSource(ctx);
+        final SAMFileHeader header = readSource.getHeader(input, null);
+        final List<GATKRead> primaryReads = readSource.getParallelReads(input, null)
+                .filter(read -> !ReadUtils.isNonPrimary(read))
+                .collect();
+
+        // group the reads by name, keeping the reads with the same name in the same partition
+        final Map<String, List<GATKRead>> readsByName = primaryReads.stream()
+                .collect(Collectors.groupingBy(GATKRead::getName, TreeMap::new, Collectors.toList()));
+        final JavaRDD<GATKRead> readNameGroupedReads = ctx.parallelize(new ArrayList<>(readsByName.values()), numPartitions)
+                .flatMap(List::iterator);
+        final List<GATKRead> inputOrder = readNameGroupedReads.collect();
+
+        final SAMFileHeader readNameGroupedHeader = header.clone();
+        readNameGroupedHeader.setSortOrder(SAMFileHeader.SortOrder.unsorted);
+        readNameGroupedHeader.setGroupOrder(SAMFileHeader.GroupOrder.query);
+        final SAMFileHeader unsortedHeader = header.clone();
+        unsortedHeader.setSortOrder(SAMFileHeader.SortOrder.unsorted);
+
+        final OpticalDuplicatesArgumentCollection opticalDuplicatesArgumentCollection = new OpticalDuplicatesArgumentCollection();
+        final OpticalDuplicateFinder finder = new OpticalDuplicateFinder(opticalDuplicatesArgumentCollection.READ_NAME_REGEX,
+                opticalDuplicatesArgumentCollection.OPTICAL_DUPLICATE_PIXEL_DISTANCE, null);
+        final List<GATKRead> expected = MarkDuplicatesSparkUtils.transformReads(unsortedHeader,
+                MarkDuplicatesScoringStrategy.SUM_OF_BASE_QUALITIES, finder, readNameGroupedReads, 2).collect();
+        final List<GATKRead> actual = MarkDuplicatesSparkUtils.transformReads(readNameGroupedHeader,
+                MarkDuplicatesScoringStrategy.SUM_OF_BASE_QUALITIES, finder, readNameGroupedReads, 2).collect();
+
+        // the reads come out in the order they went in
+        Assert.assertEquals(actual.stream().map(MarkDuplicatesSparkUtilsUnitTest::describe).collect(Collectors.toList()),
+                inputOrder.stream().map(MarkDuplicatesSparkUtilsUnitTest::describe).collect(Collectors.toList()));
+
+        final Map<String, String> expectedMarks = expected.stream()
+                .collect(Collectors.toMap(MarkDuplicatesSparkUtilsUnitTest::describe, MarkDuplicatesSparkUtilsUnitTest::duplicateMarks));
+        final Map<String, String> actualMarks = actual.stream()
+                .collect(Collectors.toMap(MarkDuplicatesSparkUtilsUnitTest::describe, MarkDuplicatesSparkUtilsUnitTest::duplicateMarks));
+        Assert.assertEquals(actualMarks, expectedMarks);
+        Assert.assertTrue(actual.stream().anyMatch(GATKRead::isDuplicate), "the comparison is vacuous");
+    }
+
+    private static String describe(final GATKRead read) {
+        return read.getName() + "/" + (read.isFirstOfPair() ? 1 : 2) + "@" + read.getContig() + ":" + read.getStart();
+    }
+
+    private static String duplicateMarks(final GATKRead read) {
+        return read.isDuplicate() + "," + read.getAttributeAsString(MarkDuplicatesSparkUtils.OPTICAL_DUPLICATE_TOTAL_ATTRIBUTE_NAME);
+    }
+
     private String getReadGroupId(final SAMFileHeader header, final int index) {
         return header.getReadGroups().get(index).getReadGroupId();
     }
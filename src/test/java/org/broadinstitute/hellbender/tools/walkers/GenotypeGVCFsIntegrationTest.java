@@ -228,6 +228,44 @@ public class GenotypeGVCFsIntegrationTest extends CommandLineProgramTest {
         }
     }
 
+    @DataProvider(name = "gvcfsToGenotypeInParallel")
+    public Object[][] gvcfsToGenotypeInParallel() {
+        return new Object[][]{
+                {getTestFile(BASE_PAIR_GVCF), NO_EXTRA_ARGS, b37_reference_20_21},
+                {getTestFile("gvcfExample1.vcf"), Arrays.asList("-L", "20"), b37_reference_20_21},
+                {getTestFile("leadingDeletion.g.vcf"), Arrays.asList("-L", "20:69512-69513", "-L", "20:69700-69800"), b37_reference_20_21},
+                {getTestFile("spanningDel.combined.g.vcf"), NO_EXTRA_ARGS, b37_reference_20_21},
+                {getTestFile("multiSamples.g.vcf"), Arrays.asList("-G", "AS_StandardAnnotation", "-G", "StandardAnnotation"), b37_reference_20_21},
+        };
+    }
+
+    @Test(dataProvider = "gvcfsToGenotypeInParallel")
+    public void testMultiThreadedOutputMatchesSingleThreaded(File input, List<String> extraArgs, String reference) throws IOException {
+        final File singleThreaded = runGenotypeGVCFs(input, extraArgs, reference, 1);
+        // small shards so that variants span shard boundaries
+        final File multiThreaded = runGenotypeGVCFs(input, extraArgs, reference, 4);
+
+        final List<VariantContext> expected = getVariantContexts(singleThreaded);
+        Assert.assertFalse(expected.isEmpty());
+        assertForEachElementInLists(getVariantContexts(multiThreaded), expected,
+                (a, e) -> Assert.assertEquals(a.toStringDecodeGenotypes(), e.toStringDecodeGenotypes()));
+    }
+
+    private File runGenotypeGVCFs(File input, List<String> additionalArguments, String reference, int threads) {
+        final File output = createTempFile("genotypegvcf", ".vcf");
+        final ArgumentsBuilder args = new ArgumentsBuilder();
+        args.addReference(new File(reference))
+                .addArgument("V", input.getAbsolutePath())
+                .addOutput(output)
+                .addArgument(GenotypeGVCFs.GENOTYPING_THREADS_LONG_NAME, String.valueOf(threads))
+                .addArgument(GenotypeGVCFs.GENOTYPING_SHARD_SIZE_LONG_NAME, "50");
+        additionalArguments.forEach(args::add);
+
+        Utils.resetRandomGenerator();
+        runCommandLine(args);
+        return output;
+    }
+
     @Test
     public void testIndexIsCreated(){
         final File output = createTempFile("test", ".vcf");
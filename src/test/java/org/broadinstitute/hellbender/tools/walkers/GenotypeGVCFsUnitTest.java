@@ -2,6 +2,7 @@ package org.broadinstitute.hellbender.tools.walkers;
 
 import htsjdk.variant.variantcontext.*;
 import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.test.VariantContextTestUtils;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
@@ -167,4 +168,22 @@ public class GenotypeGVCFsUnitTest extends GATKBaseTest {
     public void testIsSpanningDeletion(Allele allele, boolean expected){
         Assert.assertEquals(GenotypeGVCFs.isSpanningDeletion(allele), expected);
     }
+
+    @Test
+    public void testMakeShards() {
+        final List<SimpleInterval> intervals = Arrays.asList(new SimpleInterval("1", 1, 250), new SimpleInterval("2", 1, 50));
+        final List<GenotypeGVCFs.GenotypingShard> shards = GenotypeGVCFs.makeShards(intervals, 100);
+        Assert.assertEquals(shards.size(), 4);
+        Assert.assertEquals(shards.get(0).getInterval(), new SimpleInterval("1", 1, 100));
+        Assert.assertEquals(shards.get(2).getInterval(), new SimpleInterval("1", 201, 250));
+        Assert.assertEquals(shards.get(3).getInterval(), new SimpleInterval("2", 1, 50));
+
+        // a deletion spanning the first three shards is only genotyped in the first one
+        final SimpleInterval deletion = new SimpleInterval("1", 90, 210);
+        Assert.assertTrue(shards.get(0).isFirstShardFor(deletion));
+        Assert.assertFalse(shards.get(1).isFirstShardFor(deletion));
+        Assert.assertFalse(shards.get(2).isFirstShardFor(deletion));
+        Assert.assertTrue(shards.get(1).isFirstShardFor(new SimpleInterval("1", 101, 101)));
+        Assert.assertTrue(shards.get(3).isFirstShardFor(new SimpleInterval("2", 1, 1)));
+    }
 }
@@ -0,0 +1,47 @@
+package org.broadinstitute.hellbender.tools.walkers.genotyper;
+
+import htsjdk.variant.variantcontext.*;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+public final class GenotypeColumnsUnitTest extends GATKBaseTest {
+
+    private static final Allele REF = Allele.create("A", true);
+    private static final Allele ALT = Allele.create("C");
+
+    private static VariantContext makeVC(final Genotype... genotypes) {
+        return new VariantContextBuilder("test", "1", 10, 10, Arrays.asList(REF, ALT)).genotypes(genotypes).make();
+    }
+
+    @Test
+    public void testColumns() {
+        final Genotype called = new GenotypeBuilder("called", Arrays.asList(REF, ALT)).PL(new int[]{30, 0, 50}).make();
+        final Genotype haploid = new GenotypeBuilder("haploid", Arrays.asList(REF)).PL(new int[]{0, 20}).make();
+        final Genotype empty = new GenotypeBuilder("empty", Arrays.asList(Allele.NO_CALL, Allele.NO_CALL)).make();
+
+        final GenotypeColumns columns = GenotypeColumns.of(makeVC(called, haploid, empty));
+        Assert.assertEquals(columns.sampleCount(), 3);
+        Assert.assertEquals(columns.alleleCount(), 2);
+        Assert.assertEquals(columns.ploidy(0), 2);
+        Assert.assertEquals(columns.ploidy(1), 1);
+        Assert.assertEquals(columns.ploidy(2), 2);
+
+        Assert.assertTrue(columns.hasLikelihoods(0));
+        Assert.assertEquals(columns.likelihoodCount(0), 3);
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(columns.log10Likelihood(0, i), called.getLikelihoods().getAsVector()[i]);
+        }
+        Assert.assertEquals(columns.likelihoodCount(1), 2);
+        Assert.assertEquals(columns.log10Likelihood(1, 1), haploid.getLikelihoods().getAsVector()[1]);
+        Assert.assertFalse(columns.hasLikelihoods(2));
+        Assert.assertEquals(columns.likelihoodCount(2), 0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNegativeAlleleCount() {
+        GenotypeColumns.of(GenotypesContext.NO_GENOTYPES, -1);
+    }
+}
@@ -0,0 +1,85 @@
+package org.broadinstitute.hellbender.tools.walkers.genotyper;
+
+import htsjdk.variant.variantcontext.Allele;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public final class GenotypeIndexMapCacheUnitTest extends GATKBaseTest {
+
+    private static final Allele A_REF = Allele.create("A", true);
+    private static final Allele C = Allele.create("C");
+    private static final Allele G = Allele.create("G");
+    private static final Allele T = Allele.create("T");
+
+    @DataProvider(name = "allelesAndPloidies")
+    public Object[][] allelesAndPloidies() {
+        final List<Allele> original = Arrays.asList(A_REF, C, G, T);
+        final List<Object[]> result = new ArrayList<>();
+        for (int ploidy = 1; ploidy <= 4; ploidy++) {
+            result.add(new Object[]{ploidy, original, Arrays.asList(A_REF, C)});
+            result.add(new Object[]{ploidy, original, Arrays.asList(A_REF, G)});
+            result.add(new Object[]{ploidy, original, Arrays.asList(A_REF, C, T)});
+            result.add(new Object[]{ploidy, original, Arrays.asList(A_REF, T, G)});
+            result.add(new Object[]{ploidy, original, original});
+        }
+        return result.toArray(new Object[][]{});
+    }
+
+    @Test(dataProvider = "allelesAndPloidies")
+    public void testSubsettedPLIndices(final int ploidy, final List<Allele> originalAlleles, final List<Allele> newAlleles) {
+        final GenotypeIndexMapCache cache = new GenotypeIndexMapCache(10);
+        final int[] actual = cache.subsettedPLIndices(ploidy, originalAlleles, newAlleles);
+
+        final GenotypeLikelihoodCalculator newCalculator = new GenotypeLikelihoodCalculators().getInstance(ploidy, newAlleles.size());
+        final GenotypeLikelihoodCalculator oldCalculator = new GenotypeLikelihoodCalculators().getInstance(ploidy, originalAlleles.size());
+        Assert.assertEquals(actual.length, newCalculator.genotypeCount());
+        for (int newIndex = 0; newIndex < actual.length; newIndex++) {
+            final int[] newAlleleCounts = newCalculator.genotypeAlleleCountsAt(newIndex).alleleCountsByIndex(newAlleles.size() - 1);
+            final int[] oldAlleleCounts = oldCalculator.genotypeAlleleCountsAt(actual[newIndex]).alleleCountsByIndex(originalAlleles.size() - 1);
+            for (int oldAlleleIndex = 0; oldAlleleIndex < originalAlleles.size(); oldAlleleIndex++) {
+                final int newAlleleIndex = newAlleles.indexOf(originalAlleles.get(oldAlleleIndex));
+                Assert.assertEquals(oldAlleleCounts[oldAlleleIndex], newAlleleIndex < 0 ? 0 : newAlleleCounts[newAlleleIndex]);
+            }
+        }
+    }
+
+    @Test
+    public void testCachedMapsAreReused() {
+        final GenotypeIndexMapCache cache = new GenotypeIndexMapCache(10);
+        final int[] first = cache.genotypeIndexMap(2, 4, new int[]{0, 2});
+        final int[] second = cache.genotypeIndexMap(2, 4, new int[]{0, 2});
+        Assert.assertSame(second, first);
+        Assert.assertEquals(first, new int[]{0, 3, 5});
+        Assert.assertNotSame(cache.genotypeIndexMap(3, 4, new int[]{0, 2}), first);
+        Assert.assertEquals(cache.size(), 2);
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        final GenotypeIndexMapCache cache = new GenotypeIndexMapCache(3);
+        for (int ploidy = 1; ploidy <= 10; ploidy++) {
+            cache.genotypeIndexMap(ploidy, 3, new int[]{0, 1});
+        }
+        Assert.assertEquals(cache.size(), 3);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidMaximumSize() {
+        new GenotypeIndexMapCache(0);
+    }
+
+    @Test
+    public void testPrimitiveSubsetting() {
+        final int[] genotypeIndexMap = {0, 3, 5};
+        Assert.assertEquals(GenotypeIndexMapCache.subsetPLs(new int[]{0, 10, 20, 30, 40, 50}, genotypeIndexMap), new int[]{0, 30, 50});
+        Assert.assertEquals(GenotypeIndexMapCache.subsetLikelihoods(new double[]{0, -1, -2, -3, -4, -5}, genotypeIndexMap), new double[]{0, -3, -5});
+        Assert.assertEquals(GenotypeIndexMapCache.subsetAlleleValues(new int[]{7, 8, 9}, new int[]{0, 2}), new int[]{7, 9});
+        Assert.assertEquals(GenotypeIndexMapCache.newToOldAlleleIndexMap(Arrays.asList(A_REF, C, G, T), Arrays.asList(A_REF, T, C)), new int[]{0, 3, 1});
+    }
+}
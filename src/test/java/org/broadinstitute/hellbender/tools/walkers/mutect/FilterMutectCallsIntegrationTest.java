@@ -0,0 +1,69 @@
+package org.broadinstitute.hellbender.tools.walkers.mutect;
+
+import htsjdk.variant.variantcontext.VariantContext;
+import org.broadinstitute.hellbender.CommandLineProgramTest;
+import org.broadinstitute.hellbender.engine.FeatureDataSource;
+import org.broadinstitute.hellbender.engine.VariantWalkerBase;
+import org.broadinstitute.hellbender.utils.test.ArgumentsBuilder;
+import org.broadinstitute.hellbender.utils.test.IntegrationTestSpec;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+public final class FilterMutectCallsIntegrationTest extends CommandLineProgramTest {
+
+    private static final File UNFILTERED_VCF = new File(toolsTestDir,
+            "walkers/validation/basicshortmutpileup/IS3.snv.indel.sv-vs-G15512.prenormal.sorted.vcf");
+
+    @Override
+    public String getTestedClassName() {
+        return FilterMutectCalls.class.getSimpleName();
+    }
+
+    private File filter(final String... additionalArguments) {
+        final File output = createTempFile("filtered", ".vcf");
+        final ArgumentsBuilder args = new ArgumentsBuilder()
+                .addVCF(UNFILTERED_VCF)
+                .addOutput(output);
+        for (final String argument : additionalArguments) {
+            args.add(argument);
+        }
+        runCommandLine(args);
+        return output;
+    }
+
+    @DataProvider(name = "threadingArguments")
+    public Object[][] threadingArguments() {
+        return new Object[][] {
+                {new String[] {"--" + FilterMutectCalls.FILTERING_THREADS_LONG_NAME, "3"}},
+                {new String[] {"--" + FilterMutectCalls.FILTERING_THREADS_LONG_NAME, "3", "--" + FilterMutectCalls.FILTERING_BATCH_SIZE_LONG_NAME, "7"}},
+                {new String[] {"--" + FilterMutectCalls.FILTERING_THREADS_LONG_NAME, "2", "--" + FilterMutectCalls.FILTERING_BATCH_SIZE_LONG_NAME, "1",
+                        "--" + VariantWalkerBase.VARIANT_DECODING_THREADS_LONG_NAME, "2"}},
+        };
+    }
+
+    @Test(dataProvider = "threadingArguments")
+    public void testMultithreadedFilteringMatchesSerial(final String[] threadingArguments) throws IOException {
+        final File serial = filter();
+        final File multithreaded = filter(threadingArguments);
+        IntegrationTestSpec.assertEqualTextFiles(multithreaded, serial, "#");
+
+        // make sure the comparison isn't vacuous
+        try (final FeatureDataSource<VariantContext> variants = new FeatureDataSource<>(serial)) {
+            int filtered = 0;
+            int passing = 0;
+            for (final VariantContext vc : variants) {
+                if (vc.isFiltered()) {
+                    filtered++;
+                } else {
+                    passing++;
+                }
+            }
+            Assert.assertTrue(filtered > 0);
+            Assert.assertTrue(passing > 0);
+        }
+    }
+}
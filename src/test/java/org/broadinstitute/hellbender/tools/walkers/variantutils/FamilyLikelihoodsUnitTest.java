@@ -0,0 +1,82 @@
+package org.broadinstitute.hellbender.tools.walkers.variantutils;
+
+import htsjdk.variant.variantcontext.*;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.samples.PedigreeValidationType;
+import org.broadinstitute.hellbender.utils.samples.SampleDB;
+import org.broadinstitute.hellbender.utils.samples.SampleDBBuilder;
+import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+public final class FamilyLikelihoodsUnitTest extends GATKBaseTest {
+
+    private static final String PED =
+            String.format("%s%n%s%n%s%n%s",
+                    "fam1 kid dad mom 1 2",
+                    "fam1 dad 0   0   1 1",
+                    "fam1 mom 0   0   2 2",
+                    "fam2 other 0 0   1 1");
+
+    // samples in the order of the genotypes of the VCF
+    private static final List<String> SAMPLES = Arrays.asList("mom", "other", "kid", "dad");
+
+    private static final Allele REF = Allele.create("A", true);
+    private static final Allele ALT = Allele.create("C");
+
+    private static FamilyLikelihoods makeFamilyLikelihoods() {
+        final SampleDB sampleDB = new SampleDBBuilder(PedigreeValidationType.STRICT)
+                .addSamplesFromPedigreeStrings(Collections.singletonList(PED)).getFinalSampleDB();
+        return new FamilyLikelihoods(sampleDB, 1e-6, SAMPLES, sampleDB.getFamilies(new HashSet<>(SAMPLES)));
+    }
+
+    private static Genotype makeGenotype(final String sample, final Allele a1, final Allele a2, final int... pls) {
+        return new GenotypeBuilder(sample, Arrays.asList(a1, a2)).PL(pls).make();
+    }
+
+    private static VariantContext makeVariant(final List<Genotype> genotypes) {
+        return new VariantContextBuilder("test", "1", 100, 100, Arrays.asList(REF, ALT)).genotypes(genotypes).make();
+    }
+
+    private static List<Genotype> makeGenotypes() {
+        // a de novo het in the kid, with little evidence for it
+        return Arrays.asList(
+                makeGenotype("mom", REF, REF, 0, 30, 300),
+                makeGenotype("other", REF, ALT, 40, 0, 400),
+                makeGenotype("kid", REF, ALT, 5, 0, 300),
+                makeGenotype("dad", REF, REF, 0, 33, 330));
+    }
+
+    @Test
+    public void testTrioPosteriors() {
+        final GenotypesContext posteriors = makeFamilyLikelihoods().calculatePosteriorGLs(makeVariant(makeGenotypes()));
+
+        Assert.assertEquals(posteriors.getSampleNamesOrderedByName(), new TreeSet<>(SAMPLES));
+        for (final String sample : Arrays.asList("mom", "kid", "dad")) {
+            final Genotype genotype = posteriors.get(sample);
+            Assert.assertTrue(genotype.hasExtendedAttribute(GATKVCFConstants.PHRED_SCALED_POSTERIORS_KEY), sample);
+            Assert.assertTrue(genotype.hasExtendedAttribute(GATKVCFConstants.JOINT_LIKELIHOOD_TAG_NAME), sample);
+            Assert.assertTrue(genotype.hasExtendedAttribute(GATKVCFConstants.JOINT_POSTERIOR_TAG_NAME), sample);
+        }
+        // the de novo prior outweighs the weak evidence for the kid's het
+        Assert.assertTrue(posteriors.get("kid").isHomRef());
+        Assert.assertFalse(posteriors.get("other").hasExtendedAttribute(GATKVCFConstants.PHRED_SCALED_POSTERIORS_KEY));
+    }
+
+    @Test
+    public void testGenotypesOutOfSampleOrder() {
+        final FamilyLikelihoods familyLikelihoods = makeFamilyLikelihoods();
+        final GenotypesContext expected = familyLikelihoods.calculatePosteriorGLs(makeVariant(makeGenotypes()));
+
+        final List<Genotype> shuffled = new ArrayList<>(makeGenotypes());
+        Collections.reverse(shuffled);
+        final GenotypesContext actual = familyLikelihoods.calculatePosteriorGLs(makeVariant(shuffled));
+
+        Assert.assertEquals(actual.size(), expected.size());
+        for (final String sample : SAMPLES) {
+            Assert.assertEquals(actual.get(sample).toString(), expected.get(sample).toString(), sample);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.broadinstitute.hellbender.tools.walkers.variantutils;
+
+import htsjdk.variant.variantcontext.Genotype;
+import htsjdk.variant.variantcontext.LazyGenotypesContext;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.vcf.VCFFileReader;
+import htsjdk.variant.vcf.VCFHeader;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.*;
+
+public final class GenotypeColumnSubsetterUnitTest extends GATKBaseTest {
+
+    private static final List<String> SAMPLES = Arrays.asList("S1", "S2", "S3", "S4");
+
+    private static final String[] RECORDS = {
+            "1\t100\t.\tA\tC\t50\tPASS\tAC=3;AN=8\tGT:AD:DP:GQ:PL\t0/1:5,5:10:40:40,0,40\t1/1:0,7:7:21:210,21,0\t0/0:9,0:9:27:0,27,270\t./.",
+            "1\t200\t.\tAT\tA,ATT\t30\tLowQual\tAC=1,1;AN=6\tGT:GQ:PL:FT\t0/2:12:80,40,200,0,90,120\t0\t1/1:3:100,3,0,100,30,120:lowGQ\t0/0:20",
+            "2\t50\t.\tG\t<NON_REF>\t.\t.\tEND=60\tGT:DP\t0/0:20\t0/0:11\t./.:.\t0/0:3",
+    };
+
+    private File vcfFile;
+
+    @BeforeClass
+    public void writeVcf() throws IOException {
+        vcfFile = createTempFile("genotypeColumns", ".vcf");
+        try (final PrintWriter writer = new PrintWriter(vcfFile)) {
+            writer.println("##fileformat=VCFv4.2");
+            writer.println("##INFO=<ID=AC,Number=A,Type=Integer,Description=\"Allele count\">");
+            writer.println("##INFO=<ID=AN,Number=1,Type=Integer,Description=\"Allele number\">");
+            writer.println("##INFO=<ID=END,Number=1,Type=Integer,Description=\"End\">");
+            writer.println("##FILTER=<ID=LowQual,Description=\"Low quality\">");
+            writer.println("##FORMAT=<ID=GT,Number=1,Type=String,Description=\"Genotype\">");
+            writer.println("##FORMAT=<ID=AD,Number=R,Type=Integer,Description=\"Allelic depths\">");
+            writer.println("##FORMAT=<ID=DP,Number=1,Type=Integer,Description=\"Depth\">");
+            writer.println("##FORMAT=<ID=GQ,Number=1,Type=Integer,Description=\"Genotype quality\">");
+            writer.println("##FORMAT=<ID=PL,Number=G,Type=Integer,Description=\"Likelihoods\">");
+            writer.println("##FORMAT=<ID=FT,Number=1,Type=String,Description=\"Genotype filter\">");
+            writer.println("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\t" + String.join("\t", SAMPLES));
+            for (final String record : RECORDS) {
+                writer.println(record);
+            }
+        }
+    }
+
+    private List<VariantContext> readRecords() {
+        try (final VCFFileReader reader = new VCFFileReader(vcfFile, false)) {
+            return reader.iterator().toList();
+        }
+    }
+
+    private VCFHeader readHeader() {
+        try (final VCFFileReader reader = new VCFFileReader(vcfFile, false)) {
+            return reader.getFileHeader();
+        }
+    }
+
+    @DataProvider(name = "sampleSubsets")
+    public Object[][] sampleSubsets() {
+        return new Object[][]{
+                {Collections.singleton("S1")},
+                {Collections.singleton("S4")},
+                {new TreeSet<>(Arrays.asList("S3", "S2"))},
+                {new TreeSet<>(Arrays.asList("S4", "S1", "S2"))},
+                {new TreeSet<>(SAMPLES)},
+        };
+    }
+
+    @Test(dataProvider = "sampleSubsets")
+    public void testSubsetMatchesSubContext(final Set<String> samples) {
+        final GenotypeColumnSubsetter subsetter = new GenotypeColumnSubsetter(readHeader(), samples);
+        final List<VariantContext> records = readRecords();
+        final List<VariantContext> expectedRecords = readRecords();
+        for (int i = 0; i < records.size(); i++) {
+            final VariantContext subset = subsetter.subset(records.get(i));
+            Assert.assertTrue(subset.getGenotypes().isLazyWithData());
+            Assert.assertEquals(subset.getNSamples(), samples.size());
+
+            final VariantContext expected = expectedRecords.get(i).subContextFromSamples(samples, false);
+            Assert.assertEquals(subset.getSampleNamesOrderedByName(), expected.getSampleNamesOrderedByName());
+            for (final String sample : samples) {
+                final Genotype genotype = subset.getGenotype(sample);
+                final Genotype expectedGenotype = expected.getGenotype(sample);
+                Assert.assertEquals(genotype.toString(), expectedGenotype.toString());
+                Assert.assertEquals(genotype.getFilters(), expectedGenotype.getFilters());
+            }
+            Assert.assertEquals(subset.getAttributes(), expected.getAttributes());
+            Assert.assertEquals(subset.getFilters(), expected.getFilters());
+        }
+    }
+
+    @Test
+    public void testUnparsedGenotypesAreLeftUnchanged() {
+        final GenotypeColumnSubsetter subsetter = new GenotypeColumnSubsetter(readHeader(), Collections.singleton("S2"));
+
+        final VariantContext decoded = readRecords().get(0);
+        decoded.getGenotypes().size();
+        final VariantContext fullyDecoded = new VariantContextBuilder(decoded).genotypes(new ArrayList<>(decoded.getGenotypes())).make();
+        Assert.assertSame(subsetter.subset(fullyDecoded), fullyDecoded);
+
+        // malformed records are left to the regular parser to report
+        final VariantContext original = readRecords().get(0);
+        final VariantContext malformed = new VariantContextBuilder(original).genotypesNoValidation(new LazyGenotypesContext(
+                data -> { throw new IllegalStateException(); }, "GT\t0/1\t0/0", 2)).make();
+        Assert.assertSame(subsetter.subset(malformed), malformed);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnknownSample() {
+        new GenotypeColumnSubsetter(readHeader(), Arrays.asList("S1", "NOT_A_SAMPLE"));
+    }
+}
@@ -3,6 +3,7 @@ package org.broadinstitute.hellbender.tools.walkers.variantutils;
 import htsjdk.variant.variantcontext.Allele;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.variantcontext.VariantContextUtils;
 import org.broadinstitute.hellbender.GATKBaseTest;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
@@ -80,4 +81,28 @@ public class SelectVariantsUnitTest extends GATKBaseTest {
         Assert.assertEquals(actual, expected);
     }
 
-}
\ No newline at end of file
+
+    @DataProvider(name="siteLevelJexlTests")
+    public Object[][] getSiteLevelJexlTests() {
+        return new Object[][] {
+                new Object[] { "QD < 2.0", true },
+                new Object[] { "QD < 2.0 || FS > 60.0", true },
+                new Object[] { "CHROM == '20' && QUAL > 30.0", true },
+                new Object[] { "LowQual == 1", true },
+                new Object[] { "AF > 0.5", false },
+                new Object[] { "QD < 2.0 && DP > 10", false },
+                new Object[] { "homVarCount > 0", false },
+                new Object[] { "vc.getGenotype('NA12878').isHomVar()", false },
+                new Object[] { "UNKNOWN_KEY == 1", false },
+                new Object[] { "true", true }
+        };
+    }
+
+    @Test(dataProvider = "siteLevelJexlTests")
+    public void testIsSiteLevel(final String expression, final boolean expected) {
+        final Set<String> siteLevelVariables = new HashSet<>(Arrays.asList("CHROM", "QUAL", "FILTER", "QD", "FS", "LowQual"));
+        final VariantContextUtils.JexlVCMatchExp jexl =
+                VariantContextUtils.initializeMatchExps(Collections.singletonList("select"), Collections.singletonList(expression)).get(0);
+        Assert.assertEquals(SelectVariants.isSiteLevel(jexl, siteLevelVariables), expected);
+    }
+}
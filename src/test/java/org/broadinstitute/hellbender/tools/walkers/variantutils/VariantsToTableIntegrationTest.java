@@ -1,12 +1,26 @@
 package org.broadinstitute.hellbender.tools.walkers.variantutils;
 
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.example.GroupReadSupport;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
 import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.test.ArgumentsBuilder;
 import org.broadinstitute.hellbender.utils.test.IntegrationTestSpec;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 public final class VariantsToTableIntegrationTest extends CommandLineProgramTest {
     private String variantsToTableCmd(final String moreArgs) {
@@ -187,4 +201,113 @@ public final class VariantsToTableIntegrationTest extends CommandLineProgramTest
                 Arrays.asList(getToolTestDataDir() + "expected.multiallelic.moltenize.SMA.table"));
         spec.executeTest("testMoltenOutputWithMultipleAlleles", this);
     }
+
+    @DataProvider(name = "extractionThreadingArguments")
+    public Object[][] extractionThreadingArguments() {
+        final String threading = " --" + VariantsToTable.EXTRACTION_THREADS_LONG_NAME + " 3 --" + VariantsToTable.EXTRACTION_BATCH_SIZE_LONG_NAME + " 2";
+        return new Object[][] {
+                {variantsToTableCmd(threading), "expected.soap_gatk_annotated.noChr_lines.table"},
+                {" --variant " + getToolTestDataDir() + "multiallelic_gt.vcf -F CHROM -F POS -F ID -F REF -F ALT -F QUAL -F MULTI-ALLELIC" +
+                        " -GF PL -GF AD -SMA -O %s" + threading, "expected.multiallelic_gt.table"},
+                {" --variant " + getToolTestDataDir() + "vcfexample2.vcf -GF RD --moltenize -O %s" + threading, "expected.vcfexample2.GF_RD.moltenize.table"},
+        };
+    }
+
+    @Test(dataProvider = "extractionThreadingArguments")
+    public void testMultithreadedExtraction(final String args, final String expected) throws IOException {
+        final IntegrationTestSpec spec = new IntegrationTestSpec(args, Arrays.asList(getToolTestDataDir() + expected));
+        spec.executeTest("testMultithreadedExtraction", this);
+    }
+
+    @Test
+    public void testParquetMoltenOutputFail() throws IOException {
+        final IntegrationTestSpec spec = new IntegrationTestSpec(
+                " --variant " + getToolTestDataDir() + "vcfexample2.vcf" +
+                        " --moltenize --" + VariantsToTable.OUTPUT_FORMAT_LONG_NAME + " " + VariantsToTable.OutputFormat.PARQUET +
+                        " -O %s",
+                1, CommandLineException.BadArgumentValue.class);
+        spec.executeTest("testParquetMoltenOutputFail", this);
+    }
+
+    @DataProvider(name = "parquetOutput")
+    public Object[][] parquetOutput() {
+        return new Object[][] {
+                {new String[] {"1"}},
+                {new String[] {"2", "--" + VariantsToTable.EXTRACTION_BATCH_SIZE_LONG_NAME, "3"}},
+        };
+    }
+
+    @Test(dataProvider = "parquetOutput")
+    public void testParquetOutput(final String[] threadingArguments) throws IOException {
+        final List<String> fields = Arrays.asList("-F", "CHROM", "-F", "POS", "-F", "QUAL", "-F", "MULTI-ALLELIC", "-F", "AF",
+                "-F", "DoC", "-F", "AFrange", "-F", "RMSMAPQ", "-GF", "RD", "-GF", "GT", "-GF", "GQ");
+        final File table = createTempFile("variants", ".table");
+        final File parquet = createTempFile("variants", ".parquet");
+        for (final File output : Arrays.asList(table, parquet)) {
+            final ArgumentsBuilder args = new ArgumentsBuilder()
+                    .addVCF(new File(getToolTestDataDir() + "vcfexample2.vcf"))
+                    .addOutput(output)
+                    .addArgument(VariantsToTable.EXTRACTION_THREADS_LONG_NAME, threadingArguments[0]);
+            fields.forEach(args::add);
+            Arrays.asList(threadingArguments).subList(1, threadingArguments.length).forEach(args::add);
+            if (output == parquet) {
+                args.addArgument(VariantsToTable.OUTPUT_FORMAT_LONG_NAME, VariantsToTable.OutputFormat.PARQUET.toString());
+            }
+            runCommandLine(args);
+        }
+
+        final List<String> lines = Files.readAllLines(table.toPath());
+        final List<String> columns = Arrays.asList(lines.get(0).split("\t"));
+        final List<Group> rows = new ArrayList<>();
+        final MessageType schema;
+        try (final ParquetReader<Group> reader = ParquetReader.builder(new GroupReadSupport(), new Path(parquet.getAbsolutePath())).build()) {
+            for (Group row = reader.read(); row != null; row = reader.read()) {
+                rows.add(row);
+            }
+            Assert.assertFalse(rows.isEmpty());
+            schema = (MessageType) rows.get(0).getType();
+        }
+
+        Assert.assertEquals(schema.getFieldCount(), columns.size());
+        for (int i = 0; i < columns.size(); i++) {
+            Assert.assertEquals(schema.getFieldName(i), columns.get(i));
+        }
+        Assert.assertEquals(schema.getType("POS").asPrimitiveType().getPrimitiveTypeName(), PrimitiveTypeName.INT32);
+        Assert.assertEquals(schema.getType("QUAL").asPrimitiveType().getPrimitiveTypeName(), PrimitiveTypeName.DOUBLE);
+        Assert.assertEquals(schema.getType("MULTI-ALLELIC").asPrimitiveType().getPrimitiveTypeName(), PrimitiveTypeName.BOOLEAN);
+        Assert.assertEquals(schema.getType("DoC").asPrimitiveType().getPrimitiveTypeName(), PrimitiveTypeName.INT32);
+        Assert.assertEquals(schema.getType("AFrange").asPrimitiveType().getPrimitiveTypeName(), PrimitiveTypeName.BINARY);
+        Assert.assertEquals(schema.getType("RMSMAPQ").asPrimitiveType().getPrimitiveTypeName(), PrimitiveTypeName.DOUBLE);
+        Assert.assertEquals(schema.getType("NA12874.RD").asPrimitiveType().getPrimitiveTypeName(), PrimitiveTypeName.INT32);
+        Assert.assertEquals(schema.getType("NA12874.GT").asPrimitiveType().getPrimitiveTypeName(), PrimitiveTypeName.BINARY);
+        Assert.assertEquals(schema.getType("NA12874.GQ").asPrimitiveType().getPrimitiveTypeName(), PrimitiveTypeName.INT32);
+
+        Assert.assertEquals(rows.size(), lines.size() - 1);
+        int nulls = 0;
+        for (int r = 0; r < rows.size(); r++) {
+            final String[] values = lines.get(r + 1).split("\t", -1);
+            final Group row = rows.get(r);
+            for (int i = 0; i < columns.size(); i++) {
+                if (values[i].equals("NA")) {
+                    Assert.assertEquals(row.getFieldRepetitionCount(i), 0, columns.get(i));
+                    nulls++;
+                    continue;
+                }
+                switch (schema.getType(i).asPrimitiveType().getPrimitiveTypeName()) {
+                    case INT32:
+                        Assert.assertEquals(row.getInteger(i, 0), Integer.parseInt(values[i]), columns.get(i));
+                        break;
+                    case DOUBLE:
+                        Assert.assertEquals(row.getDouble(i, 0), Double.parseDouble(values[i]), columns.get(i));
+                        break;
+                    case BOOLEAN:
+                        Assert.assertEquals(row.getBoolean(i, 0), Boolean.parseBoolean(values[i]), columns.get(i));
+                        break;
+                    default:
+                        Assert.assertEquals(row.getString(i, 0), values[i], columns.get(i));
+                }
+            }
+        }
+        Assert.assertTrue(nulls > 0);
+    }
 }
@@ -0,0 +1,77 @@
+package org.broadinstitute.hellbender.tools.walkers.vqsr;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public final class GaussianMixtureModelUnitTest extends GATKBaseTest {
+
+    private static List<VariantDatum> makeData(final int numData, final int numAnnotations) {
+        final Random random = new Random(13);
+        final List<VariantDatum> data = new ArrayList<>(numData);
+        for (int i = 0; i < numData; i++) {
+            final VariantDatum datum = new VariantDatum();
+            datum.annotations = new double[numAnnotations];
+            datum.isNull = new boolean[numAnnotations];
+            // two well separated clusters
+            final double center = i % 3 == 0 ? 2.0 : -1.0;
+            for (int j = 0; j < numAnnotations; j++) {
+                datum.annotations[j] = center + random.nextGaussian() * 0.5;
+            }
+            data.add(datum);
+        }
+        return data;
+    }
+
+    private static GaussianMixtureModel train(final List<VariantDatum> data, final int threads) {
+        final VariantRecalibratorArgumentCollection vrac = new VariantRecalibratorArgumentCollection();
+        vrac.MAX_ITERATIONS = 20;
+        vrac.NUM_KMEANS_ITERATIONS = 5;
+        vrac.EM_THREADS = threads;
+        Utils.resetRandomGenerator();
+        return new VariantRecalibratorEngine(vrac).generateModel(data, 4);
+    }
+
+    @Test
+    public void testTrainingDoesNotDependOnThreads() {
+        final List<VariantDatum> data = makeData(2000, 3);
+        final GaussianMixtureModel serial = train(data, 1);
+        final GaussianMixtureModel parallel = train(data, 4);
+
+        Assert.assertEquals(parallel.getModelGaussians().size(), serial.getModelGaussians().size());
+        for (int i = 0; i < serial.getModelGaussians().size(); i++) {
+            final MultivariateGaussian expected = serial.getModelGaussians().get(i);
+            final MultivariateGaussian actual = parallel.getModelGaussians().get(i);
+            // exact equality: every datum and Gaussian is computed in the same order regardless of the number of threads
+            Assert.assertEquals(actual.pMixtureLog10, expected.pMixtureLog10);
+            Assert.assertEquals(actual.mu, expected.mu);
+            for (int row = 0; row < expected.mu.length; row++) {
+                Assert.assertEquals(actual.sigma.getArray()[row], expected.sigma.getArray()[row]);
+            }
+        }
+
+        serial.precomputeDenominatorForEvaluation();
+        parallel.precomputeDenominatorForEvaluation();
+        for (final VariantDatum datum : data.subList(0, 10)) {
+            Assert.assertEquals(parallel.evaluateDatum(datum), serial.evaluateDatum(datum));
+        }
+    }
+
+    @Test
+    public void testModelFitsClusters() {
+        final GaussianMixtureModel model = train(makeData(2000, 2), 2);
+        model.precomputeDenominatorForEvaluation();
+        final VariantDatum atCluster = new VariantDatum();
+        atCluster.annotations = new double[]{-1.0, -1.0};
+        atCluster.isNull = new boolean[2];
+        final VariantDatum farAway = new VariantDatum();
+        farAway.annotations = new double[]{10.0, -10.0};
+        farAway.isNull = new boolean[2];
+        Assert.assertTrue(model.evaluateDatum(atCluster) > model.evaluateDatum(farAway));
+    }
+}
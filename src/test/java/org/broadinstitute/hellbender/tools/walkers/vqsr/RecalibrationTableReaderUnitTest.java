@@ -0,0 +1,135 @@
+package org.broadinstitute.hellbender.tools.walkers.vqsr;
+
+import htsjdk.tribble.index.Index;
+import htsjdk.tribble.index.IndexFactory;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFCodec;
+import htsjdk.variant.vcf.VCFFileReader;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public final class RecalibrationTableReaderUnitTest extends GATKBaseTest {
+
+    private static final String[] RECORDS = {
+            "1\t100\t.\tN\t<VQSR>\t.\t.\tEND=100;VQSLOD=1.5;culprit=FS;POSITIVE_TRAIN_SITE",
+            "1\t200\t.\tAT\tA\t.\t.\tEND=201;VQSLOD=-2.0;culprit=MQ",
+            "1\t200\t.\tAT\tATT\t.\t.\tEND=201;VQSLOD=3.25;culprit=QD;NEGATIVE_TRAIN_SITE",
+            "1\t201\t.\tT\tC\t.\t.\tVQSLOD=0.5;culprit=SOR",
+            "1\t300\t.\tN\t<VQSR>\t.\t.\tEND=300;culprit=FS",
+            "2\t50\t.\tN\t<VQSR>\t.\t.\t.",
+    };
+
+    private File recalFile;
+
+    @BeforeClass
+    public void writeRecalFile() throws IOException {
+        recalFile = createTempFile("test", ".recal");
+        try (final PrintWriter writer = new PrintWriter(recalFile)) {
+            writer.println("##fileformat=VCFv4.2");
+            writer.println("##INFO=<ID=VQSLOD,Number=1,Type=Float,Description=\"lod\">");
+            writer.println("##INFO=<ID=culprit,Number=1,Type=String,Description=\"culprit\">");
+            writer.println("##INFO=<ID=POSITIVE_TRAIN_SITE,Number=0,Type=Flag,Description=\"positive\">");
+            writer.println("##INFO=<ID=NEGATIVE_TRAIN_SITE,Number=0,Type=Flag,Description=\"negative\">");
+            writer.println("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO");
+            for (final String record : RECORDS) {
+                writer.println(record);
+            }
+        }
+        final Index index = IndexFactory.createDynamicIndex(recalFile, new VCFCodec());
+        index.writeBasedOnFeatureFile(recalFile);
+        new File(recalFile.getPath() + ".idx").deleteOnExit();
+    }
+
+    @Test
+    public void testGetAttributeAsDouble() {
+        final RecalRecord record = new RecalRecordCodec().decode(RECORDS[0]);
+        Assert.assertEquals(record.getAttributeAsDouble(GATKVCFConstants.VQS_LOD_KEY, -1.0), 1.5);
+        Assert.assertEquals(record.getAttributeAsDouble("END", -1.0), 100.0);
+        Assert.assertEquals(record.getAttributeAsDouble("VQS", -1.0), -1.0);
+    }
+
+    @Test(expectedExceptions = NumberFormatException.class)
+    public void testGetFlagAsDouble() {
+        new RecalRecordCodec().decode(RECORDS[0]).getAttributeAsDouble(GATKVCFConstants.POSITIVE_LABEL_KEY, -1.0);
+    }
+
+    private static List<Integer> starts(final List<RecalRecord> records) {
+        return records.stream().map(RecalRecord::getStart).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testRecordsMatchVariantContexts() {
+        final RecalRecordCodec codec = new RecalRecordCodec();
+        final List<VariantContext> vcs;
+        try (final VCFFileReader vcfReader = new VCFFileReader(recalFile, false)) {
+            vcs = vcfReader.iterator().toList();
+        }
+        Assert.assertEquals(vcs.size(), RECORDS.length);
+        for (int i = 0; i < RECORDS.length; i++) {
+            final VariantContext vc = vcs.get(i);
+            final RecalRecord record = codec.decode(RECORDS[i]);
+            Assert.assertEquals(record.getContig(), vc.getContig());
+            Assert.assertEquals(record.getStart(), vc.getStart());
+            Assert.assertEquals(record.getEnd(), vc.getEnd());
+            Assert.assertEquals(record.getAlternateAllele(), vc.getAlternateAllele(0));
+            for (final String key : new String[]{GATKVCFConstants.VQS_LOD_KEY, GATKVCFConstants.CULPRIT_KEY,
+                    GATKVCFConstants.POSITIVE_LABEL_KEY, GATKVCFConstants.NEGATIVE_LABEL_KEY, "VQS", "END"}) {
+                Assert.assertEquals(record.hasAttribute(key), vc.hasAttribute(key), key);
+                Assert.assertEquals(record.getAttributeAsString(key, null), vc.getAttributeAsString(key, null), key);
+            }
+            Assert.assertEquals(record.getAttributeAsDouble(GATKVCFConstants.VQS_LOD_KEY, -1.0),
+                    vc.getAttributeAsDouble(GATKVCFConstants.VQS_LOD_KEY, -1.0));
+        }
+        Assert.assertNull(codec.decode("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO"));
+        Assert.assertEquals(codec.decode("1\t5\t.\tACG\tA\t.\t.\tVQSLOD=1.0\textra").getEnd(), 7);
+    }
+
+    @Test(expectedExceptions = UserException.MalformedFile.class)
+    public void testTruncatedLine() {
+        new RecalRecordCodec().decode("1\t100\t.\tA\tC");
+    }
+
+    @Test
+    public void testStreamingStarts() {
+        try (final RecalibrationTableReader reader = new RecalibrationTableReader(recalFile.getPath(), 0, 0)) {
+            Assert.assertEquals(starts(reader.getStartingAt("1", 50)).size(), 0);
+            Assert.assertEquals(starts(reader.getStartingAt("1", 100)), Arrays.asList(100));
+            Assert.assertEquals(starts(reader.getStartingAt("1", 200)), Arrays.asList(200, 200));
+            // repeated positions, e.g. for a multi-allelic input split over several records
+            Assert.assertEquals(starts(reader.getStartingAt("1", 200)), Arrays.asList(200, 200));
+            // the records starting at 200 overlap 201, but only start there, as with FeatureContext.getValues
+            Assert.assertEquals(starts(reader.getStartingAt("1", 201)), Arrays.asList(201));
+            Assert.assertEquals(starts(reader.getStartingAt("1", 300)), Arrays.asList(300));
+            Assert.assertEquals(starts(reader.getStartingAt("2", 50)), Arrays.asList(50));
+            // going back requires a new query, which must skip the records that start before the position
+            Assert.assertEquals(starts(reader.getStartingAt("1", 201)), Arrays.asList(201));
+            Assert.assertEquals(reader.getStartingAt("1", 201).get(0).getAlternateAllele(), Allele.create("C"));
+            Assert.assertEquals(starts(reader.getStartingAt("1", 1000)).size(), 0);
+            Assert.assertEquals(starts(reader.getStartingAt("3", 1)).size(), 0);
+            Assert.assertEquals(reader.getStartingAt("1", 200).get(1).getAlternateAllele(), Allele.create("ATT"));
+        }
+    }
+
+    @Test(expectedExceptions = UserException.class)
+    public void testUnindexedInput() throws IOException {
+        final File unindexed = createTempFile("unindexed", ".recal");
+        try (final PrintWriter writer = new PrintWriter(unindexed)) {
+            writer.println("##fileformat=VCFv4.2");
+            writer.println("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO");
+            writer.println(RECORDS[0]);
+        }
+        new RecalibrationTableReader(unindexed.getPath(), 0, 0);
+    }
+}
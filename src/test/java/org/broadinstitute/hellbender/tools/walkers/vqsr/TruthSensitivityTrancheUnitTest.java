@@ -75,7 +75,7 @@ public final class TruthSensitivityTrancheUnitTest extends GATKBaseTest {
     private static List<TruthSensitivityTranche> findMyTranches(ArrayList<VariantDatum> vd, double[] tranches) {
         final int nCallsAtTruth = VariantDatum.countCallsAtTruth( vd, Double.NEGATIVE_INFINITY );
         final TruthSensitivityTranche.TruthSensitivityMetric metric = new TruthSensitivityTranche.TruthSensitivityMetric( nCallsAtTruth );
-        return TruthSensitivityTranche.findTranches(vd, tranches, metric, VariantRecalibratorArgumentCollection.Mode.SNP);
+        return TruthSensitivityTranche.findTranches(VariantDataStore.of(vd, 0), tranches, metric, VariantRecalibratorArgumentCollection.Mode.SNP);
     }
 
     @Test
@@ -123,8 +123,8 @@ public class VariantDataManagerUnitTest extends GATKBaseTest {
         vdm.setData(theData);
         vdm.dropAggregateData();
 
-        for( final VariantDatum datum : vdm.getData() ) {
-            Assert.assertFalse( datum.isAggregate );
+        for( int row = 0; row < vdm.getDataStore().size(); row++ ) {
+            Assert.assertFalse( vdm.getDataStore().isAggregate(row) );
         }
     }
 }
@@ -0,0 +1,187 @@
+package org.broadinstitute.hellbender.tools.walkers.vqsr;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.variant.variantcontext.Allele;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public final class VariantDataStoreUnitTest extends GATKBaseTest {
+
+    private static VariantDatum makeDatum(final int index, final String contig, final int start) {
+        final VariantDatum datum = new VariantDatum();
+        datum.annotations = new double[]{index, -index, index * 0.5};
+        datum.isNull = new boolean[]{index % 2 == 0, false, index % 3 == 0};
+        datum.lod = index % 4;
+        datum.prior = index * 0.1;
+        datum.worstAnnotation = index % 3 - 1;
+        datum.isKnown = index % 2 == 0;
+        datum.atTruthSite = index % 3 == 0;
+        datum.atTrainingSite = index % 4 == 0;
+        datum.isSNP = true;
+        datum.isTransition = index % 5 == 0;
+        datum.isAggregate = index % 6 == 0;
+        datum.loc = contig == null ? null : new SimpleInterval(contig, start, start + index % 2);
+        if (index % 7 == 0) {
+            datum.referenceAllele = Allele.create("A", true);
+            datum.alternateAllele = Allele.create("C");
+        }
+        return datum;
+    }
+
+    private static void assertSameDatum(final VariantDatum actual, final VariantDatum expected) {
+        Assert.assertEquals(actual.annotations, expected.annotations);
+        Assert.assertEquals(actual.isNull, expected.isNull);
+        Assert.assertEquals(actual.lod, expected.lod);
+        Assert.assertEquals(actual.prior, expected.prior);
+        Assert.assertEquals(actual.worstAnnotation, expected.worstAnnotation);
+        Assert.assertEquals(actual.isKnown, expected.isKnown);
+        Assert.assertEquals(actual.atTruthSite, expected.atTruthSite);
+        Assert.assertEquals(actual.atTrainingSite, expected.atTrainingSite);
+        Assert.assertEquals(actual.atAntiTrainingSite, expected.atAntiTrainingSite);
+        Assert.assertEquals(actual.isSNP, expected.isSNP);
+        Assert.assertEquals(actual.isTransition, expected.isTransition);
+        Assert.assertEquals(actual.failingSTDThreshold, expected.failingSTDThreshold);
+        Assert.assertEquals(actual.isAggregate, expected.isAggregate);
+        Assert.assertEquals(actual.loc, expected.loc);
+        Assert.assertEquals(actual.referenceAllele, expected.referenceAllele);
+        Assert.assertEquals(actual.alternateAllele, expected.alternateAllele);
+    }
+
+    private static List<VariantDatum> makeData(final int size) {
+        final List<VariantDatum> data = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            data.add(makeDatum(i, i % 3 == 0 ? "2" : "1", 1000 - i * 10));
+        }
+        return data;
+    }
+
+    private static VariantDataStore makeStore(final List<VariantDatum> data, final boolean offHeap) {
+        final VariantDataStore store = new VariantDataStore(3, offHeap, 4);
+        data.forEach(store::add);
+        return store;
+    }
+
+    @DataProvider(name = "offHeap")
+    public Object[][] offHeap() {
+        return new Object[][]{{false}, {true}};
+    }
+
+    @Test(dataProvider = "offHeap")
+    public void testRoundTrip(final boolean offHeap) {
+        final List<VariantDatum> data = makeData(19);
+        data.get(5).loc = null;
+        final VariantDataStore store = makeStore(data, offHeap);
+        Assert.assertEquals(store.size(), data.size());
+        for (int row = 0; row < data.size(); row++) {
+            assertSameDatum(store.getDatum(row), data.get(row));
+        }
+        Assert.assertNull(store.getLocation(5));
+    }
+
+    @Test
+    public void testSetters() {
+        final VariantDataStore store = makeStore(makeData(10), false);
+        store.setLod(9, -3.5);
+        store.setAnnotation(9, 2, 42.0);
+        store.setWorstAnnotation(9, 2);
+        store.setAtAntiTrainingSite(9, true);
+        store.setFailingSTDThreshold(9, true);
+        store.setFailingSTDThreshold(8, false);
+        Assert.assertEquals(store.getLod(9), -3.5);
+        Assert.assertEquals(store.getAnnotation(9, 2), 42.0);
+        Assert.assertEquals(store.getWorstAnnotation(9), 2);
+        Assert.assertTrue(store.isAtAntiTrainingSite(9));
+        Assert.assertTrue(store.isFailingSTDThreshold(9));
+        Assert.assertFalse(store.isFailingSTDThreshold(8));
+        Assert.assertEquals(store.getLod(8), 0.0);
+    }
+
+    @Test
+    public void testPermuteAnnotations() {
+        final List<VariantDatum> data = makeData(9);
+        final VariantDataStore store = makeStore(data, false);
+        store.permuteAnnotations(Arrays.asList(2, 0, 1));
+        for (int row = 0; row < data.size(); row++) {
+            final VariantDatum datum = data.get(row);
+            Assert.assertEquals(store.getDatum(row).annotations, new double[]{datum.annotations[2], datum.annotations[0], datum.annotations[1]});
+            Assert.assertEquals(store.getDatum(row).isNull, new boolean[]{datum.isNull[2], datum.isNull[0], datum.isNull[1]});
+        }
+    }
+
+    @Test
+    public void testRemoveRows() {
+        final List<VariantDatum> data = makeData(17);
+        final VariantDataStore store = makeStore(data, false);
+        store.removeRows(store::isAggregate);
+        data.removeIf(datum -> datum.isAggregate);
+        Assert.assertEquals(store.size(), data.size());
+        for (int row = 0; row < data.size(); row++) {
+            assertSameDatum(store.getDatum(row), data.get(row));
+        }
+        store.add(makeDatum(1, "1", 1));
+        Assert.assertEquals(store.size(), data.size() + 1);
+    }
+
+    @Test
+    public void testSortByLod() {
+        final List<VariantDatum> data = makeData(23);
+        final VariantDataStore store = makeStore(data, false);
+        store.sortByLod();
+        Collections.sort(data, VariantDatum.VariantDatumLODComparator);
+        for (int row = 0; row < data.size(); row++) {
+            assertSameDatum(store.getDatum(row), data.get(row));
+        }
+    }
+
+    @Test
+    public void testSortByCoordinate() {
+        final SAMSequenceDictionary dictionary = new SAMSequenceDictionary(Arrays.asList(
+                new SAMSequenceRecord("2", 10000), new SAMSequenceRecord("1", 10000)));
+        final List<VariantDatum> data = makeData(23);
+        final VariantDataStore store = makeStore(data, false);
+        store.sortByCoordinate(dictionary);
+        Collections.sort(data, VariantDatum.getComparator(dictionary));
+        for (int row = 0; row < data.size(); row++) {
+            assertSameDatum(store.getDatum(row), data.get(row));
+        }
+    }
+
+    @Test
+    public void testSortRows() {
+        final List<VariantDatum> data = makeData(11);
+        final VariantDataStore store = makeStore(data, false);
+        store.sortRows((row1, row2) -> Double.compare(store.getPrior(row2), store.getPrior(row1)));
+        Collections.reverse(data);
+        for (int row = 0; row < data.size(); row++) {
+            assertSameDatum(store.getDatum(row), data.get(row));
+        }
+    }
+
+    @Test
+    public void testCountCallsAtTruth() {
+        final List<VariantDatum> data = makeData(23);
+        final VariantDataStore store = makeStore(data, false);
+        for (final double minLod : new double[]{Double.NEGATIVE_INFINITY, 0.0, 5.0}) {
+            Assert.assertEquals(store.countCallsAtTruth(minLod), VariantDatum.countCallsAtTruth(data, minLod));
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testWrongNumberOfAnnotations() {
+        new VariantDataStore(2, false).add(makeDatum(1, "1", 1));
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testRowOutOfBounds() {
+        makeStore(makeData(4), false).getLod(4);
+    }
+}
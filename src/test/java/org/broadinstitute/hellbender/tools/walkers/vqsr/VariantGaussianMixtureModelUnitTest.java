@@ -79,9 +79,10 @@ public final class VariantGaussianMixtureModelUnitTest extends GATKBaseTest {
     }
 
     private static List<TruthSensitivityTranche> findMyTranches(ArrayList<VariantDatum> vd, List<Double> tranches) {
-        final int nCallsAtTruth = TrancheManager.countCallsAtTruth( vd, Double.NEGATIVE_INFINITY );
+        final VariantDataStore data = VariantDataStore.of(vd, 0);
+        final int nCallsAtTruth = TrancheManager.countCallsAtTruth( data, Double.NEGATIVE_INFINITY );
         final TrancheManager.SelectionMetric metric = new TrancheManager.TruthSensitivityMetric( nCallsAtTruth );
-        return TrancheManager.findTranches(vd, tranches, metric, VariantRecalibratorArgumentCollection.Mode.SNP);
+        return TrancheManager.findTranches(data, tranches, metric, VariantRecalibratorArgumentCollection.Mode.SNP);
     }
 
     @Test
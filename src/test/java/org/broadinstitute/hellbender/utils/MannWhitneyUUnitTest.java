@@ -1,6 +1,7 @@
 package org.broadinstitute.hellbender.utils;
 
 import com.google.common.primitives.Doubles;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
 import org.broadinstitute.hellbender.GATKBaseTest;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -91,10 +92,84 @@ public class MannWhitneyUUnitTest extends GATKBaseTest {
         Assert.assertEquals(test.getZ(), Z, DELTA_PRECISION, name);
     }
 
+    @DataProvider(name="exactPTestData")
+    public Object[][] exactPDataProvider() {
+        return new Object[][] {
+                new Object[] {new double[] {1, 2, 2, 3}, new double[] {2, 3, 3, 4, 5}},
+                new Object[] {new double[] {7, 7, 7}, new double[] {7, 7, 8}},
+                new Object[] {new double[] {1, 5, 9, 13, 2, 6}, new double[] {3, 4, 5, 5, 9}},
+                new Object[] {new double[] {4}, new double[] {1, 2, 3, 4, 5, 6, 7, 8, 9}},
+                new Object[] {new double[] {1, 1, 2, 2, 3, 3, 4, 4, 5}, new double[] {1, 2, 3, 4, 5, 6, 7, 8, 9}},
+        };
+    }
+
+    // p-value of the exact test by enumerating all the assignments of the ranks to the first series
+    private static double bruteForceExactP(final double[] series1, final double[] series2, final double u) {
+        final int n1 = series1.length;
+        final int n = n1 + series2.length;
+        final double[] all = Arrays.copyOf(series1, n);
+        System.arraycopy(series2, 0, all, n1, series2.length);
+        final double[] ranks = new double[n];
+        for (int i = 0; i < n; i++) {
+            double below = 0, equal = 0;
+            for (final double other : all) {
+                below += other < all[i] ? 1 : 0;
+                equal += other == all[i] ? 1 : 0;
+            }
+            ranks[i] = below + (equal + 1) / 2;
+        }
+        double smaller = 0, total = 0;
+        for (int mask = 0; mask < (1 << n); mask++) {
+            if (Integer.bitCount(mask) != n1) {
+                continue;
+            }
+            double rankSum = 0;
+            for (int i = 0; i < n; i++) {
+                rankSum += (mask >> i & 1) == 1 ? ranks[i] : 0;
+            }
+            final double permutedU = rankSum - n1 * (n1 + 1) / 2.0;
+            smaller += permutedU < u ? 1 : permutedU == u ? 0.5 : 0;
+            total++;
+        }
+        return smaller / total;
+    }
+
+    @Test(dataProvider = "exactPTestData")
+    public void testExactPAgainstEnumeration(final double[] series1, final double[] series2) {
+        final MannWhitneyU.Result test = rst.test(series1.clone(), series2.clone(), MannWhitneyU.TestType.FIRST_DOMINATES);
+        Assert.assertEquals(test.getP(), bruteForceExactP(series1, series2, test.getU()), 1e-12);
+        // the second time the null distribution comes from the cache
+        Assert.assertEquals(rst.test(series1.clone(), series2.clone(), MannWhitneyU.TestType.FIRST_DOMINATES).getP(), test.getP());
+    }
+
+    @Test
+    public void testExactTwoSidedWithAsymmetricTies() {
+        // U for the second series is not a possible value of U for the first one
+        final MannWhitneyU.Result test = rst.test(new double[] {0, 1}, new double[] {0, 0, 0}, MannWhitneyU.TestType.TWO_SIDED);
+        Assert.assertFalse(Double.isNaN(test.getP()));
+    }
+
     @Test
     public void testTooManyTies(){
-        ArrayList<Integer> listOfNumberOfTies = new ArrayList<>(Arrays.asList(26,3,6,4,13,18,29,36,60,58,87,63,98,125,158,185,193,171,17592,115,100,141,216,298,451,719,1060,1909,3210,5167,7135,10125,11035,3541,732,9));
-        Assert.assertEquals(rst.transformTies(64890, listOfNumberOfTies), 8.41378729572e+12);
+        final int[] numberOfTies = {26,3,6,4,13,18,29,36,60,58,87,63,98,125,158,185,193,171,17592,115,100,141,216,298,451,719,1060,1909,3210,5167,7135,10125,11035,3541,732,9};
+        // one run of tied values per element of numberOfTies, split between the series, plus two untied values
+        final DoubleArrayList series1 = new DoubleArrayList();
+        final DoubleArrayList series2 = new DoubleArrayList();
+        for (int i = 0; i < numberOfTies.length; i++) {
+            for (int j = 0; j < numberOfTies[i]; j++) {
+                (j % 2 == 0 ? series1 : series2).add(i);
+            }
+        }
+        series1.add(-1);
+        series2.add(numberOfTies.length);
+        Assert.assertEquals(series1.size() + series2.size(), 64890);
+        Assert.assertEquals(rst.calculateU1andU2(series1.toDoubleArray(), series2.toDoubleArray()).getTies(), 8.41378729572e+12);
+    }
+
+    @Test
+    public void testAllTiedValuesAreNotCountedAsTies(){
+        Assert.assertEquals(rst.calculateU1andU2(new double[] {3, 3, 3}, new double[] {3, 3}).getTies(), 0.0);
+        Assert.assertEquals(rst.calculateU1andU2(new double[] {3, 3, 3}, new double[] {3, 4}).getTies(), 60.0);
     }
 
     @DataProvider(name = "DistributionData")
@@ -5,6 +5,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.common.primitives.Ints;
+import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.samtools.util.Log.LogLevel;
 import org.apache.commons.io.FileUtils;
 import org.apache.logging.log4j.Level;
@@ -17,7 +18,11 @@ import org.testng.annotations.Test;
 import java.io.File;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static java.util.Arrays.asList;
 import static org.testng.Assert.assertEquals;
@@ -94,6 +99,158 @@ public final class UtilsUnitTest extends GATKBaseTest {
         Assert.assertEquals(lst, Arrays.asList(1,2,3));
     }
 
+    @Test(expectedExceptions = NumberFormatException.class)
+    public void testTransformInParallelRethrowsExceptions() throws Exception {
+        final Iterator<String> it= Arrays.asList("1", "two", "3").iterator();
+        final Iterator<Integer> objectIterator = Utils.transformParallel(it, Integer::parseInt, 2);
+        Lists.newArrayList(objectIterator);
+    }
+
+    @DataProvider(name = "parallelTransformSizes")
+    public Object[][] parallelTransformSizes() {
+        return new Object[][]{{0, 3}, {1, 3}, {3, 3}, {10, 3}, {10, 1}, {100, 7}};
+    }
+
+    @Test(dataProvider = "parallelTransformSizes")
+    public void testFlatTransformParallelPreservesOrder(final int size, final int maxInFlight) {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final Random random = new Random(size);
+            final List<Integer> sleeps = IntStream.range(0, size).map(i -> random.nextInt(3)).boxed().collect(Collectors.toList());
+            // each element is transformed to zero, one or two results, after a random delay so that tasks complete out of order
+            final Iterator<Integer> iterator = Utils.flatTransformParallel(IntStream.range(0, size).iterator(), i -> {
+                try {
+                    Thread.sleep(sleeps.get(i));
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return i % 3 == 0 ? Collections.<Integer>emptyList() : i % 3 == 1 ? Collections.singletonList(i) : Arrays.asList(i, -i);
+            }, maxInFlight, executor);
+
+            final List<Integer> expected = IntStream.range(0, size)
+                    .boxed()
+                    .flatMap(i -> i % 3 == 0 ? IntStream.empty().boxed() : i % 3 == 1 ? IntStream.of(i).boxed() : IntStream.of(i, -i).boxed())
+                    .collect(Collectors.toList());
+            Assert.assertEquals(Lists.newArrayList(iterator), expected);
+            Assert.assertFalse(iterator.hasNext());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testChainedParallelTransformsShareExecutor() {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            // a stage consuming another stage on the same executor must not deadlock
+            final Iterator<Integer> first = Utils.transformParallel(IntStream.range(0, 100).iterator(), i -> i * 2, 8, executor);
+            final Iterator<Integer> second = Utils.transformParallel(first, i -> i + 1, 8, executor);
+            Assert.assertEquals(Lists.newArrayList(second), IntStream.range(0, 100).map(i -> i * 2 + 1).boxed().collect(Collectors.toList()));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCloseParallelTransform() {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final AtomicInteger running = new AtomicInteger();
+            final CloseableIterator<Integer> iterator = Utils.transformParallel(IntStream.range(0, 50).iterator(), i -> {
+                running.incrementAndGet();
+                try {
+                    Thread.sleep(1);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                return i;
+            }, 4, executor);
+            Assert.assertEquals(iterator.next().intValue(), 0);
+            iterator.close();
+            Assert.assertEquals(running.get(), 0, "the function is still running after the iterator was closed");
+            Assert.assertFalse(iterator.hasNext());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expectedExceptions = NoSuchElementException.class)
+    public void testParallelTransformExhausted() {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Utils.transformParallel(Collections.<Integer>emptyIterator(), i -> i, 4, executor).next();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testParallelTransformRethrowsExceptions() {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Utils.transformParallel(IntStream.range(0, 10).iterator(), i -> {
+                throw new IllegalStateException("transformation failed");
+            }, 4, executor).hasNext();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(dataProvider = "parallelTransformSizes")
+    public void testPrefetchParallelPreservesOrder(final int size, final int batchSize) {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final List<Integer> values = IntStream.range(0, size).boxed().collect(Collectors.toList());
+            final Iterator<Integer> iterator = Utils.prefetchParallel(values.iterator(), batchSize, executor);
+            Assert.assertEquals(Lists.newArrayList(iterator), values);
+            Assert.assertFalse(iterator.hasNext());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testManyPrefetchesShareExecutor() {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // more iterators than threads must not deadlock
+            final List<Iterator<Integer>> iterators = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                iterators.add(Utils.prefetchParallel(IntStream.range(0, 50).iterator(), 4, executor));
+            }
+            for (int value = 0; value < 50; value++) {
+                for (final Iterator<Integer> iterator : iterators) {
+                    Assert.assertEquals(iterator.next().intValue(), value);
+                }
+            }
+            iterators.forEach(iterator -> Assert.assertFalse(iterator.hasNext()));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testPrefetchParallelRethrowsExceptions() {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final Iterator<Integer> failing = new Iterator<Integer>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                throw new IllegalStateException("decoding failed");
+            }
+        };
+        try {
+            Utils.prefetchParallel(failing, 4, executor).hasNext();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Test
     public void testXor()  {
         Assert.assertEquals(Utils.xor(false, false), false);
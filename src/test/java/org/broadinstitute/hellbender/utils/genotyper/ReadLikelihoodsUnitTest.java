@@ -98,6 +98,66 @@ public final class ReadLikelihoodsUnitTest {
         }
     }
 
+    @Test(dataProvider = "dataSets")
+    public void testBestAllelesAreSharedUntilModified(final String[] samples, final Allele[] alleles, final Map<String,List<GATKRead>> reads) {
+        final ReadLikelihoods<Allele> original = new ReadLikelihoods<>(new IndexedSampleList(samples), new IndexedAlleleList<>(alleles), reads);
+        fillWithRandomLikelihoods(samples,alleles,original);
+        if (alleles.length == 0 || samples.length == 0 || original.sampleReadCount(0) == 0) {
+            return;
+        }
+        final Collection<ReadLikelihoods<Allele>.BestAllele> bestAlleles = original.bestAlleles();
+        final Collection<ReadLikelihoods<Allele>.BestAllele> sampleBestAlleles = original.bestAlleles(samples[0]);
+        Assert.assertSame(original.bestAlleles(), bestAlleles);
+        Assert.assertSame(original.bestAlleles(samples[0]), sampleBestAlleles);
+
+        // make the last allele by far the best for the first read of the first sample
+        final int lastAllele = alleles.length - 1;
+        original.sampleMatrix(0).set(lastAllele, 0, 100.0);
+        final ReadLikelihoods<Allele>.BestAllele firstBestAllele = original.bestAlleles(samples[0]).iterator().next();
+        Assert.assertEquals(firstBestAllele.allele, alleles[lastAllele]);
+        Assert.assertEquals(firstBestAllele.likelihood, 100.0);
+        Assert.assertNotSame(original.bestAlleles(), bestAlleles);
+        Assert.assertEquals(original.bestAlleles().size(), bestAlleles.size());
+
+        final GATKRead firstRead = original.sampleReads(0).get(0);
+        original.removeSampleReads(0, new ArrayList<>(Collections.singletonList(firstRead)), alleles.length);
+        Assert.assertEquals(original.bestAlleles(samples[0]).size(), original.sampleReadCount(0));
+        Assert.assertEquals(original.bestAlleles().size(), original.readCount());
+    }
+
+    @Test(dataProvider = "dataSets")
+    public void testInformativeStrandCounts(final String[] samples, final Allele[] alleles, final Map<String,List<GATKRead>> reads) {
+        final ReadLikelihoods<Allele> original = new ReadLikelihoods<>(new IndexedSampleList(samples), new IndexedAlleleList<>(alleles), reads);
+        fillWithRandomLikelihoods(samples,alleles,original);
+        if (alleles.length == 0) {
+            return;
+        }
+        for (final String sample : samples) {
+            final int[] expected = new int[2 * alleles.length];
+            for (final ReadLikelihoods<Allele>.BestAllele bestAllele : original.bestAlleles(sample)) {
+                if (bestAllele.isInformative()) {
+                    expected[2 * original.indexOfAllele(bestAllele.allele) + (bestAllele.read.isReverseStrand() ? 1 : 0)]++;
+                }
+            }
+            Assert.assertEquals(original.informativeStrandCounts(sample), expected);
+        }
+        if (samples.length == 0 || original.sampleReadCount(0) == 0) {
+            return;
+        }
+
+        // a modification of the likelihoods changes the counts
+        final int lastAllele = alleles.length - 1;
+        final int[] counts = original.informativeStrandCounts(samples[0]);
+        final ReadLikelihoods<Allele>.BestAllele firstBestAllele = original.bestAlleles(samples[0]).iterator().next();
+        final int strand = firstBestAllele.read.isReverseStrand() ? 1 : 0;
+        if (firstBestAllele.isInformative()) {
+            counts[2 * original.indexOfAllele(firstBestAllele.allele) + strand]--;
+        }
+        original.sampleMatrix(0).set(lastAllele, 0, 100.0);
+        counts[2 * lastAllele + strand]++;
+        Assert.assertEquals(original.informativeStrandCounts(samples[0]), counts);
+    }
+
     @Test(dataProvider = "dataSets")
     public void testBestAlleleMap(final String[] samples, final Allele[] alleles, final Map<String,List<GATKRead>> reads) {
         final ReadLikelihoods<Allele> original = new ReadLikelihoods<>(new IndexedSampleList(samples), new IndexedAlleleList<>(alleles), reads);
@@ -0,0 +1,122 @@
+package org.broadinstitute.hellbender.utils.read;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.ValidationStringency;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+public final class ReadCoordinateSortKeyUnitTest extends GATKBaseTest {
+
+    private static final String INPUT_BAM = publicTestDir + "org/broadinstitute/hellbender/tools/BQSR/CEUTrio.HiSeq.WGS.b37.ch20.1m-1m1k.NA12878.bam";
+
+    private static SamReader openInput() {
+        return SamReaderFactory.makeDefault().validationStringency(ValidationStringency.SILENT).open(new File(INPUT_BAM));
+    }
+
+    private static SAMFileHeader readHeader() throws IOException {
+        try ( final SamReader reader = openInput() ) {
+            return reader.getFileHeader();
+        }
+    }
+
+    /**
+     * @return headerless copies of the reads of the input (which include unmapped reads placed with their mates), along
+     * with unplaced copies of some of them, in random order
+     */
+    private static List<SAMRecord> readHeaderlessRecords() throws IOException {
+        final List<SAMRecord> records = new ArrayList<>();
+        try ( final SamReader reader = openInput() ) {
+            for ( final SAMRecord read : reader ) {
+                final SAMRecord copy = read.deepCopy();
+                copy.setHeaderStrict(null);
+                // Clear the indexing bin so that it doesn't affect equality checks
+                copy.setFlags(copy.getFlags());
+                records.add(copy);
+            }
+        }
+        final List<SAMRecord> unplaced = new ArrayList<>();
+        for ( int i = 0; i < records.size(); i += 10 ) {
+            final SAMRecord copy = records.get(i).deepCopy();
+            copy.setReadUnmappedFlag(true);
+            copy.setReferenceName(SAMRecord.NO_ALIGNMENT_REFERENCE_NAME);
+            copy.setAlignmentStart(SAMRecord.NO_ALIGNMENT_START);
+            copy.setCigarString(SAMRecord.NO_ALIGNMENT_CIGAR);
+            copy.setMappingQuality(SAMRecord.NO_MAPPING_QUALITY);
+            copy.setReadName(copy.getReadName() + (i % 20 == 0 ? "" : "_unplaced"));
+            unplaced.add(copy);
+        }
+        records.addAll(unplaced);
+        Collections.shuffle(records, new Random(42));
+        return records;
+    }
+
+    @Test
+    public void testKeysMatchSAMRecordComparator() throws IOException {
+        final SAMFileHeader header = readHeader();
+        final List<SAMRecord> records = readHeaderlessRecords();
+        records.sort(new HeaderlessSAMRecordCoordinateComparator(header));
+
+        final List<ReadCoordinateSortKey> keys = records.stream().map(read -> ReadCoordinateSortKey.of(read, header)).collect(Collectors.toList());
+        assertSorted(keys);
+    }
+
+    @Test
+    public void testKeysMatchReadComparator() throws IOException {
+        final SAMFileHeader header = readHeader();
+        final List<GATKRead> reads = readHeaderlessRecords().stream().map(SAMRecordToGATKReadAdapter::headerlessReadAdapter).collect(Collectors.toList());
+        reads.sort(new ReadCoordinateComparator(header));
+
+        final List<ReadCoordinateSortKey> keys = reads.stream().map(read -> ReadCoordinateSortKey.of(read, header)).collect(Collectors.toList());
+        assertSorted(keys);
+    }
+
+    private static void assertSorted(final List<ReadCoordinateSortKey> keys) {
+        int distinctKeys = 1;
+        for ( int i = 1; i < keys.size(); i++ ) {
+            final int comparison = keys.get(i - 1).compareTo(keys.get(i));
+            Assert.assertTrue(comparison <= 0, keys.get(i - 1) + " > " + keys.get(i));
+            Assert.assertEquals(comparison == 0, keys.get(i - 1).equals(keys.get(i)));
+            if ( comparison < 0 ) {
+                distinctKeys++;
+            }
+        }
+        // only reads at the same position on the same strand share a key, and unplaced reads are told apart by name
+        Assert.assertTrue(distinctKeys > keys.size() / 2, distinctKeys + " distinct keys for " + keys.size() + " reads");
+    }
+
+    @Test
+    public void testKeyOrdering() {
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader(3, 1, 1000000);
+        final GATKRead first = ArtificialReadUtils.createArtificialRead(header, "b", 0, 1000000, 10);
+        final GATKRead reverse = ArtificialReadUtils.createArtificialRead(header, "a", 0, 1000000, 10);
+        reverse.setIsReverseStrand(true);
+        final GATKRead nextContig = ArtificialReadUtils.createArtificialRead(header, "a", 1, 1, 10);
+        final GATKRead unplaced = ArtificialReadUtils.createArtificialUnmappedRead(header, new byte[] {'A'}, new byte[] {30});
+        unplaced.setName("a");
+        final GATKRead otherUnplaced = ArtificialReadUtils.createArtificialUnmappedRead(header, new byte[] {'A'}, new byte[] {30});
+        otherUnplaced.setName("b");
+
+        final List<ReadCoordinateSortKey> keys = new ArrayList<>();
+        for ( final GATKRead read : new GATKRead[] {first, reverse, nextContig, unplaced, otherUnplaced} ) {
+            keys.add(ReadCoordinateSortKey.of(read, header));
+        }
+        for ( int i = 1; i < keys.size(); i++ ) {
+            Assert.assertTrue(keys.get(i - 1).compareTo(keys.get(i)) < 0, keys.get(i - 1) + " >= " + keys.get(i));
+            Assert.assertTrue(keys.get(i).compareTo(keys.get(i - 1)) > 0, keys.get(i) + " <= " + keys.get(i - 1));
+        }
+        Assert.assertEquals(ReadCoordinateSortKey.of(first, header), ReadCoordinateSortKey.of(first.copy(), header));
+        Assert.assertEquals(ReadCoordinateSortKey.of(first, header).hashCode(), ReadCoordinateSortKey.of(first.copy(), header).hashCode());
+    }
+}
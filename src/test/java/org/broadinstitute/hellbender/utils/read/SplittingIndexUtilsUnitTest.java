@@ -0,0 +1,78 @@
+package org.broadinstitute.hellbender.utils.read;
+
+import htsjdk.samtools.BAMFileSpan;
+import htsjdk.samtools.Chunk;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.seqdoop.hadoop_bam.SplittingBAMIndex;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+public final class SplittingIndexUtilsUnitTest extends GATKBaseTest {
+
+    // 16 reads, the last 5 of which are unmapped
+    private static final Path TEST_BAM = IOUtils.getPath(publicTestDir + "org/broadinstitute/hellbender/engine/reads_data_source_test1_with_unmapped.bam");
+
+    private static Path copyTestBam() throws IOException {
+        final Path copy = createTempDir("splittingIndex").toPath().resolve(TEST_BAM.getFileName().toString());
+        Files.copy(TEST_BAM, copy);
+        return copy;
+    }
+
+    @Test
+    public void testGetSplittingIndexPath() {
+        Assert.assertEquals(SplittingIndexUtils.getSplittingIndexPath(IOUtils.getPath("/foo/bar.bam")), IOUtils.getPath("/foo/bar.bam.splitting-bai"));
+    }
+
+    @Test
+    public void testSplitsAreContiguous() throws IOException {
+        final Path bam = copyTestBam();
+        final List<Chunk> splits = SplittingIndexUtils.getSplits(SplittingIndexUtils.getOrCreateSplittingIndex(bam, 3));
+        // one split per 3 reads
+        Assert.assertEquals(splits.size(), 6);
+        for (int i = 1; i < splits.size(); i++) {
+            Assert.assertEquals(splits.get(i).getChunkStart(), splits.get(i - 1).getChunkEnd());
+        }
+        try (final SamReader reader = SamReaderFactory.makeDefault().open(bam)) {
+            // the first split starts with the first read
+            Assert.assertEquals(splits.get(0).getChunkStart(), ((BAMFileSpan) reader.indexing().getFilePointerSpanningReads()).toCoordinateArray()[0]);
+        }
+        Assert.assertEquals(splits.get(splits.size() - 1).getChunkEnd(), Files.size(bam) << 16);
+    }
+
+    @Test
+    public void testSplittingIndexIsCached() throws IOException {
+        final Path bam = copyTestBam();
+        final Path index = SplittingIndexUtils.getSplittingIndexPath(bam);
+        Assert.assertFalse(Files.exists(index));
+
+        final SplittingBAMIndex created = SplittingIndexUtils.getOrCreateSplittingIndex(bam, 2);
+        Assert.assertTrue(Files.exists(index));
+        // every other read, the end of the reads (since 16 is a multiple of 2) and the end of the file
+        Assert.assertEquals(created.size(), 10);
+        // no temporary files are left behind
+        Assert.assertEquals(bam.getParent().toFile().list().length, 2);
+
+        // an up-to-date index is reused, whatever the requested granularity
+        Assert.assertEquals(SplittingIndexUtils.getOrCreateSplittingIndex(bam, 5), created);
+
+        // an index older than the BAM is recreated
+        Files.setLastModifiedTime(index, FileTime.fromMillis(Files.getLastModifiedTime(bam).toMillis() - 10000));
+        final SplittingBAMIndex recreated = SplittingIndexUtils.getOrCreateSplittingIndex(bam, 5);
+        Assert.assertEquals(recreated.size(), 5);
+        Assert.assertEquals(SplittingIndexUtils.getOrCreateSplittingIndex(bam, 2), recreated);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidGranularity() throws IOException {
+        SplittingIndexUtils.getOrCreateSplittingIndex(copyTestBam(), 0);
+    }
+}
@@ -9,13 +9,25 @@ import org.broadinstitute.hellbender.engine.ReadsDataSource;
 import org.broadinstitute.hellbender.engine.spark.SparkContextFactory;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.HeaderlessSAMRecordCoordinateComparator;
+import org.broadinstitute.hellbender.utils.read.ReadCoordinateComparator;
+import org.broadinstitute.hellbender.utils.read.ReadCoordinateSortKey;
+import org.broadinstitute.hellbender.utils.read.SAMRecordToGATKReadAdapter;
 import org.broadinstitute.hellbender.GATKBaseTest;
 import org.broadinstitute.hellbender.utils.test.MiniClusterUtils;
 import org.testng.Assert;
 import org.testng.annotations.Test;
+import scala.Tuple2;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
 
 public class SparkUtilsUnitTest extends GATKBaseTest {
 
@@ -71,4 +83,75 @@ public class SparkUtilsUnitTest extends GATKBaseTest {
         });
 
     }
+
+    // includes unmapped reads placed with their mates
+    private static final File SORT_INPUT = new File(publicTestDir + "org/broadinstitute/hellbender/tools/BQSR/CEUTrio.HiSeq.WGS.b37.ch20.1m-1m1k.NA12878.bam");
+
+    private static List<SAMRecord> readHeaderlessRecords(final SamReader reader) {
+        final List<SAMRecord> records = new ArrayList<>();
+        for ( final SAMRecord read : reader ) {
+            read.setHeaderStrict(null);
+            // Clear the indexing bin so that it doesn't affect the equality checks
+            read.setFlags(read.getFlags());
+            records.add(read);
+        }
+        // make some of the reads unplaced
+        for ( int i = 0; i < records.size(); i += 7 ) {
+            final SAMRecord read = records.get(i);
+            read.setReadUnmappedFlag(true);
+            read.setReferenceName(SAMRecord.NO_ALIGNMENT_REFERENCE_NAME);
+            read.setAlignmentStart(SAMRecord.NO_ALIGNMENT_START);
+            read.setCigarString(SAMRecord.NO_ALIGNMENT_CIGAR);
+        }
+        Collections.shuffle(records, new Random(13));
+        return records;
+    }
+
+    @Test
+    public void testCoordinateSortReads() throws IOException {
+        final JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
+        try ( final SamReader reader = SamReaderFactory.makeDefault().validationStringency(ValidationStringency.SILENT).open(SORT_INPUT) ) {
+            final SAMFileHeader header = reader.getFileHeader();
+            final List<GATKRead> reads = readHeaderlessRecords(reader).stream().map(SAMRecordToGATKReadAdapter::headerlessReadAdapter).collect(Collectors.toList());
+
+            final List<GATKRead> expected = new ArrayList<>(reads);
+            expected.sort(new ReadCoordinateComparator(header));
+            for ( final int numReducers : Arrays.asList(0, 1, 5) ) {
+                final List<GATKRead> actual = SparkUtils.coordinateSortReads(ctx.parallelize(reads, 4), header, numReducers).collect();
+                Assert.assertEquals(actual, expected, "numReducers = " + numReducers);
+            }
+        }
+    }
+
+    @Test
+    public void testSortReadsInCoordinateOrder() throws IOException {
+        final JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
+        try ( final SamReader reader = SamReaderFactory.makeDefault().validationStringency(ValidationStringency.SILENT).open(SORT_INPUT) ) {
+            final SAMFileHeader header = reader.getFileHeader();
+            final List<SAMRecord> reads = readHeaderlessRecords(reader);
+
+            final List<SAMRecord> expected = new ArrayList<>(reads);
+            expected.sort(new HeaderlessSAMRecordCoordinateComparator(header));
+            final List<SAMRecord> actual = SparkUtils.sortReads(ctx.parallelize(reads, 4), header, 5).collect();
+            Assert.assertEquals(actual, expected);
+        }
+    }
+
+    @Test
+    public void testSortReadsWithEqualKeys() {
+        final ReadCoordinateSortKey key1 = ReadCoordinateSortKey.of(
+                SAMRecordToGATKReadAdapter.headerlessReadAdapter(new SAMRecord(null)), new SAMFileHeader());
+        final GATKRead placed = SAMRecordToGATKReadAdapter.headerlessReadAdapter(new SAMRecord(null));
+        placed.setName("placed");
+        final SAMFileHeader header = new SAMFileHeader();
+        header.addSequence(new SAMSequenceRecord("1", 100));
+        placed.setPosition("1", 10);
+        final ReadCoordinateSortKey key2 = ReadCoordinateSortKey.of(placed, header);
+
+        final List<Tuple2<ReadCoordinateSortKey, Integer>> sortedByKey = Arrays.asList(
+                new Tuple2<>(key2, 3), new Tuple2<>(key2, 1), new Tuple2<>(key2, 2), new Tuple2<>(key1, 5), new Tuple2<>(key1, 4));
+        final List<Integer> actual = new ArrayList<>();
+        SparkUtils.sortReadsWithEqualKeys(sortedByKey.iterator(), Comparator.<Integer>naturalOrder()).forEachRemaining(actual::add);
+        Assert.assertEquals(actual, Arrays.asList(1, 2, 3, 4, 5));
+    }
 }